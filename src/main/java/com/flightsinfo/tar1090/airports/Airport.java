@@ -0,0 +1,13 @@
+package com.flightsinfo.tar1090.airports;
+
+/**
+ * @param ident     ICAO code or other identifier, e.g. {@code LSZH}
+ * @param iata      IATA code, {@code null} if none
+ * @param name      name of the airport
+ * @param type      type as in the OurAirports data, e.g. {@code large_airport}
+ * @param latitude  latitude in degrees
+ * @param longitude longitude in degrees
+ * @param elevation elevation in meters, {@code NaN} if unknown
+ */
+public record Airport(String ident, String iata, String name, String type, double latitude, double longitude, double elevation) {
+}
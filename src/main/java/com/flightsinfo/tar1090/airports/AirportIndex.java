@@ -0,0 +1,165 @@
+package com.flightsinfo.tar1090.airports;
+
+import com.flightsinfo.tar1090.geo.SpatialGrid;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of airports for nearest airport lookups, loaded from a CSV file in the format of the OurAirports
+ * {@code airports.csv}: a header line naming the columns {@code ident}, {@code type}, {@code name},
+ * {@code latitude_deg}, {@code longitude_deg} and optionally {@code elevation_ft} and {@code iata_code}.
+ * <p>
+ * Each airport is added to every cell of a {@link SpatialGrid} within {@code radius} of it, so a lookup only measures
+ * the distance to the few airports of one cell.
+ */
+public final class AirportIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final double METERS_PER_FOOT = 0.3048;
+
+    private final double radius;
+    private final SpatialGrid<Airport> grid = new SpatialGrid<>(0.5);
+    private final Map<String, Airport> byIdent = new HashMap<>();
+
+    /**
+     * @param radius maximum distance in km of an aircraft from the airport it is matched to
+     */
+    public AirportIndex(double radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * @param types types of airports to load, all if empty
+     * @return index of the airports read from the CSV
+     */
+    public static AirportIndex load(Reader reader, double radius, Set<String> types) throws IOException {
+        AirportIndex index = new AirportIndex(radius);
+        BufferedReader in = new BufferedReader(reader, 1 << 16);
+        String header = in.readLine();
+        if (header == null) {
+            throw new IOException("Empty airport file");
+        }
+        List<String> columns = parseLine(header);
+        int ident = column(columns, "ident");
+        int type = column(columns, "type");
+        int name = column(columns, "name");
+        int latitude = column(columns, "latitude_deg");
+        int longitude = column(columns, "longitude_deg");
+        int elevation = columns.indexOf("elevation_ft");
+        int iata = columns.indexOf("iata_code");
+        int lineNumber = 1;
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseLine(line);
+            if (fields.size() < columns.size()) {
+                throw new IOException("Line " + lineNumber + " has " + fields.size() + " of " + columns.size() + " columns");
+            }
+            if (!types.isEmpty() && !types.contains(fields.get(type))) {
+                continue;
+            }
+            try {
+                String elevationFeet = elevation < 0 ? "" : fields.get(elevation);
+                String iataCode = iata < 0 ? "" : fields.get(iata);
+                index.add(new Airport(fields.get(ident), iataCode.isEmpty() ? null : iataCode, fields.get(name), fields.get(type),
+                        Double.parseDouble(fields.get(latitude)), Double.parseDouble(fields.get(longitude)),
+                        elevationFeet.isEmpty() ? Double.NaN : Double.parseDouble(elevationFeet) * METERS_PER_FOOT));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid number in line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    public void add(Airport airport) {
+        double dLat = radius / KM_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(Math.min(89, Math.abs(airport.latitude()))));
+        double dLon = Math.min(180, dLat / cos);
+        grid.add(airport, airport.latitude() - dLat, airport.latitude() + dLat, airport.longitude() - dLon, airport.longitude() + dLon);
+        byIdent.put(airport.ident(), airport);
+    }
+
+    /**
+     * @return nearest airport within the radius of the index, {@code null} if there is none
+     */
+    public Airport nearest(double latitude, double longitude) {
+        Airport result = null;
+        double best = radius;
+        for (Airport airport : grid.candidates(latitude, longitude)) {
+            double distance = distance(latitude, longitude, airport.latitude(), airport.longitude());
+            if (distance <= best) {
+                best = distance;
+                result = airport;
+            }
+        }
+        return result;
+    }
+
+    public Airport get(String ident) {
+        return byIdent.get(ident);
+    }
+
+    public int size() {
+        return byIdent.size();
+    }
+
+    /**
+     * @return great circle distance in km
+     */
+    static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int column(List<String> columns, String name) throws IOException {
+        int index = columns.indexOf(name);
+        if (index < 0) {
+            throw new IOException("Airport file has no column " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Split a CSV line, with fields optionally quoted and quotes escaped by doubling them.
+     */
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
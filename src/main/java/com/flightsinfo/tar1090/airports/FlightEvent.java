@@ -0,0 +1,17 @@
+package com.flightsinfo.tar1090.airports;
+
+import com.flightsinfo.tar1090.model.StateVector;
+
+/**
+ * @param type    departure or arrival
+ * @param airport airport nearest to the aircraft when it left or reached the ground
+ * @param time    time of the snapshot in which the transition was seen, seconds since epoch
+ * @param state   state of the aircraft in that snapshot
+ */
+public record FlightEvent(Type type, Airport airport, int time, StateVector state) {
+
+    public enum Type {
+        DEPARTURE,
+        ARRIVAL
+    }
+}
@@ -0,0 +1,149 @@
+package com.flightsinfo.tar1090.airports;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Infers departures and arrivals from the live states, without calling {@code /flights/departure} or
+ * {@code /flights/arrival}.
+ * <p>
+ * The on-ground state of every aircraft is kept from one snapshot to the next. When it flips, a position is matched
+ * against the {@link AirportIndex}: leaving the ground near an airport is a departure, reaching it an arrival. An
+ * aircraft which just took off may be far from the runway by the next poll, so departures are matched with the last
+ * position on the ground, arrivals with the first one. Events are therefore emitted one poll after the transition at
+ * the latest. The on-ground flag of some transponders flickers,
+ * so the same event at the same airport is not repeated within {@code debounce}. Aircraft not seen for
+ * {@code expiry} are forgotten.
+ * <p>
+ * Events are counted as {@code opensky.flight.events}, tagged with the {@code type}.
+ */
+public class FlightEventDetector implements SnapshotListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightEventDetector.class);
+
+    private final AirportIndex airports;
+    private final long debounce;
+    private final long expiry;
+    private final List<FlightEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Track> tracks = new HashMap<>();
+    private final Counter departures;
+    private final Counter arrivals;
+
+    public FlightEventDetector(AirportIndex airports, Duration debounce, Duration expiry, MeterRegistry registry) {
+        this.airports = airports;
+        this.debounce = debounce.toSeconds();
+        this.expiry = expiry.toSeconds();
+        this.departures = counter(FlightEvent.Type.DEPARTURE, registry);
+        this.arrivals = counter(FlightEvent.Type.ARRIVAL, registry);
+    }
+
+    public void addListener(FlightEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return number of aircraft tracked
+     */
+    public synchronized int size() {
+        return tracks.size();
+    }
+
+    @Override
+    public synchronized void onSnapshot(IndexedSnapshot snapshot) {
+        int now = snapshot.getTime();
+        for (int i = 0; i < snapshot.size(); i++) {
+            StateVector sv = snapshot.get(i);
+            Track track = tracks.get(sv.getIcao24());
+            if (track == null) {
+                tracks.put(sv.getIcao24(), new Track(sv, now));
+                continue;
+            }
+            if (track.onGround != sv.isOnGround()) {
+                transition(track, sv, now);
+            }
+            track.onGround = sv.isOnGround();
+            track.lastSeen = now;
+            if (sv.getLatitude() != null && sv.getLongitude() != null) {
+                track.latitude = sv.getLatitude();
+                track.longitude = sv.getLongitude();
+            }
+        }
+        for (Iterator<Track> it = tracks.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastSeen > expiry) {
+                it.remove();
+            }
+        }
+    }
+
+    private void transition(Track track, StateVector sv, int now) {
+        FlightEvent.Type type = sv.isOnGround() ? FlightEvent.Type.ARRIVAL : FlightEvent.Type.DEPARTURE;
+        // the position on the ground, the other one of the transition if that is unknown
+        boolean current = sv.getLatitude() != null && sv.getLongitude() != null
+                && (type == FlightEvent.Type.ARRIVAL || Double.isNaN(track.latitude));
+        double lat = current ? sv.getLatitude() : track.latitude;
+        double lon = current ? sv.getLongitude() : track.longitude;
+        if (Double.isNaN(lat) || Double.isNaN(lon)) {
+            return;
+        }
+        Airport airport = airports.nearest(lat, lon);
+        if (airport == null) {
+            return;
+        }
+        int t = type.ordinal();
+        if (airport == track.lastAirport[t] && now - track.lastEvent[t] < debounce) {
+            return;
+        }
+        track.lastAirport[t] = airport;
+        track.lastEvent[t] = now;
+        (type == FlightEvent.Type.ARRIVAL ? arrivals : departures).increment();
+        FlightEvent event = new FlightEvent(type, airport, now, sv);
+        for (FlightEventListener listener : listeners) {
+            try {
+                listener.onFlightEvent(event);
+            } catch (RuntimeException e) {
+                logger.error("Flight event listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private static Counter counter(FlightEvent.Type type, MeterRegistry registry) {
+        return Counter.builder("opensky.flight.events")
+                .description("Departures and arrivals inferred from on-ground transitions")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+
+    private static final class Track {
+        boolean onGround;
+        int lastSeen;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        /**
+         * Airport and time of the last event, by ordinal of the type
+         */
+        final Airport[] lastAirport = new Airport[2];
+        final int[] lastEvent = new int[2];
+
+        Track(StateVector sv, int now) {
+            this.onGround = sv.isOnGround();
+            this.lastSeen = now;
+            if (sv.getLatitude() != null && sv.getLongitude() != null) {
+                this.latitude = sv.getLatitude();
+                this.longitude = sv.getLongitude();
+            }
+        }
+    }
+}
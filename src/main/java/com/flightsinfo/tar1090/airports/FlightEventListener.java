@@ -0,0 +1,11 @@
+package com.flightsinfo.tar1090.airports;
+
+/**
+ * Receives flight events on the publishing thread of the snapshot, see
+ * {@link com.flightsinfo.tar1090.service.SnapshotListener}.
+ */
+@FunctionalInterface
+public interface FlightEventListener {
+
+    void onFlightEvent(FlightEvent event);
+}
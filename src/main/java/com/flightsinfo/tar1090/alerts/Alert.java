@@ -0,0 +1,15 @@
+package com.flightsinfo.tar1090.alerts;
+
+import com.flightsinfo.tar1090.model.StateVector;
+
+/**
+ * @param rule  name of the rule which fired
+ * @param time  time of the snapshot in seconds since epoch
+ * @param state state of the aircraft which triggered the rule, the last known state for {@link AlertEngine#VANISHED}
+ */
+public record Alert(String rule, int time, StateVector state) {
+
+    public String icao24() {
+        return state.getIcao24();
+    }
+}
@@ -0,0 +1,22 @@
+package com.flightsinfo.tar1090.alerts;
+
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.function.Predicate;
+
+/**
+ * Condition of an {@link AlertRule}, evaluated for every aircraft of every snapshot.
+ */
+@FunctionalInterface
+public interface AlertCondition {
+
+    /**
+     * @param current  state in the current snapshot
+     * @param previous state of the same aircraft in the previous snapshot, {@code null} if it was not part of it
+     */
+    boolean test(StateVector current, StateVector previous);
+
+    static AlertCondition of(Predicate<StateVector> predicate) {
+        return (current, previous) -> predicate.test(current);
+    }
+}
@@ -0,0 +1,187 @@
+package com.flightsinfo.tar1090.alerts;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Evaluates {@link AlertRule}s on every snapshot as soon as it is published.
+ * <p>
+ * Every rule is evaluated once per aircraft and snapshot, against the current and the previous state of the aircraft.
+ * Per aircraft only the previous state is kept, plus a bit set of the rules which are currently true and the time of
+ * the last alert per rule, both allocated when a rule first fires for that aircraft. The state of an aircraft missing
+ * from a snapshot is kept for {@code vanishGrace}, so a gap in coverage does not reset its rules. If it was airborne
+ * above {@code vanishMinAltitude} when it was last seen, a {@link #VANISHED} alert is raised once the grace period
+ * passed, and not again for the same aircraft within {@code vanishDebounce}.
+ * <p>
+ * Alerts are counted as {@code opensky.alerts}, tagged with the rule.
+ */
+public class AlertEngine implements SnapshotListener {
+
+    public static final String VANISHED = "vanished";
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertEngine.class);
+
+    private final double vanishMinAltitude;
+    private final long vanishGrace;
+    private final long vanishDebounce;
+    private final MeterRegistry registry;
+    private final List<AlertListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Aircraft> aircraft = new HashMap<>();
+    /**
+     * Time of the last {@link #VANISHED} alert per aircraft, kept for {@code vanishDebounce}
+     */
+    private final Map<String, Integer> vanishedAt = new HashMap<>();
+    private volatile CompiledRule[] rules = new CompiledRule[0];
+    private final Counter vanished;
+
+    /**
+     * @param vanishMinAltitude minimum barometric altitude in m for {@link #VANISHED} alerts, {@code NaN} to disable them
+     * @param vanishGrace       how long an aircraft may be missing from the snapshots before it counts as vanished
+     * @param vanishDebounce    minimum time between two {@link #VANISHED} alerts of the same aircraft
+     */
+    public AlertEngine(double vanishMinAltitude, Duration vanishGrace, Duration vanishDebounce, MeterRegistry registry) {
+        this.vanishMinAltitude = vanishMinAltitude;
+        this.vanishGrace = vanishGrace.toSeconds();
+        this.vanishDebounce = vanishDebounce.toSeconds();
+        this.registry = registry;
+        this.vanished = counter(VANISHED);
+    }
+
+    public synchronized void addRule(AlertRule rule) {
+        CompiledRule[] next = Arrays.copyOf(rules, rules.length + 1);
+        next[rules.length] = new CompiledRule(rule.name(), rule.condition(), rule.debounce().toSeconds(), counter(rule.name()));
+        rules = next;
+    }
+
+    public void addListener(AlertListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return number of aircraft with state
+     */
+    public synchronized int size() {
+        return aircraft.size();
+    }
+
+    @Override
+    public synchronized void onSnapshot(IndexedSnapshot snapshot) {
+        CompiledRule[] rules = this.rules;
+        int now = snapshot.getTime();
+        for (int i = 0; i < snapshot.size(); i++) {
+            StateVector sv = snapshot.get(i);
+            Aircraft state = aircraft.get(sv.getIcao24());
+            if (state == null) {
+                state = new Aircraft();
+                aircraft.put(sv.getIcao24(), state);
+            }
+            for (int r = 0; r < rules.length; r++) {
+                boolean hit = rules[r].condition.test(sv, state.previous);
+                if (hit != state.isActive(r)) {
+                    state.setActive(r, hit);
+                    if (hit && state.mayAlert(r, now, rules[r].debounce)) {
+                        rules[r].counter.increment();
+                        emit(new Alert(rules[r].name, now, sv));
+                    }
+                }
+            }
+            state.previous = sv;
+            state.lastSeen = now;
+        }
+
+        vanishedAt.values().removeIf(time -> (long) now - time >= vanishDebounce);
+        for (Iterator<Aircraft> it = aircraft.values().iterator(); it.hasNext(); ) {
+            Aircraft state = it.next();
+            if ((long) now - state.lastSeen > vanishGrace) {
+                it.remove();
+                String icao24 = state.previous.getIcao24();
+                if (airborne(state.previous) && !vanishedAt.containsKey(icao24)) {
+                    vanishedAt.put(icao24, now);
+                    vanished.increment();
+                    emit(new Alert(VANISHED, now, state.previous));
+                }
+            }
+        }
+    }
+
+    private boolean airborne(StateVector sv) {
+        return !sv.isOnGround() && sv.getBaroAltitude() != null && sv.getBaroAltitude() >= vanishMinAltitude;
+    }
+
+    private void emit(Alert alert) {
+        for (AlertListener listener : listeners) {
+            try {
+                listener.onAlert(alert);
+            } catch (RuntimeException e) {
+                logger.error("Alert listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private Counter counter(String rule) {
+        return Counter.builder("opensky.alerts")
+                .description("Alerts raised")
+                .tag("rule", rule)
+                .register(registry);
+    }
+
+    private record CompiledRule(String name, AlertCondition condition, long debounce, Counter counter) {
+    }
+
+    private static final class Aircraft {
+        StateVector previous;
+        int lastSeen;
+        /**
+         * Rules which are true, {@code null} while none ever was
+         */
+        long[] active;
+        /**
+         * Time of the last alert per rule, {@code null} while none was raised
+         */
+        int[] alerted;
+
+        boolean isActive(int rule) {
+            return active != null && rule < active.length * 64 && (active[rule >>> 6] & (1L << rule)) != 0;
+        }
+
+        void setActive(int rule, boolean value) {
+            if (active == null || rule >= active.length * 64) {
+                active = active == null ? new long[(rule >>> 6) + 1] : Arrays.copyOf(active, (rule >>> 6) + 1);
+            }
+            if (value) {
+                active[rule >>> 6] |= 1L << rule;
+            } else {
+                active[rule >>> 6] &= ~(1L << rule);
+            }
+        }
+
+        boolean mayAlert(int rule, int now, long debounce) {
+            if (alerted == null || rule >= alerted.length) {
+                int[] next = new int[rule + 1];
+                Arrays.fill(next, Integer.MIN_VALUE);
+                if (alerted != null) {
+                    System.arraycopy(alerted, 0, next, 0, alerted.length);
+                }
+                alerted = next;
+            }
+            if (alerted[rule] != Integer.MIN_VALUE && (long) now - alerted[rule] < debounce) {
+                return false;
+            }
+            alerted[rule] = now;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.flightsinfo.tar1090.alerts;
+
+/**
+ * Receives alerts on the publishing thread of the snapshot, see {@link com.flightsinfo.tar1090.service.SnapshotListener}.
+ */
+@FunctionalInterface
+public interface AlertListener {
+
+    void onAlert(Alert alert);
+}
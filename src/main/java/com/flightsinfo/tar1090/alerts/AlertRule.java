@@ -0,0 +1,74 @@
+package com.flightsinfo.tar1090.alerts;
+
+import com.flightsinfo.tar1090.filter.FilterExpression;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * A named condition. An alert is raised when the condition becomes true for an aircraft, and not again for the same
+ * aircraft before {@code debounce} passed, no matter how often the condition flips in between.
+ *
+ * @param name      name of the rule, used in alerts and metrics
+ * @param condition the condition
+ * @param debounce  minimum time between two alerts of this rule for the same aircraft
+ */
+public record AlertRule(String name, AlertCondition condition, Duration debounce) {
+
+    /**
+     * @param expression a {@link FilterExpression}, compiled once
+     * @return rule which is true while the expression matches
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static AlertRule expression(String name, String expression, Duration debounce) {
+        return new AlertRule(name, AlertCondition.of(FilterExpression.parse(expression).compile()), debounce);
+    }
+
+    /**
+     * @return rule for the given squawk codes, e.g. 7500, 7600 and 7700
+     */
+    public static AlertRule squawk(String name, Duration debounce, String... squawks) {
+        Set<String> codes = Set.of(squawks);
+        return new AlertRule(name, AlertCondition.of(sv -> sv.getSquawk() != null && codes.contains(sv.getSquawk())), debounce);
+    }
+
+    /**
+     * @return rule for the special purpose indicator
+     */
+    public static AlertRule spi(Duration debounce) {
+        return new AlertRule("spi", AlertCondition.of(StateVector::isSpi), debounce);
+    }
+
+    /**
+     * @param maxRate maximum vertical rate in m/s, climbing or descending
+     */
+    public static AlertRule verticalRate(double maxRate, Duration debounce) {
+        return new AlertRule("vertical_rate", AlertCondition.of(sv -> {
+            Double rate = sv.getVerticalRate();
+            return rate != null && Math.abs(rate) > maxRate;
+        }), debounce);
+    }
+
+    /**
+     * @param maxChange maximum change in m of the difference between barometric and geometric altitude from one
+     *                  snapshot to the next
+     */
+    public static AlertRule altitudeDivergence(double maxChange, Duration debounce) {
+        return new AlertRule("altitude_divergence", (current, previous) -> {
+            if (previous == null || current.isOnGround()) {
+                return false;
+            }
+            double now = divergence(current);
+            double before = divergence(previous);
+            // NaN if an altitude is missing, which compares false
+            return Math.abs(now - before) > maxChange;
+        }, debounce);
+    }
+
+    private static double divergence(StateVector sv) {
+        Double baro = sv.getBaroAltitude();
+        Double geo = sv.getGeoAltitude();
+        return baro == null || geo == null ? Double.NaN : baro - geo;
+    }
+}
@@ -0,0 +1,244 @@
+package com.flightsinfo.tar1090.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Obtains OAuth2 access tokens with the client credentials grant and keeps a valid one cached, so requests only add
+ * an {@code Authorization: Bearer} header and never wait for the token endpoint.
+ * <p>
+ * A token is refreshed in the background {@code refreshBefore} its expiry, but not before half of its lifetime passed.
+ * Callers only block if there is no valid token at all, e.g. before the first token arrived or after refreshes kept
+ * failing until expiry. Concurrent callers then share a single request to the token endpoint.
+ */
+public class TokenManager implements Closeable {
+
+    public static final URI OPENSKY_TOKEN_URI =
+            URI.create("https://auth.opensky-network.org/auth/realms/opensky-network/protocol/openid-connect/token");
+
+    /**
+     * Delay before retrying a failed background refresh
+     */
+    static final long RETRY_MILLIS = 10_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenManager.class);
+
+    private final URI tokenUri;
+    private final String clientId;
+    private final String clientSecret;
+    private final Duration refreshBefore;
+    private final Clock clock;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Token token;
+    private CompletableFuture<Token> inFlight;
+    private ScheduledFuture<?> scheduled;
+
+    public TokenManager(URI tokenUri, String clientId, String clientSecret) {
+        this(tokenUri, clientId, clientSecret, Duration.ofMinutes(2), Clock.systemUTC());
+    }
+
+    /**
+     * @param refreshBefore how long before its expiry a token is refreshed
+     */
+    public TokenManager(URI tokenUri, String clientId, String clientSecret, Duration refreshBefore, Clock clock) {
+        this.tokenUri = tokenUri;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.refreshBefore = refreshBefore;
+        this.clock = clock;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(10));
+        requestFactory.setReadTimeout(Duration.ofSeconds(30));
+        this.restTemplate = new RestTemplate(requestFactory);
+        // status codes are evaluated in request, so errors are reported as IOException
+        this.restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+
+            @Override
+            public void handleError(URI url, HttpMethod method, ClientHttpResponse response) {
+                // NOP
+            }
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "opensky-token-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Request the first token in the background, so it is usually available before the first API request.
+     */
+    public void start() {
+        scheduler.execute(this::refreshInBackground);
+    }
+
+    /**
+     * @return a valid access token, from the cache unless there is none
+     * @throws IOException if no valid token is cached and the token endpoint failed
+     */
+    public String getToken() throws IOException {
+        Token current = token;
+        if (current != null && clock.millis() < current.expiresAt()) {
+            return current.value();
+        }
+        try {
+            return refresh().join().value();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the cached token, e.g. because the server rejected it. The next call of {@link #getToken()} requests a
+     * new one.
+     *
+     * @param rejected the token which was rejected, a newer token is kept
+     */
+    public void invalidate(String rejected) {
+        Token current = token;
+        if (current != null && current.value().equals(rejected)) {
+            token = null;
+        }
+    }
+
+    /**
+     * @return ms since epoch until the cached token is valid, 0 if there is none
+     */
+    public long getExpiresAt() {
+        Token current = token;
+        return current != null ? current.expiresAt() : 0;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Start a token request unless one is in flight already.
+     */
+    private synchronized CompletableFuture<Token> refresh() {
+        if (inFlight == null) {
+            CompletableFuture<Token> future = new CompletableFuture<>();
+            inFlight = future;
+            Thread.ofVirtual().name("opensky-token").start(() -> {
+                Token fetched = null;
+                Exception failure = null;
+                try {
+                    fetched = request();
+                    token = fetched;
+                    schedule(fetched);
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                }
+                // done before waking up callers, so a failed request is not shared with the next one
+                synchronized (this) {
+                    inFlight = null;
+                }
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(fetched);
+                }
+            });
+        }
+        return inFlight;
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh().join();
+        } catch (CompletionException e) {
+            Token current = token;
+            long remaining = current != null ? current.expiresAt() - clock.millis() : 0;
+            long retry = remaining > 0 ? Math.min(RETRY_MILLIS, remaining / 2) : RETRY_MILLIS;
+            logger.warn("Could not refresh OpenSky access token, retrying in {}ms", retry, e.getCause());
+            scheduleRefresh(retry);
+        }
+    }
+
+    private void schedule(Token fetched) {
+        long lifetime = fetched.expiresAt() - fetched.issuedAt();
+        scheduleRefresh(Math.max(lifetime - refreshBefore.toMillis(), lifetime / 2));
+    }
+
+    private synchronized void scheduleRefresh(long delayMillis) {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduled = scheduler.schedule(this::refreshInBackground, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Token request() throws IOException {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "client_credentials");
+        form.add("client_id", clientId);
+        form.add("client_secret", clientSecret);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+        // the token may have been issued any time during the request, count its lifetime from sending it
+        long sent = clock.millis();
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.exchange(tokenUri, HttpMethod.POST, new HttpEntity<>(form, headers), String.class);
+        } catch (ResourceAccessException e) {
+            throw new IOException("Could not reach token endpoint " + tokenUri, e);
+        }
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IOException("Could not get OpenSky access token, response " + response.getStatusCode());
+        }
+        JsonNode json = objectMapper.readTree(response.getBody());
+        String accessToken = json.path("access_token").asText(null);
+        long expiresIn = json.path("expires_in").asLong(0);
+        if (accessToken == null || expiresIn <= 0) {
+            throw new IOException("Token endpoint response lacks access_token or expires_in");
+        }
+        logger.debug("Got OpenSky access token valid for {}s", expiresIn);
+        return new Token(accessToken, sent, sent + expiresIn * 1000);
+    }
+
+    private record Token(String value, long issuedAt, long expiresAt) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.feed.AircraftJsonFeed;
+import com.flightsinfo.tar1090.metadata.AircraftMetadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Adds registration, type code and operator from the aircraft database {@code opensky.metadata.file} to
+ * {@code aircraft.json}, if it is set. The CSV is reloaded when it changes.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.metadata", name = "file")
+public class AircraftMetadataConfig {
+
+    @Bean(destroyMethod = "close")
+    public AircraftMetadata aircraftMetadata(AircraftJsonFeed feed,
+                                             MeterRegistry registry,
+                                             @Value("${opensky.metadata.file}") Path csv,
+                                             @Value("${opensky.metadata.table:}") String table,
+                                             @Value("${opensky.metadata.check-interval:PT1M}") Duration checkInterval) throws IOException {
+        Path tableFile = table.isEmpty() ? csv.resolveSibling(csv.getFileName() + ".table") : Path.of(table);
+        AircraftMetadata metadata = new AircraftMetadata(csv, tableFile, checkInterval, registry);
+        metadata.start();
+        feed.setMetadata(metadata);
+        return metadata;
+    }
+}
@@ -0,0 +1,56 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.airports.AirportIndex;
+import com.flightsinfo.tar1090.airports.FlightEventDetector;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Infers departures and arrivals at the airports of {@code opensky.airports.file}, an OurAirports
+ * {@code airports.csv}, if it is set. Events are logged, further listeners can be added to the
+ * {@link FlightEventDetector} bean.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.airports", name = "file")
+public class AirportConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AirportConfig.class);
+
+    @Bean
+    public AirportIndex airportIndex(@Value("${opensky.airports.file}") Path file,
+                                     @Value("${opensky.airports.radius-km:5}") double radius,
+                                     @Value("${opensky.airports.types:large_airport,medium_airport,small_airport}") Set<String> types) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            AirportIndex index = AirportIndex.load(reader, radius, types);
+            logger.info("Loaded {} airports from {}", index.size(), file);
+            return index;
+        }
+    }
+
+    @Bean
+    public FlightEventDetector flightEventDetector(SnapshotStore store,
+                                                   MeterRegistry registry,
+                                                   AirportIndex airportIndex,
+                                                   @Value("${opensky.airports.debounce:PT10M}") Duration debounce,
+                                                   @Value("${opensky.airports.expiry:PT30M}") Duration expiry) {
+        FlightEventDetector detector = new FlightEventDetector(airportIndex, debounce, expiry, registry);
+        detector.addListener(event -> logger.info("{} {} {} ({}) at {}", event.type(), event.state().getIcao24(),
+                event.airport().ident(), event.state().getCallsign(), event.time()));
+        store.addListener(detector);
+        return detector;
+    }
+}
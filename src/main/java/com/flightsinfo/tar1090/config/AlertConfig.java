@@ -0,0 +1,58 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.alerts.AlertEngine;
+import com.flightsinfo.tar1090.alerts.AlertRule;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Raises alerts for emergency squawks, the special purpose indicator, extreme vertical rates, sudden divergence of
+ * barometric and geometric altitude and aircraft vanishing while airborne. Further rules are configured as filter
+ * expressions, e.g. {@code opensky.alerts.rules.low-and-fast=baro_altitude < 3000 and velocity > 180}. Alerts are
+ * logged, further listeners can be added to the {@link AlertEngine} bean. Disabled with
+ * {@code opensky.alerts.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.alerts", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AlertConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertConfig.class);
+
+    @Bean
+    public AlertEngine alertEngine(SnapshotStore store,
+                                   MeterRegistry registry,
+                                   Environment environment,
+                                   @Value("${opensky.alerts.debounce:PT5M}") Duration debounce,
+                                   @Value("${opensky.alerts.vertical-rate:40}") double verticalRate,
+                                   @Value("${opensky.alerts.altitude-divergence:300}") double altitudeDivergence,
+                                   @Value("${opensky.alerts.vanish-min-altitude:1000}") double vanishMinAltitude,
+                                   @Value("${opensky.alerts.vanish-grace:PT60S}") Duration vanishGrace) {
+        AlertEngine engine = new AlertEngine(vanishMinAltitude, vanishGrace, debounce, registry);
+        engine.addRule(AlertRule.squawk("hijack", debounce, "7500"));
+        engine.addRule(AlertRule.squawk("radio_failure", debounce, "7600"));
+        engine.addRule(AlertRule.squawk("emergency", debounce, "7700"));
+        engine.addRule(AlertRule.spi(debounce));
+        engine.addRule(AlertRule.verticalRate(verticalRate, debounce));
+        engine.addRule(AlertRule.altitudeDivergence(altitudeDivergence, debounce));
+        Map<String, String> rules = Binder.get(environment)
+                .bind("opensky.alerts.rules", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        rules.forEach((name, expression) -> engine.addRule(AlertRule.expression(name, expression, debounce)));
+        engine.addListener(alert -> logger.warn("Alert {} for {} ({}) at {}", alert.rule(), alert.icao24(),
+                alert.state().getCallsign(), alert.time()));
+        store.addListener(engine);
+        return engine;
+    }
+}
@@ -0,0 +1,31 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.export.ArrowExporter;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Exports snapshots as Arrow IPC files to {@code opensky.export.dir} if {@code opensky.export.enabled} is set.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.export", name = "enabled", havingValue = "true")
+public class ExportConfig {
+
+    @Bean(destroyMethod = "close")
+    public ArrowExporter arrowExporter(SnapshotStore store,
+                                       MeterRegistry registry,
+                                       @Value("${opensky.export.dir:opensky-export}") Path dir,
+                                       @Value("${opensky.export.snapshots-per-file:6}") int snapshotsPerFile,
+                                       @Value("${opensky.export.max-pending-files:4}") int maxPendingFiles,
+                                       @Value("${opensky.export.max-files:0}") int maxFiles) {
+        ArrowExporter exporter = new ArrowExporter(dir, snapshotsPerFile, maxPendingFiles, maxFiles, registry);
+        store.addListener(exporter);
+        return exporter;
+    }
+}
@@ -0,0 +1,54 @@
+package com.flightsinfo.tar1090.config;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts a continuous flight recording with the JDK {@code default} settings plus the OpenSky events of
+ * {@code jfr/opensky.jfc}, if {@code opensky.jfr.enabled} is set. The recording keeps {@code opensky.jfr.max-age} of
+ * data and is dumped to {@code opensky.jfr.file} on exit; {@code jcmd <pid> JFR.dump name=opensky} dumps it on demand.
+ */
+@org.springframework.context.annotation.Configuration
+@ConditionalOnProperty(prefix = "opensky.jfr", name = "enabled", havingValue = "true")
+public class FlightRecorderConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderConfig.class);
+
+    static final String SETTINGS = "/jfr/opensky.jfc";
+
+    @Bean(destroyMethod = "close")
+    public Recording openSkyRecording(@Value("${opensky.jfr.max-age:PT6H}") Duration maxAge,
+                                      @Value("${opensky.jfr.file:opensky.jfr}") Path file) throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(FlightRecorderConfig.class.getResourceAsStream(SETTINGS), StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        Recording recording = new Recording(settings);
+        recording.setName("opensky");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setDumpOnExit(true);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        recording.setDestination(file);
+        recording.start();
+        logger.info("Started flight recording, keeping {} and dumping to {} on exit", maxAge, file);
+        return recording;
+    }
+}
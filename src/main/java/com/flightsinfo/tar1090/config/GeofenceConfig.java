@@ -0,0 +1,45 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.geo.GeofenceEngine;
+import com.flightsinfo.tar1090.geo.GeofenceEvent;
+import com.flightsinfo.tar1090.geo.GeofenceLoader;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Emits enter and exit events for the zones of the GeoJSON file {@code opensky.geofence.file}, if it is set. Events
+ * are logged, further listeners can be added to the {@link GeofenceEngine} bean.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.geofence", name = "file")
+public class GeofenceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceConfig.class);
+
+    @Bean
+    public GeofenceEngine geofenceEngine(SnapshotStore store,
+                                         MeterRegistry registry,
+                                         @Value("${opensky.geofence.file}") Path file,
+                                         @Value("${opensky.geofence.cell-size:0.5}") double cellSize) throws IOException {
+        GeofenceEngine engine = new GeofenceEngine(cellSize, registry);
+        try (InputStream in = Files.newInputStream(file)) {
+            engine.setGeofences(GeofenceLoader.load(in));
+        }
+        engine.addListener(event -> logger.info("{} {} {} at {}", event.state().getIcao24(),
+                event.type() == GeofenceEvent.Type.ENTER ? "entered" : "left",
+                event.fence().getId(), event.time()));
+        store.addListener(engine);
+        return engine;
+    }
+}
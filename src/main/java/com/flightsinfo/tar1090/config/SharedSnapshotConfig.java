@@ -0,0 +1,45 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.service.StatesPoller;
+import com.flightsinfo.tar1090.shared.SharedSnapshotCoordinator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Shares one upstream poller between the instances on this host which use the same {@code opensky.shared.dir}, if
+ * {@code opensky.shared.enabled} is set. Only the elected leader runs the {@link StatesPoller}, and only if
+ * {@code opensky.poller.enabled} is not {@code false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.shared", name = "enabled", havingValue = "true")
+public class SharedSnapshotConfig {
+
+    @Bean(destroyMethod = "close")
+    public SharedSnapshotCoordinator sharedSnapshotCoordinator(SnapshotStore store,
+                                                               MeterRegistry registry,
+                                                               StatesPoller poller,
+                                                               @Value("${opensky.shared.dir:${java.io.tmpdir}/opensky-shared}") Path dir,
+                                                               @Value("${opensky.shared.capacity:16MB}") DataSize capacity,
+                                                               @Value("${opensky.shared.check-interval:PT0.5S}") Duration checkInterval) throws IOException {
+        SharedSnapshotCoordinator coordinator = new SharedSnapshotCoordinator(store, dir, Math.toIntExact(capacity.toBytes()),
+                checkInterval, poller::start, poller::stop, registry);
+        store.addListener(coordinator);
+        return coordinator;
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> sharedSnapshotStarter(SharedSnapshotCoordinator coordinator) {
+        return event -> coordinator.start();
+    }
+}
@@ -0,0 +1,30 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.stream.SnapshotPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Provides the {@link SnapshotPublisher} in-process consumers subscribe to, unless {@code opensky.stream.enabled} is
+ * {@code false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StreamConfig {
+
+    @Bean(destroyMethod = "close")
+    public SnapshotPublisher snapshotPublisher(SnapshotStore store,
+                                               MeterRegistry registry,
+                                               @Value("${opensky.stream.capacity:4}") int capacity,
+                                               @Value("${opensky.stream.max-block:PT1S}") Duration maxBlock) {
+        SnapshotPublisher publisher = new SnapshotPublisher(capacity, maxBlock, registry);
+        store.addListener(publisher);
+        return publisher;
+    }
+}
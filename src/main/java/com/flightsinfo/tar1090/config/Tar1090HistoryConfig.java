@@ -0,0 +1,43 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.feed.AircraftJsonFeed;
+import com.flightsinfo.tar1090.feed.FileBatchWriter;
+import com.flightsinfo.tar1090.feed.TraceHistory;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Writes tar1090 trace and history files to {@code tar1090.history.dir}, if {@code tar1090.history.enabled} is set.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "tar1090.history", name = "enabled", havingValue = "true")
+public class Tar1090HistoryConfig {
+
+    @Bean(destroyMethod = "close")
+    public FileBatchWriter tar1090FileWriter() {
+        return new FileBatchWriter("tar1090-writer");
+    }
+
+    @Bean
+    public TraceHistory traceHistory(SnapshotStore store,
+                                     AircraftJsonFeed feed,
+                                     FileBatchWriter tar1090FileWriter,
+                                     @Value("${tar1090.history.dir:tar1090-data}") Path dir,
+                                     @Value("${tar1090.history.retention:PT24H}") Duration retention,
+                                     @Value("${tar1090.history.recent-points:128}") int recentPoints,
+                                     @Value("${tar1090.history.full-interval:PT60S}") Duration fullInterval,
+                                     @Value("${tar1090.history.chunk-duration:PT2M}") Duration chunkDuration,
+                                     @Value("${tar1090.history.chunks:30}") int chunks) {
+        TraceHistory history = new TraceHistory(dir, feed, tar1090FileWriter,
+                new TraceHistory.Settings(retention, recentPoints, fullInterval, chunkDuration, chunks));
+        // the feed registered itself on construction, so it encodes each snapshot before the history reads it
+        store.addListener(history);
+        return history;
+    }
+}
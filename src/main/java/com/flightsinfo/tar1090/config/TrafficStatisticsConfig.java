@@ -0,0 +1,42 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.stats.TrafficStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Keeps {@link TrafficStatistics} of the published snapshots over the {@code opensky.stats.windows}, served by
+ * {@link com.flightsinfo.tar1090.controller.TrafficStatisticsController}. Disabled with
+ * {@code opensky.stats.enabled=false}. Windows shorter than {@code opensky.poller.interval-ms} only hold a snapshot
+ * shortly after it was polled, a warning is logged for them.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TrafficStatisticsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficStatisticsConfig.class);
+
+    @Bean
+    public TrafficStatistics trafficStatistics(SnapshotStore store,
+                                               @Value("${opensky.stats.windows:PT1M,PT5M,PT1H}") List<Duration> windows,
+                                               @Value("${opensky.poller.interval-ms:864000}") long pollIntervalMillis) {
+        for (Duration window : windows) {
+            if (window.toMillis() < pollIntervalMillis) {
+                logger.warn("Statistics window {} is shorter than the poll interval of {}ms and is empty most of the time",
+                        window, pollIntervalMillis);
+            }
+        }
+        TrafficStatistics statistics = new TrafficStatistics(windows, Clock.systemUTC());
+        store.addListener(statistics);
+        return statistics;
+    }
+}
@@ -0,0 +1,28 @@
+package com.flightsinfo.tar1090.config;
+
+import com.flightsinfo.tar1090.controller.OpenSkyApiController;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.watchlist.WatchlistFetcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Lets watchlist queries for the most recent states be answered from the latest snapshot if it covers the whole world,
+ * unless {@code opensky.watchlist.from-snapshot} is {@code false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "opensky.watchlist", name = "from-snapshot", havingValue = "true", matchIfMissing = true)
+public class WatchlistConfig {
+
+    @Bean
+    public WatchlistFetcher watchlistFetcher(OpenSkyApiController client, SnapshotStore store,
+                                             @Value("${opensky.watchlist.max-snapshot-age:PT30S}") Duration maxAge) {
+        WatchlistFetcher fetcher = client.getWatchlistFetcher();
+        fetcher.setSnapshotSource(store::getLatest, maxAge);
+        return fetcher;
+    }
+}
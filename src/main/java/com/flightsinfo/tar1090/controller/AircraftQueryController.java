@@ -0,0 +1,218 @@
+package com.flightsinfo.tar1090.controller;
+
+import com.flightsinfo.tar1090.filter.FilterExpression;
+import com.flightsinfo.tar1090.model.AircraftPage;
+import com.flightsinfo.tar1090.model.BoundingBox;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.model.StateVectorField;
+import com.flightsinfo.tar1090.service.AircraftQuery;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Read-only queries on the latest snapshot held by {@link SnapshotStore}. Requests are answered from memory only and
+ * never trigger a call to OpenSky.
+ * <p>
+ * Results are ordered by ICAO24 address. The cursor of a page is the address of its last aircraft, so the next page
+ * starts with a binary search and stays stable while snapshots are replaced.
+ */
+@RestController
+@RequestMapping("/api/aircraft")
+public class AircraftQueryController {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 10000;
+
+    private static final StateVectorField[] ALL_FIELDS = StateVectorField.values();
+    private static final int MAX_CACHED_FILTERS = 1000;
+
+    private final SnapshotStore store;
+    /**
+     * Compiled filters by expression, clients tend to repeat the same few
+     */
+    private final Map<String, Predicate<StateVector>> filters = new ConcurrentHashMap<>();
+
+    public AircraftQueryController(SnapshotStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @param lamin     lower bound for the latitude in decimal degrees
+     * @param lamax     upper bound for the latitude in decimal degrees
+     * @param lomin     lower bound for the longitude in decimal degrees
+     * @param lomax     upper bound for the longitude in decimal degrees
+     * @param icao24    ICAO24 addresses to return
+     * @param callsign  prefix of the callsign
+     * @param minAlt    minimum barometric altitude in meters
+     * @param maxAlt    maximum barometric altitude in meters
+     * @param onGround  required on-ground state
+     * @param filter    filter expression, see {@link FilterExpression}
+     * @param fields    names of the fields to return, all if empty
+     * @param limit     maximum number of aircraft on the page
+     * @param cursor    cursor returned with the previous page
+     * @return one page of matching aircraft
+     */
+    @GetMapping
+    public AircraftPage query(@RequestParam(required = false) Double lamin,
+                              @RequestParam(required = false) Double lamax,
+                              @RequestParam(required = false) Double lomin,
+                              @RequestParam(required = false) Double lomax,
+                              @RequestParam(required = false) List<String> icao24,
+                              @RequestParam(required = false) String callsign,
+                              @RequestParam(name = "min_altitude", required = false) Double minAlt,
+                              @RequestParam(name = "max_altitude", required = false) Double maxAlt,
+                              @RequestParam(name = "on_ground", required = false) Boolean onGround,
+                              @RequestParam(required = false) String filter,
+                              @RequestParam(required = false) List<String> fields,
+                              @RequestParam(required = false) Integer limit,
+                              @RequestParam(required = false) String cursor) {
+        AircraftQuery query = new AircraftQuery(boundingBox(lamin, lamax, lomin, lomax), addresses(icao24),
+                callsign, minAlt, maxAlt, onGround, filter(filter));
+        int max = limit == null ? DEFAULT_LIMIT : limit;
+        if (max < 1 || max > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be within [1, " + MAX_LIMIT + "]");
+        }
+        return query(latest(), query, projection(fields), max, cursor);
+    }
+
+    /**
+     * @param icao24 ICAO24 address of the aircraft
+     * @param fields names of the fields to return, all if empty
+     * @return the state vector of the aircraft
+     */
+    @GetMapping("/{icao24}")
+    public Map<String, Object> get(@PathVariable String icao24,
+                                   @RequestParam(required = false) List<String> fields) {
+        StateVector sv = latest().get(icao24.toLowerCase(Locale.ROOT));
+        if (sv == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Aircraft " + icao24 + " not in latest snapshot");
+        }
+        return project(sv, projection(fields));
+    }
+
+    private static AircraftPage query(IndexedSnapshot snapshot, AircraftQuery query, StateVectorField[] fields, int limit, String cursor) {
+        List<Map<String, Object>> aircraft = new ArrayList<>(Math.min(limit, 256));
+        String last = null;
+        boolean more = false;
+        if (query.icao24() != null) {
+            // few addresses requested, look them up instead of scanning the snapshot
+            for (String address : cursor == null ? query.icao24() : query.icao24().tailSet(cursor + Character.MIN_VALUE)) {
+                StateVector sv = snapshot.get(address);
+                if (sv == null || !query.matches(sv)) {
+                    continue;
+                }
+                if (aircraft.size() == limit) {
+                    more = true;
+                    break;
+                }
+                aircraft.add(project(sv, fields));
+                last = address;
+            }
+        } else {
+            for (int i = cursor == null ? 0 : snapshot.indexAfter(cursor); i < snapshot.size(); i++) {
+                StateVector sv = snapshot.get(i);
+                if (!query.matches(sv)) {
+                    continue;
+                }
+                if (aircraft.size() == limit) {
+                    more = true;
+                    break;
+                }
+                aircraft.add(project(sv, fields));
+                last = sv.getIcao24();
+            }
+        }
+        return new AircraftPage(snapshot.getTime(), aircraft.size(), more ? last : null, aircraft);
+    }
+
+    private static Map<String, Object> project(StateVector sv, StateVectorField[] fields) {
+        Map<String, Object> result = new LinkedHashMap<>(fields.length * 2);
+        for (StateVectorField field : fields) {
+            result.put(field.getJsonName(), field.get(sv));
+        }
+        return result;
+    }
+
+    private IndexedSnapshot latest() {
+        IndexedSnapshot snapshot = store.getLatest();
+        if (snapshot == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No snapshot received yet");
+        }
+        return snapshot;
+    }
+
+    private static BoundingBox boundingBox(Double lamin, Double lamax, Double lomin, Double lomax) {
+        if (lamin == null && lamax == null && lomin == null && lomax == null) {
+            return null;
+        }
+        if (lamin == null || lamax == null || lomin == null || lomax == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bounding box requires lamin, lamax, lomin and lomax");
+        }
+        try {
+            return new BoundingBox(lamin, lamax, lomin, lomax);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private Predicate<StateVector> filter(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return null;
+        }
+        Predicate<StateVector> filter = filters.get(expression);
+        if (filter == null) {
+            try {
+                filter = FilterExpression.parse(expression).compile();
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid filter: " + e.getMessage());
+            }
+            if (filters.size() >= MAX_CACHED_FILTERS) {
+                filters.clear();
+            }
+            filters.put(expression, filter);
+        }
+        return filter;
+    }
+
+    private static SortedSet<String> addresses(List<String> icao24) {
+        if (icao24 == null || icao24.isEmpty()) {
+            return null;
+        }
+        SortedSet<String> result = new TreeSet<>();
+        for (String address : icao24) {
+            result.add(address.trim().toLowerCase(Locale.ROOT));
+        }
+        return result;
+    }
+
+    private static StateVectorField[] projection(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return ALL_FIELDS;
+        }
+        StateVectorField[] result = new StateVectorField[fields.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = StateVectorField.byJsonName(fields.get(i).trim());
+            if (result[i] == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field " + fields.get(i));
+            }
+        }
+        return result;
+    }
+}
@@ -1,25 +1,53 @@
 package com.flightsinfo.tar1090.controller;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.flightsinfo.tar1090.auth.TokenManager;
 import com.flightsinfo.tar1090.enums.RequestType;
+import com.flightsinfo.tar1090.flights.FlightEndpoint;
+import com.flightsinfo.tar1090.flights.FlightsFetcher;
+import com.flightsinfo.tar1090.flights.TimePartition;
+import com.flightsinfo.tar1090.jfr.DeserializeEvent;
+import com.flightsinfo.tar1090.jfr.RateLimitCheckEvent;
+import com.flightsinfo.tar1090.jfr.RequestEvent;
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.metrics.OpenSkyMetrics;
+import com.flightsinfo.tar1090.metrics.TimedClientHttpRequestFactory;
 import com.flightsinfo.tar1090.model.BoundingBox;
+import com.flightsinfo.tar1090.model.FlightData;
+import com.flightsinfo.tar1090.model.FlightTrack;
 import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import com.flightsinfo.tar1090.ratelimit.QueryPlan;
+import com.flightsinfo.tar1090.ratelimit.RateLimitExceededException;
+import com.flightsinfo.tar1090.service.SnapshotMerger;
+import com.flightsinfo.tar1090.tracks.TrackCache;
+import com.flightsinfo.tar1090.watchlist.WatchlistFetcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.json.JsonParseException;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static java.util.Objects.isNull;
@@ -32,74 +60,280 @@ public class OpenSkyApiController {
     private static final String API_ROOT = "https://" + HOST + "/api";
     private static final String STATES_URI = API_ROOT + "/states/all";
     private static final String MY_STATES_URI = API_ROOT + "/states/own";
+    private static final String TRACKS_URI = API_ROOT + "/tracks/all";
 
     HttpHeaders headers;
     private boolean authenticated;
+    private TokenManager tokenManager;
     private final Map<RequestType, Long> lastRequestTime;
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final OpenSkyMetrics metrics;
+    private final CreditBudgetPlanner budget;
+    private final ObjectReader flightReader;
+    private final FlightsFetcher flightsFetcher;
+    private final TrackCache trackCache;
+    private final WatchlistFetcher watchlistFetcher;
     private static final Logger logger = LoggerFactory.getLogger(OpenSkyApiController.class);
 
     public OpenSkyApiController(String client_id, String client_secret) {
-        this();
+        this(client_id, client_secret, TokenManager.OPENSKY_TOKEN_URI);
+    }
+
+    /**
+     * @param tokenUri OAuth2 token endpoint the client credentials are exchanged at
+     */
+    public OpenSkyApiController(String client_id, String client_secret, URI tokenUri) {
+        this(client_id, client_secret, tokenUri, new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param tokenUri OAuth2 token endpoint the client credentials are exchanged at
+     * @param registry registry the client meters are registered with
+     */
+    public OpenSkyApiController(String client_id, String client_secret, URI tokenUri, MeterRegistry registry) {
+        this(registry);
 
         authenticated = nonNull(client_id) && nonNull(client_secret);
         if (authenticated) {
-            headers.set("grant_type", "client_credentials");
-            headers.set("client_id", client_id);
-            headers.set("client_secret", client_secret);
+            tokenManager = new TokenManager(tokenUri, client_id, client_secret);
+            tokenManager.start();
+            budget.setDailyCredits(CreditBudgetPlanner.AUTHENTICATED_DAILY_CREDITS);
             logger.info("OpenSky API authenticated access enabled for user {}", client_id);
         } else {
             logger.info("OpenSky API anonymous access enabled");
         }
     }
 
-    @Autowired
+    /**
+     * Anonymous client whose meters are kept in a registry of its own, see {@link #getMetrics()}.
+     */
     public OpenSkyApiController() {
+        this(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Anonymous client. Meters with fixed ids, like the credit gauges, only report the first client registered with
+     * a registry, so every client needs a registry of its own.
+     *
+     * @param registry registry the client meters are registered with
+     */
+    @Autowired
+    public OpenSkyApiController(MeterRegistry registry) {
         this.lastRequestTime = new HashMap<>();
         this.objectMapper = new ObjectMapper();
-        this.restTemplate = new RestTemplate();
+        this.flightReader = objectMapper.readerFor(FlightData.class);
+        this.metrics = new OpenSkyMetrics(registry);
+        this.budget = new CreditBudgetPlanner(CreditBudgetPlanner.ANONYMOUS_DAILY_CREDITS);
+        this.metrics.registerCreditBudget(budget);
+        this.restTemplate = new RestTemplate(new TimedClientHttpRequestFactory(metrics));
+        // status codes are evaluated in getResponse, so errors can be counted and reported as IOException
+        this.restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+
+            @Override
+            public void handleError(URI url, HttpMethod method, ClientHttpResponse response) {
+                // NOP
+            }
+        });
         this.headers = new HttpHeaders();
+        this.flightsFetcher = new FlightsFetcher(this::loadFlights);
+        this.trackCache = new TrackCache();
+        this.watchlistFetcher = new WatchlistFetcher(this::loadWatchlist);
+        watchlistFetcher.setCreditBudget(budget);
     }
 
     /**
-     * Make the actual HTTP Request and return the parsed response
+     * Make the actual HTTP Request and return the raw response
      *
+     * @param type    request type the call is accounted for
+     * @param credits API credits the request costs
      * @param baseUri base uri to request
      * @param nvps    name value pairs to be sent as query parameters
-     * @return parsed states
-     * @throws IOException if there was an HTTP error
+     * @return response with the complete body
+     * @throws RateLimitExceededException if the server rejected the request because credits are exhausted
      */
-    private PlaneStates getResponse(String baseUri,
-                                    Collection<AbstractMap.Entry<String, String>> nvps) throws IOException {
+    private RawResponse execute(RequestType type, int credits, String baseUri,
+                                Collection<AbstractMap.Entry<String, String>> nvps) throws IOException {
 
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(baseUri);
         for (AbstractMap.Entry<String, String> nvp : nvps) {
             builder.queryParam(nvp.getKey(), nvp.getValue());
         }
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(null, headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(builder.toUriString(), HttpMethod.GET, request, String.class);
+        String token = tokenManager != null ? tokenManager.getToken() : null;
+        budget.onRequest(credits);
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        RawResponse response;
+        try {
+            response = restTemplate.execute(builder.toUriString(), HttpMethod.GET, request -> {
+                request.getHeaders().addAll(headers);
+                if (token != null) {
+                    request.getHeaders().setBearerAuth(token);
+                }
+                request.getAttributes().put(TimedClientHttpRequestFactory.REQUEST_TYPE_ATTRIBUTE, type);
+            }, r -> readResponse(type, r));
+        } catch (ResourceAccessException e) {
+            metrics.recordError(type, 0);
+            commit(event, type, baseUri, credits, null);
+            throw e;
+        }
+        commit(event, type, baseUri, credits, response);
+        if (token != null && response.status().value() == 401) {
+            // revoked before it expired, the next request gets a new one
+            tokenManager.invalidate(token);
+        }
 
-        if (!response.getStatusCode().is2xxSuccessful()) {
-            throw new IOException("Could not get OpenSky Vectors, response " + response);
+        long retryAfter = budget.onResponse(response.status().value(), response.headers());
+        if (response.status().value() == 429) {
+            metrics.recordError(type, 429);
+            throw new RateLimitExceededException(retryAfter);
+        }
+        return response;
+    }
+
+    private static void commit(RequestEvent event, RequestType type, String baseUri, int credits, RawResponse response) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type.name();
+            event.path = baseUri.substring(API_ROOT.length());
+            event.credits = credits;
+            if (response != null) {
+                event.status = response.status().value();
+                event.bytes = response.body().length;
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Make the actual HTTP Request and return the parsed response
+     *
+     * @param type    request type the call is accounted for
+     * @param credits API credits the request costs
+     * @param baseUri base uri to request
+     * @param nvps    name value pairs to be sent as query parameters
+     * @return parsed states
+     * @throws RateLimitExceededException if the server rejected the request because credits are exhausted
+     * @throws IOException                if there was an HTTP error
+     */
+    private PlaneStates getResponse(RequestType type, int credits, String baseUri,
+                                    Collection<AbstractMap.Entry<String, String>> nvps) throws IOException {
+        RawResponse response = execute(type, credits, baseUri, nvps);
+        if (!response.status().is2xxSuccessful()) {
+            metrics.recordError(type, response.status().value());
+            throw new IOException("Could not get OpenSky Vectors, response " + response.status());
         }
-        MediaType contentType = response.getHeaders().getContentType();
+        MediaType contentType = response.headers().getContentType();
         Charset charset = (nonNull(contentType)) ? contentType.getCharset() : null;
 
         if (isNull(charset)) {
             throw new IOException("Could not read charset in response. Content-Type is " + contentType);
         } else {
-            return objectMapper.readValue(
-                    new InputStreamReader(new ByteArrayInputStream(response.getBody().getBytes()), charset),
-                    PlaneStates.class
-            );
+            DeserializeEvent event = new DeserializeEvent();
+            event.begin();
+            long t0 = System.nanoTime();
+            PlaneStates states;
+            boolean byteParser = StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+            if (byteParser) {
+                states = OpenSkyStatesParser.parse(response.body());
+            } else {
+                states = objectMapper.readValue(
+                        new InputStreamReader(new ByteArrayInputStream(response.body()), charset),
+                        PlaneStates.class
+                );
+            }
+            metrics.recordParse(type, System.nanoTime() - t0);
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = type.name();
+                event.parser = byteParser ? "byte" : "jackson";
+                event.bytes = response.body().length;
+                event.vectors = states != null && states.getStateVectors() != null ? states.getStateVectors().size() : 0;
+                event.commit();
+            }
+            metrics.recordSnapshot(type, states);
+            return states;
+        }
+    }
+
+    /**
+     * Load one partition of a {@code /flights} query. The result is parsed flight by flight.
+     *
+     * @throws IOException if there was an HTTP error
+     */
+    private List<FlightData> loadFlights(FlightEndpoint endpoint, String key, TimePartition partition) throws IOException {
+        if (budget.isBackingOff()) {
+            throw new RateLimitExceededException(budget.getBackoffMillis() / 1000);
+        }
+        ArrayList<AbstractMap.Entry<String, String>> nvps = new ArrayList<>();
+        if (endpoint.getKeyParameter() != null) {
+            nvps.add(new AbstractMap.SimpleImmutableEntry<>(endpoint.getKeyParameter(), key));
+        }
+        nvps.add(new AbstractMap.SimpleImmutableEntry<>("begin", Long.toString(partition.begin())));
+        nvps.add(new AbstractMap.SimpleImmutableEntry<>("end", Long.toString(partition.end())));
+
+        RequestType type = endpoint.getRequestType();
+        RawResponse response = execute(type, 1, API_ROOT + endpoint.getPath(), nvps);
+        if (response.status().value() == 404) {
+            // no flights found for the given period
+            return List.of();
+        }
+        if (!response.status().is2xxSuccessful()) {
+            metrics.recordError(type, response.status().value());
+            throw new IOException("Could not get OpenSky flights, response " + response.status());
+        }
+
+        long t0 = System.nanoTime();
+        List<FlightData> flights = new ArrayList<>();
+        try (MappingIterator<FlightData> it = flightReader.readValues(response.body())) {
+            while (it.hasNextValue()) {
+                flights.add(it.nextValue());
+            }
         }
+        metrics.recordParse(type, System.nanoTime() - t0);
+        return flights;
+    }
+
+    /**
+     * Load the states of one batch of a watchlist query. Batches are parts of a single query, so they are not subject
+     * to the interval between two {@code /states/all} requests, but they stop while backing off.
+     *
+     * @throws IOException if there was an HTTP error
+     */
+    private PlaneStates loadWatchlist(int time, List<String> icao24) throws IOException {
+        if (budget.isBackingOff()) {
+            throw new RateLimitExceededException(budget.getBackoffMillis() / 1000);
+        }
+        ArrayList<AbstractMap.Entry<String, String>> nvps = new ArrayList<>();
+        for (String i : icao24) {
+            nvps.add(new AbstractMap.SimpleImmutableEntry<>(WatchlistFetcher.PARAMETER, i));
+        }
+        nvps.add(new AbstractMap.SimpleImmutableEntry<>("time", Integer.toString(time)));
+        return getOpenSkyStateErrorsIfExists(RequestType.GET_STATES, CreditBudgetPlanner.WORLD_CREDITS, STATES_URI, nvps);
+    }
+
+    /**
+     * Read the complete response body, measuring how long the transfer took.
+     */
+    private RawResponse readResponse(RequestType type, ClientHttpResponse response) throws IOException {
+        long t0 = System.nanoTime();
+        byte[] body;
+        try (InputStream in = response.getBody()) {
+            body = in.readAllBytes();
+        }
+        metrics.recordBody(type, System.nanoTime() - t0, body.length);
+        return new RawResponse(response.getStatusCode(), response.getHeaders(), body);
     }
 
     /**
      * Prevent client from sending too many requests. Checks are applied on server-side, too.
+     * Requests are also rejected while backing off after the server reported exhausted credits.
      *
      * @param type           identifies calling function (GET_STATES or GET_MY_STATES)
      * @param timeDiffAuth   time im ms that must be in between two consecutive calls if user is authenticated
@@ -107,10 +341,24 @@ public class OpenSkyApiController {
      * @return true if request may be issued, false otherwise
      */
     private boolean checkRateLimit(RequestType type, long timeDiffAuth, long timeDiffNoAuth) {
+        RateLimitCheckEvent event = new RateLimitCheckEvent();
+        event.begin();
         Long t = lastRequestTime.get(type);
         long now = System.currentTimeMillis();
         lastRequestTime.put(type, now);
-        return (t == null || (authenticated && now - t > timeDiffAuth) || (!authenticated && now - t > timeDiffNoAuth));
+        boolean backingOff = budget.isBackingOff();
+        boolean allowed = !backingOff && (t == null || (authenticated && now - t > timeDiffAuth) || (!authenticated && now - t > timeDiffNoAuth));
+        if (!allowed) {
+            metrics.recordRateLimitRejection(type);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type.name();
+            event.allowed = allowed;
+            event.backingOff = backingOff;
+            event.commit();
+        }
+        return allowed;
     }
 
 
@@ -119,10 +367,10 @@ public class OpenSkyApiController {
      *
      * @throws IOException if there was an HTTP error`
      */
-    private PlaneStates getOpenSkyStateErrorsIfExists(String baseUri,
+    private PlaneStates getOpenSkyStateErrorsIfExists(RequestType type, int credits, String baseUri,
                                                       ArrayList<AbstractMap.Entry<String, String>> nvps) throws IOException {
         try {
-            return getResponse(baseUri, nvps);
+            return getResponse(type, credits, baseUri, nvps);
         } catch (MalformedURLException e) {
             // this should not happen
             e.printStackTrace();
@@ -134,6 +382,17 @@ public class OpenSkyApiController {
         }
     }
 
+    public OpenSkyMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the planner tracking this client's API credits
+     */
+    public CreditBudgetPlanner getCreditBudget() {
+        return budget;
+    }
+
     /**
      * Retrieve state vectors for a given time. If time == 0 the most recent ones are taken.
      * Optional filters might be applied for ICAO24 addresses.
@@ -151,7 +410,24 @@ public class OpenSkyApiController {
             }
         }
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("time", Integer.toString(time)));
-        return checkRateLimit(RequestType.GET_STATES, 4900, 9900) ? getOpenSkyStateErrorsIfExists(STATES_URI, nvps) : null;
+        PlaneStates states = checkRateLimit(RequestType.GET_STATES, 4900, 9900) ? getOpenSkyStateErrorsIfExists(RequestType.GET_STATES, CreditBudgetPlanner.WORLD_CREDITS, STATES_URI, nvps) : null;
+        return icao24 != null ? partial(states) : states;
+    }
+
+    /**
+     * Retrieve state vectors of a watchlist for a given time. If time == 0 the most recent ones are taken.
+     * Unlike {@link #getStates(int, String[])}, the watchlist may hold thousands of addresses: it is split into
+     * requests of acceptable URL length, which are issued concurrently and merged. The most recent states are taken
+     * from the latest snapshot instead, if it is fresh enough (see {@link WatchlistFetcher#setSnapshotSource}).
+     *
+     * @param time   Unix time stamp (seconds since epoch).
+     * @param icao24 ICAO24 addresses of the aircraft to retrieve.
+     * @return {@link PlaneStates} of the aircraft which were found
+     * @throws RateLimitExceededException if the server rejected a request because credits are exhausted
+     * @throws IOException                if there was an HTTP error
+     */
+    public PlaneStates getWatchlistStates(int time, Collection<String> icao24) throws IOException {
+        return watchlistFetcher.fetch(time, icao24);
     }
 
     /**
@@ -175,11 +451,39 @@ public class OpenSkyApiController {
             }
         }
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("time", Integer.toString(time)));
+        addBoundingBox(nvps, bbox);
+        return partial(checkRateLimit(RequestType.GET_STATES, 4900, 9900) ? getOpenSkyStateErrorsIfExists(RequestType.GET_STATES, CreditBudgetPlanner.creditCost(bbox), STATES_URI, nvps) : null);
+    }
+
+    /**
+     * Retrieve state vectors of several areas for a given time, e.g. the tiles of a {@link QueryPlan}. If time == 0
+     * the most recent ones are taken. The areas count as one request for the client side rate limit, their
+     * responses are merged into one snapshot.
+     *
+     * @param time  Unix time stamp (seconds since epoch).
+     * @param boxes bounding boxes of the areas
+     * @return {@link PlaneStates} if request was successful, {@code null} otherwise or if there's no new data/rate limit reached
+     * @throws IOException if there was an HTTP error
+     */
+    public PlaneStates getTiledStates(int time, List<BoundingBox> boxes) throws IOException {
+        if (!checkRateLimit(RequestType.GET_STATES, 4900, 9900)) {
+            return null;
+        }
+        List<PlaneStates> tiles = new ArrayList<>(boxes.size());
+        for (BoundingBox bbox : boxes) {
+            ArrayList<AbstractMap.Entry<String, String>> nvps = new ArrayList<>();
+            nvps.add(new AbstractMap.SimpleImmutableEntry<>("time", Integer.toString(time)));
+            addBoundingBox(nvps, bbox);
+            tiles.add(getOpenSkyStateErrorsIfExists(RequestType.GET_STATES, CreditBudgetPlanner.creditCost(bbox), STATES_URI, nvps));
+        }
+        return partial(SnapshotMerger.merge(tiles).states());
+    }
+
+    private static void addBoundingBox(ArrayList<AbstractMap.Entry<String, String>> nvps, BoundingBox bbox) {
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("lamin", Double.toString(bbox.minLatitude())));
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("lamax", Double.toString(bbox.maxLatitude())));
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("lomin", Double.toString(bbox.minLongitude())));
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("lomax", Double.toString(bbox.maxLongitude())));
-        return checkRateLimit(RequestType.GET_STATES, 4900, 9900) ? getOpenSkyStateErrorsIfExists(STATES_URI, nvps) : null;
     }
 
     /**
@@ -210,7 +514,127 @@ public class OpenSkyApiController {
             }
         }
         nvps.add(new AbstractMap.SimpleImmutableEntry<>("time", Integer.toString(time)));
-        return checkRateLimit(RequestType.GET_MY_STATES, 900, 0) ? getOpenSkyStateErrorsIfExists(MY_STATES_URI, nvps) : null;
+        return partial(checkRateLimit(RequestType.GET_MY_STATES, 900, 0) ? getOpenSkyStateErrorsIfExists(RequestType.GET_MY_STATES, 0, MY_STATES_URI, nvps) : null);
+    }
+
+    private static PlaneStates partial(PlaneStates states) {
+        if (states != null) {
+            states.setPartial(true);
+        }
+        return states;
+    }
+
+    /**
+     * Retrieve flights for a certain time interval [begin, end]. Intervals longer than the two hours the API accepts
+     * are split into partitions, which are requested concurrently and cached once they are complete.
+     *
+     * @param begin start of the interval as Unix time (seconds since epoch)
+     * @param end   end of the interval as Unix time (seconds since epoch)
+     * @return flights ordered by {@code firstSeen}, empty if there are none
+     * @throws IOException if there was an HTTP error
+     */
+    public List<FlightData> getFlights(long begin, long end) throws IOException {
+        return flightsFetcher.fetch(FlightEndpoint.ALL, null, begin, end);
+    }
+
+    /**
+     * Retrieve flights of a particular aircraft which departed and arrived within [begin, end].
+     *
+     * @param icao24 ICAO24 address of the transponder in lower case hex string representation
+     * @param begin  start of the interval as Unix time (seconds since epoch)
+     * @param end    end of the interval as Unix time (seconds since epoch)
+     * @return flights ordered by {@code firstSeen}, empty if there are none
+     * @throws IOException if there was an HTTP error
+     */
+    public List<FlightData> getFlightsByAircraft(String icao24, long begin, long end) throws IOException {
+        return flightsFetcher.fetch(FlightEndpoint.AIRCRAFT, icao24.toLowerCase(), begin, end);
     }
 
+    /**
+     * Retrieve flights which arrived at an airport within [begin, end].
+     *
+     * @param airport ICAO identifier of the airport
+     * @param begin   start of the interval as Unix time (seconds since epoch)
+     * @param end     end of the interval as Unix time (seconds since epoch)
+     * @return flights ordered by {@code firstSeen}, empty if there are none
+     * @throws IOException if there was an HTTP error
+     */
+    public List<FlightData> getArrivalsByAirport(String airport, long begin, long end) throws IOException {
+        return flightsFetcher.fetch(FlightEndpoint.ARRIVAL, airport, begin, end);
+    }
+
+    /**
+     * Retrieve flights which departed from an airport within [begin, end].
+     *
+     * @param airport ICAO identifier of the airport
+     * @param begin   start of the interval as Unix time (seconds since epoch)
+     * @param end     end of the interval as Unix time (seconds since epoch)
+     * @return flights ordered by {@code firstSeen}, empty if there are none
+     * @throws IOException if there was an HTTP error
+     */
+    public List<FlightData> getDeparturesByAirport(String airport, long begin, long end) throws IOException {
+        return flightsFetcher.fetch(FlightEndpoint.DEPARTURE, airport, begin, end);
+    }
+
+    /**
+     * Retrieve the trajectory of an aircraft. Tracks of completed flights are cached, so repeated lookups for any time
+     * within the same flight are served locally. A track counts as completed once its last waypoint is
+     * {@link TrackCache#COMPLETED_AFTER} old.
+     *
+     * @param icao24 ICAO24 address of the transponder in hex string representation
+     * @param time   any time within the flight as Unix time (seconds since epoch). If time == 0, the live track is
+     *               retrieved if there is any flight ongoing for the given aircraft.
+     * @return {@link FlightTrack} if a track was found, {@code null} otherwise
+     * @throws IOException if there was an HTTP error
+     */
+    public FlightTrack getTrack(String icao24, int time) throws IOException {
+        String address = icao24.toLowerCase();
+        if (time != 0) {
+            FlightTrack cached = trackCache.get(address, time);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (budget.isBackingOff()) {
+            throw new RateLimitExceededException(budget.getBackoffMillis() / 1000);
+        }
+
+        ArrayList<AbstractMap.Entry<String, String>> nvps = new ArrayList<>();
+        nvps.add(new AbstractMap.SimpleImmutableEntry<>("icao24", address));
+        nvps.add(new AbstractMap.SimpleImmutableEntry<>("time", Integer.toString(time)));
+        RawResponse response = execute(RequestType.GET_TRACKS, 1, TRACKS_URI, nvps);
+        if (response.status().value() == 404) {
+            return null;
+        }
+        if (!response.status().is2xxSuccessful()) {
+            metrics.recordError(RequestType.GET_TRACKS, response.status().value());
+            throw new IOException("Could not get OpenSky track, response " + response.status());
+        }
+
+        long t0 = System.nanoTime();
+        FlightTrack track = objectMapper.readValue(response.body(), FlightTrack.class);
+        metrics.recordParse(RequestType.GET_TRACKS, System.nanoTime() - t0);
+        if (track != null && time != 0) {
+            // a time within a flight still in the air returns the track so far, it is not cached until complete
+            trackCache.putIfCompleted(track, System.currentTimeMillis() / 1000);
+        }
+        return track;
+    }
+
+    /**
+     * @return cache for tracks of past flights
+     */
+    public TrackCache getTrackCache() {
+        return trackCache;
+    }
+
+    /**
+     * @return fetcher answering watchlist queries
+     */
+    public WatchlistFetcher getWatchlistFetcher() {
+        return watchlistFetcher;
+    }
+
+    private record RawResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
 }
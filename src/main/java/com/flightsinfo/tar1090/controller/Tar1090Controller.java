@@ -0,0 +1,68 @@
+package com.flightsinfo.tar1090.controller;
+
+import com.flightsinfo.tar1090.feed.AircraftJsonFeed;
+import com.flightsinfo.tar1090.feed.BinaryAircraftFeed;
+import com.flightsinfo.tar1090.feed.EncodedDocument;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the files a tar1090 web UI polls. Documents are pre-encoded per snapshot, requests only copy bytes.
+ */
+@RestController
+public class Tar1090Controller {
+
+    private final AircraftJsonFeed feed;
+    private final BinaryAircraftFeed binaryFeed;
+
+    public Tar1090Controller(AircraftJsonFeed feed, BinaryAircraftFeed binaryFeed) {
+        this.feed = feed;
+        this.binaryFeed = binaryFeed;
+    }
+
+    @GetMapping("/data/aircraft.json")
+    public ResponseEntity<byte[]> aircraft(@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve(feed.getCurrent(), MediaType.APPLICATION_JSON, ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Same content as {@code aircraft.json} in the format of {@link com.flightsinfo.tar1090.feed.BinaryAircraftEncoder}
+     */
+    @GetMapping("/data/aircraft.bin")
+    public ResponseEntity<byte[]> aircraftBinary(@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve(binaryFeed.getCurrent(), MediaType.APPLICATION_OCTET_STREAM, ifNoneMatch, acceptEncoding);
+    }
+
+    private static ResponseEntity<byte[]> serve(EncodedDocument document, MediaType contentType, String ifNoneMatch, String acceptEncoding) {
+        if (document == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? document.gzipEtag() : document.etag();
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType)
+                .eTag(etag)
+                .lastModified(document.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? document.gzip() : document.plain());
+    }
+}
@@ -0,0 +1,52 @@
+package com.flightsinfo.tar1090.controller;
+
+import com.flightsinfo.tar1090.enums.StatDimension;
+import com.flightsinfo.tar1090.stats.TrafficStatistics;
+import com.flightsinfo.tar1090.stats.WindowStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sliding window {@link TrafficStatistics} of the published snapshots. Answers {@code 404} if the statistics are
+ * disabled.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class TrafficStatisticsController {
+
+    private final ObjectProvider<TrafficStatistics> statistics;
+
+    public TrafficStatisticsController(ObjectProvider<TrafficStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param window    window size as ISO-8601 duration, the shortest configured window if empty
+     * @param dimension dimension to group by, e.g. {@code origin_country}
+     * @return statistics per value of the dimension, ordered by value
+     */
+    @GetMapping
+    public Map<String, WindowStats> get(@RequestParam(required = false) String window,
+                                        @RequestParam(required = false, defaultValue = "all") String dimension) {
+        TrafficStatistics stats = statistics.getIfAvailable();
+        if (stats == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Traffic statistics are disabled");
+        }
+        try {
+            Duration size = window == null ? stats.getWindows().getFirst() : Duration.parse(window);
+            return new TreeMap<>(stats.get(size, StatDimension.valueOf(dimension.toUpperCase(Locale.ROOT))));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -2,5 +2,10 @@ package com.flightsinfo.tar1090.enums;
 
 public enum RequestType {
     GET_STATES,
-    GET_MY_STATES
+    GET_MY_STATES,
+    GET_FLIGHTS,
+    GET_FLIGHTS_BY_AIRCRAFT,
+    GET_ARRIVALS,
+    GET_DEPARTURES,
+    GET_TRACKS
 }
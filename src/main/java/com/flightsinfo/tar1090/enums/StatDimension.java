@@ -0,0 +1,9 @@
+package com.flightsinfo.tar1090.enums;
+
+public enum StatDimension {
+    ALL,
+    ORIGIN_COUNTRY,
+    ALTITUDE_BAND,
+    POSITION_SOURCE,
+    ON_GROUND
+}
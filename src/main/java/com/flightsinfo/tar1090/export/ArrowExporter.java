@@ -0,0 +1,174 @@
+package com.flightsinfo.tar1090.export;
+
+import com.flightsinfo.tar1090.feed.FileBatchWriter;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exports snapshots as Arrow IPC files for offline analysis, {@code snapshotsPerFile} snapshots per file named
+ * {@code states-<first time>-<last time>.arrow}, in the schema of {@link ArrowSnapshotWriter}.
+ * <p>
+ * The snapshot thread only collects references to the immutable snapshots. Encoding and writing happen on the thread
+ * of a {@link FileBatchWriter}. If it falls behind by more than {@code maxPendingFiles} files, further files are
+ * dropped and counted as {@code opensky.export.dropped}, so memory stays bounded. A pending file which is deleted for
+ * {@code maxFiles} before it was written no longer counts as pending.
+ */
+public class ArrowExporter implements SnapshotListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArrowExporter.class);
+
+    private static final long ALLOCATOR_LIMIT = 256L << 20;
+
+    private final Path dir;
+    private final int snapshotsPerFile;
+    private final int maxPendingFiles;
+    private final int maxFiles;
+    private final FileBatchWriter writer;
+    private final BufferAllocator allocator = new RootAllocator(ALLOCATOR_LIMIT);
+    private final Set<Path> pendingFiles = ConcurrentHashMap.newKeySet();
+    private final Counter exported;
+    private final Counter dropped;
+    private final ArrayDeque<Path> files = new ArrayDeque<>();
+    private List<IndexedSnapshot> batch = new ArrayList<>();
+
+    /**
+     * @param dir              directory of the files
+     * @param snapshotsPerFile number of snapshots, i.e. record batches, per file
+     * @param maxPendingFiles  number of files which may wait for the writer before files are dropped
+     * @param maxFiles         number of files kept, older files are deleted, 0 to keep all
+     */
+    public ArrowExporter(Path dir, int snapshotsPerFile, int maxPendingFiles, int maxFiles, MeterRegistry registry) {
+        this(dir, snapshotsPerFile, maxPendingFiles, maxFiles, new FileBatchWriter("arrow-exporter"), registry);
+    }
+
+    /**
+     * @param writer writes the files, closed with the exporter
+     */
+    public ArrowExporter(Path dir, int snapshotsPerFile, int maxPendingFiles, int maxFiles, FileBatchWriter writer,
+                         MeterRegistry registry) {
+        if (snapshotsPerFile < 1 || maxPendingFiles < 1 || maxFiles < 0) {
+            throw new IllegalArgumentException("Invalid export settings");
+        }
+        this.dir = dir;
+        this.snapshotsPerFile = snapshotsPerFile;
+        this.maxPendingFiles = maxPendingFiles;
+        this.maxFiles = maxFiles;
+        this.writer = writer;
+        this.exported = Counter.builder("opensky.export.files")
+                .description("Arrow files written")
+                .register(registry);
+        this.dropped = Counter.builder("opensky.export.dropped")
+                .description("Arrow files dropped because the writer fell behind")
+                .register(registry);
+    }
+
+    @Override
+    public synchronized void onSnapshot(IndexedSnapshot snapshot) {
+        batch.add(snapshot);
+        if (batch.size() >= snapshotsPerFile) {
+            submit();
+        }
+    }
+
+    /**
+     * @return location of the file holding the snapshots from {@code first} to {@code last}
+     */
+    public Path filePath(int first, int last) {
+        return dir.resolve("states-" + first + "-" + last + ".arrow");
+    }
+
+    /**
+     * Write the snapshots collected so far, even if the file is not full, and wait until all files are written.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            if (!batch.isEmpty()) {
+                submit();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write pending files and release the Arrow memory.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!batch.isEmpty()) {
+                submit();
+            }
+        }
+        writer.close();
+        allocator.close();
+    }
+
+    private void submit() {
+        List<IndexedSnapshot> snapshots = batch;
+        batch = new ArrayList<>(snapshotsPerFile);
+        Path path = filePath(snapshots.getFirst().getTime(), snapshots.getLast().getTime());
+        if (pendingFiles.size() >= maxPendingFiles && !pendingFiles.contains(path)) {
+            dropped.increment();
+            logger.warn("Arrow export fell behind, dropping {} snapshots", snapshots.size());
+            return;
+        }
+        // a path submitted again replaces its pending write
+        pendingFiles.add(path);
+        writer.write(path, () -> {
+            try {
+                byte[] content = encode(snapshots);
+                exported.increment();
+                return content;
+            } finally {
+                pendingFiles.remove(path);
+            }
+        });
+        files.remove(path);
+        files.addLast(path);
+        while (maxFiles > 0 && files.size() > maxFiles) {
+            Path oldest = files.removeFirst();
+            // replaces the write if it is still pending, its supplier never runs
+            writer.delete(oldest);
+            pendingFiles.remove(oldest);
+        }
+    }
+
+    /**
+     * @return number of files waiting for the writer
+     */
+    public int getPendingFiles() {
+        return pendingFiles.size();
+    }
+
+    private byte[] encode(List<IndexedSnapshot> snapshots) {
+        int rows = 0;
+        for (IndexedSnapshot snapshot : snapshots) {
+            rows += snapshot.size();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 128 + 4096);
+        try {
+            ArrowSnapshotWriter.write(snapshots, Channels.newChannel(out), allocator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
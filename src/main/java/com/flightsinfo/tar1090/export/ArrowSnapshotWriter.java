@@ -0,0 +1,235 @@
+package com.flightsinfo.tar1090.export;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes snapshots as an Arrow IPC file, one record batch per snapshot, with a schema mirroring {@link StateVector}:
+ * <pre>
+ * time             int32          snapshot time, seconds since epoch
+ * icao24           utf8
+ * callsign         utf8           dictionary encoded, nullable
+ * origin_country   utf8           dictionary encoded, nullable
+ * time_position    float64        nullable
+ * last_contact     float64        nullable
+ * longitude        float64        nullable
+ * latitude         float64        nullable
+ * baro_altitude    float64        nullable
+ * on_ground        bool
+ * velocity         float64        nullable
+ * true_track       float64        nullable
+ * vertical_rate    float64        nullable
+ * sensors          list&lt;int32&gt;    nullable
+ * geo_altitude     float64        nullable
+ * squawk           utf8           dictionary encoded, nullable
+ * spi              bool
+ * position_source  utf8           dictionary encoded, nullable
+ * </pre>
+ * The dictionaries of a file are built from all its snapshots before the first batch is written, since the file
+ * format carries one dictionary per column.
+ */
+public final class ArrowSnapshotWriter {
+
+    private static final long CALLSIGN_DICTIONARY = 1;
+    private static final long COUNTRY_DICTIONARY = 2;
+    private static final long SQUAWK_DICTIONARY = 3;
+    private static final long POSITION_SOURCE_DICTIONARY = 4;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+    private static final ArrowType FLOAT8 = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+
+    public static final Schema SCHEMA = new Schema(List.of(
+            new Field("time", FieldType.notNullable(new ArrowType.Int(32, true)), null),
+            new Field("icao24", FieldType.notNullable(ArrowType.Utf8.INSTANCE), null),
+            dictionaryField("callsign", CALLSIGN_DICTIONARY),
+            dictionaryField("origin_country", COUNTRY_DICTIONARY),
+            doubleField("time_position"),
+            doubleField("last_contact"),
+            doubleField("longitude"),
+            doubleField("latitude"),
+            doubleField("baro_altitude"),
+            new Field("on_ground", FieldType.notNullable(ArrowType.Bool.INSTANCE), null),
+            doubleField("velocity"),
+            doubleField("true_track"),
+            doubleField("vertical_rate"),
+            new Field("sensors", FieldType.nullable(ArrowType.List.INSTANCE),
+                    List.of(new Field("serial", FieldType.notNullable(new ArrowType.Int(32, true)), null))),
+            doubleField("geo_altitude"),
+            dictionaryField("squawk", SQUAWK_DICTIONARY),
+            new Field("spi", FieldType.notNullable(ArrowType.Bool.INSTANCE), null),
+            dictionaryField("position_source", POSITION_SOURCE_DICTIONARY)));
+
+    private ArrowSnapshotWriter() {
+    }
+
+    private static Field dictionaryField(String name, long id) {
+        return new Field(name, new FieldType(true, INDEX_TYPE, new DictionaryEncoding(id, false, INDEX_TYPE)), null);
+    }
+
+    private static Field doubleField(String name) {
+        return new Field(name, FieldType.nullable(FLOAT8), null);
+    }
+
+    /**
+     * Write the snapshots as one Arrow IPC file.
+     */
+    public static void write(Collection<IndexedSnapshot> snapshots, WritableByteChannel out, BufferAllocator allocator) throws IOException {
+        Map<String, Integer> callsigns = new LinkedHashMap<>();
+        Map<String, Integer> countries = new LinkedHashMap<>();
+        Map<String, Integer> squawks = new LinkedHashMap<>();
+        for (IndexedSnapshot snapshot : snapshots) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                StateVector sv = snapshot.get(i);
+                index(callsigns, sv.getCallsign());
+                index(countries, sv.getOriginCountry());
+                index(squawks, sv.getSquawk());
+            }
+        }
+        List<String> sources = new ArrayList<>();
+        for (StateVector.PositionSource source : StateVector.PositionSource.values()) {
+            sources.add(source.name());
+        }
+
+        DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, allocator);
+             VarCharVector callsignValues = dictionary(provider, "callsign", CALLSIGN_DICTIONARY, callsigns.keySet(), allocator);
+             VarCharVector countryValues = dictionary(provider, "origin_country", COUNTRY_DICTIONARY, countries.keySet(), allocator);
+             VarCharVector squawkValues = dictionary(provider, "squawk", SQUAWK_DICTIONARY, squawks.keySet(), allocator);
+             VarCharVector sourceValues = dictionary(provider, "position_source", POSITION_SOURCE_DICTIONARY, sources, allocator);
+             ArrowFileWriter writer = new ArrowFileWriter(root, provider, out)) {
+            writer.start();
+            for (IndexedSnapshot snapshot : snapshots) {
+                fill(root, snapshot, callsigns, countries, squawks);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+    }
+
+    private static void index(Map<String, Integer> dictionary, String value) {
+        if (value != null) {
+            dictionary.putIfAbsent(value, dictionary.size());
+        }
+    }
+
+    private static VarCharVector dictionary(DictionaryProvider.MapDictionaryProvider provider, String name, long id,
+                                            Collection<String> values, BufferAllocator allocator) {
+        VarCharVector vector = new VarCharVector(name, allocator);
+        vector.allocateNew(values.size());
+        int i = 0;
+        for (String value : values) {
+            vector.setSafe(i++, value.getBytes(StandardCharsets.UTF_8));
+        }
+        vector.setValueCount(values.size());
+        provider.put(new Dictionary(vector, new DictionaryEncoding(id, false, INDEX_TYPE)));
+        return vector;
+    }
+
+    private static void fill(VectorSchemaRoot root, IndexedSnapshot snapshot, Map<String, Integer> callsigns,
+                             Map<String, Integer> countries, Map<String, Integer> squawks) {
+        int n = snapshot.size();
+        root.clear();
+        root.allocateNew();
+        IntVector time = (IntVector) root.getVector("time");
+        VarCharVector icao24 = (VarCharVector) root.getVector("icao24");
+        IntVector callsign = (IntVector) root.getVector("callsign");
+        IntVector country = (IntVector) root.getVector("origin_country");
+        Float8Vector timePosition = (Float8Vector) root.getVector("time_position");
+        Float8Vector lastContact = (Float8Vector) root.getVector("last_contact");
+        Float8Vector longitude = (Float8Vector) root.getVector("longitude");
+        Float8Vector latitude = (Float8Vector) root.getVector("latitude");
+        Float8Vector baroAltitude = (Float8Vector) root.getVector("baro_altitude");
+        BitVector onGround = (BitVector) root.getVector("on_ground");
+        Float8Vector velocity = (Float8Vector) root.getVector("velocity");
+        Float8Vector trueTrack = (Float8Vector) root.getVector("true_track");
+        Float8Vector verticalRate = (Float8Vector) root.getVector("vertical_rate");
+        ListVector sensors = (ListVector) root.getVector("sensors");
+        IntVector serials = (IntVector) sensors.getDataVector();
+        Float8Vector geoAltitude = (Float8Vector) root.getVector("geo_altitude");
+        IntVector squawk = (IntVector) root.getVector("squawk");
+        BitVector spi = (BitVector) root.getVector("spi");
+        IntVector positionSource = (IntVector) root.getVector("position_source");
+
+        int serialCount = 0;
+        for (int i = 0; i < n; i++) {
+            StateVector sv = snapshot.get(i);
+            time.setSafe(i, snapshot.getTime());
+            icao24.setSafe(i, sv.getIcao24().getBytes(StandardCharsets.UTF_8));
+            setIndex(callsign, i, callsigns, sv.getCallsign());
+            setIndex(country, i, countries, sv.getOriginCountry());
+            setDouble(timePosition, i, sv.getLastPositionUpdate());
+            setDouble(lastContact, i, sv.getLastContact());
+            setDouble(longitude, i, sv.getLongitude());
+            setDouble(latitude, i, sv.getLatitude());
+            setDouble(baroAltitude, i, sv.getBaroAltitude());
+            onGround.setSafe(i, sv.isOnGround() ? 1 : 0);
+            setDouble(velocity, i, sv.getVelocity());
+            setDouble(trueTrack, i, sv.getHeading());
+            setDouble(verticalRate, i, sv.getVerticalRate());
+            Set<Integer> sensorSerials = sv.getSerials();
+            int offset = sensors.startNewValue(i);
+            if (sensorSerials != null) {
+                for (int serial : sensorSerials) {
+                    serials.setSafe(offset++, serial);
+                }
+                sensors.endValue(i, sensorSerials.size());
+                serialCount += sensorSerials.size();
+            } else {
+                sensors.endValue(i, 0);
+                sensors.setNull(i);
+            }
+            setDouble(geoAltitude, i, sv.getGeoAltitude());
+            setIndex(squawk, i, squawks, sv.getSquawk());
+            spi.setSafe(i, sv.isSpi() ? 1 : 0);
+            if (sv.getPositionSource() != null) {
+                positionSource.setSafe(i, sv.getPositionSource().ordinal());
+            } else {
+                positionSource.setNull(i);
+            }
+        }
+        serials.setValueCount(serialCount);
+        root.setRowCount(n);
+    }
+
+    private static void setIndex(IntVector vector, int i, Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            vector.setNull(i);
+        } else {
+            vector.setSafe(i, dictionary.get(value));
+        }
+    }
+
+    private static void setDouble(Float8Vector vector, int i, Double value) {
+        if (value == null) {
+            vector.setNull(i);
+        } else {
+            vector.setSafe(i, value);
+        }
+    }
+}
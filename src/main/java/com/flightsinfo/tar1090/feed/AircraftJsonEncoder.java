@@ -0,0 +1,156 @@
+package com.flightsinfo.tar1090.feed;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.flightsinfo.tar1090.metadata.AircraftMetadataTable;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes a snapshot in the format of the {@code aircraft.json} file written by readsb and read by tar1090.
+ * <p>
+ * OpenSky reports SI units, tar1090 expects feet, knots and feet per minute. Altitudes and rates are rounded to
+ * integers like readsb does, {@code alt_baro} is {@code "ground"} for aircraft on ground. With aircraft metadata,
+ * registration, type code and operator are added as {@code r}, {@code t} and {@code ownOp}.
+ */
+public class AircraftJsonEncoder {
+
+    public static final double FEET_PER_METER = 3.28084;
+    public static final double KNOTS_PER_METER_PER_SECOND = 1.943844;
+    public static final double FEET_PER_MINUTE_PER_METER_PER_SECOND = FEET_PER_METER * 60;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Encode a snapshot. {@code now}, {@code seen} and {@code seen_pos} are relative to the snapshot time, so the
+     * result only depends on the snapshot.
+     *
+     * @return UTF-8 encoded JSON
+     */
+    public byte[] encode(IndexedSnapshot snapshot) {
+        return encode(snapshot, null);
+    }
+
+    /**
+     * Encode a snapshot with the metadata of its aircraft.
+     *
+     * @param metadata metadata looked up for the snapshot, {@code null} if there is none
+     * @return UTF-8 encoded JSON
+     */
+    public byte[] encode(IndexedSnapshot snapshot, AircraftMetadataTable.Enrichment metadata) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + snapshot.size() * 200);
+        try (JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            double now = snapshot.getTime();
+            gen.writeStartObject();
+            gen.writeNumberField("now", now);
+            gen.writeNumberField("messages", 0);
+            gen.writeArrayFieldStart("aircraft");
+            for (int i = 0; i < snapshot.size(); i++) {
+                writeAircraft(gen, snapshot.get(i), now, metadata, i);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            // writing to memory
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the given bytes gzip compressed
+     */
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeAircraft(JsonGenerator gen, StateVector sv, double now,
+                                      AircraftMetadataTable.Enrichment metadata, int i) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("hex", sv.getIcao24());
+        gen.writeStringField("type", sourceType(sv.getPositionSource()));
+        if (sv.getCallsign() != null && !sv.getCallsign().isBlank()) {
+            gen.writeStringField("flight", sv.getCallsign());
+        }
+        if (metadata != null && metadata.row(i) >= 0) {
+            writeOptional(gen, "r", metadata.registration(i));
+            writeOptional(gen, "t", metadata.typeCode(i));
+            writeOptional(gen, "ownOp", metadata.operator(i));
+        }
+        if (sv.isOnGround()) {
+            gen.writeStringField("alt_baro", "ground");
+        } else if (sv.getBaroAltitude() != null) {
+            gen.writeNumberField("alt_baro", Math.round(sv.getBaroAltitude() * FEET_PER_METER));
+        }
+        if (sv.getGeoAltitude() != null) {
+            gen.writeNumberField("alt_geom", Math.round(sv.getGeoAltitude() * FEET_PER_METER));
+        }
+        if (sv.getVelocity() != null) {
+            gen.writeNumberField("gs", round1(sv.getVelocity() * KNOTS_PER_METER_PER_SECOND));
+        }
+        if (sv.getHeading() != null) {
+            gen.writeNumberField("track", round1(sv.getHeading()));
+        }
+        if (sv.getVerticalRate() != null) {
+            gen.writeNumberField("baro_rate", Math.round(sv.getVerticalRate() * FEET_PER_MINUTE_PER_METER_PER_SECOND));
+        }
+        if (sv.getSquawk() != null) {
+            gen.writeStringField("squawk", sv.getSquawk());
+        }
+        if (sv.isSpi()) {
+            gen.writeBooleanField("spi", true);
+        }
+        if (sv.getLatitude() != null && sv.getLongitude() != null) {
+            gen.writeNumberField("lat", sv.getLatitude());
+            gen.writeNumberField("lon", sv.getLongitude());
+            if (sv.getLastPositionUpdate() != null) {
+                gen.writeNumberField("seen_pos", round1(Math.max(0, now - sv.getLastPositionUpdate())));
+            }
+        }
+        if (sv.getLastContact() != null) {
+            gen.writeNumberField("seen", round1(Math.max(0, now - sv.getLastContact())));
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeOptional(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    /**
+     * @return the readsb {@code type} of a position source
+     */
+    static String sourceType(StateVector.PositionSource source) {
+        if (source == null) {
+            return "unknown";
+        }
+        return switch (source) {
+            case ADS_B -> "adsb_icao";
+            case MLAT -> "mlat";
+            default -> "other";
+        };
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
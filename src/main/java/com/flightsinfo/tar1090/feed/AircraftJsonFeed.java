@@ -0,0 +1,47 @@
+package com.flightsinfo.tar1090.feed;
+
+import com.flightsinfo.tar1090.metadata.AircraftMetadata;
+import com.flightsinfo.tar1090.metadata.AircraftMetadataTable;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@code aircraft.json} of the latest snapshot encoded and compressed, so serving it costs no CPU beyond
+ * copying bytes no matter how many clients poll it.
+ */
+@Component
+public class AircraftJsonFeed {
+
+    private final AircraftJsonEncoder encoder = new AircraftJsonEncoder();
+    private volatile EncodedDocument current;
+    private volatile AircraftMetadata metadata;
+
+    public AircraftJsonFeed(SnapshotStore store) {
+        store.addListener(this::update);
+        IndexedSnapshot latest = store.getLatest();
+        if (latest != null) {
+            update(latest);
+        }
+    }
+
+    /**
+     * @return the encoded latest snapshot, {@code null} if none has been published yet
+     */
+    public EncodedDocument getCurrent() {
+        return current;
+    }
+
+    /**
+     * Add registration, type code and operator of the aircraft from the next snapshot on.
+     */
+    public void setMetadata(AircraftMetadata metadata) {
+        this.metadata = metadata;
+    }
+
+    private void update(IndexedSnapshot snapshot) {
+        AircraftMetadata source = metadata;
+        AircraftMetadataTable table = source != null ? source.getTable() : null;
+        current = EncodedDocument.of(snapshot, encoder.encode(snapshot, table != null ? table.enrich(snapshot) : null));
+    }
+}
@@ -0,0 +1,177 @@
+package com.flightsinfo.tar1090.feed;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes a snapshot into fixed size little-endian records, in the spirit of the binCraft format of readsb. A browser
+ * reads it with a {@code DataView} without any parsing, and it is about a third of the size of {@code aircraft.json}.
+ * <p>
+ * Layout, all values little-endian:
+ * <pre>
+ * header, {@value #HEADER_SIZE} bytes
+ *   0  u32  magic {@value #MAGIC}
+ *   4  u16  version
+ *   6  u16  record size
+ *   8  u32  snapshot time, seconds since epoch
+ *   12 u32  number of records
+ * record, {@value #RECORD_SIZE} bytes
+ *   0  u32  ICAO24 address
+ *   4  i32  latitude, 1e-6 degrees
+ *   8  i32  longitude, 1e-6 degrees
+ *   12 i16  barometric altitude, 25 ft
+ *   14 i16  geometric altitude, 25 ft
+ *   16 u16  ground speed, 0.1 kt
+ *   18 u16  track, 0.1 degrees
+ *   20 i16  barometric vertical rate, 8 ft/min
+ *   22 u16  squawk, each digit in one nibble (7700 is 0x7700)
+ *   24 u16  seconds since the last message, 0.1 s
+ *   26 u16  seconds since the last position, 0.1 s
+ *   28 u16  flags, see FLAG_*
+ *   30 u8   position source, ordinal of {@link StateVector.PositionSource}, 255 if unknown
+ *   31 u8   reserved
+ *   32 8    callsign, ASCII, padded with spaces
+ * </pre>
+ * A value is only valid if its flag is set.
+ */
+public class BinaryAircraftEncoder {
+
+    public static final int MAGIC = 0x4B42534F;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 40;
+
+    public static final int FLAG_ON_GROUND = 1;
+    public static final int FLAG_SPI = 1 << 1;
+    public static final int FLAG_POSITION = 1 << 2;
+    public static final int FLAG_ALT_BARO = 1 << 3;
+    public static final int FLAG_ALT_GEOM = 1 << 4;
+    public static final int FLAG_GROUND_SPEED = 1 << 5;
+    public static final int FLAG_TRACK = 1 << 6;
+    public static final int FLAG_BARO_RATE = 1 << 7;
+    public static final int FLAG_SQUAWK = 1 << 8;
+    public static final int FLAG_SEEN = 1 << 9;
+    public static final int FLAG_SEEN_POS = 1 << 10;
+    public static final int FLAG_CALLSIGN = 1 << 11;
+
+    public byte[] encode(IndexedSnapshot snapshot) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + snapshot.size() * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC);
+        buf.putShort((short) VERSION);
+        buf.putShort((short) RECORD_SIZE);
+        buf.putInt(snapshot.getTime());
+        buf.putInt(snapshot.size());
+        double now = snapshot.getTime();
+        for (int i = 0; i < snapshot.size(); i++) {
+            writeRecord(buf, snapshot.get(i), now);
+        }
+        return buf.array();
+    }
+
+    private static void writeRecord(ByteBuffer buf, StateVector sv, double now) {
+        int start = buf.position();
+        int flags = 0;
+        buf.putInt(parseHex(sv.getIcao24()));
+        if (sv.getLatitude() != null && sv.getLongitude() != null) {
+            flags |= FLAG_POSITION;
+            buf.putInt((int) Math.round(sv.getLatitude() * 1e6));
+            buf.putInt((int) Math.round(sv.getLongitude() * 1e6));
+        } else {
+            buf.putLong(0);
+        }
+        if (sv.getBaroAltitude() != null) {
+            flags |= FLAG_ALT_BARO;
+        }
+        buf.putShort(clampShort(sv.getBaroAltitude(), AircraftJsonEncoder.FEET_PER_METER / 25));
+        if (sv.getGeoAltitude() != null) {
+            flags |= FLAG_ALT_GEOM;
+        }
+        buf.putShort(clampShort(sv.getGeoAltitude(), AircraftJsonEncoder.FEET_PER_METER / 25));
+        if (sv.getVelocity() != null) {
+            flags |= FLAG_GROUND_SPEED;
+        }
+        buf.putShort(clampUnsignedShort(sv.getVelocity(), AircraftJsonEncoder.KNOTS_PER_METER_PER_SECOND * 10));
+        if (sv.getHeading() != null) {
+            flags |= FLAG_TRACK;
+        }
+        buf.putShort(clampUnsignedShort(sv.getHeading(), 10));
+        if (sv.getVerticalRate() != null) {
+            flags |= FLAG_BARO_RATE;
+        }
+        buf.putShort(clampShort(sv.getVerticalRate(), AircraftJsonEncoder.FEET_PER_MINUTE_PER_METER_PER_SECOND / 8));
+        int squawk = parseSquawk(sv.getSquawk());
+        if (squawk >= 0) {
+            flags |= FLAG_SQUAWK;
+        }
+        buf.putShort((short) Math.max(squawk, 0));
+        if (sv.getLastContact() != null) {
+            flags |= FLAG_SEEN;
+        }
+        buf.putShort(clampUnsignedShort(sv.getLastContact() == null ? null : Math.max(0, now - sv.getLastContact()), 10));
+        if (sv.getLastPositionUpdate() != null) {
+            flags |= FLAG_SEEN_POS;
+        }
+        buf.putShort(clampUnsignedShort(sv.getLastPositionUpdate() == null ? null : Math.max(0, now - sv.getLastPositionUpdate()), 10));
+        if (sv.isOnGround()) {
+            flags |= FLAG_ON_GROUND;
+        }
+        if (sv.isSpi()) {
+            flags |= FLAG_SPI;
+        }
+        String callsign = sv.getCallsign();
+        if (callsign != null && !callsign.isBlank()) {
+            flags |= FLAG_CALLSIGN;
+        }
+        buf.putShort((short) flags);
+        buf.put((byte) (sv.getPositionSource() == null ? 255 : sv.getPositionSource().ordinal()));
+        buf.put((byte) 0);
+        for (int i = 0; i < 8; i++) {
+            char c = callsign != null && i < callsign.length() ? callsign.charAt(i) : ' ';
+            buf.put(c < 128 ? (byte) c : (byte) '?');
+        }
+        assert buf.position() - start == RECORD_SIZE;
+    }
+
+    private static int parseHex(String icao24) {
+        try {
+            return icao24 == null ? 0 : Integer.parseUnsignedInt(icao24, 16);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return the squawk with one digit per nibble, -1 if not a valid squawk
+     */
+    private static int parseSquawk(String squawk) {
+        if (squawk == null || squawk.length() != 4) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = squawk.charAt(i) - '0';
+            if (digit < 0 || digit > 7) {
+                return -1;
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+
+    private static short clampShort(Double value, double factor) {
+        if (value == null) {
+            return 0;
+        }
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * factor)));
+    }
+
+    private static short clampUnsignedShort(Double value, double factor) {
+        if (value == null) {
+            return 0;
+        }
+        return (short) Math.max(0, Math.min(0xFFFF, Math.round(value * factor)));
+    }
+}
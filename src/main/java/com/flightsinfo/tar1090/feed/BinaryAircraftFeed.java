@@ -0,0 +1,35 @@
+package com.flightsinfo.tar1090.feed;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link BinaryAircraftEncoder binary encoding} of the latest snapshot, encoded and compressed once per
+ * snapshot.
+ */
+@Component
+public class BinaryAircraftFeed {
+
+    private final BinaryAircraftEncoder encoder = new BinaryAircraftEncoder();
+    private volatile EncodedDocument current;
+
+    public BinaryAircraftFeed(SnapshotStore store) {
+        store.addListener(this::update);
+        IndexedSnapshot latest = store.getLatest();
+        if (latest != null) {
+            update(latest);
+        }
+    }
+
+    /**
+     * @return the encoded latest snapshot, {@code null} if none has been published yet
+     */
+    public EncodedDocument getCurrent() {
+        return current;
+    }
+
+    private void update(IndexedSnapshot snapshot) {
+        current = EncodedDocument.of(snapshot, encoder.encode(snapshot));
+    }
+}
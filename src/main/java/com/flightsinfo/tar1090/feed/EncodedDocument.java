@@ -0,0 +1,25 @@
+package com.flightsinfo.tar1090.feed;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+
+/**
+ * A document encoded once and served many times.
+ *
+ * @param plain        encoded document
+ * @param gzip         {@code plain} gzip compressed
+ * @param etag         quoted entity tag identifying the content
+ * @param gzipEtag     quoted entity tag of the gzip representation, distinct from {@code etag} as caches must not
+ *                     answer a request for one encoding with the other
+ * @param lastModified time the document was created in ms since epoch
+ */
+public record EncodedDocument(byte[] plain, byte[] gzip, String etag, String gzipEtag, long lastModified) {
+
+    /**
+     * Compress a document encoded from a snapshot and tag it with the identity of the snapshot.
+     */
+    public static EncodedDocument of(IndexedSnapshot snapshot, byte[] plain) {
+        String tag = Integer.toHexString(snapshot.getTime()) + '-' + Long.toHexString(snapshot.getReceivedAt());
+        return new EncodedDocument(plain, AircraftJsonEncoder.gzip(plain), "\"" + tag + "\"", "\"" + tag + "-gz\"",
+                snapshot.getReceivedAt());
+    }
+}
@@ -0,0 +1,142 @@
+package com.flightsinfo.tar1090.feed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes files on a single background thread, so callers never block on disk I/O.
+ * <p>
+ * Pending operations are kept per path: if a file is submitted again before it was written, only the latest content
+ * is written. A writer which falls behind therefore skips intermediate versions instead of building up a backlog.
+ * Content is produced by the supplier on the writer thread, so expensive steps like compression also happen there.
+ * Files are replaced atomically, readers never see partially written content.
+ */
+public class FileBatchWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileBatchWriter.class);
+
+    private static final Supplier<byte[]> DELETE = () -> null;
+
+    private final Map<Path, Supplier<byte[]>> pending = new LinkedHashMap<>();
+    private final Thread thread;
+    private boolean busy;
+    private boolean closed;
+    private long filesWritten;
+
+    public FileBatchWriter(String threadName) {
+        this.thread = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    /**
+     * Schedule writing a file, replacing any pending operation of the same path.
+     *
+     * @param path    file to write
+     * @param content produces the content, called on the writer thread
+     */
+    public synchronized void write(Path path, Supplier<byte[]> content) {
+        submit(path, content);
+    }
+
+    /**
+     * Schedule deleting a file, replacing any pending operation of the same path.
+     */
+    public synchronized void delete(Path path) {
+        submit(path, DELETE);
+    }
+
+    /**
+     * Wait until all operations submitted so far are done.
+     */
+    public synchronized void flush() throws InterruptedException {
+        while (!pending.isEmpty() || busy) {
+            wait();
+        }
+    }
+
+    /**
+     * @return number of files written or deleted since creation
+     */
+    public synchronized long getFilesWritten() {
+        return filesWritten;
+    }
+
+    /**
+     * Write all pending files and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Path path, Supplier<byte[]> content) {
+        if (closed) {
+            throw new IllegalStateException("Writer closed");
+        }
+        // re-insert, so operations are executed in the order of their latest submission
+        pending.remove(path);
+        pending.put(path, content);
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            Map<Path, Supplier<byte[]>> batch;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+                busy = true;
+            }
+            for (Map.Entry<Path, Supplier<byte[]>> e : batch.entrySet()) {
+                try {
+                    if (e.getValue() == DELETE) {
+                        Files.deleteIfExists(e.getKey());
+                    } else {
+                        writeAtomically(e.getKey(), e.getValue().get());
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    logger.warn("Could not write {}", e.getKey(), ex);
+                }
+            }
+            synchronized (this) {
+                filesWritten += batch.size();
+                busy = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(path.getFileName() + ".tmp");
+        Files.write(tmp, content);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,294 @@
+package com.flightsinfo.tar1090.feed;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the trace and history files tar1090 uses to show flight paths, in the layout readsb writes them:
+ * <ul>
+ *     <li>{@code traces/<last two hex digits>/trace_recent_<hex>.json} and {@code trace_full_<hex>.json}, gzip
+ *     compressed</li>
+ *     <li>{@code chunks/chunk_<time>.gz}, one per time slice holding all {@code aircraft.json} documents of the slice,
+ *     and {@code chunks/chunks.json} listing them</li>
+ * </ul>
+ * Everything is maintained incrementally. Each trace point is encoded once when the position of an aircraft changed
+ * and kept as bytes, so a trace file is a concatenation of cached fragments. History chunks reuse the gzip compressed
+ * {@code aircraft.json} of {@link AircraftJsonFeed} as gzip members, so they are never compressed again. Files are
+ * written by a {@link FileBatchWriter}, the snapshot thread only updates memory.
+ */
+public class TraceHistory implements SnapshotListener {
+
+    /**
+     * @param retention       how long points are kept in the full trace
+     * @param recentPoints    number of points in the recent trace
+     * @param fullInterval    minimum time between two writes of the full trace of an aircraft
+     * @param chunkDuration   time covered by one history chunk
+     * @param chunks          number of history chunks kept
+     */
+    public record Settings(Duration retention, int recentPoints, Duration fullInterval, Duration chunkDuration, int chunks) {
+
+        public static Settings defaults() {
+            return new Settings(Duration.ofHours(24), 128, Duration.ofSeconds(60), Duration.ofMinutes(2), 30);
+        }
+    }
+
+    private static final byte[] COMMA = {','};
+    private static final byte[] GZIP_CHUNK_HEADER = AircraftJsonEncoder.gzip("{\"files\":[".getBytes(StandardCharsets.UTF_8));
+    private static final byte[] GZIP_CHUNK_SEPARATOR = AircraftJsonEncoder.gzip(COMMA);
+    private static final byte[] GZIP_CHUNK_TRAILER = AircraftJsonEncoder.gzip("]}".getBytes(StandardCharsets.UTF_8));
+
+    private final Path traceDir;
+    private final Path chunkDir;
+    private final AircraftJsonFeed feed;
+    private final FileBatchWriter writer;
+    private final Settings settings;
+    private final Map<String, Trace> traces = new HashMap<>();
+
+    private final List<byte[]> chunkMembers = new ArrayList<>();
+    private final ArrayDeque<String> chunkNames = new ArrayDeque<>();
+    private long chunkSlice = Long.MIN_VALUE;
+
+    public TraceHistory(Path dir, AircraftJsonFeed feed, FileBatchWriter writer, Settings settings) {
+        this.traceDir = dir.resolve("traces");
+        this.chunkDir = dir.resolve("chunks");
+        this.feed = feed;
+        this.writer = writer;
+        this.settings = settings;
+    }
+
+    /**
+     * Has to be registered after {@link AircraftJsonFeed}, so the feed already encoded the snapshot.
+     */
+    @Override
+    public void onSnapshot(IndexedSnapshot snapshot) {
+        int now = snapshot.getTime();
+        for (int i = 0; i < snapshot.size(); i++) {
+            update(snapshot.get(i), now);
+        }
+        expire(now);
+
+        EncodedDocument document = feed.getCurrent();
+        if (document != null) {
+            appendChunk(document, now);
+        }
+    }
+
+    /**
+     * @return number of aircraft with a trace
+     */
+    public int size() {
+        return traces.size();
+    }
+
+    /**
+     * @return location of the recent trace of an aircraft
+     */
+    public Path recentTracePath(String hex) {
+        return traceDir.resolve(hex.substring(hex.length() - 2)).resolve("trace_recent_" + hex + ".json");
+    }
+
+    /**
+     * @return location of the full trace of an aircraft
+     */
+    public Path fullTracePath(String hex) {
+        return traceDir.resolve(hex.substring(hex.length() - 2)).resolve("trace_full_" + hex + ".json");
+    }
+
+    private void update(StateVector sv, int now) {
+        if (sv.getLatitude() == null || sv.getLongitude() == null || sv.getIcao24() == null || sv.getIcao24().length() < 2) {
+            return;
+        }
+        Trace trace = traces.computeIfAbsent(sv.getIcao24(), hex -> new Trace(hex, now));
+        trace.lastSeen = now;
+        if (!trace.moved(sv)) {
+            return;
+        }
+        int time = sv.getLastPositionUpdate() != null ? sv.getLastPositionUpdate().intValue() : now;
+        trace.points.addLast(new Point(time, encodePoint(sv, time - trace.base)));
+        trace.lastLatitude = sv.getLatitude();
+        trace.lastLongitude = sv.getLongitude();
+        long oldest = now - settings.retention().toSeconds();
+        while (trace.points.peekFirst().time < oldest) {
+            trace.points.removeFirst();
+        }
+
+        List<byte[]> recent = trace.tail(settings.recentPoints());
+        writer.write(recentTracePath(trace.hex), () -> AircraftJsonEncoder.gzip(trace.encode(recent)));
+        trace.fullDirty = true;
+        if (now - trace.lastFullWrite >= settings.fullInterval().toSeconds()) {
+            writeFull(trace, now);
+        }
+    }
+
+    private void writeFull(Trace trace, int now) {
+        List<byte[]> all = trace.tail(trace.points.size());
+        writer.write(fullTracePath(trace.hex), () -> AircraftJsonEncoder.gzip(trace.encode(all)));
+        trace.fullDirty = false;
+        trace.lastFullWrite = now;
+    }
+
+    private void expire(int now) {
+        long oldest = now - settings.retention().toSeconds();
+        for (Iterator<Trace> it = traces.values().iterator(); it.hasNext(); ) {
+            Trace trace = it.next();
+            if (trace.lastSeen < oldest) {
+                it.remove();
+                writer.delete(recentTracePath(trace.hex));
+                writer.delete(fullTracePath(trace.hex));
+            } else if (trace.fullDirty && trace.lastSeen < now && now - trace.lastFullWrite >= settings.fullInterval().toSeconds()) {
+                // aircraft vanished, make sure its last points reach the full trace
+                writeFull(trace, now);
+            }
+        }
+    }
+
+    private void appendChunk(EncodedDocument document, int now) {
+        long slice = now / settings.chunkDuration().toSeconds();
+        if (slice != chunkSlice && !chunkMembers.isEmpty()) {
+            finishChunk();
+        }
+        chunkSlice = slice;
+        chunkMembers.add(chunkMembers.isEmpty() ? GZIP_CHUNK_HEADER : GZIP_CHUNK_SEPARATOR);
+        chunkMembers.add(document.gzip());
+    }
+
+    private void finishChunk() {
+        String name = "chunk_" + chunkSlice * settings.chunkDuration().toSeconds() + ".gz";
+        List<byte[]> members = new ArrayList<>(chunkMembers);
+        members.add(GZIP_CHUNK_TRAILER);
+        chunkMembers.clear();
+        writer.write(chunkDir.resolve(name), () -> concat(members));
+
+        chunkNames.addLast(name);
+        while (chunkNames.size() > settings.chunks()) {
+            writer.delete(chunkDir.resolve(chunkNames.removeFirst()));
+        }
+        StringBuilder index = new StringBuilder("{\"chunks\":[");
+        for (String chunk : chunkNames) {
+            index.append(index.charAt(index.length() - 1) == '[' ? "" : ",").append('"').append(chunk).append('"');
+        }
+        byte[] json = index.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        writer.write(chunkDir.resolve("chunks.json"), () -> json);
+    }
+
+    /**
+     * Encode a trace point the way readsb does:
+     * {@code [dt, lat, lon, alt_baro|"ground", gs, track, flags, baro_rate, details, type, alt_geom, geom_rate, ias, roll]}
+     */
+    private static byte[] encodePoint(StateVector sv, int dt) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append('[').append(dt);
+        sb.append(',').append(round(sv.getLatitude(), 1e6));
+        sb.append(',').append(round(sv.getLongitude(), 1e6));
+        sb.append(',');
+        if (sv.isOnGround()) {
+            sb.append("\"ground\"");
+        } else {
+            appendRounded(sb, sv.getBaroAltitude(), AircraftJsonEncoder.FEET_PER_METER);
+        }
+        sb.append(',');
+        appendRounded(sb, sv.getVelocity(), AircraftJsonEncoder.KNOTS_PER_METER_PER_SECOND);
+        sb.append(',');
+        if (sv.getHeading() != null) {
+            sb.append(round(sv.getHeading(), 10));
+        } else {
+            sb.append("null");
+        }
+        sb.append(",0,");
+        appendRounded(sb, sv.getVerticalRate(), AircraftJsonEncoder.FEET_PER_MINUTE_PER_METER_PER_SECOND);
+        sb.append(",null,\"").append(AircraftJsonEncoder.sourceType(sv.getPositionSource())).append("\",");
+        appendRounded(sb, sv.getGeoAltitude(), AircraftJsonEncoder.FEET_PER_METER);
+        sb.append(",null,null,null]");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendRounded(StringBuilder sb, Double value, double factor) {
+        if (value == null) {
+            sb.append("null");
+        } else {
+            sb.append(Math.round(value * factor));
+        }
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+
+    private static byte[] concat(List<byte[]> parts) {
+        int size = 0;
+        for (byte[] part : parts) {
+            size += part.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private record Point(int time, byte[] json) {
+    }
+
+    private static final class Trace {
+        final String hex;
+        /**
+         * Time all point offsets are relative to, fixed so that encoded points stay valid
+         */
+        final int base;
+        final ArrayDeque<Point> points = new ArrayDeque<>();
+        final byte[] header;
+        double lastLatitude = Double.NaN;
+        double lastLongitude = Double.NaN;
+        int lastSeen;
+        int lastFullWrite;
+        boolean fullDirty;
+
+        Trace(String hex, int base) {
+            this.hex = hex;
+            this.base = base;
+            this.header = ("{\"icao\":\"" + hex + "\",\"timestamp\":" + base + ",\"trace\":[").getBytes(StandardCharsets.UTF_8);
+        }
+
+        boolean moved(StateVector sv) {
+            return sv.getLatitude() != lastLatitude || sv.getLongitude() != lastLongitude;
+        }
+
+        /**
+         * @return encoded fragments of the last {@code n} points
+         */
+        List<byte[]> tail(int n) {
+            List<byte[]> result = new ArrayList<>(Math.min(n, points.size()));
+            Iterator<Point> it = points.descendingIterator();
+            for (int i = 0; i < n && it.hasNext(); i++) {
+                result.add(it.next().json);
+            }
+            return result.reversed();
+        }
+
+        byte[] encode(List<byte[]> fragments) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(header.length + fragments.size() * 100 + 2);
+            out.writeBytes(header);
+            for (int i = 0; i < fragments.size(); i++) {
+                if (i > 0) {
+                    out.writeBytes(COMMA);
+                }
+                out.writeBytes(fragments.get(i));
+            }
+            out.write(']');
+            out.write('}');
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.flightsinfo.tar1090.filter;
+
+import com.flightsinfo.tar1090.filter.FilterExpression.Comparison;
+import com.flightsinfo.tar1090.filter.FilterExpression.In;
+import com.flightsinfo.tar1090.filter.FilterExpression.Operator;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.model.StateVectorField;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Creates the lambdas of compiled conditions. The type of the field, the operator and the literal are resolved here
+ * once, so the lambdas only read the field and compare it with a captured primitive or reference.
+ */
+final class FilterCompiler {
+
+    private FilterCompiler() {
+    }
+
+    static Predicate<StateVector> compile(Comparison c) {
+        StateVectorField field = c.field();
+        Operator op = c.operator();
+        return switch (field.getType()) {
+            case NUMBER -> number(field, op, (Double) c.value());
+            case STRING -> string(field, op, (String) c.value());
+            case BOOLEAN, ENUM -> {
+                Object value = c.value();
+                // booleans are the cached Boolean instances, enums singletons
+                yield op == Operator.EQ ? sv -> field.get(sv) == value : sv -> {
+                    Object actual = field.get(sv);
+                    return actual != null && actual != value;
+                };
+            }
+            case SET -> {
+                Object value = c.value();
+                yield sv -> {
+                    Set<?> actual = (Set<?>) field.get(sv);
+                    return actual != null && actual.contains(value);
+                };
+            }
+        };
+    }
+
+    static Predicate<StateVector> compile(In in) {
+        StateVectorField field = in.field();
+        if (field.getType() == StateVectorField.Type.NUMBER) {
+            double[] values = new double[in.values().size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (Double) in.values().get(i);
+            }
+            return sv -> {
+                Object actual = field.get(sv);
+                if (actual == null) {
+                    return false;
+                }
+                double a = (Double) actual;
+                for (double value : values) {
+                    if (a == value) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        Set<Object> values = new HashSet<>(in.values());
+        if (field.getType() == StateVectorField.Type.STRING) {
+            return sv -> {
+                String actual = (String) field.get(sv);
+                return actual != null && values.contains(actual.stripTrailing());
+            };
+        }
+        return sv -> values.contains(field.get(sv));
+    }
+
+    private static Predicate<StateVector> number(StateVectorField field, Operator op, double value) {
+        return switch (op) {
+            case EQ -> sv -> {
+                Object a = field.get(sv);
+                return a != null && (Double) a == value;
+            };
+            case NE -> sv -> {
+                Object a = field.get(sv);
+                return a != null && (Double) a != value;
+            };
+            case LT -> sv -> {
+                Object a = field.get(sv);
+                return a != null && (Double) a < value;
+            };
+            case LE -> sv -> {
+                Object a = field.get(sv);
+                return a != null && (Double) a <= value;
+            };
+            case GT -> sv -> {
+                Object a = field.get(sv);
+                return a != null && (Double) a > value;
+            };
+            case GE -> sv -> {
+                Object a = field.get(sv);
+                return a != null && (Double) a >= value;
+            };
+            case CONTAINS -> throw new IllegalStateException();
+        };
+    }
+
+    private static Predicate<StateVector> string(StateVectorField field, Operator op, String value) {
+        return switch (op) {
+            case EQ -> sv -> {
+                String a = (String) field.get(sv);
+                return a != null && Values.equalsStripped(a, value);
+            };
+            case NE -> sv -> {
+                String a = (String) field.get(sv);
+                return a != null && !Values.equalsStripped(a, value);
+            };
+            default -> sv -> {
+                String a = (String) field.get(sv);
+                return a != null && op.test(a.stripTrailing().compareTo(value));
+            };
+        };
+    }
+}
@@ -0,0 +1,204 @@
+package com.flightsinfo.tar1090.filter;
+
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.model.StateVectorField;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A parsed filter over the fields of a {@link StateVector}, e.g.
+ * {@code baro_altitude > 10000 and origin_country = 'Canada' and not on_ground}.
+ * <p>
+ * Syntax:
+ * <pre>
+ * expression := term ('or' term)*
+ * term       := factor ('and' factor)*
+ * factor     := 'not' factor | '(' expression ')' | 'true' | 'false' | condition
+ * condition  := field                                  boolean fields only
+ *             | field ('=' | '!=' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=') literal
+ *             | field 'in' '(' literal (',' literal)* ')'
+ *             | field 'is' ['not'] 'null'
+ *             | field 'contains' number             sensors only
+ * literal    := number | 'string' | true | false
+ * </pre>
+ * Fields are named like their {@code @JsonProperty}, see {@link StateVectorField}. Keywords are case-insensitive.
+ * Trailing spaces of strings are ignored, so {@code callsign = 'SWR8'} matches OpenSky's padded callsigns. A
+ * {@code position_source} is compared with its name or number. Conditions on a missing value are false.
+ * <p>
+ * An expression can be evaluated by walking the tree with {@link #evaluate}, or {@link #compile compiled} once into
+ * a tree of lambdas specialized for the type of each field and operator, which is what should be used for
+ * repeated evaluation.
+ */
+public sealed interface FilterExpression {
+
+    /**
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    static FilterExpression parse(String expression) {
+        return new FilterParser(expression).parse();
+    }
+
+    /**
+     * Evaluate by interpreting the expression.
+     */
+    boolean evaluate(StateVector sv);
+
+    /**
+     * @return a predicate with the same result as {@link #evaluate}
+     */
+    Predicate<StateVector> compile();
+
+    enum Operator {
+        EQ("="),
+        NE("!="),
+        LT("<"),
+        LE("<="),
+        GT(">"),
+        GE(">="),
+        CONTAINS("contains");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        boolean isOrdering() {
+            return this == LT || this == LE || this == GT || this == GE;
+        }
+
+        boolean test(int comparison) {
+            return switch (this) {
+                case EQ -> comparison == 0;
+                case NE -> comparison != 0;
+                case LT -> comparison < 0;
+                case LE -> comparison <= 0;
+                case GT -> comparison > 0;
+                case GE -> comparison >= 0;
+                case CONTAINS -> throw new IllegalStateException();
+            };
+        }
+    }
+
+    record And(FilterExpression left, FilterExpression right) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            return left.evaluate(sv) && right.evaluate(sv);
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            Predicate<StateVector> l = left.compile();
+            Predicate<StateVector> r = right.compile();
+            return sv -> l.test(sv) && r.test(sv);
+        }
+    }
+
+    record Or(FilterExpression left, FilterExpression right) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            return left.evaluate(sv) || right.evaluate(sv);
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            Predicate<StateVector> l = left.compile();
+            Predicate<StateVector> r = right.compile();
+            return sv -> l.test(sv) || r.test(sv);
+        }
+    }
+
+    record Not(FilterExpression operand) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            return !operand.evaluate(sv);
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            Predicate<StateVector> p = operand.compile();
+            return sv -> !p.test(sv);
+        }
+    }
+
+    record Constant(boolean value) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            return value;
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            return value ? sv -> true : sv -> false;
+        }
+    }
+
+    record IsNull(StateVectorField field) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            return field.get(sv) == null;
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            return sv -> field.get(sv) == null;
+        }
+    }
+
+    /**
+     * @param value a {@link Double} for numbers, a {@link String}, a {@link Boolean}, a
+     *              {@link StateVector.PositionSource} or an {@link Integer} sensor serial
+     */
+    record Comparison(StateVectorField field, Operator operator, Object value) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            Object actual = field.get(sv);
+            if (actual == null) {
+                return false;
+            }
+            if (operator == Operator.CONTAINS) {
+                return ((Set<?>) actual).contains(value);
+            }
+            return operator.test(Values.compare(actual, value));
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            return FilterCompiler.compile(this);
+        }
+    }
+
+    record In(StateVectorField field, List<Object> values) implements FilterExpression {
+
+        @Override
+        public boolean evaluate(StateVector sv) {
+            Object actual = field.get(sv);
+            if (actual == null) {
+                return false;
+            }
+            for (Object value : values) {
+                if (Values.compare(actual, value) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Predicate<StateVector> compile() {
+            return FilterCompiler.compile(this);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.flightsinfo.tar1090.filter;
+
+import com.flightsinfo.tar1090.filter.FilterExpression.Operator;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.model.StateVectorField;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recursive descent parser for {@link FilterExpression}, checking the types of literals against their fields.
+ */
+final class FilterParser {
+
+    /**
+     * Maximum nesting of parentheses and {@code not}, deeper expressions would exhaust the stack of the parser
+     */
+    static final int MAX_DEPTH = 64;
+
+    private final String input;
+    private int pos;
+    private int depth;
+
+    FilterParser(String input) {
+        this.input = input;
+    }
+
+    FilterExpression parse() {
+        if (input == null || input.isBlank()) {
+            throw error("Empty filter");
+        }
+        FilterExpression result = expression();
+        skipWhitespace();
+        if (pos < input.length()) {
+            throw error("Unexpected '" + input.charAt(pos) + "'");
+        }
+        return result;
+    }
+
+    private FilterExpression expression() {
+        FilterExpression result = term();
+        while (keyword("or")) {
+            result = new FilterExpression.Or(result, term());
+        }
+        return result;
+    }
+
+    private FilterExpression term() {
+        FilterExpression result = factor();
+        while (keyword("and")) {
+            result = new FilterExpression.And(result, factor());
+        }
+        return result;
+    }
+
+    private FilterExpression factor() {
+        if (keyword("not")) {
+            enter();
+            FilterExpression result = new FilterExpression.Not(factor());
+            depth--;
+            return result;
+        }
+        if (symbol("(")) {
+            enter();
+            FilterExpression result = expression();
+            expect(")");
+            depth--;
+            return result;
+        }
+        if (keyword("true")) {
+            return new FilterExpression.Constant(true);
+        }
+        if (keyword("false")) {
+            return new FilterExpression.Constant(false);
+        }
+        return condition();
+    }
+
+    private FilterExpression condition() {
+        skipWhitespace();
+        int start = pos;
+        String name = identifier();
+        if (name == null) {
+            throw error("Expected field");
+        }
+        StateVectorField field = StateVectorField.byJsonName(name);
+        if (field == null) {
+            pos = start;
+            throw error("Unknown field " + name);
+        }
+        if (keyword("is")) {
+            boolean not = keyword("not");
+            if (!keyword("null")) {
+                throw error("Expected null");
+            }
+            FilterExpression isNull = new FilterExpression.IsNull(field);
+            return not ? new FilterExpression.Not(isNull) : isNull;
+        }
+        if (keyword("in")) {
+            expect("(");
+            List<Object> values = new ArrayList<>();
+            do {
+                values.add(literal(field, Operator.EQ));
+            } while (symbol(","));
+            expect(")");
+            return new FilterExpression.In(field, List.copyOf(values));
+        }
+        Operator op = operator();
+        if (op == null) {
+            if (field.getType() == StateVectorField.Type.BOOLEAN) {
+                return new FilterExpression.Comparison(field, Operator.EQ, Boolean.TRUE);
+            }
+            throw error("Expected operator after " + name);
+        }
+        return new FilterExpression.Comparison(field, op, literal(field, op));
+    }
+
+    private Operator operator() {
+        if (keyword("contains")) {
+            return Operator.CONTAINS;
+        }
+        for (String symbol : new String[]{"<=", ">=", "!=", "<>", "<", ">", "="}) {
+            if (symbol(symbol)) {
+                return switch (symbol) {
+                    case "<=" -> Operator.LE;
+                    case ">=" -> Operator.GE;
+                    case "!=", "<>" -> Operator.NE;
+                    case "<" -> Operator.LT;
+                    case ">" -> Operator.GT;
+                    default -> Operator.EQ;
+                };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the literal, converted to the type of the field
+     */
+    private Object literal(StateVectorField field, Operator op) {
+        skipWhitespace();
+        int start = pos;
+        StateVectorField.Type type = field.getType();
+        if (op == Operator.CONTAINS && type != StateVectorField.Type.SET) {
+            throw error("contains requires sensors, not " + field.getJsonName());
+        }
+        if (op != Operator.CONTAINS && type == StateVectorField.Type.SET) {
+            throw error(field.getJsonName() + " only supports contains and is null");
+        }
+        if (op.isOrdering() && (type == StateVectorField.Type.BOOLEAN || type == StateVectorField.Type.ENUM)) {
+            throw error(op.getSymbol() + " is not supported for " + field.getJsonName());
+        }
+        Object value;
+        if (pos < input.length() && input.charAt(pos) == '\'') {
+            value = string();
+        } else if (keyword("true")) {
+            value = Boolean.TRUE;
+        } else if (keyword("false")) {
+            value = Boolean.FALSE;
+        } else {
+            value = number();
+        }
+
+        switch (type) {
+            case NUMBER -> {
+                if (value instanceof Double) {
+                    return value;
+                }
+            }
+            case STRING -> {
+                if (value instanceof String s) {
+                    return s.stripTrailing();
+                }
+            }
+            case BOOLEAN -> {
+                if (value instanceof Boolean) {
+                    return value;
+                }
+            }
+            case ENUM -> {
+                StateVector.PositionSource[] sources = StateVector.PositionSource.values();
+                if (value instanceof Double d && d == Math.rint(d) && d >= 0 && d < sources.length) {
+                    return sources[d.intValue()];
+                }
+                if (value instanceof String s) {
+                    for (StateVector.PositionSource source : sources) {
+                        if (source.name().equalsIgnoreCase(s.trim())) {
+                            return source;
+                        }
+                    }
+                }
+            }
+            case SET -> {
+                if (value instanceof Double d && d == Math.rint(d)) {
+                    return d.intValue();
+                }
+            }
+        }
+        pos = start;
+        throw error("Invalid value for " + field.getJsonName());
+    }
+
+    private String string() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < input.length()) {
+            char c = input.charAt(pos++);
+            if (c == '\'') {
+                if (pos < input.length() && input.charAt(pos) == '\'') {
+                    sb.append('\'');
+                    pos++;
+                } else {
+                    return sb.toString();
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private Double number() {
+        int start = pos;
+        if (pos < input.length() && (input.charAt(pos) == '-' || input.charAt(pos) == '+')) {
+            pos++;
+        }
+        while (pos < input.length() && (Character.isDigit(input.charAt(pos)) || ".eE".indexOf(input.charAt(pos)) >= 0
+                || ((input.charAt(pos) == '-' || input.charAt(pos) == '+') && "eE".indexOf(input.charAt(pos - 1)) >= 0))) {
+            pos++;
+        }
+        try {
+            return Double.valueOf(input.substring(start, pos));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Expected literal");
+        }
+    }
+
+    private String identifier() {
+        skipWhitespace();
+        int start = pos;
+        while (pos < input.length() && (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '_')) {
+            pos++;
+        }
+        return pos == start ? null : input.substring(start, pos).toLowerCase(Locale.ROOT);
+    }
+
+    private boolean keyword(String keyword) {
+        skipWhitespace();
+        int end = pos + keyword.length();
+        if (end <= input.length() && input.regionMatches(true, pos, keyword, 0, keyword.length())
+                && (end == input.length() || !(Character.isLetterOrDigit(input.charAt(end)) || input.charAt(end) == '_'))) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean symbol(String symbol) {
+        skipWhitespace();
+        if (input.startsWith(symbol, pos)) {
+            pos += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) {
+        if (!symbol(symbol)) {
+            throw error("Expected '" + symbol + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Expression nested deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,47 @@
+package com.flightsinfo.tar1090.filter;
+
+/**
+ * Comparison of field values with literals, shared by interpretation and compiled filters.
+ */
+final class Values {
+
+    private Values() {
+    }
+
+    /**
+     * @param actual  non-null value of a field
+     * @param literal literal of the matching type
+     */
+    static int compare(Object actual, Object literal) {
+        if (actual instanceof Number n && literal instanceof Double d) {
+            double a = n.doubleValue();
+            double b = d;
+            return a < b ? -1 : a > b ? 1 : 0;
+        }
+        if (actual instanceof String a && literal instanceof String b) {
+            return a.stripTrailing().compareTo(b);
+        }
+        if (actual instanceof Boolean a && literal instanceof Boolean b) {
+            return Boolean.compare(a, b);
+        }
+        if (actual instanceof Enum<?> a && literal instanceof Enum<?> b) {
+            return Integer.compare(a.ordinal(), b.ordinal());
+        }
+        throw new IllegalStateException("Cannot compare " + actual.getClass().getSimpleName() + " with " + literal.getClass().getSimpleName());
+    }
+
+    /**
+     * @return whether {@code actual} equals {@code literal} when trailing whitespace is ignored, without creating a string
+     */
+    static boolean equalsStripped(String actual, String literal) {
+        if (!actual.startsWith(literal)) {
+            return false;
+        }
+        for (int i = literal.length(); i < actual.length(); i++) {
+            if (!Character.isWhitespace(actual.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
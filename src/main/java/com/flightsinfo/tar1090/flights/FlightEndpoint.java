@@ -0,0 +1,90 @@
+package com.flightsinfo.tar1090.flights;
+
+import com.flightsinfo.tar1090.enums.RequestType;
+import com.flightsinfo.tar1090.model.FlightData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code /flights} endpoints and how queries against them are partitioned.
+ * <p>
+ * Partitions are aligned to a fixed grid rather than to the requested interval, so that overlapping queries map to
+ * the same partitions and can be answered from the cache. Each partition stays within the maximum interval the
+ * endpoint accepts. OpenSky bills credits per day touched by a query, so partitions never cross more day boundaries
+ * than necessary.
+ * <p>
+ * {@code /flights/aircraft} only returns flights which departed and arrived within the interval, so its partitions
+ * overlap by one day to catch flights crossing a partition boundary.
+ */
+public enum FlightEndpoint {
+    ALL("/flights/all", null, 2 * 3600, 0, RequestType.GET_FLIGHTS),
+    AIRCRAFT("/flights/aircraft", "icao24", 7 * 24 * 3600, 24 * 3600, RequestType.GET_FLIGHTS_BY_AIRCRAFT),
+    ARRIVAL("/flights/arrival", "airport", 24 * 3600, 0, RequestType.GET_ARRIVALS),
+    DEPARTURE("/flights/departure", "airport", 24 * 3600, 0, RequestType.GET_DEPARTURES);
+
+    private final String path;
+    private final String keyParameter;
+    private final long partitionSeconds;
+    private final long overlapSeconds;
+    private final RequestType requestType;
+
+    FlightEndpoint(String path, String keyParameter, long partitionSeconds, long overlapSeconds, RequestType requestType) {
+        this.path = path;
+        this.keyParameter = keyParameter;
+        this.partitionSeconds = partitionSeconds;
+        this.overlapSeconds = overlapSeconds;
+        this.requestType = requestType;
+    }
+
+    /**
+     * @return path relative to the API root
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return name of the query parameter identifying aircraft or airport, {@code null} for {@link #ALL}
+     */
+    public String getKeyParameter() {
+        return keyParameter;
+    }
+
+    public long getPartitionSeconds() {
+        return partitionSeconds;
+    }
+
+    public RequestType getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * Split [begin, end] into grid aligned partitions.
+     *
+     * @param begin start of the interval in seconds since epoch
+     * @param end   end of the interval in seconds since epoch
+     * @return partitions covering the interval, in ascending order
+     */
+    public List<TimePartition> partitions(long begin, long end) {
+        List<TimePartition> result = new ArrayList<>();
+        for (long start = Math.floorDiv(begin, partitionSeconds) * partitionSeconds; start <= end; start += partitionSeconds) {
+            result.add(new TimePartition(start, start + partitionSeconds - 1 + overlapSeconds));
+        }
+        return result;
+    }
+
+    /**
+     * Apply the endpoint's interval semantics to a flight of a partition that may extend beyond the query.
+     *
+     * @return true if the flight is part of the result for [begin, end]
+     */
+    public boolean matches(FlightData flight, long begin, long end) {
+        return switch (this) {
+            case ALL -> flight.getFirstSeen() <= end && flight.getLastSeen() >= begin;
+            case AIRCRAFT -> flight.getFirstSeen() >= begin && flight.getLastSeen() <= end;
+            case ARRIVAL -> flight.getLastSeen() >= begin && flight.getLastSeen() <= end;
+            case DEPARTURE -> flight.getFirstSeen() >= begin && flight.getFirstSeen() <= end;
+        };
+    }
+}
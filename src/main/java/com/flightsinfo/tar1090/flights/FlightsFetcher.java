@@ -0,0 +1,154 @@
+package com.flightsinfo.tar1090.flights;
+
+import com.flightsinfo.tar1090.model.FlightData;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Answers {@code /flights} queries of arbitrary length by splitting them into partitions the API accepts, loading
+ * the partitions concurrently and caching every partition which is complete.
+ * <p>
+ * OpenSky computes flights in a nightly batch, so a partition which ended before the current UTC day does not change
+ * anymore and is cached. Concurrent queries for the same partition share a single upstream request.
+ */
+public class FlightsFetcher {
+
+    /**
+     * Loads a single partition from upstream.
+     */
+    @FunctionalInterface
+    public interface PartitionLoader {
+        /**
+         * @param endpoint  endpoint to query
+         * @param key       ICAO24 address or airport, {@code null} for {@link FlightEndpoint#ALL}
+         * @param partition interval to load
+         * @return all flights of the partition, empty if there are none
+         * @throws IOException if there was an HTTP error
+         */
+        List<FlightData> load(FlightEndpoint endpoint, String key, TimePartition partition) throws IOException;
+    }
+
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    public static final int DEFAULT_CACHED_PARTITIONS = 2048;
+
+    private final PartitionLoader loader;
+    private final Semaphore permits;
+    private final Clock clock;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<PartitionKey, CompletableFuture<List<FlightData>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<PartitionKey, List<FlightData>> cache;
+
+    public FlightsFetcher(PartitionLoader loader) {
+        this(loader, DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_CACHED_PARTITIONS, Clock.systemUTC());
+    }
+
+    public FlightsFetcher(PartitionLoader loader, int maxConcurrentRequests, int cachedPartitions, Clock clock) {
+        this.loader = loader;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.clock = clock;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PartitionKey, List<FlightData>> eldest) {
+                return size() > cachedPartitions;
+            }
+        });
+    }
+
+    /**
+     * Retrieve all flights of an endpoint within [begin, end].
+     *
+     * @param endpoint endpoint to query
+     * @param key      ICAO24 address or airport, {@code null} for {@link FlightEndpoint#ALL}
+     * @param begin    start of the interval in seconds since epoch
+     * @param end      end of the interval in seconds since epoch
+     * @return flights ordered by {@code firstSeen}, empty if there are none
+     * @throws IOException if loading any of the partitions failed
+     */
+    public List<FlightData> fetch(FlightEndpoint endpoint, String key, long begin, long end) throws IOException {
+        List<TimePartition> partitions = endpoint.partitions(begin, new TimePartition(begin, end).end());
+        List<CompletableFuture<List<FlightData>>> futures = new ArrayList<>(partitions.size());
+        for (TimePartition partition : partitions) {
+            futures.add(load(endpoint, key, partition));
+        }
+
+        // partitions may overlap, identify flights by aircraft and departure
+        Map<String, FlightData> flights = new LinkedHashMap<>();
+        for (CompletableFuture<List<FlightData>> future : futures) {
+            for (FlightData flight : await(future)) {
+                if (endpoint.matches(flight, begin, end)) {
+                    flights.putIfAbsent(flight.getIcao24() + '/' + flight.getFirstSeen(), flight);
+                }
+            }
+        }
+        List<FlightData> result = new ArrayList<>(flights.values());
+        result.sort(Comparator.comparingLong(FlightData::getFirstSeen));
+        return result;
+    }
+
+    /**
+     * @return number of partitions currently cached
+     */
+    public int getCachedPartitions() {
+        return cache.size();
+    }
+
+    private CompletableFuture<List<FlightData>> load(FlightEndpoint endpoint, String key, TimePartition partition) {
+        PartitionKey pk = new PartitionKey(endpoint, key, partition.begin());
+        List<FlightData> cached = cache.get(pk);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return inFlight.computeIfAbsent(pk, k -> CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                List<FlightData> flights = List.copyOf(loader.load(endpoint, key, partition));
+                if (isComplete(partition)) {
+                    cache.put(k, flights);
+                }
+                return flights;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+                inFlight.remove(k);
+            }
+        }, executor));
+    }
+
+    private boolean isComplete(TimePartition partition) {
+        long today = LocalDate.now(clock.withZone(ZoneOffset.UTC)).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        return partition.end() < today;
+    }
+
+    private static List<FlightData> await(CompletableFuture<List<FlightData>> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private record PartitionKey(FlightEndpoint endpoint, String key, long begin) {
+    }
+}
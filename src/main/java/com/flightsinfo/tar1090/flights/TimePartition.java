@@ -0,0 +1,13 @@
+package com.flightsinfo.tar1090.flights;
+
+/**
+ * Closed time interval [begin, end] in seconds since epoch.
+ */
+public record TimePartition(long begin, long end) {
+
+    public TimePartition {
+        if (end < begin) {
+            throw new IllegalArgumentException("End of interval " + end + " is before its begin " + begin);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.flightsinfo.tar1090.geo;
+
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.Arrays;
+
+/**
+ * A polygon zone, e.g. an airspace sector or a noise monitoring zone, with an optional altitude floor and ceiling.
+ * <p>
+ * Vertices are given in degrees; the polygon is closed implicitly. Polygons must not cross the antimeridian, split
+ * them into two zones with the same id instead.
+ */
+public final class Geofence {
+
+    private final String id;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Double floor;
+    private final Double ceiling;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    /**
+     * @param floor   lowest altitude in meters, {@code null} if unlimited
+     * @param ceiling highest altitude in meters, {@code null} if unlimited
+     */
+    public Geofence(String id, double[] latitudes, double[] longitudes, Double floor, Double ceiling) {
+        if (latitudes.length != longitudes.length || latitudes.length < 3) {
+            throw new IllegalArgumentException("Geofence " + id + " needs at least 3 vertices");
+        }
+        this.id = id;
+        this.latitudes = latitudes.clone();
+        this.longitudes = longitudes.clone();
+        this.floor = floor;
+        this.ceiling = ceiling;
+        this.minLatitude = Arrays.stream(latitudes).min().getAsDouble();
+        this.maxLatitude = Arrays.stream(latitudes).max().getAsDouble();
+        this.minLongitude = Arrays.stream(longitudes).min().getAsDouble();
+        this.maxLongitude = Arrays.stream(longitudes).max().getAsDouble();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Double getFloor() {
+        return floor;
+    }
+
+    public Double getCeiling() {
+        return ceiling;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    /**
+     * @return whether the aircraft is inside the zone. Aircraft without position are never inside, and aircraft without
+     * altitude only if the zone has neither floor nor ceiling.
+     */
+    public boolean contains(StateVector sv) {
+        Double lat = sv.getLatitude();
+        Double lon = sv.getLongitude();
+        if (lat == null || lon == null) {
+            return false;
+        }
+        if (floor != null || ceiling != null) {
+            Double alt = sv.getBaroAltitude() != null ? sv.getBaroAltitude() : sv.getGeoAltitude();
+            if (alt == null) {
+                if (!sv.isOnGround()) {
+                    return false;
+                }
+                alt = 0.0;
+            }
+            if ((floor != null && alt < floor) || (ceiling != null && alt > ceiling)) {
+                return false;
+            }
+        }
+        return contains(lat, lon);
+    }
+
+    /**
+     * Crossing number test, with the longitude as x.
+     */
+    public boolean contains(double lat, double lon) {
+        if (lat < minLatitude || lat > maxLatitude || lon < minLongitude || lon > maxLongitude) {
+            return false;
+        }
+        boolean inside = false;
+        for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+            if ((latitudes[i] > lat) != (latitudes[j] > lat)
+                    && lon < (longitudes[j] - longitudes[i]) * (lat - latitudes[i]) / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    @Override
+    public String toString() {
+        return "Geofence{" + id + '}';
+    }
+}
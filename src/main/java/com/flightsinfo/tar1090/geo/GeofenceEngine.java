@@ -0,0 +1,175 @@
+package com.flightsinfo.tar1090.geo;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tests every aircraft of each snapshot against the registered {@link Geofence}s and emits enter and exit events.
+ * <p>
+ * Zones are indexed in a {@link SpatialGrid} by their bounding box, so an aircraft is only tested against the zones
+ * of its grid cell. Per aircraft the zones it is in are kept, and only for aircraft which are in at least one zone.
+ * Zones are told apart by their id, so moving between the polygons of a {@code MultiPolygon} or the halves of a zone
+ * split at the antimeridian raises no events. Aircraft which disappear from the snapshot leave all their zones.
+ * Replacing the zones makes aircraft leave removed zones with the next snapshot.
+ * <p>
+ * Events are counted as {@code opensky.geofence.events}, tagged with the {@code type}.
+ */
+public class GeofenceEngine implements SnapshotListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceEngine.class);
+    private static final Geofence[] NONE = new Geofence[0];
+
+    private final double cellSize;
+    private final List<GeofenceListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Membership> memberships = new HashMap<>();
+    private final List<Geofence> inside = new ArrayList<>();
+    private final Counter enters;
+    private final Counter exits;
+    private volatile SpatialGrid<Geofence> grid;
+    private int generation;
+
+    /**
+     * @param cellSize size of the cells of the spatial index in degrees
+     */
+    public GeofenceEngine(double cellSize, MeterRegistry registry) {
+        this.cellSize = cellSize;
+        this.grid = new SpatialGrid<>(cellSize);
+        this.enters = counter(GeofenceEvent.Type.ENTER, registry);
+        this.exits = counter(GeofenceEvent.Type.EXIT, registry);
+    }
+
+    /**
+     * Replace all zones.
+     */
+    public void setGeofences(Collection<Geofence> geofences) {
+        SpatialGrid<Geofence> next = new SpatialGrid<>(cellSize);
+        for (Geofence fence : geofences) {
+            next.add(fence, fence.getMinLatitude(), fence.getMaxLatitude(), fence.getMinLongitude(), fence.getMaxLongitude());
+        }
+        grid = next;
+        logger.info("Registered {} geofences", next.size());
+    }
+
+    public void addListener(GeofenceListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return zones the aircraft was in with the latest snapshot, one polygon per zone id
+     */
+    public synchronized List<Geofence> getZones(String icao24) {
+        Membership membership = memberships.get(icao24);
+        return membership == null ? List.of() : List.of(membership.zones);
+    }
+
+    @Override
+    public synchronized void onSnapshot(IndexedSnapshot snapshot) {
+        SpatialGrid<Geofence> grid = this.grid;
+        int now = snapshot.getTime();
+        int generation = ++this.generation;
+        for (int i = 0; i < snapshot.size(); i++) {
+            StateVector sv = snapshot.get(i);
+            inside.clear();
+            if (sv.getLatitude() != null && sv.getLongitude() != null) {
+                for (Geofence fence : grid.candidates(sv.getLatitude(), sv.getLongitude())) {
+                    if (fence.contains(sv) && !containsId(inside, fence.getId())) {
+                        inside.add(fence);
+                    }
+                }
+            }
+            Membership membership = memberships.get(sv.getIcao24());
+            Geofence[] before = membership == null ? NONE : membership.zones;
+            if (inside.isEmpty() && before.length == 0) {
+                continue;
+            }
+            for (Geofence fence : before) {
+                if (!containsId(inside, fence.getId())) {
+                    emit(GeofenceEvent.Type.EXIT, fence, now, sv);
+                }
+            }
+            for (Geofence fence : inside) {
+                if (!containsId(before, fence.getId())) {
+                    emit(GeofenceEvent.Type.ENTER, fence, now, sv);
+                }
+            }
+            if (inside.isEmpty()) {
+                memberships.remove(sv.getIcao24());
+            } else {
+                if (membership == null) {
+                    membership = new Membership();
+                    memberships.put(sv.getIcao24(), membership);
+                }
+                membership.zones = inside.toArray(NONE);
+                membership.state = sv;
+                membership.generation = generation;
+            }
+        }
+
+        for (Iterator<Membership> it = memberships.values().iterator(); it.hasNext(); ) {
+            Membership membership = it.next();
+            if (membership.generation != generation) {
+                it.remove();
+                for (Geofence fence : membership.zones) {
+                    emit(GeofenceEvent.Type.EXIT, fence, now, membership.state);
+                }
+            }
+        }
+    }
+
+    private void emit(GeofenceEvent.Type type, Geofence fence, int time, StateVector sv) {
+        (type == GeofenceEvent.Type.ENTER ? enters : exits).increment();
+        GeofenceEvent event = new GeofenceEvent(type, fence, time, sv);
+        for (GeofenceListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                logger.error("Geofence listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private static boolean containsId(Geofence[] zones, String id) {
+        for (Geofence zone : zones) {
+            if (zone.getId().equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsId(List<Geofence> zones, String id) {
+        for (int i = 0; i < zones.size(); i++) {
+            if (zones.get(i).getId().equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter counter(GeofenceEvent.Type type, MeterRegistry registry) {
+        return Counter.builder("opensky.geofence.events")
+                .description("Aircraft entering or leaving geofences")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+
+    private static final class Membership {
+        Geofence[] zones;
+        StateVector state;
+        int generation;
+    }
+}
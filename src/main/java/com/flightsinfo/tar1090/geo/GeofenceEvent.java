@@ -0,0 +1,17 @@
+package com.flightsinfo.tar1090.geo;
+
+import com.flightsinfo.tar1090.model.StateVector;
+
+/**
+ * @param type  whether the aircraft entered or left the zone
+ * @param fence the zone
+ * @param time  time of the snapshot in seconds since epoch
+ * @param state state of the aircraft, the last known one if it left the zone by disappearing from the snapshot
+ */
+public record GeofenceEvent(Type type, Geofence fence, int time, StateVector state) {
+
+    public enum Type {
+        ENTER,
+        EXIT
+    }
+}
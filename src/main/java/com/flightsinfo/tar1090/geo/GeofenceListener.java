@@ -0,0 +1,11 @@
+package com.flightsinfo.tar1090.geo;
+
+/**
+ * Receives geofence events on the publishing thread of the snapshot, see
+ * {@link com.flightsinfo.tar1090.service.SnapshotListener}.
+ */
+@FunctionalInterface
+public interface GeofenceListener {
+
+    void onEvent(GeofenceEvent event);
+}
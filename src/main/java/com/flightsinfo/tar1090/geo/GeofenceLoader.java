@@ -0,0 +1,73 @@
+package com.flightsinfo.tar1090.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads geofences from a GeoJSON {@code FeatureCollection} of {@code Polygon} and {@code MultiPolygon} features. The
+ * id is taken from the {@code id} of the feature or its {@code name} property, altitude limits in meters from the
+ * {@code floor} and {@code ceiling} properties. Only the outer ring of a polygon is used, each polygon of a
+ * {@code MultiPolygon} becomes a {@link Geofence} with the id of the feature, which {@link GeofenceEngine} treats as
+ * one zone.
+ */
+public final class GeofenceLoader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private GeofenceLoader() {
+    }
+
+    public static List<Geofence> load(InputStream in) throws IOException {
+        JsonNode root = MAPPER.readTree(in);
+        if (root == null || !"FeatureCollection".equals(root.path("type").asText())) {
+            throw new IOException("Expected a GeoJSON FeatureCollection");
+        }
+        List<Geofence> result = new ArrayList<>();
+        int index = 0;
+        for (JsonNode feature : root.path("features")) {
+            index++;
+            JsonNode properties = feature.path("properties");
+            String id = feature.hasNonNull("id") ? feature.get("id").asText()
+                    : properties.hasNonNull("name") ? properties.get("name").asText() : "zone-" + index;
+            Double floor = properties.hasNonNull("floor") ? properties.get("floor").asDouble() : null;
+            Double ceiling = properties.hasNonNull("ceiling") ? properties.get("ceiling").asDouble() : null;
+            JsonNode geometry = feature.path("geometry");
+            switch (geometry.path("type").asText()) {
+                case "Polygon" -> result.add(polygon(id, geometry.path("coordinates"), floor, ceiling));
+                case "MultiPolygon" -> {
+                    for (JsonNode polygon : geometry.path("coordinates")) {
+                        result.add(polygon(id, polygon, floor, ceiling));
+                    }
+                }
+                default -> throw new IOException("Feature " + id + " is not a Polygon or MultiPolygon");
+            }
+        }
+        return result;
+    }
+
+    private static Geofence polygon(String id, JsonNode rings, Double floor, Double ceiling) throws IOException {
+        JsonNode outer = rings.path(0);
+        int n = outer.size();
+        // GeoJSON repeats the first position at the end
+        if (n > 1 && outer.get(0).equals(outer.get(n - 1))) {
+            n--;
+        }
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            JsonNode position = outer.get(i);
+            longitudes[i] = position.path(0).asDouble();
+            latitudes[i] = position.path(1).asDouble();
+        }
+        try {
+            return new Geofence(id, latitudes, longitudes, floor, ceiling);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.flightsinfo.tar1090.geo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uniform grid over latitude and longitude, holding each item in every cell its bounding box overlaps. A lookup of a
+ * point only returns the items of its cell, so the cost depends on the local density of items and not on their total
+ * number.
+ *
+ * @param <T> type of the items
+ */
+public final class SpatialGrid<T> {
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final List<T>[] cells;
+    private int size;
+
+    /**
+     * @param cellSize size of a cell in degrees
+     */
+    @SuppressWarnings("unchecked")
+    public SpatialGrid(double cellSize) {
+        if (!(cellSize > 0 && cellSize <= 90)) {
+            throw new IllegalArgumentException("Cell size must be within (0, 90]");
+        }
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(360 / cellSize);
+        this.rows = (int) Math.ceil(180 / cellSize);
+        this.cells = new List[columns * rows];
+    }
+
+    public void add(T item, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        int minRow = row(minLatitude);
+        int maxRow = row(maxLatitude);
+        int minColumn = column(minLongitude);
+        int maxColumn = column(maxLongitude);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minColumn; c <= maxColumn; c++) {
+                int cell = r * columns + c;
+                if (cells[cell] == null) {
+                    cells[cell] = new ArrayList<>(2);
+                }
+                cells[cell].add(item);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * @return items whose bounding box may contain the point, must not be modified
+     */
+    public List<T> candidates(double lat, double lon) {
+        List<T> cell = cells[row(lat) * columns + column(lon)];
+        return cell == null ? Collections.emptyList() : cell;
+    }
+
+    /**
+     * @return number of items added
+     */
+    public int size() {
+        return size;
+    }
+
+    private int row(double lat) {
+        return Math.max(0, Math.min(rows - 1, (int) ((lat + 90) / cellSize)));
+    }
+
+    private int column(double lon) {
+        return Math.max(0, Math.min(columns - 1, (int) ((lon + 180) / cellSize)));
+    }
+}
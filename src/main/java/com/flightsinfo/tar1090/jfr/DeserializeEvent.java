@@ -0,0 +1,34 @@
+package com.flightsinfo.tar1090.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Deserialization of a states response.
+ */
+@Name("com.flightsinfo.tar1090.Deserialize")
+@Label("OpenSky Deserialize")
+@Description("Parsing a states response into state vectors")
+@Category({"OpenSky", "Client"})
+@StackTrace(false)
+public class DeserializeEvent extends Event {
+
+    @Label("Request Type")
+    public String type;
+
+    @Label("Parser")
+    @Description("byte for OpenSkyStatesParser, jackson for OpenSkyStatesDeserializer")
+    public String parser;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("State Vectors")
+    public int vectors;
+}
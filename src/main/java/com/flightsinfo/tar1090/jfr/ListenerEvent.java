@@ -0,0 +1,25 @@
+package com.flightsinfo.tar1090.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One snapshot listener handling a snapshot, so slow downstream consumers can be identified.
+ */
+@Name("com.flightsinfo.tar1090.Listener")
+@Label("Snapshot Listener")
+@Description("A snapshot listener handling a published snapshot")
+@Category({"OpenSky", "Snapshot"})
+@StackTrace(false)
+public class ListenerEvent extends Event {
+
+    @Label("Listener")
+    public String listener;
+
+    @Label("Failed")
+    public boolean failed;
+}
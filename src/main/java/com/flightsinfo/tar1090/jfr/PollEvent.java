@@ -0,0 +1,23 @@
+package com.flightsinfo.tar1090.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One poll of the states, enclosing the request, deserialization and publish events of the poll.
+ */
+@Name("com.flightsinfo.tar1090.Poll")
+@Label("OpenSky Poll")
+@Description("One poll of the world-wide states from request to publication")
+@Category({"OpenSky"})
+@StackTrace(false)
+public class PollEvent extends Event {
+
+    @Label("Outcome")
+    @Description("published, stale, rate-limited, no-credits or failed")
+    public String outcome;
+}
@@ -0,0 +1,34 @@
+package com.flightsinfo.tar1090.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+
+/**
+ * Publication of a snapshot, including indexing it and notifying all listeners.
+ */
+@Name("com.flightsinfo.tar1090.Publish")
+@Label("Snapshot Publish")
+@Description("Indexing a snapshot and notifying the snapshot listeners")
+@Category({"OpenSky", "Snapshot"})
+@StackTrace(false)
+public class PublishEvent extends Event {
+
+    @Label("Snapshot Time")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long time;
+
+    @Label("State Vectors")
+    public int vectors;
+
+    @Label("Listeners")
+    public int listeners;
+
+    @Label("Published")
+    @Description("false if the snapshot was older than the current one")
+    public boolean published;
+}
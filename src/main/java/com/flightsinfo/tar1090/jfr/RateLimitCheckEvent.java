@@ -0,0 +1,29 @@
+package com.flightsinfo.tar1090.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The client side rate limit check before a request.
+ */
+@Name("com.flightsinfo.tar1090.RateLimitCheck")
+@Label("OpenSky Rate Limit Check")
+@Description("Client side check whether a request may be sent")
+@Category({"OpenSky", "Client"})
+@StackTrace(false)
+public class RateLimitCheckEvent extends Event {
+
+    @Label("Request Type")
+    public String type;
+
+    @Label("Allowed")
+    public boolean allowed;
+
+    @Label("Backing Off")
+    @Description("Rejected because the server reported exhausted credits")
+    public boolean backingOff;
+}
@@ -0,0 +1,38 @@
+package com.flightsinfo.tar1090.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An HTTP request to OpenSky, from sending it until the body was read completely.
+ */
+@Name("com.flightsinfo.tar1090.Request")
+@Label("OpenSky Request")
+@Description("HTTP request to the OpenSky API including reading the response body")
+@Category({"OpenSky", "Client"})
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    @Label("Request Type")
+    public String type;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Credits")
+    @Description("API credits the request costs")
+    public int credits;
+
+    @Label("Status")
+    @Description("HTTP status, 0 if the request failed")
+    public int status;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes;
+}
@@ -60,7 +60,7 @@ public class OpenSkyStatesDeserializer extends StdDeserializer<PlaneStates> {
             sv.setSpi(jp.nextBooleanValue());
 
             int psi = jp.nextIntValue(0);
-            StateVector.PositionSource ps = psi <= StateVector.PositionSource.values().length ?
+            StateVector.PositionSource ps = psi >= 0 && psi < StateVector.PositionSource.values().length ?
                     StateVector.PositionSource.values()[psi] : StateVector.PositionSource.UNKNOWN;
 
             sv.setPositionSource(ps);
@@ -69,6 +69,7 @@ public class OpenSkyStatesDeserializer extends StdDeserializer<PlaneStates> {
             next = jp.nextToken();
             while (next != null && next != JsonToken.END_ARRAY) {
                 // ignore
+                jp.skipChildren();
                 next = jp.nextToken();
             }
             // consume "END_ARRAY" or next "START_ARRAY"
@@ -98,6 +99,7 @@ public class OpenSkyStatesDeserializer extends StdDeserializer<PlaneStates> {
                     } else {
                         // ignore other fields, but consume value
                         jp.nextToken();
+                        jp.skipChildren();
                     }
                 } // ignore others
             }
@@ -0,0 +1,488 @@
+package com.flightsinfo.tar1090.mappers;
+
+import com.flightsinfo.tar1090.model.PlaneStates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parser for {@code /states} responses which works directly on the UTF-8 encoded bytes, as an alternative to
+ * {@link OpenSkyStatesDeserializer}.
+ * <p>
+ * It knows the positional layout of a state vector row and decodes numbers without creating tokens or strings: if
+ * the digits of a decimal fit into 53 bits and it has at most 22 fraction digits, mantissa and power of ten are both
+ * exact doubles, so a single division yields the correctly rounded result. Anything else falls back to
+ * {@link Double#parseDouble(String)}. Values are written into a reused {@link StateRow}. Origin countries and squawks
+ * repeat a lot and are deduplicated while parsing.
+ * <p>
+ * The result is the same as the one of {@link OpenSkyStatesDeserializer}, except that position sources out of range
+ * become {@code UNKNOWN} and {@code "states":null} is always an empty list.
+ */
+public final class OpenSkyStatesParser {
+
+    private static final double[] POW10 = new double[23];
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+    private final StateRow row = new StateRow();
+    private final StringCache countries = new StringCache(256);
+    private final StringCache squawks = new StringCache(4096);
+
+    private OpenSkyStatesParser(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * @param json UTF-8 encoded response
+     * @return the parsed states, {@code null} if the response is the JSON literal {@code null}
+     * @throws IOException if the response is not a valid states response
+     */
+    public static PlaneStates parse(byte[] json) throws IOException {
+        PlaneStatesSink sink = new PlaneStatesSink();
+        return parse(json, 0, json.length, sink) ? sink.getStates() : null;
+    }
+
+    /**
+     * @param json   UTF-8 encoded response
+     * @param offset start of the response in {@code json}
+     * @param length length of the response
+     * @param sink   receives the parsed values
+     * @return {@code false} if the response is the JSON literal {@code null}
+     * @throws IOException if the response is not a valid states response
+     */
+    public static boolean parse(byte[] json, int offset, int length, StatesSink sink) throws IOException {
+        return new OpenSkyStatesParser(json, offset, length).parseDocument(sink);
+    }
+
+    private boolean parseDocument(StatesSink sink) throws IOException {
+        skipWhitespace();
+        if (pos == end) {
+            throw error("No content");
+        }
+        if (literal("null")) {
+            return false;
+        }
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return true;
+        }
+        do {
+            skipWhitespace();
+            int keyStart = pos + 1;
+            skipString();
+            int keyLength = pos - 1 - keyStart;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (keyEquals(keyStart, keyLength, "time")) {
+                sink.time(literal("null") ? 0 : (int) parseNumber());
+            } else if (keyEquals(keyStart, keyLength, "states")) {
+                sink.startStates();
+                if (!literal("null")) {
+                    parseStates(sink);
+                }
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+        } while (separator('}'));
+        return true;
+    }
+
+    private void parseStates(StatesSink sink) throws IOException {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        do {
+            skipWhitespace();
+            parseRow();
+            sink.row(row);
+            skipWhitespace();
+        } while (separator(']'));
+    }
+
+    private void parseRow() throws IOException {
+        expect('[');
+        row.reset();
+        skipWhitespace();
+        parseFields();
+        skipWhitespace();
+        expect(']');
+        row.computeFingerprint();
+    }
+
+    /**
+     * {@code [icao24, callsign, origin_country, time_position, last_contact, longitude, latitude, baro_altitude,
+     * on_ground, velocity, true_track, vertical_rate, sensors, geo_altitude, squawk, spi, position_source, ...]}
+     * <p>
+     * Missing trailing fields are {@code null}.
+     */
+    private void parseFields() throws IOException {
+        row.icao24 = parseString(null);
+        if (row.icao24 == null) {
+            throw error("Got 'null' icao24");
+        }
+        if (!nextElement()) return;
+        row.callsign = parseString(null);
+        if (!nextElement()) return;
+        row.originCountry = parseString(countries);
+        for (int field = StateRow.TIME_POSITION; field <= StateRow.BARO_ALTITUDE; field++) {
+            if (!nextElement()) return;
+            parseNumberField(field);
+        }
+        if (!nextElement()) return;
+        row.onGround = parseBoolean();
+        for (int field = StateRow.VELOCITY; field <= StateRow.VERTICAL_RATE; field++) {
+            if (!nextElement()) return;
+            parseNumberField(field);
+        }
+        if (!nextElement()) return;
+        parseSerials();
+        if (!nextElement()) return;
+        parseNumberField(StateRow.GEO_ALTITUDE);
+        if (!nextElement()) return;
+        row.squawk = parseString(squawks);
+        if (!nextElement()) return;
+        row.spi = parseBoolean();
+        if (!nextElement()) return;
+        row.positionSource = literal("null") ? 0 : (int) parseNumber();
+        // additional fields (upward compatibility)
+        while (nextElement()) {
+            skipValue();
+        }
+    }
+
+    /**
+     * Move to the next element of a row.
+     *
+     * @return {@code false} if the row ended
+     */
+    private boolean nextElement() throws IOException {
+        skipWhitespace();
+        byte b = peek();
+        if (b == ',') {
+            pos++;
+            skipWhitespace();
+            return true;
+        }
+        if (b == ']') {
+            return false;
+        }
+        throw error("Expected ',' or ']'");
+    }
+
+    /**
+     * @return {@code true} if a comma was consumed, {@code false} if {@code close} was consumed
+     */
+    private boolean separator(char close) throws IOException {
+        byte b = peek();
+        pos++;
+        if (b == ',') {
+            return true;
+        }
+        if (b == close) {
+            return false;
+        }
+        pos--;
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    private void parseNumberField(int field) throws IOException {
+        if (!literal("null")) {
+            row.setNumber(field, parseNumber());
+        }
+    }
+
+    private void parseSerials() throws IOException {
+        if (literal("null")) {
+            return;
+        }
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        do {
+            skipWhitespace();
+            row.addSerial((int) parseNumber());
+            skipWhitespace();
+        } while (separator(']'));
+    }
+
+    private boolean parseBoolean() throws IOException {
+        if (literal("true")) {
+            return true;
+        }
+        if (literal("false") || literal("null")) {
+            return false;
+        }
+        throw error("Expected boolean");
+    }
+
+    private double parseNumber() throws IOException {
+        int start = pos;
+        boolean negative = false;
+        if (pos < end && buf[pos] == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean exact = true;
+        int intStart = pos;
+        while (pos < end && isDigit(buf[pos])) {
+            mantissa = mantissa * 10 + (buf[pos++] - '0');
+            digits++;
+        }
+        if (pos == intStart) {
+            pos = start;
+            throw error("Expected number");
+        }
+        if (pos < end && buf[pos] == '.') {
+            pos++;
+            int fractionStart = pos;
+            while (pos < end && isDigit(buf[pos])) {
+                mantissa = mantissa * 10 + (buf[pos++] - '0');
+                digits++;
+            }
+            scale = pos - fractionStart;
+            if (scale == 0) {
+                throw error("Expected digit");
+            }
+        }
+        if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+            if (pos < end && (buf[pos] == '+' || buf[pos] == '-')) {
+                pos++;
+            }
+            while (pos < end && isDigit(buf[pos])) {
+                pos++;
+            }
+            exact = false;
+        }
+        if (exact && digits <= 18 && mantissa <= MAX_EXACT_MANTISSA && scale < POW10.length) {
+            if (scale == 0) {
+                // integers have no negative zero, like in Jackson
+                return negative ? -mantissa : mantissa;
+            }
+            double value = mantissa / POW10[scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buf, start, pos - start, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return the string, {@code null} for the JSON literal {@code null}
+     */
+    private String parseString(StringCache cache) throws IOException {
+        if (literal("null")) {
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        boolean ascii = true;
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b == '"') {
+                pos++;
+                if (cache != null && ascii) {
+                    return cache.get(buf, start, pos - 1 - start);
+                }
+                return new String(buf, start, pos - 1 - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            }
+            if (b == '\\') {
+                pos = start;
+                return parseEscapedString();
+            }
+            ascii &= b >= 0;
+            pos++;
+        }
+        throw error("Unterminated string");
+    }
+
+    private String parseEscapedString() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int run = pos;
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b == '"' || b == '\\') {
+                sb.append(new String(buf, run, pos - run, StandardCharsets.UTF_8));
+                pos++;
+                if (b == '"') {
+                    return sb.toString();
+                }
+                if (pos == end) {
+                    break;
+                }
+                byte e = buf[pos++];
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append((char) e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > end) {
+                            throw error("Invalid unicode escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(new String(buf, pos, 4, StandardCharsets.ISO_8859_1), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("Invalid escape");
+                }
+                run = pos;
+            } else {
+                pos++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+        while (pos < end) {
+            byte b = buf[pos++];
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private void skipValue() throws IOException {
+        byte b = peek();
+        if (b == '"') {
+            skipString();
+        } else if (b == '[' || b == '{') {
+            int depth = 0;
+            do {
+                b = peek();
+                if (b == '"') {
+                    skipString();
+                    continue;
+                }
+                if (b == '[' || b == '{') {
+                    depth++;
+                } else if (b == ']' || b == '}') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+        } else if (!(literal("null") || literal("true") || literal("false"))) {
+            parseNumber();
+        }
+    }
+
+    private boolean keyEquals(int start, int length, String key) {
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(buf[start + i]) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean literal(String literal) {
+        int length = literal.length();
+        if (pos + length > end) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        pos += length;
+        return true;
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private byte peek() throws IOException {
+        if (pos >= end) {
+            throw error("Unexpected end of input");
+        }
+        return buf[pos];
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private IOException error(String message) {
+        return new IOException("Could not parse states: " + message + " at offset " + pos);
+    }
+
+    /**
+     * Direct mapped cache of ASCII strings by content
+     */
+    private static final class StringCache {
+        private final byte[][] keys;
+        private final String[] values;
+
+        StringCache(int size) {
+            keys = new byte[size][];
+            values = new String[size];
+        }
+
+        String get(byte[] buf, int start, int length) {
+            int hash = 0;
+            for (int i = start; i < start + length; i++) {
+                hash = 31 * hash + buf[i];
+            }
+            int index = (hash ^ (hash >>> 16)) & (keys.length - 1);
+            byte[] key = keys[index];
+            if (key != null && Arrays.equals(key, 0, key.length, buf, start, start + length)) {
+                return values[index];
+            }
+            keys[index] = Arrays.copyOfRange(buf, start, start + length);
+            values[index] = new String(buf, start, length, StandardCharsets.ISO_8859_1);
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.flightsinfo.tar1090.mappers;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.flightsinfo.tar1090.model.FlightTrack;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Parses a {@code /tracks} response directly into the primitive columns of {@link FlightTrack}, without creating an
+ * object per waypoint.
+ */
+public class OpenSkyTrackDeserializer extends StdDeserializer<FlightTrack> {
+
+    public OpenSkyTrackDeserializer() {
+        super(FlightTrack.class);
+    }
+
+    @Override
+    public FlightTrack deserialize(JsonParser jp, DeserializationContext dc) throws IOException {
+        if (jp.getCurrentToken() != null && jp.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonMappingException(jp, "Expected data to start with an Object");
+        }
+        try {
+            String icao24 = null;
+            String callsign = null;
+            long startTime = 0;
+            long endTime = 0;
+            Path path = new Path();
+            for (jp.nextToken(); jp.getCurrentToken() != null && jp.getCurrentToken() != JsonToken.END_OBJECT; jp.nextToken()) {
+                if (jp.getCurrentToken() != JsonToken.FIELD_NAME) {
+                    continue;
+                }
+                String name = jp.currentName();
+                if ("icao24".equalsIgnoreCase(name)) {
+                    icao24 = jp.nextTextValue();
+                } else if ("callsign".equalsIgnoreCase(name) || "calllsign".equalsIgnoreCase(name)) {
+                    callsign = jp.nextTextValue();
+                } else if ("startTime".equalsIgnoreCase(name)) {
+                    startTime = jp.nextLongValue(0);
+                } else if ("endTime".equalsIgnoreCase(name)) {
+                    endTime = jp.nextLongValue(0);
+                } else if ("path".equalsIgnoreCase(name)) {
+                    if (jp.nextToken() == JsonToken.START_ARRAY) {
+                        deserializePath(jp, path);
+                    }
+                } else {
+                    // ignore other fields, but consume value
+                    jp.nextToken();
+                    jp.skipChildren();
+                }
+            }
+            if (icao24 == null) {
+                throw new JsonParseException(jp, "Got 'null' icao24", jp.currentLocation());
+            }
+            return path.toTrack(icao24, callsign, startTime, endTime);
+        } catch (JsonParseException jpe) {
+            throw new JsonMappingException(jp, "Could not parse track: " + jpe.getOriginalMessage());
+        }
+    }
+
+    private void deserializePath(JsonParser jp, Path path) throws IOException {
+        for (JsonToken next = jp.nextToken(); next != null && next != JsonToken.END_ARRAY; next = jp.nextToken()) {
+            if (next != JsonToken.START_ARRAY) {
+                throw new JsonParseException(jp, "Expected waypoint array", jp.currentLocation());
+            }
+            int time = jp.nextIntValue(0);
+            float lat = nextFloat(jp);
+            float lon = nextFloat(jp);
+            float alt = nextFloat(jp);
+            float heading = nextFloat(jp);
+            boolean onGround = Boolean.TRUE.equals(jp.nextBooleanValue());
+            path.add(time, lat, lon, alt, heading, onGround);
+
+            // consume additional fields (upward compatibility) until end of this waypoint
+            for (next = jp.nextToken(); next != null && next != JsonToken.END_ARRAY; next = jp.nextToken()) {
+                jp.skipChildren();
+            }
+        }
+    }
+
+    private static float nextFloat(JsonParser jp) throws IOException {
+        return jp.nextToken() != null && jp.getCurrentToken() != JsonToken.VALUE_NULL ? jp.getFloatValue() : Float.NaN;
+    }
+
+    /**
+     * Growable primitive columns
+     */
+    private static final class Path {
+        int size;
+        int[] time = new int[64];
+        float[] lat = new float[64];
+        float[] lon = new float[64];
+        float[] alt = new float[64];
+        float[] heading = new float[64];
+        long[] onGround = new long[1];
+
+        void add(int t, float la, float lo, float al, float hd, boolean ground) {
+            if (size == time.length) {
+                int capacity = size * 2;
+                time = Arrays.copyOf(time, capacity);
+                lat = Arrays.copyOf(lat, capacity);
+                lon = Arrays.copyOf(lon, capacity);
+                alt = Arrays.copyOf(alt, capacity);
+                heading = Arrays.copyOf(heading, capacity);
+                onGround = Arrays.copyOf(onGround, (capacity + 63) / 64);
+            }
+            time[size] = t;
+            lat[size] = la;
+            lon[size] = lo;
+            alt[size] = al;
+            heading[size] = hd;
+            if (ground) {
+                onGround[size >>> 6] |= 1L << size;
+            }
+            size++;
+        }
+
+        FlightTrack toTrack(String icao24, String callsign, long startTime, long endTime) {
+            return new FlightTrack(icao24, callsign, startTime, endTime,
+                    Arrays.copyOf(time, size),
+                    Arrays.copyOf(lat, size),
+                    Arrays.copyOf(lon, size),
+                    Arrays.copyOf(alt, size),
+                    Arrays.copyOf(heading, size),
+                    Arrays.copyOf(onGround, (size + 63) / 64));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.flightsinfo.tar1090.mappers;
+
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.ArrayList;
+
+/**
+ * Builds {@link PlaneStates} from parsed rows.
+ */
+public class PlaneStatesSink implements StatesSink {
+
+    private final PlaneStates states = new PlaneStates();
+    private ArrayList<StateVector> vectors;
+
+    @Override
+    public void time(int time) {
+        states.setTime(time);
+    }
+
+    @Override
+    public void startStates() {
+        vectors = new ArrayList<>();
+        states.setStateVectors(vectors);
+    }
+
+    @Override
+    public void row(StateRow row) {
+        vectors.add(row.toStateVector());
+    }
+
+    public PlaneStates getStates() {
+        return states;
+    }
+}
@@ -0,0 +1,168 @@
+package com.flightsinfo.tar1090.mappers;
+
+import com.flightsinfo.tar1090.model.StateFingerprint;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.Arrays;
+
+/**
+ * One row of a {@code /states} response with all numeric fields as primitives. The parser reuses a single instance
+ * for all rows, so a {@link StatesSink} must copy what it wants to keep.
+ */
+public final class StateRow {
+
+    public static final int TIME_POSITION = 0;
+    public static final int LAST_CONTACT = 1;
+    public static final int LONGITUDE = 2;
+    public static final int LATITUDE = 3;
+    public static final int BARO_ALTITUDE = 4;
+    public static final int VELOCITY = 5;
+    public static final int TRUE_TRACK = 6;
+    public static final int VERTICAL_RATE = 7;
+    public static final int GEO_ALTITUDE = 8;
+
+    static final int NUMBERS = 9;
+
+    String icao24;
+    String callsign;
+    String originCountry;
+    String squawk;
+    final double[] numbers = new double[NUMBERS];
+    int nullNumbers;
+    boolean onGround;
+    boolean spi;
+    int positionSource;
+    int[] serials = new int[4];
+    int serialCount;
+    boolean hasSerials;
+    long fingerprint;
+
+    void reset() {
+        icao24 = null;
+        callsign = null;
+        originCountry = null;
+        squawk = null;
+        nullNumbers = (1 << NUMBERS) - 1;
+        onGround = false;
+        spi = false;
+        positionSource = 0;
+        serialCount = 0;
+        hasSerials = false;
+    }
+
+    void setNumber(int field, double value) {
+        numbers[field] = value;
+        nullNumbers &= ~(1 << field);
+    }
+
+    void addSerial(int serial) {
+        if (serialCount == serials.length) {
+            serials = Arrays.copyOf(serials, serialCount * 2);
+        }
+        serials[serialCount++] = serial;
+        hasSerials = true;
+    }
+
+    public String getIcao24() {
+        return icao24;
+    }
+
+    public String getCallsign() {
+        return callsign;
+    }
+
+    public String getOriginCountry() {
+        return originCountry;
+    }
+
+    public String getSquawk() {
+        return squawk;
+    }
+
+    /**
+     * @param field one of the numeric field constants
+     * @return value of the field, {@code NaN} if it is {@code null}
+     */
+    public double getNumber(int field) {
+        return isNull(field) ? Double.NaN : numbers[field];
+    }
+
+    public boolean isNull(int field) {
+        return (nullNumbers & (1 << field)) != 0;
+    }
+
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public boolean isSpi() {
+        return spi;
+    }
+
+    public int getPositionSource() {
+        return positionSource;
+    }
+
+    /**
+     * @return fingerprint of the row, the same as {@link StateFingerprint#of(StateVector)} of {@link #toStateVector()}
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    void computeFingerprint() {
+        long h = StateFingerprint.start();
+        h = StateFingerprint.mix(h, icao24);
+        h = StateFingerprint.mix(h, callsign);
+        h = StateFingerprint.mix(h, originCountry);
+        h = StateFingerprint.mix(h, squawk);
+        for (int field = 0; field < NUMBERS; field++) {
+            h = StateFingerprint.mix(h, numbers[field], isNull(field));
+        }
+        fingerprint = StateFingerprint.mix(h, StateFingerprint.flags(onGround, spi, positionSource()));
+    }
+
+    public int getSerialCount() {
+        return serialCount;
+    }
+
+    public int getSerial(int i) {
+        return serials[i];
+    }
+
+    /**
+     * @return a new state vector with the values of this row, the same as {@link OpenSkyStatesDeserializer} creates
+     */
+    public StateVector toStateVector() {
+        StateVector sv = new StateVector(icao24);
+        sv.setCallsign(callsign);
+        sv.setOriginCountry(originCountry);
+        sv.setLastPositionUpdate(boxed(TIME_POSITION));
+        sv.setLastContact(boxed(LAST_CONTACT));
+        sv.setLongitude(boxed(LONGITUDE));
+        sv.setLatitude(boxed(LATITUDE));
+        sv.setBaroAltitude(boxed(BARO_ALTITUDE));
+        sv.setOnGround(onGround);
+        sv.setVelocity(boxed(VELOCITY));
+        sv.setHeading(boxed(TRUE_TRACK));
+        sv.setVerticalRate(boxed(VERTICAL_RATE));
+        for (int i = 0; i < serialCount; i++) {
+            sv.addSerial(serials[i]);
+        }
+        sv.setGeoAltitude(boxed(GEO_ALTITUDE));
+        sv.setSquawk(squawk);
+        sv.setSpi(spi);
+        sv.setPositionSource(positionSource());
+        sv.setFingerprint(fingerprint);
+        return sv;
+    }
+
+    private StateVector.PositionSource positionSource() {
+        StateVector.PositionSource[] sources = StateVector.PositionSource.values();
+        return positionSource >= 0 && positionSource < sources.length ? sources[positionSource] : StateVector.PositionSource.UNKNOWN;
+    }
+
+    private Double boxed(int field) {
+        return isNull(field) ? null : numbers[field];
+    }
+}
@@ -0,0 +1,22 @@
+package com.flightsinfo.tar1090.mappers;
+
+/**
+ * Receives the content of a {@code /states} response from {@link OpenSkyStatesParser}.
+ */
+public interface StatesSink {
+
+    /**
+     * @param time time of the snapshot in seconds since epoch
+     */
+    void time(int time);
+
+    /**
+     * Called once if the response contains a {@code states} field, before the first row.
+     */
+    void startStates();
+
+    /**
+     * @param row the parsed row, only valid during this call
+     */
+    void row(StateRow row);
+}
@@ -0,0 +1,149 @@
+package com.flightsinfo.tar1090.metadata;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link AircraftMetadataTable} built from an aircraft database CSV up to date.
+ * <p>
+ * The table is stored next to the CSV and opened without parsing as long as it is newer than the CSV. Every
+ * {@code checkInterval} the modification time of the CSV is checked, and a changed CSV is built into a new table on
+ * the reload thread. Readers keep using the previous table until the new one is swapped in, they never wait for a
+ * reload.
+ */
+public class AircraftMetadata implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AircraftMetadata.class);
+
+    private final Path csv;
+    private final Path tableFile;
+    private final Duration checkInterval;
+    private final Counter reloads;
+    private final Counter failures;
+    private final ScheduledExecutorService scheduler;
+    private volatile AircraftMetadataTable table;
+    private FileTime loaded;
+
+    /**
+     * @param csv           aircraft database, see {@link AircraftMetadataTable#build}
+     * @param tableFile     where the table built from the CSV is stored
+     * @param checkInterval how often the CSV is checked for changes
+     */
+    public AircraftMetadata(Path csv, Path tableFile, Duration checkInterval, MeterRegistry registry) {
+        this.csv = csv;
+        this.tableFile = tableFile;
+        this.checkInterval = checkInterval;
+        this.reloads = Counter.builder("opensky.metadata.reloads")
+                .description("Aircraft metadata tables loaded")
+                .register(registry);
+        this.failures = Counter.builder("opensky.metadata.reload.failed")
+                .description("Aircraft database changes which could not be loaded")
+                .register(registry);
+        Gauge.builder("opensky.metadata.aircraft", this, m -> {
+                    AircraftMetadataTable current = m.table;
+                    return current != null ? current.size() : 0;
+                })
+                .description("Aircraft in the metadata table")
+                .register(registry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "aircraft-metadata");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Load the table now and check for changes every {@code checkInterval}.
+     *
+     * @throws IOException if neither the CSV nor a table built from it could be loaded
+     */
+    public void start() throws IOException {
+        reload();
+        long interval = checkInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                logger.warn("Could not reload aircraft database {}, keeping the previous one", csv, e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the current table, {@code null} if none was loaded yet
+     */
+    public AircraftMetadataTable getTable() {
+        return table;
+    }
+
+    /**
+     * Load the table if the CSV changed since it was loaded last.
+     *
+     * @return {@code true} if a new table was swapped in
+     * @throws IOException if the CSV could not be read or the table not be written
+     */
+    public synchronized boolean reload() throws IOException {
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(csv);
+        } catch (NoSuchFileException e) {
+            if (table != null) {
+                return false;
+            }
+            if (Files.exists(tableFile)) {
+                // the CSV is only needed to build the table
+                swap(AircraftMetadataTable.open(tableFile), Files.getLastModifiedTime(tableFile), "existing table " + tableFile);
+                return true;
+            }
+            throw e;
+        }
+        if (modified.equals(loaded)) {
+            return false;
+        }
+
+        if (table == null && Files.exists(tableFile) && Files.getLastModifiedTime(tableFile).compareTo(modified) > 0) {
+            try {
+                swap(AircraftMetadataTable.open(tableFile), modified, "existing table " + tableFile);
+                return true;
+            } catch (IOException e) {
+                logger.info("Rebuilding aircraft metadata table: {}", e.getMessage());
+            }
+        }
+        long t0 = System.nanoTime();
+        AircraftMetadataTable built;
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            built = AircraftMetadataTable.build(reader, tableFile);
+        }
+        swap(built, modified, csv + " in " + (System.nanoTime() - t0) / 1_000_000 + "ms");
+        return true;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void swap(AircraftMetadataTable next, FileTime modified, String source) {
+        table = next;
+        loaded = modified;
+        reloads.increment();
+        logger.info("Loaded metadata of {} aircraft from {}", next.size(), source);
+    }
+}
@@ -0,0 +1,418 @@
+package com.flightsinfo.tar1090.metadata;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registration, type code and operator of aircraft, in a memory-mapped table sorted by the ICAO24 address packed
+ * into an int. The table is built once from an aircraft database CSV, such as the OpenSky aircraft database export,
+ * and opened again without parsing on later starts.
+ * <p>
+ * File layout, all ints big-endian:
+ * <ul>
+ *     <li>header of {@value #HEADER_BYTES} bytes: magic, version, number of aircraft and offset of the string pool</li>
+ *     <li>{@code 2^16 + 1} ints, the first row of each value of the upper 16 bits of the address</li>
+ *     <li>one record of {@value #RECORD_BYTES} bytes per aircraft, ordered by address: address, then the pool offsets
+ *     of registration, type code and operator, -1 if unknown</li>
+ *     <li>string pool, each string as unsigned short length and UTF-8 bytes, repeated strings stored once</li>
+ * </ul>
+ * Lookups are a binary search within the few records sharing the upper 16 bits of the address and allocate nothing,
+ * only the strings returned for a row are decoded. Instances are immutable and can be used from any thread.
+ */
+public final class AircraftMetadataTable {
+
+    static final int MAGIC = 0x41434442;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 16;
+    static final int BUCKETS = 1 << 16;
+    static final int RECORDS = HEADER_BYTES + (BUCKETS + 1) * 4;
+
+    private static final int REGISTRATION = 4;
+    private static final int TYPE_CODE = 8;
+    private static final int OPERATOR = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int pool;
+
+    private AircraftMetadataTable(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an aircraft metadata table");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported aircraft metadata table version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.pool = buffer.getInt(12);
+        if (size < 0 || pool != RECORDS + (long) size * RECORD_BYTES || pool > buffer.capacity()) {
+            throw new IOException("Corrupt aircraft metadata table");
+        }
+    }
+
+    /**
+     * Map a table written by {@link #build}.
+     *
+     * @throws IOException if the file is not a valid table
+     */
+    public static AircraftMetadataTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new AircraftMetadataTable(buffer.order(ByteOrder.BIG_ENDIAN));
+        }
+    }
+
+    /**
+     * Build a table from a CSV with a header line naming at least the columns {@code icao24} and
+     * {@code registration}, and optionally {@code typecode}, {@code operator} and {@code owner}. Column names are
+     * case-insensitive, fields may be quoted with double or single quotes. The operator falls back to the owner. Rows
+     * without a valid address are skipped, of duplicate addresses the first row is kept.
+     * <p>
+     * The table is written to a temporary file first and moved to {@code file}, so a table which is mapped already
+     * stays valid.
+     *
+     * @return the new table, mapped from {@code file}
+     */
+    public static AircraftMetadataTable build(Reader csv, Path file) throws IOException {
+        BufferedReader in = new BufferedReader(csv, 1 << 16);
+        String header = in.readLine();
+        if (header == null) {
+            throw new IOException("Empty aircraft database");
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : parseLine(header)) {
+            columns.add(column.strip().toLowerCase(Locale.ROOT));
+        }
+        int icao24 = column(columns, "icao24");
+        int registration = column(columns, "registration");
+        int typeCode = columns.indexOf("typecode");
+        int operator = columns.indexOf("operator");
+        int owner = columns.indexOf("owner");
+
+        Pool strings = new Pool();
+        int count = 0;
+        int[] addresses = new int[1 << 16];
+        int[][] fields = new int[3][addresses.length];
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            List<String> row = parseLine(line);
+            int address = row.size() > icao24 ? pack(row.get(icao24).strip()) : -1;
+            if (address < 0) {
+                continue;
+            }
+            if (count == addresses.length) {
+                addresses = Arrays.copyOf(addresses, count * 2);
+                for (int f = 0; f < fields.length; f++) {
+                    fields[f] = Arrays.copyOf(fields[f], count * 2);
+                }
+            }
+            String op = field(row, operator);
+            addresses[count] = address;
+            fields[0][count] = strings.add(field(row, registration));
+            fields[1][count] = strings.add(field(row, typeCode));
+            fields[2][count] = strings.add(op != null ? op : field(row, owner));
+            count++;
+        }
+
+        // sort rows by address, keeping the input order of duplicates
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (long) addresses[i] << 32 | i;
+        }
+        Arrays.sort(order);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || order[i] >>> 32 != order[unique - 1] >>> 32) {
+                order[unique++] = order[i];
+            }
+        }
+
+        int poolOffset = RECORDS + unique * RECORD_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(poolOffset + strings.size()).order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(unique).putInt(poolOffset);
+        int next = 0;
+        for (int bucket = 0; bucket <= BUCKETS; bucket++) {
+            while (next < unique && (int) (order[next] >>> 40) < bucket) {
+                next++;
+            }
+            out.putInt(next);
+        }
+        for (int i = 0; i < unique; i++) {
+            int row = (int) order[i];
+            out.putInt(addresses[row]).putInt(fields[0][row]).putInt(fields[1][row]).putInt(fields[2][row]);
+        }
+        strings.writeTo(out);
+        out.flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    /**
+     * Pack a hex ICAO24 address into an int.
+     *
+     * @return the address, -1 if it is not 1 to 6 hex digits
+     */
+    public static int pack(CharSequence hex) {
+        int length = hex.length();
+        if (length == 0 || length > 6) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return number of aircraft in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return row of the aircraft, -1 if it is not in the table
+     */
+    public int indexOf(int icao24) {
+        if (icao24 < 0 || icao24 > 0xFFFFFF) {
+            return -1;
+        }
+        int bucket = HEADER_BYTES + (icao24 >>> 8) * 4;
+        int low = buffer.getInt(bucket);
+        int high = buffer.getInt(bucket + 4) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int address = buffer.getInt(RECORDS + mid * RECORD_BYTES);
+            if (address < icao24) {
+                low = mid + 1;
+            } else if (address > icao24) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return row of the aircraft, -1 if it is not in the table or the address is invalid
+     */
+    public int indexOf(CharSequence icao24) {
+        int address = pack(icao24);
+        return address < 0 ? -1 : indexOf(address);
+    }
+
+    /**
+     * @return packed address of the aircraft in a row
+     */
+    public int icao24(int row) {
+        return buffer.getInt(RECORDS + row * RECORD_BYTES);
+    }
+
+    public String registration(int row) {
+        return string(row, REGISTRATION);
+    }
+
+    public String typeCode(int row) {
+        return string(row, TYPE_CODE);
+    }
+
+    public String operator(int row) {
+        return string(row, OPERATOR);
+    }
+
+    /**
+     * Look up all aircraft of a snapshot.
+     *
+     * @return rows of the state vectors of the snapshot, by their position
+     */
+    public Enrichment enrich(IndexedSnapshot snapshot) {
+        int[] rows = new int[snapshot.size()];
+        for (int i = 0; i < rows.length; i++) {
+            String icao24 = snapshot.get(i).getIcao24();
+            rows[i] = icao24 == null ? -1 : indexOf(icao24);
+        }
+        return new Enrichment(this, rows);
+    }
+
+    private String string(int row, int field) {
+        if (row < 0 || row >= size) {
+            return null;
+        }
+        int offset = buffer.getInt(RECORDS + row * RECORD_BYTES + field);
+        if (offset < 0) {
+            return null;
+        }
+        int position = pool + offset;
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int column(List<String> columns, String name) throws IOException {
+        int index = columns.indexOf(name);
+        if (index < 0) {
+            throw new IOException("Aircraft database has no column " + name);
+        }
+        return index;
+    }
+
+    private static String field(List<String> row, int column) {
+        if (column < 0 || column >= row.size()) {
+            return null;
+        }
+        String value = row.get(column).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Split a CSV line. A field starting with a double or single quote is quoted by it, quotes within are escaped by
+     * doubling them.
+     */
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        char quote = 0;
+        boolean start = true;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote && i + 1 < line.length() && line.charAt(i + 1) == quote) {
+                    field.append(quote);
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                } else {
+                    field.append(c);
+                }
+            } else if (start && (c == '"' || c == '\'')) {
+                quote = c;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                start = true;
+                continue;
+            } else {
+                field.append(c);
+            }
+            start = false;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Strings of a table being built, each distinct string stored once.
+     */
+    private static final class Pool {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+        private int size;
+
+        int add(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    bytes = Arrays.copyOf(bytes, 0xFFFF);
+                }
+                offset = size;
+                offsets.put(value, offset);
+                strings.add(bytes);
+                size += 2 + bytes.length;
+            }
+            return offset;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeTo(ByteBuffer out) {
+            for (byte[] bytes : strings) {
+                out.putShort((short) bytes.length).put(bytes);
+            }
+        }
+    }
+
+    /**
+     * Metadata of the aircraft of one snapshot, looked up in one table even if it is replaced meanwhile.
+     */
+    public static final class Enrichment {
+        private final AircraftMetadataTable table;
+        private final int[] rows;
+
+        Enrichment(AircraftMetadataTable table, int[] rows) {
+            this.table = table;
+            this.rows = rows;
+        }
+
+        /**
+         * @return row of the state vector at position {@code i} of the snapshot, -1 if unknown
+         */
+        public int row(int i) {
+            return rows[i];
+        }
+
+        public String registration(int i) {
+            return table.registration(rows[i]);
+        }
+
+        public String typeCode(int i) {
+            return table.typeCode(rows[i]);
+        }
+
+        public String operator(int i) {
+            return table.operator(rows[i]);
+        }
+
+        /**
+         * @return number of state vectors found in the table
+         */
+        public int matched() {
+            int matched = 0;
+            for (int row : rows) {
+                if (row >= 0) {
+                    matched++;
+                }
+            }
+            return matched;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.flightsinfo.tar1090.metrics;
+
+import com.flightsinfo.tar1090.enums.RequestType;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for the OpenSky client hot path. All meters are tagged with the {@link RequestType} that
+ * triggered them and publish percentile histograms, so tail latencies can be alerted on from Prometheus.
+ * <p>
+ * Meters are registered eagerly for every request type, so the per-request cost is a map lookup and a record call.
+ * Gauges have fixed ids, so each client needs a registry of its own.
+ */
+public class OpenSkyMetrics {
+
+    private static final String PREFIX = "opensky.";
+
+    private final MeterRegistry registry;
+    private final Map<RequestType, RequestMeters> meters = new EnumMap<>(RequestType.class);
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+    private final DistributionSummary contactAge;
+
+    public OpenSkyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (RequestType type : RequestType.values()) {
+            meters.put(type, new RequestMeters(registry, type));
+        }
+        this.contactAge = DistributionSummary.builder(PREFIX + "vector.contact.age")
+                .description("Age of the last message received per state vector at the time it was parsed")
+                .baseUnit("seconds")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public void recordConnect(RequestType type, long nanos) {
+        meters.get(type).connect.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFirstByte(RequestType type, long nanos) {
+        meters.get(type).firstByte.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBody(RequestType type, long nanos, long bytes) {
+        RequestMeters m = meters.get(type);
+        m.body.record(nanos, TimeUnit.NANOSECONDS);
+        m.responseBytes.record(bytes);
+    }
+
+    public void recordParse(RequestType type, long nanos) {
+        meters.get(type).parse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRateLimitRejection(RequestType type) {
+        meters.get(type).rateLimitRejections.increment();
+    }
+
+    /**
+     * Count a failed upstream call.
+     *
+     * @param type   request that failed
+     * @param status HTTP status code, or a value {@code <= 0} if no response was received at all
+     */
+    public void recordError(RequestType type, int status) {
+        String statusClass = status <= 0 ? "IO_ERROR" : (status / 100) + "xx";
+        errorCounters.computeIfAbsent(type.name() + '/' + statusClass, k -> Counter.builder(PREFIX + "client.errors")
+                .description("Failed OpenSky requests by HTTP status class")
+                .tag("type", type.name())
+                .tag("status", statusClass)
+                .register(registry)).increment();
+    }
+
+    /**
+     * Expose remaining API credits and back-off state of a client.
+     */
+    public void registerCreditBudget(CreditBudgetPlanner budget) {
+        Gauge.builder(PREFIX + "credits.remaining", budget, CreditBudgetPlanner::getRemainingCredits)
+                .description("Remaining OpenSky API credits for today")
+                .register(registry);
+        Gauge.builder(PREFIX + "credits.backoff", budget, b -> b.getBackoffMillis() / 1000.0)
+                .description("Seconds until requests may be issued again after a 429 response")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Record size and freshness of a parsed snapshot.
+     *
+     * @param type   request which produced the snapshot
+     * @param states parsed states, may be {@code null}
+     */
+    public void recordSnapshot(RequestType type, PlaneStates states) {
+        if (states == null) {
+            return;
+        }
+        RequestMeters m = meters.get(type);
+        double now = System.currentTimeMillis() / 1000.0;
+        m.snapshotTime.set(states.getTime());
+        m.dataAge.record(Math.max(0, now - states.getTime()));
+        if (states.getStateVectors() == null) {
+            m.vectors.record(0);
+            return;
+        }
+        m.vectors.record(states.getStateVectors().size());
+        for (StateVector sv : states.getStateVectors()) {
+            if (sv.getLastContact() != null) {
+                contactAge.record(Math.max(0, now - sv.getLastContact()));
+            }
+        }
+    }
+
+    private static final class RequestMeters {
+        final Timer connect;
+        final Timer firstByte;
+        final Timer body;
+        final Timer parse;
+        final DistributionSummary responseBytes;
+        final DistributionSummary vectors;
+        final DistributionSummary dataAge;
+        final Counter rateLimitRejections;
+        final AtomicLong snapshotTime = new AtomicLong();
+
+        RequestMeters(MeterRegistry registry, RequestType type) {
+            String tag = type.name();
+            connect = timer(registry, "client.connect", "Time to open the connection to OpenSky", tag);
+            firstByte = timer(registry, "client.first-byte", "Time from request sent until response headers arrived", tag);
+            body = timer(registry, "client.body", "Time to read the response body", tag);
+            parse = timer(registry, "parse", "Time to deserialize a response", tag);
+            responseBytes = DistributionSummary.builder(PREFIX + "client.response.size")
+                    .description("Size of OpenSky response bodies")
+                    .baseUnit("bytes")
+                    .tag("type", tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            vectors = DistributionSummary.builder(PREFIX + "snapshot.vectors")
+                    .description("Number of state vectors per snapshot")
+                    .tag("type", tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            dataAge = DistributionSummary.builder(PREFIX + "snapshot.data.age")
+                    .description("Difference between receive time and the snapshot time reported by OpenSky")
+                    .baseUnit("seconds")
+                    .tag("type", tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            rateLimitRejections = Counter.builder(PREFIX + "ratelimit.rejections")
+                    .description("Requests rejected by the client side rate limit")
+                    .tag("type", tag)
+                    .register(registry);
+            Gauge.builder(PREFIX + "snapshot.age", snapshotTime,
+                            t -> t.get() == 0 ? Double.NaN : System.currentTimeMillis() / 1000.0 - t.get())
+                    .description("Seconds since the time of the latest snapshot")
+                    .baseUnit("seconds")
+                    .tag("type", tag)
+                    .strongReference(true)
+                    .register(registry);
+        }
+
+        private static Timer timer(MeterRegistry registry, String name, String description, String tag) {
+            return Timer.builder(PREFIX + name)
+                    .description(description)
+                    .tag("type", tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
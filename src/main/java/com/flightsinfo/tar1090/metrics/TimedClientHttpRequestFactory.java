@@ -0,0 +1,169 @@
+package com.flightsinfo.tar1090.metrics;
+
+import com.flightsinfo.tar1090.enums.RequestType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ClientHttpRequestFactory} based on {@link HttpURLConnection} which splits upstream latency into connect
+ * time and time to first byte. Body read time is measured by the caller, which is the only one that knows when the
+ * body has been consumed.
+ * <p>
+ * The request type is taken from the {@link #REQUEST_TYPE_ATTRIBUTE} request attribute. Requests without it are
+ * executed but not measured.
+ */
+public class TimedClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    public static final String REQUEST_TYPE_ATTRIBUTE = TimedClientHttpRequestFactory.class.getName() + ".requestType";
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    private final OpenSkyMetrics metrics;
+
+    public TimedClientHttpRequestFactory(OpenSkyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setInstanceFollowRedirects(HttpMethod.GET.equals(httpMethod));
+        connection.setRequestMethod(httpMethod.name());
+        return new TimedRequest(connection, uri, httpMethod);
+    }
+
+    private final class TimedRequest extends AbstractClientHttpRequest {
+        private final HttpURLConnection connection;
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(0);
+
+        TimedRequest(HttpURLConnection connection, URI uri, HttpMethod method) {
+            this.connection = connection;
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), String.join(",", header.getValue()));
+            }
+            if (body.size() > 0) {
+                connection.setDoOutput(true);
+            }
+            RequestType type = (RequestType) getAttributes().get(REQUEST_TYPE_ATTRIBUTE);
+
+            long t0 = System.nanoTime();
+            connection.connect();
+            long t1 = System.nanoTime();
+            if (body.size() > 0) {
+                try (OutputStream out = connection.getOutputStream()) {
+                    body.writeTo(out);
+                }
+            }
+            connection.getResponseCode();
+            long t2 = System.nanoTime();
+
+            if (type != null) {
+                metrics.recordConnect(type, t1 - t0);
+                metrics.recordFirstByte(type, t2 - t1);
+            }
+            return new TimedResponse(connection);
+        }
+    }
+
+    private static final class TimedResponse implements ClientHttpResponse {
+        private final HttpURLConnection connection;
+        private HttpHeaders headers;
+        private InputStream body;
+
+        TimedResponse(HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return HttpStatusCode.valueOf(connection.getResponseCode());
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            String message = connection.getResponseMessage();
+            return message != null ? message : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                headers = new HttpHeaders();
+                for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+                    // the status line is reported with a null key
+                    if (header.getKey() != null) {
+                        headers.addAll(header.getKey(), header.getValue());
+                    }
+                }
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                InputStream errorStream = connection.getErrorStream();
+                if (errorStream != null) {
+                    body = errorStream;
+                } else if (connection.getResponseCode() >= 400) {
+                    body = InputStream.nullInputStream();
+                } else {
+                    body = connection.getInputStream();
+                }
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (body == null) {
+                    getBody();
+                }
+                body.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.flightsinfo.tar1090.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of aircraft matching a query.
+ *
+ * @param time       time of the snapshot the page was taken from, seconds since epoch
+ * @param count      number of aircraft on this page
+ * @param nextCursor cursor to retrieve the next page, {@code null} if this is the last one
+ * @param aircraft   projected state vectors
+ */
+public record AircraftPage(@JsonProperty("time") int time,
+                           @JsonProperty("count") int count,
+                           @JsonProperty("next_cursor") String nextCursor,
+                           @JsonProperty("aircraft") List<Map<String, Object>> aircraft) {
+}
@@ -0,0 +1,224 @@
+package com.flightsinfo.tar1090.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A flight as returned by the {@code /flights} endpoints.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FlightData implements Serializable {
+
+    private static final long serialVersionUID = 3129548937610253871L;
+
+    @JsonProperty("icao24")
+    String icao24;
+
+    @JsonProperty("firstSeen")
+    long firstSeen;
+
+    @JsonProperty("estDepartureAirport")
+    String estDepartureAirport;
+
+    @JsonProperty("lastSeen")
+    long lastSeen;
+
+    @JsonProperty("estArrivalAirport")
+    String estArrivalAirport;
+
+    @JsonProperty("callsign")
+    String callsign;
+
+    @JsonProperty("estDepartureAirportHorizDistance")
+    Integer estDepartureAirportHorizDistance;
+
+    @JsonProperty("estDepartureAirportVertDistance")
+    Integer estDepartureAirportVertDistance;
+
+    @JsonProperty("estArrivalAirportHorizDistance")
+    Integer estArrivalAirportHorizDistance;
+
+    @JsonProperty("estArrivalAirportVertDistance")
+    Integer estArrivalAirportVertDistance;
+
+    @JsonProperty("departureAirportCandidatesCount")
+    int departureAirportCandidatesCount;
+
+    @JsonProperty("arrivalAirportCandidatesCount")
+    int arrivalAirportCandidatesCount;
+
+    public FlightData() {
+    }
+
+    public FlightData(String icao24, long firstSeen, long lastSeen) {
+        this.icao24 = icao24;
+        this.firstSeen = firstSeen;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * @return ICAO24 address of the transmitter in hex string representation.
+     */
+    public String getIcao24() {
+        return icao24;
+    }
+
+    public void setIcao24(String icao24) {
+        this.icao24 = icao24;
+    }
+
+    /**
+     * @return estimated time of departure for the flight as Unix time (seconds since epoch).
+     */
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    public void setFirstSeen(long firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+
+    /**
+     * @return ICAO code of the estimated departure airport. Can be {@code null} if the airport could not be identified.
+     */
+    public String getEstDepartureAirport() {
+        return estDepartureAirport;
+    }
+
+    public void setEstDepartureAirport(String estDepartureAirport) {
+        this.estDepartureAirport = estDepartureAirport;
+    }
+
+    /**
+     * @return estimated time of arrival for the flight as Unix time (seconds since epoch).
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * @return ICAO code of the estimated arrival airport. Can be {@code null} if the airport could not be identified.
+     */
+    public String getEstArrivalAirport() {
+        return estArrivalAirport;
+    }
+
+    public void setEstArrivalAirport(String estArrivalAirport) {
+        this.estArrivalAirport = estArrivalAirport;
+    }
+
+    /**
+     * @return callsign of the vehicle (8 chars). Can be {@code null}.
+     */
+    public String getCallsign() {
+        return callsign;
+    }
+
+    public void setCallsign(String callsign) {
+        this.callsign = callsign;
+    }
+
+    /**
+     * @return horizontal distance of the last received airborne position to the estimated departure airport in meters.
+     */
+    public Integer getEstDepartureAirportHorizDistance() {
+        return estDepartureAirportHorizDistance;
+    }
+
+    public void setEstDepartureAirportHorizDistance(Integer estDepartureAirportHorizDistance) {
+        this.estDepartureAirportHorizDistance = estDepartureAirportHorizDistance;
+    }
+
+    /**
+     * @return vertical distance of the last received airborne position to the estimated departure airport in meters.
+     */
+    public Integer getEstDepartureAirportVertDistance() {
+        return estDepartureAirportVertDistance;
+    }
+
+    public void setEstDepartureAirportVertDistance(Integer estDepartureAirportVertDistance) {
+        this.estDepartureAirportVertDistance = estDepartureAirportVertDistance;
+    }
+
+    /**
+     * @return horizontal distance of the last received airborne position to the estimated arrival airport in meters.
+     */
+    public Integer getEstArrivalAirportHorizDistance() {
+        return estArrivalAirportHorizDistance;
+    }
+
+    public void setEstArrivalAirportHorizDistance(Integer estArrivalAirportHorizDistance) {
+        this.estArrivalAirportHorizDistance = estArrivalAirportHorizDistance;
+    }
+
+    /**
+     * @return vertical distance of the last received airborne position to the estimated arrival airport in meters.
+     */
+    public Integer getEstArrivalAirportVertDistance() {
+        return estArrivalAirportVertDistance;
+    }
+
+    public void setEstArrivalAirportVertDistance(Integer estArrivalAirportVertDistance) {
+        this.estArrivalAirportVertDistance = estArrivalAirportVertDistance;
+    }
+
+    /**
+     * @return number of other possible departure airports.
+     */
+    public int getDepartureAirportCandidatesCount() {
+        return departureAirportCandidatesCount;
+    }
+
+    public void setDepartureAirportCandidatesCount(int departureAirportCandidatesCount) {
+        this.departureAirportCandidatesCount = departureAirportCandidatesCount;
+    }
+
+    /**
+     * @return number of other possible arrival airports.
+     */
+    public int getArrivalAirportCandidatesCount() {
+        return arrivalAirportCandidatesCount;
+    }
+
+    public void setArrivalAirportCandidatesCount(int arrivalAirportCandidatesCount) {
+        this.arrivalAirportCandidatesCount = arrivalAirportCandidatesCount;
+    }
+
+    @Override
+    public String toString() {
+        return "FlightData{" +
+                "icao24='" + icao24 + '\'' +
+                ", firstSeen=" + firstSeen +
+                ", estDepartureAirport='" + estDepartureAirport + '\'' +
+                ", lastSeen=" + lastSeen +
+                ", estArrivalAirport='" + estArrivalAirport + '\'' +
+                ", callsign='" + callsign + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FlightData)) return false;
+
+        FlightData that = (FlightData) o;
+        return firstSeen == that.firstSeen
+                && lastSeen == that.lastSeen
+                && Objects.equals(icao24, that.icao24)
+                && Objects.equals(callsign, that.callsign)
+                && Objects.equals(estDepartureAirport, that.estDepartureAirport)
+                && Objects.equals(estArrivalAirport, that.estArrivalAirport);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(icao24, firstSeen, lastSeen, callsign, estDepartureAirport, estArrivalAirport);
+    }
+}
@@ -0,0 +1,174 @@
+package com.flightsinfo.tar1090.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.flightsinfo.tar1090.mappers.OpenSkyTrackDeserializer;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Trajectory of an aircraft as returned by the {@code /tracks} endpoint.
+ * <p>
+ * Waypoints are stored column-wise in primitive arrays. Positions, altitudes and tracks are single precision, which
+ * is well below the resolution of the source data; missing values are {@link Float#NaN}.
+ */
+@JsonDeserialize(using = OpenSkyTrackDeserializer.class)
+public class FlightTrack implements Serializable {
+
+    private static final long serialVersionUID = -2215473125896547301L;
+
+    private final String icao24;
+    private final String callsign;
+    private final long startTime;
+    private final long endTime;
+
+    private final int[] time;
+    private final float[] latitude;
+    private final float[] longitude;
+    private final float[] baroAltitude;
+    private final float[] heading;
+    private final long[] onGround;
+
+    public FlightTrack(String icao24, String callsign, long startTime, long endTime,
+                       int[] time, float[] latitude, float[] longitude, float[] baroAltitude, float[] heading,
+                       long[] onGround) {
+        if (icao24 == null) throw new RuntimeException("Invalid icao24. Must not be null");
+        int n = time.length;
+        if (latitude.length != n || longitude.length != n || baroAltitude.length != n || heading.length != n
+                || onGround.length < (n + 63) / 64) {
+            throw new IllegalArgumentException("Waypoint columns must have the same length");
+        }
+        this.icao24 = icao24;
+        this.callsign = callsign;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.time = time;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.baroAltitude = baroAltitude;
+        this.heading = heading;
+        this.onGround = onGround;
+    }
+
+    /**
+     * @return ICAO24 address of the transmitter in hex string representation.
+     */
+    public String getIcao24() {
+        return icao24;
+    }
+
+    /**
+     * @return callsign that holds for the whole track. Can be {@code null}.
+     */
+    public String getCallsign() {
+        return callsign;
+    }
+
+    /**
+     * @return time of the first waypoint in seconds since epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return time of the last waypoint in seconds since epoch.
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return number of waypoints
+     */
+    public int size() {
+        return time.length;
+    }
+
+    /**
+     * @return time of waypoint {@code i} in seconds since epoch.
+     */
+    public int getTime(int i) {
+        return time[i];
+    }
+
+    /**
+     * @return WGS-84 latitude of waypoint {@code i} in degrees. {@link Double#NaN} if not present.
+     */
+    public double getLatitude(int i) {
+        return latitude[i];
+    }
+
+    /**
+     * @return WGS-84 longitude of waypoint {@code i} in degrees. {@link Double#NaN} if not present.
+     */
+    public double getLongitude(int i) {
+        return longitude[i];
+    }
+
+    /**
+     * @return barometric altitude of waypoint {@code i} in meters. {@link Double#NaN} if not present.
+     */
+    public double getBaroAltitude(int i) {
+        return baroAltitude[i];
+    }
+
+    /**
+     * @return true track of waypoint {@code i} in decimal degrees (0 is north). {@link Double#NaN} if not present.
+     */
+    public double getHeading(int i) {
+        return heading[i];
+    }
+
+    /**
+     * @return true if the position of waypoint {@code i} was retrieved from a surface position report.
+     */
+    public boolean isOnGround(int i) {
+        return (onGround[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * @return true if the track covers the given time
+     */
+    public boolean covers(long t) {
+        return t >= startTime && t <= endTime;
+    }
+
+    @Override
+    public String toString() {
+        return "FlightTrack{" +
+                "icao24='" + icao24 + '\'' +
+                ", callsign='" + callsign + '\'' +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", waypoints=" + time.length +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FlightTrack)) return false;
+
+        FlightTrack that = (FlightTrack) o;
+        return startTime == that.startTime
+                && endTime == that.endTime
+                && icao24.equals(that.icao24)
+                && (callsign != null ? callsign.equals(that.callsign) : that.callsign == null)
+                && Arrays.equals(time, that.time)
+                && Arrays.equals(latitude, that.latitude)
+                && Arrays.equals(longitude, that.longitude)
+                && Arrays.equals(baroAltitude, that.baroAltitude)
+                && Arrays.equals(heading, that.heading)
+                && Arrays.equals(onGround, that.onGround);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = icao24.hashCode();
+        result = 31 * result + Long.hashCode(startTime);
+        result = 31 * result + Long.hashCode(endTime);
+        result = 31 * result + Arrays.hashCode(time);
+        return result;
+    }
+}
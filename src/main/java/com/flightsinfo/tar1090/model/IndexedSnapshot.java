@@ -0,0 +1,89 @@
+package com.flightsinfo.tar1090.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of a {@link PlaneStates} snapshot, indexed once when it is published so that it can be queried
+ * concurrently without further locking.
+ * <p>
+ * State vectors are sorted by ICAO24 address, which gives a stable order for cursor based pagination.
+ */
+public final class IndexedSnapshot {
+
+    private final PlaneStates states;
+    private final StateVector[] vectors;
+    private final Map<String, StateVector> byIcao24;
+    private final long receivedAt;
+
+    public IndexedSnapshot(PlaneStates states, long receivedAt) {
+        this.states = states;
+        this.receivedAt = receivedAt;
+        Collection<StateVector> source = states.getStateVectors();
+        this.vectors = source == null ? new StateVector[0] : source.toArray(new StateVector[0]);
+        Arrays.sort(vectors, Comparator.comparing(StateVector::getIcao24));
+        this.byIcao24 = new HashMap<>(vectors.length * 2);
+        for (StateVector sv : vectors) {
+            byIcao24.put(sv.getIcao24(), sv);
+        }
+    }
+
+    /**
+     * @return the snapshot as received
+     */
+    public PlaneStates getStates() {
+        return states;
+    }
+
+    /**
+     * @return time of the snapshot in seconds since epoch, as reported by OpenSky
+     */
+    public int getTime() {
+        return states.getTime();
+    }
+
+    /**
+     * @return local time in ms since epoch when the snapshot was received
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public int size() {
+        return vectors.length;
+    }
+
+    /**
+     * @return state vector at position {@code i} in ICAO24 order
+     */
+    public StateVector get(int i) {
+        return vectors[i];
+    }
+
+    /**
+     * @return state vector of the aircraft, {@code null} if it is not part of the snapshot
+     */
+    public StateVector get(String icao24) {
+        return byIcao24.get(icao24);
+    }
+
+    /**
+     * @return position of the first state vector with an ICAO24 address greater than the given one
+     */
+    public int indexAfter(String icao24) {
+        int low = 0;
+        int high = vectors.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (vectors[mid].getIcao24().compareTo(icao24) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,5 +1,6 @@
 package com.flightsinfo.tar1090.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.flightsinfo.tar1090.mappers.OpenSkyStatesDeserializer;
@@ -12,12 +13,17 @@ import static java.util.Objects.nonNull;
 @JsonDeserialize(using = OpenSkyStatesDeserializer.class)
 public class PlaneStates implements Serializable {
 
+    private static final long serialVersionUID = 5512704562153286041L;
+
     @JsonProperty("time")
     private int time;
 
     @JsonProperty("states")
     private Collection<StateVector> stateVectors;
 
+    @JsonIgnore
+    private boolean partial;
+
     public int getTime() {
         return time;
     }
@@ -33,4 +39,16 @@ public class PlaneStates implements Serializable {
     public void setStateVectors(Collection<StateVector> stateVectors) {
         this.stateVectors = stateVectors;
     }
+
+    /**
+     * @return {@code true} if the states were filtered by area, address or sensor and may miss aircraft which are
+     * tracked elsewhere, {@code false} if they cover the whole world
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
 }
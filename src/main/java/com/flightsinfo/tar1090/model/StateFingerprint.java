@@ -0,0 +1,78 @@
+package com.flightsinfo.tar1090.model;
+
+/**
+ * Cheap 64-bit fingerprint of the content of a state vector, to recognize identical copies of a vector from
+ * overlapping requests without comparing field by field.
+ * <p>
+ * Covers every field except the sensor serials, which depend on the request and not on the aircraft. The parser
+ * computes the same value from its primitive row with {@link #mix} in the order of {@link #of(StateVector)}, so
+ * both must be kept in sync.
+ */
+public final class StateFingerprint {
+
+    private static final long SEED = 0xCBF29CE484222325L;
+    private static final long NULL = 0x6A09E667F3BCC909L;
+
+    private StateFingerprint() {
+    }
+
+    public static long start() {
+        return SEED;
+    }
+
+    public static long mix(long h, long value) {
+        h = (h ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Mixes the characters four at a time, and the length. {@link String#hashCode()} would fold the string into 32
+     * bits first, and strings like {@code "Aa"} and {@code "BB"} share it.
+     */
+    public static long mix(long h, String value) {
+        if (value == null) {
+            return mix(h, NULL);
+        }
+        int length = value.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            h = mix(h, value.charAt(i) | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+        }
+        long tail = length;
+        for (int shift = 16; i < length; i++, shift += 16) {
+            tail |= (long) value.charAt(i) << shift;
+        }
+        return mix(h, tail);
+    }
+
+    public static long mix(long h, double value, boolean isNull) {
+        return mix(h, isNull ? NULL : Double.doubleToLongBits(value));
+    }
+
+    public static long flags(boolean onGround, boolean spi, StateVector.PositionSource positionSource) {
+        return (onGround ? 1 : 0) | (spi ? 2 : 0) | (positionSource == null ? 0 : (positionSource.ordinal() + 1L) << 2);
+    }
+
+    public static long of(StateVector sv) {
+        long h = start();
+        h = mix(h, sv.getIcao24());
+        h = mix(h, sv.getCallsign());
+        h = mix(h, sv.getOriginCountry());
+        h = mix(h, sv.getSquawk());
+        h = mix(h, sv.getLastPositionUpdate());
+        h = mix(h, sv.getLastContact());
+        h = mix(h, sv.getLongitude());
+        h = mix(h, sv.getLatitude());
+        h = mix(h, sv.getBaroAltitude());
+        h = mix(h, sv.getVelocity());
+        h = mix(h, sv.getHeading());
+        h = mix(h, sv.getVerticalRate());
+        h = mix(h, sv.getGeoAltitude());
+        return mix(h, flags(sv.isOnGround(), sv.isSpi(), sv.getPositionSource()));
+    }
+
+    private static long mix(long h, Double value) {
+        return value == null ? mix(h, NULL) : mix(h, value, false);
+    }
+}
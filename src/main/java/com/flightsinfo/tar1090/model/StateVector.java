@@ -1,5 +1,6 @@
 package com.flightsinfo.tar1090.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.io.Serializable;
@@ -61,6 +62,8 @@ public class StateVector implements Serializable {
     @JsonProperty("sensors")
     Set<Integer> serials;
 
+    private transient long fingerprint;
+
     public StateVector(Double geoAltitude,
                        Double longitude,
                        Double latitude,
@@ -116,6 +119,7 @@ public class StateVector implements Serializable {
 
     public void setGeoAltitude(Double geoAltitude) {
         this.geoAltitude = geoAltitude;
+        this.fingerprint = 0;
     }
 
     /**
@@ -127,6 +131,7 @@ public class StateVector implements Serializable {
 
     public void setLongitude(Double longitude) {
         this.longitude = longitude;
+        this.fingerprint = 0;
     }
 
     /**
@@ -138,6 +143,7 @@ public class StateVector implements Serializable {
 
     public void setLatitude(Double latitude) {
         this.latitude = latitude;
+        this.fingerprint = 0;
     }
 
     /**
@@ -149,6 +155,7 @@ public class StateVector implements Serializable {
 
     public void setVelocity(Double velocity) {
         this.velocity = velocity;
+        this.fingerprint = 0;
     }
 
     /**
@@ -160,6 +167,7 @@ public class StateVector implements Serializable {
 
     public void setHeading(Double heading) {
         this.heading = heading;
+        this.fingerprint = 0;
     }
 
     /**
@@ -171,6 +179,7 @@ public class StateVector implements Serializable {
 
     public void setVerticalRate(Double verticalRate) {
         this.verticalRate = verticalRate;
+        this.fingerprint = 0;
     }
 
     /**
@@ -182,6 +191,7 @@ public class StateVector implements Serializable {
 
     public void setIcao24(String icao24) {
         this.icao24 = icao24;
+        this.fingerprint = 0;
     }
 
     /**
@@ -193,6 +203,7 @@ public class StateVector implements Serializable {
 
     public void setCallsign(String callsign) {
         this.callsign = callsign;
+        this.fingerprint = 0;
     }
 
     /**
@@ -204,6 +215,7 @@ public class StateVector implements Serializable {
 
     public void setOnGround(boolean onGround) {
         this.onGround = onGround;
+        this.fingerprint = 0;
     }
 
     /**
@@ -215,6 +227,7 @@ public class StateVector implements Serializable {
 
     public void setLastContact(Double lastContact) {
         this.lastContact = lastContact;
+        this.fingerprint = 0;
     }
 
     /**
@@ -226,6 +239,7 @@ public class StateVector implements Serializable {
 
     public void setLastPositionUpdate(Double lastPositionUpdate) {
         this.lastPositionUpdate = lastPositionUpdate;
+        this.fingerprint = 0;
     }
 
     public void addSerial(int serial) {
@@ -251,6 +265,7 @@ public class StateVector implements Serializable {
 
     public void setOriginCountry(String originCountry) {
         this.originCountry = originCountry;
+        this.fingerprint = 0;
     }
 
 
@@ -263,6 +278,7 @@ public class StateVector implements Serializable {
 
     public void setSquawk(String squawk) {
         this.squawk = squawk;
+        this.fingerprint = 0;
     }
 
     /**
@@ -274,6 +290,7 @@ public class StateVector implements Serializable {
 
     public void setSpi(boolean spi) {
         this.spi = spi;
+        this.fingerprint = 0;
     }
 
     /**
@@ -285,6 +302,7 @@ public class StateVector implements Serializable {
 
     public void setBaroAltitude(Double baroAltitude) {
         this.baroAltitude = baroAltitude;
+        this.fingerprint = 0;
     }
 
     /**
@@ -296,6 +314,25 @@ public class StateVector implements Serializable {
 
     public void setPositionSource(PositionSource positionSource) {
         this.positionSource = positionSource;
+        this.fingerprint = 0;
+    }
+
+    /**
+     * @return fingerprint of the content, see {@link StateFingerprint}
+     */
+    @JsonIgnore
+    public long getFingerprint() {
+        if (fingerprint == 0) {
+            fingerprint = StateFingerprint.of(this);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Set the fingerprint when it was already computed while parsing. Any setter resets it.
+     */
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
     }
 
     @Override
@@ -0,0 +1,80 @@
+package com.flightsinfo.tar1090.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The fields of a {@link StateVector}, named like their {@code @JsonProperty}, with typed accessors.
+ */
+public enum StateVectorField {
+    ICAO24("icao24", Type.STRING, StateVector::getIcao24),
+    CALLSIGN("callsign", Type.STRING, StateVector::getCallsign),
+    ORIGIN_COUNTRY("origin_country", Type.STRING, StateVector::getOriginCountry),
+    TIME_POSITION("time_position", Type.NUMBER, StateVector::getLastPositionUpdate),
+    LAST_CONTACT("last_contact", Type.NUMBER, StateVector::getLastContact),
+    LONGITUDE("longitude", Type.NUMBER, StateVector::getLongitude),
+    LATITUDE("latitude", Type.NUMBER, StateVector::getLatitude),
+    BARO_ALTITUDE("baro_altitude", Type.NUMBER, StateVector::getBaroAltitude),
+    ON_GROUND("on_ground", Type.BOOLEAN, StateVector::isOnGround),
+    VELOCITY("velocity", Type.NUMBER, StateVector::getVelocity),
+    TRUE_TRACK("true_track", Type.NUMBER, StateVector::getHeading),
+    VERTICAL_RATE("vertical_rate", Type.NUMBER, StateVector::getVerticalRate),
+    SENSORS("sensors", Type.SET, StateVector::getSerials),
+    GEO_ALTITUDE("geo_altitude", Type.NUMBER, StateVector::getGeoAltitude),
+    SQUAWK("squawk", Type.STRING, StateVector::getSquawk),
+    SPI("spi", Type.BOOLEAN, StateVector::isSpi),
+    POSITION_SOURCE("position_source", Type.ENUM, StateVector::getPositionSource);
+
+    public enum Type {
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        ENUM,
+        SET
+    }
+
+    private static final Map<String, StateVectorField> BY_NAME = new HashMap<>();
+
+    static {
+        for (StateVectorField field : values()) {
+            BY_NAME.put(field.jsonName, field);
+        }
+    }
+
+    private final String jsonName;
+    private final Type type;
+    private final Function<StateVector, Object> accessor;
+
+    StateVectorField(String jsonName, Type type, Function<StateVector, Object> accessor) {
+        this.jsonName = jsonName;
+        this.type = type;
+        this.accessor = accessor;
+    }
+
+    /**
+     * @return name of the field in JSON
+     */
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return value of the field in the given state vector. Can be {@code null}.
+     */
+    public Object get(StateVector sv) {
+        return accessor.apply(sv);
+    }
+
+    /**
+     * @param jsonName name of the field in JSON
+     * @return the field, {@code null} if there is no field with this name
+     */
+    public static StateVectorField byJsonName(String jsonName) {
+        return BY_NAME.get(jsonName);
+    }
+}
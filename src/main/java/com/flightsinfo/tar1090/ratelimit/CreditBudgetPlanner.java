@@ -0,0 +1,254 @@
+package com.flightsinfo.tar1090.ratelimit;
+
+import com.flightsinfo.tar1090.model.BoundingBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps track of the OpenSky API credits and plans queries so that the daily budget lasts until it is reset.
+ * <p>
+ * The remaining credits are taken from the {@value #REMAINING_HEADER} response header whenever it is present and
+ * estimated from the documented credit costs otherwise. A {@code 429} response puts the planner into back-off for the
+ * number of seconds given in {@value #RETRY_AFTER_HEADER}.
+ */
+public class CreditBudgetPlanner {
+
+    public static final String REMAINING_HEADER = "X-Rate-Limit-Remaining";
+    public static final String RETRY_AFTER_HEADER = "X-Rate-Limit-Retry-After-Seconds";
+
+    public static final int ANONYMOUS_DAILY_CREDITS = 400;
+    public static final int AUTHENTICATED_DAILY_CREDITS = 4000;
+
+    /**
+     * Credits for a query without bounding box
+     */
+    public static final int WORLD_CREDITS = 4;
+
+    /**
+     * Used if a 429 response does not tell when to retry
+     */
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 60;
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditBudgetPlanner.class);
+
+    private final Clock clock;
+    private int dailyCredits;
+    private long remainingCredits;
+    private LocalDate budgetDay;
+    private long backoffUntil;
+
+    public CreditBudgetPlanner(int dailyCredits) {
+        this(dailyCredits, Clock.systemUTC());
+    }
+
+    public CreditBudgetPlanner(int dailyCredits, Clock clock) {
+        this.clock = clock;
+        this.dailyCredits = dailyCredits;
+        this.remainingCredits = dailyCredits;
+        this.budgetDay = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * Credits charged for a {@code /states/all} query, based on the area of the bounding box in square degrees.
+     *
+     * @param bbox bounding box, or {@code null} for a world query
+     * @return credits between 1 and {@link #WORLD_CREDITS}
+     */
+    public static int creditCost(BoundingBox bbox) {
+        if (bbox == null) {
+            return WORLD_CREDITS;
+        }
+        double area = (bbox.maxLatitude() - bbox.minLatitude()) * (bbox.maxLongitude() - bbox.minLongitude());
+        if (area <= 25) return 1;
+        if (area <= 100) return 2;
+        if (area <= 400) return 3;
+        return WORLD_CREDITS;
+    }
+
+    public synchronized void setDailyCredits(int dailyCredits) {
+        this.dailyCredits = dailyCredits;
+        this.remainingCredits = dailyCredits;
+    }
+
+    public synchronized int getDailyCredits() {
+        return dailyCredits;
+    }
+
+    /**
+     * @return remaining credits for today, either reported by the server or estimated
+     */
+    public synchronized long getRemainingCredits() {
+        rollOver();
+        return remainingCredits;
+    }
+
+    /**
+     * @return true if the server asked us to wait and the retry delay did not pass yet
+     */
+    public synchronized boolean isBackingOff() {
+        return clock.millis() < backoffUntil;
+    }
+
+    /**
+     * @return milliseconds until requests may be issued again, 0 if not backing off
+     */
+    public synchronized long getBackoffMillis() {
+        return Math.max(0, backoffUntil - clock.millis());
+    }
+
+    /**
+     * @return milliseconds until the credits are reset
+     */
+    public synchronized long getMillisUntilReset() {
+        rollOver();
+        return millisUntilReset();
+    }
+
+    /**
+     * Account for a request about to be issued. The estimate is replaced by the server's number once the response
+     * headers arrived.
+     *
+     * @param credits credits the request costs
+     */
+    public synchronized void onRequest(int credits) {
+        rollOver();
+        remainingCredits = Math.max(0, remainingCredits - credits);
+    }
+
+    /**
+     * Update the budget from the headers of an OpenSky response.
+     *
+     * @param status  HTTP status code
+     * @param headers response headers
+     * @return seconds to wait before retrying if the response was a {@code 429}, 0 otherwise
+     */
+    public synchronized long onResponse(int status, HttpHeaders headers) {
+        rollOver();
+        Long remaining = parseLong(headers.getFirst(REMAINING_HEADER));
+        if (remaining != null) {
+            remainingCredits = remaining;
+            if (remaining > dailyCredits) {
+                // contributing users get a larger allowance than their role tells
+                dailyCredits = remaining.intValue();
+            }
+        }
+        if (status != 429) {
+            return 0;
+        }
+
+        Long retryAfter = parseLong(headers.getFirst(RETRY_AFTER_HEADER));
+        if (retryAfter == null) {
+            retryAfter = parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        }
+        if (retryAfter == null) {
+            retryAfter = DEFAULT_RETRY_AFTER_SECONDS;
+        }
+        remainingCredits = 0;
+        backoffUntil = clock.millis() + retryAfter * 1000;
+        logger.warn("OpenSky credits exhausted, backing off for {}s", retryAfter);
+        return retryAfter;
+    }
+
+    /**
+     * Choose how to cover the given regions and how often to refresh them, so that freshness is as high as possible
+     * and the remaining credits last until the daily reset.
+     * <p>
+     * Candidates are a world query, a single query for the box enclosing all regions and one query per region. The
+     * cheapest candidate wins, on ties the one with fewer requests.
+     *
+     * @param regions          regions of interest. If {@code null} or empty, the whole world is planned for.
+     * @param minRefreshMillis lower bound for the refresh interval, i.e. the client side rate limit
+     * @return plan for the regions
+     */
+    public QueryPlan plan(Collection<BoundingBox> regions, long minRefreshMillis) {
+        QueryPlan.Shape shape = QueryPlan.Shape.WORLD;
+        List<BoundingBox> boxes = List.of();
+        int cost = WORLD_CREDITS;
+
+        if (regions != null && !regions.isEmpty()) {
+            BoundingBox enclosing = enclosing(regions);
+            int enclosingCost = creditCost(enclosing);
+            int tilesCost = 0;
+            for (BoundingBox region : regions) {
+                tilesCost += creditCost(region);
+            }
+
+            if (enclosingCost < cost) {
+                shape = QueryPlan.Shape.ENCLOSING_BOX;
+                boxes = List.of(enclosing);
+                cost = enclosingCost;
+            }
+            if (tilesCost < cost) {
+                shape = QueryPlan.Shape.TILES;
+                boxes = new ArrayList<>(regions);
+                cost = tilesCost;
+            }
+        }
+
+        return new QueryPlan(shape, boxes, cost, Duration.ofMillis(refreshInterval(cost, minRefreshMillis)));
+    }
+
+    /**
+     * Spread the remaining credits evenly over the time left until the daily reset.
+     */
+    private synchronized long refreshInterval(int cost, long minRefreshMillis) {
+        rollOver();
+        long untilReset = millisUntilReset();
+        long interval;
+        if (remainingCredits < cost) {
+            interval = untilReset;
+        } else {
+            long refreshes = remainingCredits / cost;
+            interval = untilReset / refreshes;
+        }
+        return Math.max(Math.max(minRefreshMillis, interval), getBackoffMillis());
+    }
+
+    private long millisUntilReset() {
+        long now = clock.millis();
+        long nextReset = budgetDay.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return Math.max(1, nextReset - now);
+    }
+
+    /**
+     * Credits are reset daily, assume midnight UTC.
+     */
+    private void rollOver() {
+        LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+        if (!today.equals(budgetDay)) {
+            budgetDay = today;
+            remainingCredits = dailyCredits;
+        }
+    }
+
+    private static BoundingBox enclosing(Collection<BoundingBox> regions) {
+        double minLat = 90, maxLat = -90, minLon = 180, maxLon = -180;
+        for (BoundingBox b : regions) {
+            minLat = Math.min(minLat, b.minLatitude());
+            maxLat = Math.max(maxLat, b.maxLatitude());
+            minLon = Math.min(minLon, b.minLongitude());
+            maxLon = Math.max(maxLon, b.maxLongitude());
+        }
+        return new BoundingBox(minLat, maxLat, minLon, maxLon);
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.flightsinfo.tar1090.ratelimit;
+
+import com.flightsinfo.tar1090.model.BoundingBox;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Result of {@link CreditBudgetPlanner#plan}: which queries to issue and how often.
+ *
+ * @param shape              how the regions are covered
+ * @param boxes              bounding boxes to request, empty for a world query
+ * @param creditsPerRefresh  credits one refresh of all {@code boxes} costs
+ * @param refreshInterval    interval between two refreshes which keeps the budget alive until the daily reset
+ */
+public record QueryPlan(Shape shape,
+                        List<BoundingBox> boxes,
+                        int creditsPerRefresh,
+                        Duration refreshInterval) {
+
+    public enum Shape {
+        /** one query without bounding box */
+        WORLD,
+        /** one query for the box enclosing all regions */
+        ENCLOSING_BOX,
+        /** one query per region */
+        TILES
+    }
+}
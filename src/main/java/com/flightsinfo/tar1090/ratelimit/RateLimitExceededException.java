@@ -0,0 +1,28 @@
+package com.flightsinfo.tar1090.ratelimit;
+
+import java.io.IOException;
+
+/**
+ * Thrown when OpenSky answered with {@code 429 - Too Many Requests}, i.e. the API credits are exhausted, or when the
+ * remaining credits cannot pay for a query.
+ */
+public class RateLimitExceededException extends IOException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        this("OpenSky rate limit exceeded, retry after " + retryAfterSeconds + "s", retryAfterSeconds);
+    }
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return seconds until credits become available again, as reported by the server
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
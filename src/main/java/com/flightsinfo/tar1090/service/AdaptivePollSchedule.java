@@ -0,0 +1,179 @@
+package com.flightsinfo.tar1090.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules polls just after OpenSky refreshed its data, instead of on a fixed timer which tends to land right before
+ * a refresh and return stale data.
+ * <p>
+ * Two quantities are learned from the {@code time} of the responses:
+ * <ul>
+ *     <li>the update period, as the greatest common divisor of the last differences of new {@code time} values,
+ *     which are whole seconds. Missed updates only give multiples of the period, so it is also found when polling
+ *     slower than upstream refreshes. Until it is known, polls are sent as often as allowed.</li>
+ *     <li>the latency until data of {@code time} is served. Each response bounds it from above by
+ *     {@code received - time}, and from below by {@code sent - (time + period)}, as the next refresh was not served
+ *     yet. Polls are timed at the middle of both bounds until they are closer than {@code margin}, then at the upper
+ *     bound. The lower bound slowly decays, so a shrinking latency is found again.</li>
+ * </ul>
+ * The next poll is scheduled at the first expected refresh plus latency and {@code margin} which is at least
+ * {@code minInterval} after the previous request, so the client side rate limit is never hit. The achieved data age
+ * is published as {@code opensky.poller.data.age}, stale responses are counted as {@code opensky.poller.stale}.
+ */
+public class AdaptivePollSchedule {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePollSchedule.class);
+
+    /**
+     * Number of {@code time} differences the period is derived from
+     */
+    private static final int WINDOW = 4;
+    /**
+     * Fraction of the period the lower latency bound decays by per new response
+     */
+    private static final double DECAY = 0.0005;
+
+    private final long minIntervalMillis;
+    private final long marginMillis;
+    private final Timer dataAge;
+    private final Counter stale;
+
+    private final ArrayDeque<Integer> deltas = new ArrayDeque<>();
+    private double periodMillis = Double.NaN;
+    private double latencyLow = Double.NaN;
+    private double latencyHigh = Double.NaN;
+    private int lastTime;
+
+    /**
+     * @param minInterval minimum time between two requests
+     * @param margin      added to the expected availability of new data
+     */
+    public AdaptivePollSchedule(Duration minInterval, Duration margin, MeterRegistry registry) {
+        this.minIntervalMillis = minInterval.toMillis();
+        this.marginMillis = margin.toMillis();
+        this.dataAge = Timer.builder("opensky.poller.data.age")
+                .description("Age of the data when it was received")
+                .register(registry);
+        this.stale = Counter.builder("opensky.poller.stale")
+                .description("Polls which returned data already received")
+                .register(registry);
+        Gauge.builder("opensky.poller.period", this, AdaptivePollSchedule::getPeriodMillis)
+                .description("Learned upstream update period in ms")
+                .register(registry);
+        Gauge.builder("opensky.poller.latency", this, AdaptivePollSchedule::getLatencyMillis)
+                .description("Learned delay in ms until upstream serves new data")
+                .register(registry);
+    }
+
+    /**
+     * Learn from a response.
+     *
+     * @param sentMillis     when the request was sent
+     * @param receivedMillis when the response was received
+     * @param time           {@code time} of the response, seconds since epoch
+     */
+    public synchronized void onResponse(long sentMillis, long receivedMillis, int time) {
+        if (time < lastTime) {
+            return;
+        }
+        long timeMillis = time * 1000L;
+        dataAge.record(Math.max(0, receivedMillis - timeMillis), TimeUnit.MILLISECONDS);
+        if (time == lastTime) {
+            stale.increment();
+        } else {
+            if (lastTime > 0) {
+                updatePeriod(time - lastTime);
+            }
+            if (!Double.isNaN(latencyLow)) {
+                latencyLow -= DECAY * periodMillis;
+            }
+            lastTime = time;
+        }
+
+        // the data of time was available when the response was received, the next refresh was not when it was sent
+        double upper = receivedMillis - timeMillis;
+        double lower = Double.isNaN(periodMillis) ? Double.NaN : sentMillis - (timeMillis + periodMillis);
+        if (!Double.isNaN(lower) && (Double.isNaN(latencyLow) || lower > latencyLow)) {
+            latencyLow = lower;
+        }
+        if (Double.isNaN(latencyHigh) || upper < latencyHigh) {
+            latencyHigh = upper;
+        } else if (latencyLow >= latencyHigh) {
+            // the latency grew, the upper bound is outdated
+            latencyHigh = upper;
+        }
+        if (latencyLow >= latencyHigh) {
+            // the latency shrank, the lower bound is outdated
+            latencyLow = Double.NaN;
+        }
+        logger.debug("Data of {}, latency between {} and {}ms", time, latencyLow, latencyHigh);
+    }
+
+    private void updatePeriod(int delta) {
+        deltas.addLast(delta);
+        if (deltas.size() > WINDOW) {
+            deltas.removeFirst();
+        }
+        int period = 0;
+        for (int d : deltas) {
+            period = gcd(period, d);
+        }
+        periodMillis = period * 1000.0;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * @param nowMillis         current time
+     * @param lastRequestMillis when the previous request was sent
+     * @return when to send the next request
+     */
+    public synchronized long nextPollMillis(long nowMillis, long lastRequestMillis) {
+        long earliest = Math.max(nowMillis, lastRequestMillis + minIntervalMillis);
+        if (lastTime == 0 || Double.isNaN(periodMillis)) {
+            return earliest;
+        }
+        double available = lastTime * 1000L + latency() + marginMillis;
+        double updates = Math.max(1, Math.ceil((earliest - available) / periodMillis));
+        return Math.max(earliest, Math.round(available + updates * periodMillis));
+    }
+
+    /**
+     * @return latency to schedule with, between the bounds
+     */
+    private double latency() {
+        double high = Double.isNaN(latencyHigh) ? latencyLow + periodMillis / 2 : latencyHigh;
+        double low = Double.isNaN(latencyLow) ? high - periodMillis / 2 : latencyLow;
+        return high - low <= marginMillis ? high : (low + high) / 2;
+    }
+
+    /**
+     * @return learned update period in ms, 0 if not known yet
+     */
+    public synchronized double getPeriodMillis() {
+        return Double.isNaN(periodMillis) ? 0 : periodMillis;
+    }
+
+    /**
+     * @return latency polls are currently timed with in ms, 0 if not known yet
+     */
+    public synchronized double getLatencyMillis() {
+        return Double.isNaN(periodMillis) || Double.isNaN(latencyHigh) && Double.isNaN(latencyLow) ? 0 : latency();
+    }
+}
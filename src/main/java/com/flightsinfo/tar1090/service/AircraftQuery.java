@@ -0,0 +1,65 @@
+package com.flightsinfo.tar1090.service;
+
+import com.flightsinfo.tar1090.model.BoundingBox;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.function.Predicate;
+
+/**
+ * Filter criteria for state vectors of a snapshot. All criteria are optional, {@code null} matches everything.
+ *
+ * @param bbox           area the aircraft must be in
+ * @param icao24         ICAO24 addresses to return
+ * @param callsignPrefix prefix of the callsign, case-insensitive
+ * @param minAltitude    minimum barometric altitude in meters
+ * @param maxAltitude    maximum barometric altitude in meters
+ * @param onGround       required on-ground state
+ * @param filter         compiled {@link com.flightsinfo.tar1090.filter.FilterExpression}
+ */
+public record AircraftQuery(BoundingBox bbox,
+                            SortedSet<String> icao24,
+                            String callsignPrefix,
+                            Double minAltitude,
+                            Double maxAltitude,
+                            Boolean onGround,
+                            Predicate<StateVector> filter) {
+
+    public AircraftQuery {
+        if (callsignPrefix != null) {
+            callsignPrefix = callsignPrefix.trim().toUpperCase(Locale.ROOT);
+            if (callsignPrefix.isEmpty()) {
+                callsignPrefix = null;
+            }
+        }
+    }
+
+    public boolean matches(StateVector sv) {
+        if (icao24 != null && !icao24.contains(sv.getIcao24())) {
+            return false;
+        }
+        if (onGround != null && onGround != sv.isOnGround()) {
+            return false;
+        }
+        if (callsignPrefix != null && (sv.getCallsign() == null || !sv.getCallsign().toUpperCase(Locale.ROOT).startsWith(callsignPrefix))) {
+            return false;
+        }
+        if (minAltitude != null || maxAltitude != null) {
+            Double alt = sv.getBaroAltitude();
+            if (alt == null || (minAltitude != null && alt < minAltitude) || (maxAltitude != null && alt > maxAltitude)) {
+                return false;
+            }
+        }
+        if (bbox != null) {
+            Double lat = sv.getLatitude();
+            Double lon = sv.getLongitude();
+            if (lat == null || lon == null
+                    || lat < bbox.minLatitude() || lat > bbox.maxLatitude()
+                    || lon < bbox.minLongitude() || lon > bbox.maxLongitude()) {
+                return false;
+            }
+        }
+        return filter == null || filter.test(sv);
+    }
+}
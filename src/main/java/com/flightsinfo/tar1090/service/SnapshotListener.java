@@ -0,0 +1,13 @@
+package com.flightsinfo.tar1090.service;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+
+/**
+ * Notified on the publishing thread whenever a new snapshot becomes the latest one. Implementations must be quick
+ * and hand expensive work off to their own threads.
+ */
+@FunctionalInterface
+public interface SnapshotListener {
+
+    void onSnapshot(IndexedSnapshot snapshot);
+}
@@ -0,0 +1,114 @@
+package com.flightsinfo.tar1090.service;
+
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Merges the responses of overlapping requests, e.g. the world-wide states, bounding boxes which share their edges and
+ * the states of own sensors, into one snapshot with one state vector per aircraft.
+ * <p>
+ * Runs in linear time: every vector is looked up once by ICAO24. Identical copies are recognized by their
+ * {@link StateVector#getFingerprint() fingerprint}, which the parser already computed, so only vectors which really
+ * differ are compared. Of those the one with the latest {@code lastContact} wins, and if another copy has a newer
+ * position, the position is taken from that one.
+ */
+public final class SnapshotMerger {
+
+    /**
+     * @param states     the merged snapshot, its time is the latest time of all sources
+     * @param duplicates number of vectors dropped as identical copies
+     * @param reconciled number of vectors which differed from another copy of the same aircraft
+     */
+    public record Result(PlaneStates states, int duplicates, int reconciled) {
+    }
+
+    private SnapshotMerger() {
+    }
+
+    public static Result merge(Collection<PlaneStates> sources) {
+        int total = 0;
+        int time = 0;
+        boolean partial = true;
+        for (PlaneStates source : sources) {
+            if (source != null) {
+                time = Math.max(time, source.getTime());
+                partial &= source.isPartial();
+                total += source.getStateVectors() == null ? 0 : source.getStateVectors().size();
+            }
+        }
+        Map<String, StateVector> byIcao24 = new HashMap<>(total * 4 / 3 + 1);
+        int duplicates = 0;
+        int reconciled = 0;
+        for (PlaneStates source : sources) {
+            if (source == null || source.getStateVectors() == null) {
+                continue;
+            }
+            for (StateVector sv : source.getStateVectors()) {
+                StateVector existing = byIcao24.putIfAbsent(sv.getIcao24(), sv);
+                if (existing == null) {
+                    continue;
+                }
+                if (existing.getFingerprint() == sv.getFingerprint()) {
+                    duplicates++;
+                    if (existing.getSerials() == null && sv.getSerials() != null) {
+                        // same state, but the copy knows which of our sensors received it
+                        byIcao24.put(sv.getIcao24(), sv);
+                    }
+                } else {
+                    reconciled++;
+                    byIcao24.put(sv.getIcao24(), reconcile(existing, sv));
+                }
+            }
+        }
+        PlaneStates merged = new PlaneStates();
+        merged.setTime(time);
+        // one world-wide source is enough for the merged states to cover the world
+        merged.setPartial(partial);
+        merged.setStateVectors(new ArrayList<>(byIcao24.values()));
+        return new Result(merged, duplicates, reconciled);
+    }
+
+    private static StateVector reconcile(StateVector a, StateVector b) {
+        int cmp = Double.compare(seconds(a.getLastContact()), seconds(b.getLastContact()));
+        if (cmp == 0) {
+            cmp = Double.compare(seconds(a.getLastPositionUpdate()), seconds(b.getLastPositionUpdate()));
+        }
+        StateVector newest = cmp >= 0 ? a : b;
+        StateVector other = newest == a ? b : a;
+        boolean newerPosition = other.getLatitude() != null && other.getLongitude() != null
+                && seconds(other.getLastPositionUpdate()) > seconds(newest.getLastPositionUpdate());
+        boolean missingSerials = newest.getSerials() == null && other.getSerials() != null;
+        if (!newerPosition && !missingSerials) {
+            return newest;
+        }
+        // never modify the vectors of the sources, they may be part of published snapshots
+        StateVector result = copy(newest);
+        if (newerPosition) {
+            result.setLatitude(other.getLatitude());
+            result.setLongitude(other.getLongitude());
+            result.setLastPositionUpdate(other.getLastPositionUpdate());
+            result.setPositionSource(other.getPositionSource());
+        }
+        if (missingSerials) {
+            other.getSerials().forEach(result::addSerial);
+        }
+        return result;
+    }
+
+    private static StateVector copy(StateVector sv) {
+        return new StateVector(sv.getGeoAltitude(), sv.getLongitude(), sv.getLatitude(), sv.getVelocity(), sv.getHeading(),
+                sv.getVerticalRate(), sv.getIcao24(), sv.getCallsign(), sv.isOnGround(), sv.getLastContact(),
+                sv.getLastPositionUpdate(), sv.getOriginCountry(), sv.getSquawk(), sv.isSpi(), sv.getBaroAltitude(),
+                sv.getPositionSource(), sv.getSerials() == null ? null : new HashSet<>(sv.getSerials()));
+    }
+
+    private static double seconds(Double time) {
+        return time == null ? Double.NEGATIVE_INFINITY : time;
+    }
+}
@@ -0,0 +1,165 @@
+package com.flightsinfo.tar1090.service;
+
+import com.flightsinfo.tar1090.feed.FileBatchWriter;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.shared.SnapshotCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persists the latest snapshot to local disk and loads it again on startup, so queries can be answered right after
+ * boot instead of waiting for the first upstream response. Snapshots are stored in the {@link SnapshotCodec} encoding,
+ * gzip compressed.
+ * <p>
+ * Loading runs on a virtual thread and does not delay startup. If the poller publishes a live snapshot first, the
+ * persisted one is only published if it is strictly newer. Snapshots older than {@code max-age} are never
+ * loaded. The time from JVM start until the first snapshot was available is published as
+ * {@code opensky.startup.first-answer}, tagged with where the snapshot came from.
+ */
+@Component
+public class SnapshotPersistence implements SnapshotListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotPersistence.class);
+
+    private final SnapshotStore store;
+    private final Path file;
+    private final Duration interval;
+    private final Duration maxAge;
+    private final MeterRegistry registry;
+    private final FileBatchWriter writer = new FileBatchWriter("snapshot-writer");
+    private final AtomicLong firstAnswerMillis = new AtomicLong(-1);
+    private volatile PlaneStates loaded;
+    private int lastPersisted;
+
+    public SnapshotPersistence(SnapshotStore store,
+                               @Value("${opensky.snapshot.file:opensky-snapshot.bin.gz}") Path file,
+                               @Value("${opensky.snapshot.persist-interval:PT60S}") Duration interval,
+                               @Value("${opensky.snapshot.max-age:PT15M}") Duration maxAge,
+                               MeterRegistry registry) {
+        this.store = store;
+        this.file = file;
+        this.interval = interval;
+        this.maxAge = maxAge;
+        this.registry = registry;
+        store.addListener(this);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        Thread.ofVirtual().name("snapshot-loader").start(this::load);
+    }
+
+    /**
+     * Load the persisted snapshot and publish it, if it is recent enough and strictly newer than the latest snapshot
+     * of the store.
+     *
+     * @return {@code true} if a snapshot was published
+     */
+    public boolean load() {
+        PlaneStates states;
+        try (InputStream in = Files.newInputStream(file)) {
+            states = deserialize(in);
+        } catch (NoSuchFileException e) {
+            logger.info("No persisted snapshot at {}", file);
+            return false;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load persisted snapshot from {}", file, e);
+            return false;
+        }
+        long age = System.currentTimeMillis() / 1000 - states.getTime();
+        if (age > maxAge.toSeconds()) {
+            logger.info("Persisted snapshot is {}s old, not loading it", age);
+            return false;
+        }
+        IndexedSnapshot latest = store.getLatest();
+        if (latest != null && latest.getTime() >= states.getTime()) {
+            logger.info("Persisted snapshot of {} is not newer than the live one of {}, not loading it", states.getTime(), latest.getTime());
+            return false;
+        }
+        loaded = states;
+        boolean published = store.publish(states) != null;
+        logger.info("Loaded persisted snapshot of {} ({}s old){}", states.getTime(), age, published ? "" : ", live data already available");
+        return published;
+    }
+
+    /**
+     * @return ms from JVM start until the first snapshot was published, -1 if none yet
+     */
+    public long getFirstAnswerMillis() {
+        return firstAnswerMillis.get();
+    }
+
+    @Override
+    public void onSnapshot(IndexedSnapshot snapshot) {
+        if (firstAnswerMillis.get() < 0) {
+            long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            if (firstAnswerMillis.compareAndSet(-1, millis)) {
+                String source = snapshot.getStates() == loaded ? "disk" : "live";
+                TimeGauge.builder("opensky.startup.first-answer", firstAnswerMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                        .description("Time from JVM start until the first snapshot could be queried")
+                        .tag("source", source)
+                        .register(registry);
+                logger.info("First snapshot available {}ms after JVM start, from {}", millis, source);
+            }
+        }
+        if (snapshot.getStates() != loaded && snapshot.getTime() - lastPersisted >= interval.toSeconds()) {
+            lastPersisted = snapshot.getTime();
+            PlaneStates states = snapshot.getStates();
+            writer.write(file, () -> serialize(states));
+        }
+    }
+
+    /**
+     * Write pending snapshots and stop the writer.
+     */
+    @PreDestroy
+    public void close() {
+        writer.close();
+    }
+
+    /**
+     * Wait until the latest snapshot was written.
+     */
+    public void flush() throws InterruptedException {
+        writer.flush();
+    }
+
+    private static byte[] serialize(PlaneStates states) {
+        byte[] encoded = SnapshotCodec.encode(states);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16)) {
+            gzip.write(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static PlaneStates deserialize(InputStream in) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(in, 1 << 16)) {
+            return SnapshotCodec.decode(gzip.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.flightsinfo.tar1090.service;
+
+import com.flightsinfo.tar1090.jfr.ListenerEvent;
+import com.flightsinfo.tar1090.jfr.PublishEvent;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the latest snapshot in memory. Queries read it without locking and never trigger an upstream call.
+ */
+@Component
+public class SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private final List<SnapshotListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile IndexedSnapshot latest;
+
+    /**
+     * @return the latest snapshot, {@code null} if none has been published yet
+     */
+    public IndexedSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * Index the given states and make them the latest snapshot. Snapshots older than the current one are ignored.
+     *
+     * @param states states to publish
+     * @return the published snapshot, {@code null} if the states were ignored
+     */
+    public IndexedSnapshot publish(PlaneStates states) {
+        if (states == null) {
+            return null;
+        }
+        PublishEvent event = new PublishEvent();
+        event.begin();
+        IndexedSnapshot snapshot = new IndexedSnapshot(states, System.currentTimeMillis());
+        synchronized (this) {
+            IndexedSnapshot current = latest;
+            if (current != null && current.getTime() > snapshot.getTime()) {
+                logger.debug("Ignoring snapshot of {}, already got {}", snapshot.getTime(), current.getTime());
+                commit(event, snapshot, false);
+                return null;
+            }
+            latest = snapshot;
+            // notify while holding the lock, so listeners see snapshots in order
+            for (SnapshotListener listener : listeners) {
+                ListenerEvent listenerEvent = new ListenerEvent();
+                listenerEvent.begin();
+                try {
+                    listener.onSnapshot(snapshot);
+                } catch (RuntimeException e) {
+                    listenerEvent.failed = true;
+                    logger.error("Snapshot listener {} failed", listener, e);
+                }
+                listenerEvent.end();
+                if (listenerEvent.shouldCommit()) {
+                    listenerEvent.listener = listener.getClass().getName();
+                    listenerEvent.commit();
+                }
+            }
+        }
+        commit(event, snapshot, true);
+        return snapshot;
+    }
+
+    private void commit(PublishEvent event, IndexedSnapshot snapshot, boolean published) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.time = snapshot.getTime() * 1000L;
+            event.vectors = snapshot.size();
+            event.listeners = listeners.size();
+            event.published = published;
+            event.commit();
+        }
+    }
+
+    public void addListener(SnapshotListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SnapshotListener listener) {
+        listeners.remove(listener);
+    }
+}
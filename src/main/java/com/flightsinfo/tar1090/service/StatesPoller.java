@@ -0,0 +1,194 @@
+package com.flightsinfo.tar1090.service;
+
+import com.flightsinfo.tar1090.controller.OpenSkyApiController;
+import com.flightsinfo.tar1090.jfr.PollEvent;
+import com.flightsinfo.tar1090.model.BoundingBox;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import com.flightsinfo.tar1090.ratelimit.QueryPlan;
+import com.flightsinfo.tar1090.ratelimit.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the states from OpenSky and publishes them to the {@link SnapshotStore}. This is the only place which
+ * requests {@code /states/all} on behalf of the query endpoints.
+ * <p>
+ * Each poll is planned by the client's {@link CreditBudgetPlanner}: the {@code opensky.poller.regions} are covered by
+ * a world query, their enclosing box or one query per region, whichever costs the fewest credits, and the next poll
+ * waits at least until the remaining credits allow another one at the same rate until the daily reset.
+ * <p>
+ * With {@code opensky.poller.adaptive}, polls are timed by an {@link AdaptivePollSchedule} to arrive just after
+ * upstream refreshed its data, but never more often than every {@code opensky.poller.interval-ms}.
+ */
+@Component
+public class StatesPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatesPoller.class);
+
+    private final OpenSkyApiController client;
+    private final SnapshotStore store;
+    private final boolean enabled;
+    private final boolean shared;
+    private final long intervalMillis;
+    private final List<BoundingBox> regions;
+    private final AdaptivePollSchedule pollSchedule;
+
+    private ScheduledExecutorService scheduler;
+
+    public StatesPoller(OpenSkyApiController client,
+                        SnapshotStore store,
+                        @Value("${opensky.poller.enabled:true}") boolean enabled,
+                        @Value("${opensky.shared.enabled:false}") boolean shared,
+                        @Value("${opensky.poller.interval-ms:864000}") long intervalMillis,
+                        @Value("${opensky.poller.regions:}") String regions,
+                        @Value("${opensky.poller.adaptive:true}") boolean adaptive,
+                        @Value("${opensky.poller.margin-ms:500}") long marginMillis,
+                        MeterRegistry registry) {
+        this.client = client;
+        this.store = store;
+        this.enabled = enabled;
+        this.shared = shared;
+        this.intervalMillis = intervalMillis;
+        this.regions = parseRegions(regions);
+        this.pollSchedule = adaptive ? new AdaptivePollSchedule(Duration.ofMillis(intervalMillis),
+                Duration.ofMillis(marginMillis), registry) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled && shared) {
+            logger.info("OpenSky poller is started when this instance becomes the shared leader");
+        } else if (enabled) {
+            start();
+        } else {
+            logger.info("OpenSky poller disabled");
+        }
+    }
+
+    /**
+     * Start polling, also called when this instance becomes the shared leader. Does nothing if
+     * {@code opensky.poller.enabled} is {@code false}.
+     */
+    public synchronized void start() {
+        if (!enabled) {
+            logger.info("OpenSky poller disabled, not starting it");
+            return;
+        }
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "opensky-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        QueryPlan plan = client.getCreditBudget().plan(regions, intervalMillis);
+        logger.info("Polling OpenSky states every {}ms{}, {} with {} credits each", plan.refreshInterval().toMillis(),
+                pollSchedule != null ? " or more, after upstream updates" : "", plan.shape(), plan.creditsPerRefresh());
+        schedule(0);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Parse regions given as {@code lamin,lamax,lomin,lomax} bounding boxes, separated by {@code ;}.
+     *
+     * @param regions regions, empty for the whole world
+     * @return bounding boxes of the regions
+     * @throws IllegalArgumentException if a region is not a valid bounding box
+     */
+    public static List<BoundingBox> parseRegions(String regions) {
+        List<BoundingBox> boxes = new ArrayList<>();
+        if (regions == null || regions.isBlank()) {
+            return boxes;
+        }
+        for (String region : regions.split(";")) {
+            String[] bounds = region.split(",");
+            if (bounds.length != 4) {
+                throw new IllegalArgumentException("Region '" + region.strip() + "' is not lamin,lamax,lomin,lomax");
+            }
+            try {
+                boxes.add(new BoundingBox(Double.parseDouble(bounds[0].strip()), Double.parseDouble(bounds[1].strip()),
+                        Double.parseDouble(bounds[2].strip()), Double.parseDouble(bounds[3].strip())));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid region '" + region.strip() + "': " + e.getMessage(), e);
+            }
+        }
+        return boxes;
+    }
+
+    private synchronized void schedule(long delayMillis) {
+        if (scheduler != null) {
+            scheduler.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void poll() {
+        long retryAfterMillis = 0;
+        long sent = System.currentTimeMillis();
+        PollEvent event = new PollEvent();
+        event.begin();
+        String outcome = "failed";
+        CreditBudgetPlanner budget = client.getCreditBudget();
+        try {
+            QueryPlan plan = budget.plan(regions, intervalMillis);
+            if (budget.getRemainingCredits() < plan.creditsPerRefresh()) {
+                // the plan waits for the daily reset, a request now would only be rejected
+                outcome = "no-credits";
+                return;
+            }
+            PlaneStates states = plan.shape() == QueryPlan.Shape.WORLD
+                    ? client.getStates(0, null)
+                    : client.getTiledStates(0, plan.boxes());
+            if (states == null) {
+                outcome = "rate-limited";
+            } else {
+                if (pollSchedule != null) {
+                    pollSchedule.onResponse(sent, System.currentTimeMillis(), states.getTime());
+                }
+                outcome = store.publish(states) != null ? "published" : "stale";
+            }
+        } catch (RateLimitExceededException e) {
+            outcome = "rate-limited";
+            logger.warn(e.getMessage());
+            retryAfterMillis = e.getRetryAfterSeconds() * 1000;
+        } catch (Exception e) {
+            logger.warn("Could not poll OpenSky states", e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = outcome;
+                event.commit();
+            }
+            long now = System.currentTimeMillis();
+            long delay = pollSchedule != null ? pollSchedule.nextPollMillis(now, sent) - now : intervalMillis;
+            // planned again, the response updated the remaining credits
+            long budgetDelay = budget.plan(regions, intervalMillis).refreshInterval().toMillis() - (now - sent);
+            schedule(Math.max(Math.max(delay, budgetDelay), retryAfterMillis));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.flightsinfo.tar1090.shared;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets several instances on one host share a single upstream poller.
+ * <p>
+ * The instance holding an exclusive lock on {@code leader.lock} in the shared directory is the leader: it polls
+ * OpenSky and writes every published snapshot to the memory-mapped {@link SharedSnapshotFile} {@code snapshot.shm}.
+ * All other instances are followers: they never poll, but check the file every {@code checkInterval} and publish new
+ * snapshots to their own {@link SnapshotStore}. The operating system releases the lock when the leader process dies,
+ * so a follower takes over with its next check. Adding instances therefore adds query capacity without adding
+ * upstream requests.
+ */
+public class SharedSnapshotCoordinator implements SnapshotListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedSnapshotCoordinator.class);
+
+    private final SnapshotStore store;
+    private final SharedSnapshotFile file;
+    private final FileChannel lockChannel;
+    private final Duration checkInterval;
+    private final Runnable startPolling;
+    private final Runnable stopPolling;
+    private final Counter received;
+    private final Counter tooLarge;
+
+    private ScheduledExecutorService scheduler;
+    private FileLock lock;
+    private volatile boolean leader;
+    private volatile PlaneStates lastReceived;
+    private long lastSequence = -1;
+
+    /**
+     * @param dir           directory of the lock and snapshot files, shared by all instances
+     * @param capacity      maximum size of an encoded snapshot
+     * @param checkInterval how often followers check for new snapshots and try to become leader
+     * @param startPolling  called when this instance becomes leader
+     * @param stopPolling   called when this instance stops being leader
+     */
+    public SharedSnapshotCoordinator(SnapshotStore store, Path dir, int capacity, Duration checkInterval,
+                                     Runnable startPolling, Runnable stopPolling, MeterRegistry registry) throws IOException {
+        this.store = store;
+        this.checkInterval = checkInterval;
+        this.startPolling = startPolling;
+        this.stopPolling = stopPolling;
+        Files.createDirectories(dir);
+        this.file = new SharedSnapshotFile(dir.resolve("snapshot.shm"), capacity);
+        this.lockChannel = FileChannel.open(dir.resolve("leader.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.received = Counter.builder("opensky.shared.received")
+                .description("Snapshots received from the leader instance")
+                .register(registry);
+        this.tooLarge = Counter.builder("opensky.shared.too-large")
+                .description("Snapshots not shared because they exceed the capacity of the shared file")
+                .register(registry);
+        Gauge.builder("opensky.shared.leader", this, c -> c.isLeader() ? 1 : 0)
+                .description("1 if this instance polls OpenSky for all local instances")
+                .register(registry);
+    }
+
+    /**
+     * Start checking for leadership and new snapshots.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "opensky-shared");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Try to become leader, or read the latest snapshot of the leader.
+     */
+    public synchronized void check() {
+        if (leader) {
+            return;
+        }
+        try {
+            if (tryLock()) {
+                leader = true;
+                logger.info("Became leader, polling OpenSky for all local instances");
+                startPolling.run();
+                return;
+            }
+            SharedSnapshotFile.Entry entry = file.read(lastSequence);
+            if (entry != null) {
+                lastSequence = entry.sequence();
+                PlaneStates states = SnapshotCodec.decode(entry.data());
+                lastReceived = states;
+                received.increment();
+                store.publish(states);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not check shared snapshot", e);
+        }
+    }
+
+    @Override
+    public void onSnapshot(IndexedSnapshot snapshot) {
+        if (!leader || snapshot.getStates() == lastReceived) {
+            return;
+        }
+        if (!file.write(SnapshotCodec.encode(snapshot.getStates()))) {
+            tooLarge.increment();
+            logger.warn("Snapshot of {} exceeds the shared capacity of {} bytes", snapshot.getTime(), file.getCapacity());
+        }
+    }
+
+    /**
+     * Stop polling and give up leadership, so another instance takes over.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (leader) {
+            leader = false;
+            stopPolling.run();
+        }
+        lockChannel.close();
+        file.close();
+    }
+
+    private boolean tryLock() throws IOException {
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another coordinator of this JVM
+            return false;
+        }
+        return lock != null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.flightsinfo.tar1090.shared;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped file holding the latest encoded snapshot, written by one process and read by any number of others
+ * on the same host.
+ * <p>
+ * Access is coordinated by a sequence lock: the writer makes the sequence odd, copies the data and makes it even
+ * again. Readers copy the data and retry if the sequence was odd or changed meanwhile, so they never block the writer
+ * and never see a partially written snapshot. There must only be one writer at a time, which is what the leader lock
+ * of {@link SharedSnapshotCoordinator} guarantees.
+ * <pre>
+ * 0   int   magic
+ * 4   int   capacity of the data area
+ * 8   long  sequence, odd while writing
+ * 16  int   length of the data
+ * 64  data
+ * </pre>
+ */
+public class SharedSnapshotFile implements Closeable {
+
+    private static final int MAGIC = 0x4f534b31; // "OSK1"
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int DATA_OFFSET = 64;
+    private static final int READ_ATTEMPTS = 8;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /**
+     * A snapshot read from the file
+     */
+    public record Entry(long sequence, byte[] data) {
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    /**
+     * Open or create the file, growing it to hold {@code capacity} bytes of data.
+     */
+    public SharedSnapshotFile(Path file, int capacity) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = Math.max(channel.size(), DATA_OFFSET + (long) capacity);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.capacity = (int) (size - DATA_OFFSET);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return maximum size of a snapshot
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Replace the snapshot in the file. Must only be called by the single writer.
+     *
+     * @return {@code false} if the data does not fit
+     */
+    public boolean write(byte[] data) {
+        if (data.length > capacity) {
+            return false;
+        }
+        if ((int) INT.getVolatile(buffer, MAGIC_OFFSET) != MAGIC) {
+            INT.setVolatile(buffer, CAPACITY_OFFSET, capacity);
+            INT.setVolatile(buffer, MAGIC_OFFSET, MAGIC);
+        }
+        long sequence = (long) LONG.getVolatile(buffer, SEQUENCE_OFFSET);
+        if ((sequence & 1) != 0) {
+            // a previous writer died while writing
+            sequence++;
+        }
+        LONG.setOpaque(buffer, SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+        buffer.putInt(LENGTH_OFFSET, data.length);
+        buffer.put(DATA_OFFSET, data);
+        LONG.setRelease(buffer, SEQUENCE_OFFSET, sequence + 2);
+        return true;
+    }
+
+    /**
+     * @param lastSequence sequence of the snapshot the caller already has
+     * @return the current snapshot, {@code null} if there is none, it is not newer than {@code lastSequence} or it
+     * could not be read consistently because the writer kept replacing it
+     */
+    public Entry read(long lastSequence) {
+        if ((int) INT.getVolatile(buffer, MAGIC_OFFSET) != MAGIC) {
+            return null;
+        }
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long sequence = (long) LONG.getAcquire(buffer, SEQUENCE_OFFSET);
+            if (sequence == lastSequence) {
+                return null;
+            }
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int length = buffer.getInt(LENGTH_OFFSET);
+            if (length < 0 || length > capacity) {
+                continue;
+            }
+            byte[] data = new byte[length];
+            buffer.get(DATA_OFFSET, data);
+            VarHandle.loadLoadFence();
+            if ((long) LONG.getOpaque(buffer, SEQUENCE_OFFSET) == sequence) {
+                return new Entry(sequence, data);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,189 @@
+package com.flightsinfo.tar1090.shared;
+
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact binary encoding of {@link PlaneStates} for sharing snapshots between local instances and persisting them.
+ * Each state vector is written as a bitmask of the present fields followed by their values, so missing values take no
+ * space.
+ */
+public final class SnapshotCodec {
+
+    private static final int VERSION = 2;
+
+    private static final int CALLSIGN = 1;
+    private static final int ORIGIN_COUNTRY = 1 << 1;
+    private static final int TIME_POSITION = 1 << 2;
+    private static final int LAST_CONTACT = 1 << 3;
+    private static final int LONGITUDE = 1 << 4;
+    private static final int LATITUDE = 1 << 5;
+    private static final int BARO_ALTITUDE = 1 << 6;
+    private static final int VELOCITY = 1 << 7;
+    private static final int TRUE_TRACK = 1 << 8;
+    private static final int VERTICAL_RATE = 1 << 9;
+    private static final int GEO_ALTITUDE = 1 << 10;
+    private static final int SQUAWK = 1 << 11;
+    private static final int POSITION_SOURCE = 1 << 12;
+    private static final int SENSORS = 1 << 13;
+    private static final int ON_GROUND = 1 << 14;
+    private static final int SPI = 1 << 15;
+
+    private static final StateVector.PositionSource[] POSITION_SOURCES = StateVector.PositionSource.values();
+
+    private SnapshotCodec() {
+    }
+
+    public static byte[] encode(PlaneStates states) {
+        Collection<StateVector> vectors = states.getStateVectors() != null ? states.getStateVectors() : List.of();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(vectors.size() * 96 + 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(VERSION);
+            out.writeInt(states.getTime());
+            out.writeBoolean(states.isPartial());
+            out.writeInt(vectors.size());
+            for (StateVector sv : vectors) {
+                write(out, sv);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static PlaneStates decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot encoding " + version);
+        }
+        PlaneStates states = new PlaneStates();
+        states.setTime(in.readInt());
+        states.setPartial(in.readBoolean());
+        int count = in.readInt();
+        List<StateVector> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vectors.add(read(in));
+        }
+        states.setStateVectors(vectors);
+        return states;
+    }
+
+    private static void write(DataOutputStream out, StateVector sv) throws IOException {
+        int mask = (sv.getCallsign() != null ? CALLSIGN : 0)
+                | (sv.getOriginCountry() != null ? ORIGIN_COUNTRY : 0)
+                | (sv.getLastPositionUpdate() != null ? TIME_POSITION : 0)
+                | (sv.getLastContact() != null ? LAST_CONTACT : 0)
+                | (sv.getLongitude() != null ? LONGITUDE : 0)
+                | (sv.getLatitude() != null ? LATITUDE : 0)
+                | (sv.getBaroAltitude() != null ? BARO_ALTITUDE : 0)
+                | (sv.getVelocity() != null ? VELOCITY : 0)
+                | (sv.getHeading() != null ? TRUE_TRACK : 0)
+                | (sv.getVerticalRate() != null ? VERTICAL_RATE : 0)
+                | (sv.getGeoAltitude() != null ? GEO_ALTITUDE : 0)
+                | (sv.getSquawk() != null ? SQUAWK : 0)
+                | (sv.getPositionSource() != null ? POSITION_SOURCE : 0)
+                | (sv.getSerials() != null ? SENSORS : 0)
+                | (sv.isOnGround() ? ON_GROUND : 0)
+                | (sv.isSpi() ? SPI : 0);
+        out.writeShort(mask);
+        out.writeUTF(sv.getIcao24());
+        if ((mask & CALLSIGN) != 0) {
+            out.writeUTF(sv.getCallsign());
+        }
+        if ((mask & ORIGIN_COUNTRY) != 0) {
+            out.writeUTF(sv.getOriginCountry());
+        }
+        if ((mask & TIME_POSITION) != 0) {
+            out.writeDouble(sv.getLastPositionUpdate());
+        }
+        if ((mask & LAST_CONTACT) != 0) {
+            out.writeDouble(sv.getLastContact());
+        }
+        if ((mask & LONGITUDE) != 0) {
+            out.writeDouble(sv.getLongitude());
+        }
+        if ((mask & LATITUDE) != 0) {
+            out.writeDouble(sv.getLatitude());
+        }
+        if ((mask & BARO_ALTITUDE) != 0) {
+            out.writeDouble(sv.getBaroAltitude());
+        }
+        if ((mask & VELOCITY) != 0) {
+            out.writeDouble(sv.getVelocity());
+        }
+        if ((mask & TRUE_TRACK) != 0) {
+            out.writeDouble(sv.getHeading());
+        }
+        if ((mask & VERTICAL_RATE) != 0) {
+            out.writeDouble(sv.getVerticalRate());
+        }
+        if ((mask & GEO_ALTITUDE) != 0) {
+            out.writeDouble(sv.getGeoAltitude());
+        }
+        if ((mask & SQUAWK) != 0) {
+            out.writeUTF(sv.getSquawk());
+        }
+        if ((mask & POSITION_SOURCE) != 0) {
+            out.writeByte(sv.getPositionSource().ordinal());
+        }
+        if ((mask & SENSORS) != 0) {
+            out.writeShort(sv.getSerials().size());
+            for (int serial : sv.getSerials()) {
+                out.writeInt(serial);
+            }
+        }
+    }
+
+    private static StateVector read(DataInputStream in) throws IOException {
+        int mask = in.readUnsignedShort();
+        String icao24 = in.readUTF();
+        String callsign = (mask & CALLSIGN) != 0 ? in.readUTF() : null;
+        String originCountry = (mask & ORIGIN_COUNTRY) != 0 ? in.readUTF() : null;
+        Double timePosition = readDouble(in, mask, TIME_POSITION);
+        Double lastContact = readDouble(in, mask, LAST_CONTACT);
+        Double longitude = readDouble(in, mask, LONGITUDE);
+        Double latitude = readDouble(in, mask, LATITUDE);
+        Double baroAltitude = readDouble(in, mask, BARO_ALTITUDE);
+        Double velocity = readDouble(in, mask, VELOCITY);
+        Double trueTrack = readDouble(in, mask, TRUE_TRACK);
+        Double verticalRate = readDouble(in, mask, VERTICAL_RATE);
+        Double geoAltitude = readDouble(in, mask, GEO_ALTITUDE);
+        String squawk = (mask & SQUAWK) != 0 ? in.readUTF() : null;
+        StateVector.PositionSource positionSource = null;
+        if ((mask & POSITION_SOURCE) != 0) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= POSITION_SOURCES.length) {
+                throw new IOException("Invalid position source " + ordinal);
+            }
+            positionSource = POSITION_SOURCES[ordinal];
+        }
+        Set<Integer> serials = null;
+        if ((mask & SENSORS) != 0) {
+            int n = in.readUnsignedShort();
+            serials = new HashSet<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                serials.add(in.readInt());
+            }
+        }
+        return new StateVector(geoAltitude, longitude, latitude, velocity, trueTrack, verticalRate, icao24, callsign,
+                (mask & ON_GROUND) != 0, lastContact, timePosition, originCountry, squawk, (mask & SPI) != 0,
+                baroAltitude, positionSource, serials);
+    }
+
+    private static Double readDouble(DataInputStream in, int mask, int field) throws IOException {
+        return (mask & field) != 0 ? in.readDouble() : null;
+    }
+}
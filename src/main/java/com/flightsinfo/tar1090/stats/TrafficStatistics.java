@@ -0,0 +1,264 @@
+package com.flightsinfo.tar1090.stats;
+
+import com.flightsinfo.tar1090.enums.StatDimension;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sliding window traffic statistics, updated incrementally as snapshots arrive.
+ * <p>
+ * Each snapshot is aggregated once into a bucket of per-key counters and sums. Every window keeps running totals:
+ * a new bucket is added to them, and buckets which fell out of the window are subtracted again. Queries therefore
+ * only read the running totals and cost the same no matter how much history is retained.
+ * <p>
+ * Windows slide with the clock as well: buckets older than the window are subtracted when it is queried, even if no
+ * snapshot arrived since. A window shorter than the poll interval is therefore empty most of the time.
+ */
+public class TrafficStatistics implements SnapshotListener {
+
+    public static final List<Duration> DEFAULT_WINDOWS = List.of(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(60));
+
+    /**
+     * Width of an altitude band in meters
+     */
+    public static final int ALTITUDE_BAND_METERS = 1000;
+
+    /**
+     * Altitudes above are all in the topmost band
+     */
+    public static final int MAX_ALTITUDE_BAND_METERS = 13000;
+
+    private static final String[] ALTITUDE_BANDS = new String[MAX_ALTITUDE_BAND_METERS / ALTITUDE_BAND_METERS + 1];
+
+    static {
+        for (int i = 0; i < ALTITUDE_BANDS.length - 1; i++) {
+            ALTITUDE_BANDS[i] = (i * ALTITUDE_BAND_METERS) + "-" + ((i + 1) * ALTITUDE_BAND_METERS);
+        }
+        ALTITUDE_BANDS[ALTITUDE_BANDS.length - 1] = MAX_ALTITUDE_BAND_METERS + "+";
+    }
+
+    public static final String UNKNOWN = "unknown";
+    public static final String ALL = "all";
+
+    private final Map<Duration, Window> windows = new HashMap<>();
+    private final Clock clock;
+    private int latestTime = Integer.MIN_VALUE;
+
+    public TrafficStatistics() {
+        this(DEFAULT_WINDOWS, Clock.systemUTC());
+    }
+
+    /**
+     * @param windowSizes sizes of the sliding windows
+     * @param clock       clock the windows slide with between snapshots
+     */
+    public TrafficStatistics(List<Duration> windowSizes, Clock clock) {
+        this.clock = clock;
+        for (Duration size : windowSizes) {
+            windows.put(size, new Window(size.toSeconds()));
+        }
+    }
+
+    @Override
+    public void onSnapshot(IndexedSnapshot snapshot) {
+        add(snapshot.getStates());
+    }
+
+    /**
+     * Add a snapshot. Snapshots which are not newer than the latest one added are ignored, so a snapshot delivered
+     * twice is not counted twice.
+     */
+    public void add(PlaneStates states) {
+        if (states == null || states.getStateVectors() == null) {
+            return;
+        }
+        Bucket bucket = aggregate(states);
+        synchronized (this) {
+            if (states.getTime() <= latestTime) {
+                return;
+            }
+            latestTime = states.getTime();
+            for (Window window : windows.values()) {
+                window.add(bucket);
+            }
+        }
+    }
+
+    /**
+     * @param window    one of the configured window sizes
+     * @param dimension dimension to look up
+     * @param value     value of the dimension, e.g. the origin country. {@link #ALL} for {@link StatDimension#ALL}.
+     * @return statistics of the value within the window
+     */
+    public synchronized WindowStats get(Duration window, StatDimension dimension, String value) {
+        Window w = window(window);
+        w.expire(clock.millis() / 1000);
+        Accumulator acc = w.totals.get(dimension).get(value);
+        return acc == null ? new WindowStats(w.buckets.size(), 0, 0, Double.NaN, Double.NaN) : acc.toStats(w.buckets.size());
+    }
+
+    /**
+     * @param window    one of the configured window sizes
+     * @param dimension dimension to look up
+     * @return statistics of all values seen within the window
+     */
+    public synchronized Map<String, WindowStats> get(Duration window, StatDimension dimension) {
+        Window w = window(window);
+        Map<String, WindowStats> result = new HashMap<>();
+        w.expire(clock.millis() / 1000);
+        for (Map.Entry<String, Accumulator> e : w.totals.get(dimension).entrySet()) {
+            result.put(e.getKey(), e.getValue().toStats(w.buckets.size()));
+        }
+        return result;
+    }
+
+    /**
+     * @return configured window sizes
+     */
+    public List<Duration> getWindows() {
+        List<Duration> result = new ArrayList<>(windows.keySet());
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @param altitude barometric altitude in meters, may be {@code null}
+     * @return label of the altitude band
+     */
+    public static String altitudeBand(Double altitude) {
+        if (altitude == null) {
+            return UNKNOWN;
+        }
+        int band = (int) Math.max(0, Math.min(ALTITUDE_BANDS.length - 1, Math.floor(altitude / ALTITUDE_BAND_METERS)));
+        return ALTITUDE_BANDS[band];
+    }
+
+    private Window window(Duration size) {
+        Window w = windows.get(size);
+        if (w == null) {
+            throw new IllegalArgumentException("Window " + size + " not configured, available: " + getWindows());
+        }
+        return w;
+    }
+
+    private static Bucket aggregate(PlaneStates states) {
+        Bucket bucket = new Bucket(states.getTime());
+        for (StateVector sv : states.getStateVectors()) {
+            bucket.add(StatDimension.ALL, ALL, sv);
+            bucket.add(StatDimension.ORIGIN_COUNTRY, sv.getOriginCountry() != null ? sv.getOriginCountry() : UNKNOWN, sv);
+            bucket.add(StatDimension.ALTITUDE_BAND, altitudeBand(sv.getBaroAltitude()), sv);
+            bucket.add(StatDimension.POSITION_SOURCE, sv.getPositionSource() != null ? sv.getPositionSource().name() : UNKNOWN, sv);
+            bucket.add(StatDimension.ON_GROUND, Boolean.toString(sv.isOnGround()), sv);
+        }
+        return bucket;
+    }
+
+    private static Map<StatDimension, Map<String, Accumulator>> newTotals() {
+        Map<StatDimension, Map<String, Accumulator>> totals = new EnumMap<>(StatDimension.class);
+        for (StatDimension dimension : StatDimension.values()) {
+            totals.put(dimension, new HashMap<>());
+        }
+        return totals;
+    }
+
+    /**
+     * Counters and sums of one snapshot
+     */
+    private static final class Bucket {
+        final int time;
+        final Map<StatDimension, Map<String, Accumulator>> values = newTotals();
+
+        Bucket(int time) {
+            this.time = time;
+        }
+
+        void add(StatDimension dimension, String value, StateVector sv) {
+            values.get(dimension).computeIfAbsent(value, k -> new Accumulator()).add(sv);
+        }
+    }
+
+    private static final class Window {
+        final long seconds;
+        final ArrayDeque<Bucket> buckets = new ArrayDeque<>();
+        final Map<StatDimension, Map<String, Accumulator>> totals = newTotals();
+
+        Window(long seconds) {
+            this.seconds = seconds;
+        }
+
+        void add(Bucket bucket) {
+            buckets.addLast(bucket);
+            apply(bucket, 1);
+            expire(bucket.time);
+        }
+
+        /**
+         * @param now time in seconds since epoch, buckets of this many seconds ago or earlier are subtracted
+         */
+        void expire(long now) {
+            while (!buckets.isEmpty() && buckets.peekFirst().time <= now - seconds) {
+                apply(buckets.removeFirst(), -1);
+            }
+        }
+
+        private void apply(Bucket bucket, int sign) {
+            for (Map.Entry<StatDimension, Map<String, Accumulator>> dimension : bucket.values.entrySet()) {
+                Map<String, Accumulator> total = totals.get(dimension.getKey());
+                for (Map.Entry<String, Accumulator> value : dimension.getValue().entrySet()) {
+                    Accumulator acc = total.computeIfAbsent(value.getKey(), k -> new Accumulator());
+                    acc.merge(value.getValue(), sign);
+                    if (acc.count == 0) {
+                        total.remove(value.getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Accumulator {
+        long count;
+        long altitudeSamples;
+        double altitudeSum;
+        long velocitySamples;
+        double velocitySum;
+
+        void add(StateVector sv) {
+            count++;
+            if (sv.getBaroAltitude() != null) {
+                altitudeSamples++;
+                altitudeSum += sv.getBaroAltitude();
+            }
+            if (sv.getVelocity() != null) {
+                velocitySamples++;
+                velocitySum += sv.getVelocity();
+            }
+        }
+
+        void merge(Accumulator other, int sign) {
+            count += sign * other.count;
+            altitudeSamples += sign * other.altitudeSamples;
+            altitudeSum += sign * other.altitudeSum;
+            velocitySamples += sign * other.velocitySamples;
+            velocitySum += sign * other.velocitySum;
+        }
+
+        WindowStats toStats(long snapshots) {
+            return new WindowStats(snapshots, count,
+                    snapshots == 0 ? 0 : (double) count / snapshots,
+                    altitudeSamples == 0 ? Double.NaN : altitudeSum / altitudeSamples,
+                    velocitySamples == 0 ? Double.NaN : velocitySum / velocitySamples);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.flightsinfo.tar1090.stats;
+
+/**
+ * Aggregated traffic of one statistics key over a time window.
+ *
+ * @param snapshots       number of snapshots in the window
+ * @param observations    aircraft observations summed over all snapshots
+ * @param averageCount    average number of aircraft per snapshot
+ * @param averageAltitude average barometric altitude in meters, {@link Double#NaN} if no altitude was reported
+ * @param averageVelocity average velocity over ground in m/s, {@link Double#NaN} if no velocity was reported
+ */
+public record WindowStats(long snapshots,
+                          long observations,
+                          double averageCount,
+                          double averageAltitude,
+                          double averageVelocity) {
+
+    public static final WindowStats EMPTY = new WindowStats(0, 0, 0, Double.NaN, Double.NaN);
+}
@@ -0,0 +1,374 @@
+package com.flightsinfo.tar1090.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A {@link Flow.Publisher} with a bounded queue and a virtual thread per subscriber, so a slow subscriber only falls
+ * behind itself and never delays the publishing thread or other subscribers, except for {@link OverflowPolicy#BLOCK}
+ * subscribers, which delay the publishing thread by at most {@code maxBlock}.
+ * <p>
+ * Per subscriber, the number of queued items ({@code opensky.stream.queued}), the age of the oldest queued item
+ * ({@code opensky.stream.lag}), and delivered and dropped items are published, tagged with the {@code stream} and
+ * {@code subscriber} names, so the stage which is too slow can be told apart.
+ *
+ * @param <T> item type
+ */
+public class BoundedPublisher<T> implements Flow.Publisher<T>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPublisher.class);
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final String name;
+    private final Function<? super T, ?> key;
+    private final long maxBlockNanos;
+    private final MeterRegistry registry;
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param name     name of the stream, used in metrics and thread names
+     * @param key      key of an item for {@link OverflowPolicy#CONFLATE}
+     * @param maxBlock how long {@link OverflowPolicy#BLOCK} subscribers may delay a batch
+     */
+    public BoundedPublisher(String name, Function<? super T, ?> key, Duration maxBlock, MeterRegistry registry) {
+        this.name = name;
+        this.key = key;
+        this.maxBlockNanos = maxBlock.toNanos();
+        this.registry = registry;
+    }
+
+    /**
+     * Subscribe with {@link OverflowPolicy#DROP_OLDEST} and {@link #DEFAULT_CAPACITY}.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscribe(subscriber, "subscriber-" + (ids.get() + 1), OverflowPolicy.DROP_OLDEST, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param name     name of the subscriber in metrics, unique among the current subscribers
+     * @param policy   what to do when the subscriber falls behind by {@code capacity} items
+     * @param capacity maximum number of queued items
+     */
+    public void subscribe(Flow.Subscriber<? super T> subscriber, String name, OverflowPolicy policy, int capacity) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        BufferedSubscription subscription;
+        synchronized (this) {
+            for (BufferedSubscription s : subscriptions) {
+                if (s.name.equals(name)) {
+                    throw new IllegalArgumentException("Subscriber " + name + " already exists");
+                }
+            }
+            ids.incrementAndGet();
+            subscription = new BufferedSubscription(subscriber, name, policy, capacity);
+            if (closed) {
+                subscription.completed = true;
+            } else {
+                subscriptions.add(subscription);
+            }
+        }
+        subscription.start();
+    }
+
+    /**
+     * @return number of current subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Hand an item to all subscribers.
+     */
+    public void submit(T item) {
+        submitAll(List.of(item));
+    }
+
+    /**
+     * Hand items to all subscribers. {@link OverflowPolicy#BLOCK} subscribers are served last, and may delay the
+     * batch by at most {@code maxBlock} each.
+     */
+    public void submitAll(Collection<? extends T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            if (subscription.policy != OverflowPolicy.BLOCK) {
+                subscription.offerAll(items, 0);
+            }
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            if (subscription.policy == OverflowPolicy.BLOCK) {
+                subscription.offerAll(items, System.nanoTime() + maxBlockNanos);
+            }
+        }
+    }
+
+    /**
+     * Complete all subscribers once they received their queued items. Later subscribers are completed right away.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    private record Entry<T>(T item, long enqueued) {
+    }
+
+    private final class BufferedSubscription implements Flow.Subscription {
+
+        final Flow.Subscriber<? super T> subscriber;
+        final String name;
+        final OverflowPolicy policy;
+        final int capacity;
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition changed = lock.newCondition();
+        final ArrayDeque<Entry<T>> queue = new ArrayDeque<>();
+        final LinkedHashMap<Object, Entry<T>> conflated = new LinkedHashMap<>();
+        final Counter delivered;
+        final Counter dropped;
+        final List<Meter> meters = new ArrayList<>();
+        long demand;
+        boolean cancelled;
+        boolean completed;
+        Throwable error;
+
+        BufferedSubscription(Flow.Subscriber<? super T> subscriber, String name, OverflowPolicy policy, int capacity) {
+            this.subscriber = subscriber;
+            this.name = name;
+            this.policy = policy;
+            this.capacity = capacity;
+            String stream = BoundedPublisher.this.name;
+            delivered = Counter.builder("opensky.stream.delivered")
+                    .description("Items delivered to the subscriber")
+                    .tags("stream", stream, "subscriber", name)
+                    .register(registry);
+            dropped = Counter.builder("opensky.stream.dropped")
+                    .description("Items dropped or conflated because the subscriber fell behind")
+                    .tags("stream", stream, "subscriber", name)
+                    .register(registry);
+            meters.add(delivered);
+            meters.add(dropped);
+            meters.add(Gauge.builder("opensky.stream.queued", this, BufferedSubscription::queued)
+                    .description("Items waiting for the subscriber")
+                    .tags("stream", stream, "subscriber", name)
+                    .register(registry));
+            meters.add(TimeGauge.builder("opensky.stream.lag", this, TimeUnit.NANOSECONDS, BufferedSubscription::lagNanos)
+                    .description("Age of the oldest item waiting for the subscriber")
+                    .tags("stream", stream, "subscriber", name)
+                    .register(registry));
+        }
+
+        void start() {
+            Thread.ofVirtual().name("stream-" + BoundedPublisher.this.name + "-" + name).start(this::run);
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Requested " + n + " items, must be positive");
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void complete() {
+            lock.lock();
+            try {
+                completed = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param deadline {@link System#nanoTime()} until which a {@link OverflowPolicy#BLOCK} subscriber is waited for
+         */
+        void offerAll(Collection<? extends T> items, long deadline) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                for (T item : items) {
+                    if (cancelled || completed) {
+                        return;
+                    }
+                    switch (policy) {
+                        case DROP_OLDEST -> {
+                            if (queue.size() >= capacity) {
+                                queue.pollFirst();
+                                dropped.increment();
+                            }
+                            queue.addLast(new Entry<>(item, now));
+                        }
+                        case CONFLATE -> {
+                            Object k = key.apply(item);
+                            Entry<T> previous = conflated.get(k);
+                            if (previous != null) {
+                                dropped.increment();
+                                conflated.put(k, new Entry<>(item, previous.enqueued()));
+                            } else {
+                                if (conflated.size() >= capacity) {
+                                    Iterator<Entry<T>> it = conflated.values().iterator();
+                                    it.next();
+                                    it.remove();
+                                    dropped.increment();
+                                }
+                                conflated.put(k, new Entry<>(item, now));
+                            }
+                        }
+                        case BLOCK -> {
+                            long nanos = deadline - System.nanoTime();
+                            while (queue.size() >= capacity && nanos > 0 && !cancelled) {
+                                nanos = changed.awaitNanos(nanos);
+                            }
+                            if (queue.size() >= capacity) {
+                                dropped.increment();
+                            } else {
+                                queue.addLast(new Entry<>(item, now));
+                                // wake the subscriber, it has to make room for the rest of the batch
+                                changed.signalAll();
+                            }
+                        }
+                    }
+                }
+                changed.signalAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run() {
+            try {
+                subscriber.onSubscribe(this);
+                while (true) {
+                    T item;
+                    lock.lock();
+                    try {
+                        while (!cancelled && error == null && !(completed && isEmpty()) && (isEmpty() || demand == 0)) {
+                            changed.await();
+                        }
+                        if (cancelled) {
+                            return;
+                        }
+                        if (error != null) {
+                            cancelled = true;
+                            break;
+                        }
+                        if (isEmpty()) {
+                            break;
+                        }
+                        item = take();
+                        demand--;
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                    subscriber.onNext(item);
+                    delivered.increment();
+                }
+                if (error != null) {
+                    subscriber.onError(error);
+                } else {
+                    subscriber.onComplete();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Subscriber {} of {} failed, cancelling it", name, BoundedPublisher.this.name, e);
+                cancel();
+            } finally {
+                subscriptions.remove(this);
+                meters.forEach(registry::remove);
+            }
+        }
+
+        private boolean isEmpty() {
+            return queue.isEmpty() && conflated.isEmpty();
+        }
+
+        private T take() {
+            if (!queue.isEmpty()) {
+                return queue.pollFirst().item();
+            }
+            Iterator<Entry<T>> it = conflated.values().iterator();
+            T item = it.next().item();
+            it.remove();
+            return item;
+        }
+
+        private int queued() {
+            lock.lock();
+            try {
+                return queue.size() + conflated.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double lagNanos() {
+            lock.lock();
+            try {
+                Entry<T> oldest = queue.peekFirst();
+                if (oldest == null && !conflated.isEmpty()) {
+                    oldest = conflated.values().iterator().next();
+                }
+                return oldest == null ? 0 : System.nanoTime() - oldest.enqueued();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
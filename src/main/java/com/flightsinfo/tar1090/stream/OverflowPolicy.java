@@ -0,0 +1,21 @@
+package com.flightsinfo.tar1090.stream;
+
+/**
+ * What a {@link BoundedPublisher} does when the queue of a subscriber is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drop the oldest queued item
+     */
+    DROP_OLDEST,
+    /**
+     * Keep only the latest item per key, replacing queued items in place. If the queue holds {@code capacity} keys,
+     * the oldest is dropped.
+     */
+    CONFLATE,
+    /**
+     * Wait for the subscriber to make room, at most {@code maxBlock} per batch, then drop the item. The wait happens on
+     * the publishing thread, after all other subscribers got the batch.
+     */
+    BLOCK
+}
@@ -0,0 +1,130 @@
+package com.flightsinfo.tar1090.stream;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+
+/**
+ * Streams published snapshots to in-process consumers as {@link Flow.Publisher}s:
+ * <ul>
+ *     <li>{@link #states()} emits every snapshot, its key for {@link OverflowPolicy#CONFLATE} is constant, so
+ *     conflating subscribers only get the latest snapshot</li>
+ *     <li>{@link #updates()} emits the state vectors which changed since the previous snapshot, compared by
+ *     fingerprint, keyed by {@code icao24}</li>
+ * </ul>
+ * Snapshots are handed over to a dispatch thread, so the snapshot thread never waits for subscribers. If the dispatch
+ * thread falls behind by {@code capacity} snapshots, which only {@link OverflowPolicy#BLOCK} subscribers can cause,
+ * the oldest are dropped and counted as {@code opensky.stream.ingress.dropped}.
+ */
+public class SnapshotPublisher implements SnapshotListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotPublisher.class);
+
+    private final BoundedPublisher<PlaneStates> states;
+    private final BoundedPublisher<StateVector> updates;
+    private final BlockingQueue<IndexedSnapshot> pending;
+    private final Counter dropped;
+    private final Thread thread;
+    private Map<String, Long> fingerprints = new HashMap<>();
+
+    /**
+     * @param capacity snapshots waiting for the dispatch thread
+     * @param maxBlock how long {@link OverflowPolicy#BLOCK} subscribers may delay a snapshot
+     */
+    public SnapshotPublisher(int capacity, Duration maxBlock, MeterRegistry registry) {
+        this.states = new BoundedPublisher<>("states", s -> Boolean.TRUE, maxBlock, registry);
+        this.updates = new BoundedPublisher<>("updates", StateVector::getIcao24, maxBlock, registry);
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.dropped = Counter.builder("opensky.stream.ingress.dropped")
+                .description("Snapshots dropped because the stream dispatcher fell behind")
+                .register(registry);
+        this.thread = Thread.ofPlatform().name("stream-dispatcher").daemon().start(this::run);
+    }
+
+    /**
+     * @return publisher of all snapshots
+     */
+    public BoundedPublisher<PlaneStates> states() {
+        return states;
+    }
+
+    /**
+     * @return publisher of changed state vectors
+     */
+    public BoundedPublisher<StateVector> updates() {
+        return updates;
+    }
+
+    @Override
+    public void onSnapshot(IndexedSnapshot snapshot) {
+        while (!pending.offer(snapshot)) {
+            if (pending.poll() != null) {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Stop dispatching and complete all subscribers.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        states.close();
+        updates.close();
+    }
+
+    private void run() {
+        while (true) {
+            IndexedSnapshot snapshot;
+            try {
+                snapshot = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                dispatch(snapshot);
+            } catch (RuntimeException e) {
+                logger.error("Could not dispatch snapshot of {}", snapshot.getTime(), e);
+            }
+        }
+    }
+
+    private void dispatch(IndexedSnapshot snapshot) {
+        states.submit(snapshot.getStates());
+
+        Map<String, Long> next = new HashMap<>(snapshot.size() * 4 / 3 + 1);
+        List<StateVector> changed = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            StateVector sv = snapshot.get(i);
+            long fingerprint = sv.getFingerprint();
+            next.put(sv.getIcao24(), fingerprint);
+            Long previous = fingerprints.get(sv.getIcao24());
+            if (previous == null || previous != fingerprint) {
+                changed.add(sv);
+            }
+        }
+        fingerprints = next;
+        updates.submitAll(changed);
+    }
+}
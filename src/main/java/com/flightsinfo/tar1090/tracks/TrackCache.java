@@ -0,0 +1,116 @@
+package com.flightsinfo.tar1090.tracks;
+
+import com.flightsinfo.tar1090.model.FlightTrack;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Least recently used cache of {@link FlightTrack}s keyed by ICAO24 address and flight start time.
+ * <p>
+ * The cache is bounded by the total number of waypoints it holds, which is what determines its memory footprint.
+ * A lookup for any time within a cached track is a hit, so the start time of the flight does not need to be known.
+ * Tracks fetched while the flight is still in the air keep growing, {@link #putIfCompleted} only caches a track once
+ * its last waypoint is {@link #COMPLETED_AFTER} old.
+ */
+public class TrackCache {
+
+    public static final int DEFAULT_MAX_WAYPOINTS = 1_000_000;
+    public static final Duration COMPLETED_AFTER = Duration.ofMinutes(30);
+
+    private final int maxWaypoints;
+    private final LinkedHashMap<TrackKey, FlightTrack> tracks = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, NavigableMap<Long, FlightTrack>> byAircraft = new HashMap<>();
+    private long waypoints;
+    private long hits;
+    private long misses;
+
+    public TrackCache() {
+        this(DEFAULT_MAX_WAYPOINTS);
+    }
+
+    public TrackCache(int maxWaypoints) {
+        this.maxWaypoints = maxWaypoints;
+    }
+
+    /**
+     * @param icao24 ICAO24 address of the aircraft
+     * @param time   any time within the flight in seconds since epoch
+     * @return the cached track of the flight, {@code null} if none is cached
+     */
+    public synchronized FlightTrack get(String icao24, long time) {
+        NavigableMap<Long, FlightTrack> flights = byAircraft.get(icao24);
+        Map.Entry<Long, FlightTrack> candidate = flights == null ? null : flights.floorEntry(time);
+        if (candidate == null || !candidate.getValue().covers(time)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        // touch for LRU order
+        return tracks.get(new TrackKey(icao24, candidate.getKey()));
+    }
+
+    /**
+     * Cache the track if the flight is over, i.e. no waypoint was added for {@link #COMPLETED_AFTER}.
+     *
+     * @param now current time in seconds since epoch
+     * @return {@code true} if the track was cached
+     */
+    public boolean putIfCompleted(FlightTrack track, long now) {
+        if (track.getEndTime() > now - COMPLETED_AFTER.toSeconds()) {
+            return false;
+        }
+        put(track);
+        return true;
+    }
+
+    public synchronized void put(FlightTrack track) {
+        TrackKey key = new TrackKey(track.getIcao24(), track.getStartTime());
+        FlightTrack previous = tracks.put(key, track);
+        if (previous != null) {
+            waypoints -= previous.size();
+        }
+        waypoints += track.size();
+        byAircraft.computeIfAbsent(track.getIcao24(), k -> new TreeMap<>()).put(track.getStartTime(), track);
+
+        Iterator<Map.Entry<TrackKey, FlightTrack>> it = tracks.entrySet().iterator();
+        while (waypoints > maxWaypoints && it.hasNext()) {
+            Map.Entry<TrackKey, FlightTrack> eldest = it.next();
+            if (eldest.getValue() == track) {
+                // never evict what was just added
+                continue;
+            }
+            it.remove();
+            waypoints -= eldest.getValue().size();
+            NavigableMap<Long, FlightTrack> flights = byAircraft.get(eldest.getKey().icao24());
+            flights.remove(eldest.getKey().startTime());
+            if (flights.isEmpty()) {
+                byAircraft.remove(eldest.getKey().icao24());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return tracks.size();
+    }
+
+    public synchronized long getWaypoints() {
+        return waypoints;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private record TrackKey(String icao24, long startTime) {
+    }
+}
@@ -0,0 +1,293 @@
+package com.flightsinfo.tar1090.watchlist;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import com.flightsinfo.tar1090.ratelimit.RateLimitExceededException;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Answers {@code /states/all} queries for watchlists of arbitrary size. Each address is sent as its own
+ * {@code icao24} query parameter, so long watchlists are split into batches whose query string stays below a
+ * length servers accept. Batches are loaded concurrently and merged into one {@link PlaneStates}. If a credit budget
+ * is set, a query is only started if the remaining credits pay for all of its batches, and once a batch failed, the
+ * batches which did not start yet are cancelled.
+ * <p>
+ * If a snapshot source is set and its latest snapshot covers the whole world and is recent enough, queries for the
+ * most recent states are answered from that snapshot and never reach upstream. Snapshots of polled regions are not
+ * used, aircraft outside of them would be missing from the answer.
+ */
+public class WatchlistFetcher {
+
+    /**
+     * Loads the states of a single batch from upstream.
+     */
+    @FunctionalInterface
+    public interface BatchLoader {
+        /**
+         * @param time   Unix time stamp (seconds since epoch), 0 for the most recent states
+         * @param icao24 addresses of the batch
+         * @return states of the batch, {@code null} if there are none
+         * @throws IOException if there was an HTTP error
+         */
+        PlaneStates load(int time, List<String> icao24) throws IOException;
+    }
+
+    public static final String PARAMETER = "icao24";
+    public static final int DEFAULT_MAX_QUERY_LENGTH = 4000;
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private final BatchLoader loader;
+    private final int maxQueryLength;
+    private final Semaphore permits;
+    private final Clock clock;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder requestedBatches = new LongAdder();
+    private final LongAdder snapshotAnswers = new LongAdder();
+    private volatile Supplier<IndexedSnapshot> snapshots;
+    private volatile Duration maxSnapshotAge;
+    private volatile CreditBudgetPlanner budget;
+
+    public WatchlistFetcher(BatchLoader loader) {
+        this(loader, DEFAULT_MAX_QUERY_LENGTH, DEFAULT_MAX_CONCURRENT_REQUESTS, Clock.systemUTC());
+    }
+
+    /**
+     * @param maxQueryLength        maximum length of the {@code icao24} parameters of one request
+     * @param maxConcurrentRequests maximum number of batches loaded at the same time
+     */
+    public WatchlistFetcher(BatchLoader loader, int maxQueryLength, int maxConcurrentRequests, Clock clock) {
+        if (maxQueryLength < PARAMETER.length() + 8) {
+            throw new IllegalArgumentException("Query length " + maxQueryLength + " does not fit a single address");
+        }
+        this.loader = loader;
+        this.maxQueryLength = maxQueryLength;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.clock = clock;
+    }
+
+    /**
+     * Answer queries for the most recent states from a world-wide snapshot instead of upstream.
+     *
+     * @param snapshots supplies the latest snapshot, or {@code null} if there is none; partial snapshots are skipped
+     * @param maxAge    snapshots received longer ago are not used
+     */
+    public void setSnapshotSource(Supplier<IndexedSnapshot> snapshots, Duration maxAge) {
+        this.maxSnapshotAge = maxAge;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Check the remaining credits before batches are requested. Each batch is a query without bounding box and costs
+     * {@link CreditBudgetPlanner#WORLD_CREDITS}.
+     *
+     * @param budget budget of the client the batches are loaded with
+     */
+    public void setCreditBudget(CreditBudgetPlanner budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Retrieve the states of all aircraft of a watchlist.
+     *
+     * @param time   Unix time stamp (seconds since epoch), 0 for the most recent states
+     * @param icao24 ICAO24 addresses in hex string representation, duplicates are requested once
+     * @return states of the aircraft which were found, with the latest time of all batches
+     * @throws RateLimitExceededException if the remaining credits do not pay for all batches
+     * @throws IOException                if loading any of the batches failed
+     */
+    public PlaneStates fetch(int time, Collection<String> icao24) throws IOException {
+        Set<String> addresses = new LinkedHashSet<>();
+        for (String address : icao24) {
+            if (address != null && !address.isBlank()) {
+                addresses.add(address.strip().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        IndexedSnapshot snapshot = time == 0 ? freshSnapshot() : null;
+        if (snapshot != null) {
+            snapshotAnswers.increment();
+            List<StateVector> vectors = new ArrayList<>();
+            for (String address : addresses) {
+                StateVector sv = snapshot.get(address);
+                if (sv != null) {
+                    vectors.add(sv);
+                }
+            }
+            return states(snapshot.getTime(), vectors);
+        }
+
+        List<List<String>> batches = batches(addresses, maxQueryLength);
+        checkCredits(batches.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<PlaneStates>> futures = new ArrayList<>(batches.size());
+        for (List<String> batch : batches) {
+            futures.add(load(time, batch, failure));
+        }
+        // the query fails as a whole, don't spend credits on the batches which did not start yet
+        for (CompletableFuture<PlaneStates> future : futures) {
+            future.whenComplete((states, e) -> {
+                if (e != null && !(e instanceof CancellationException)) {
+                    failure.compareAndSet(null, unwrap(e));
+                    for (CompletableFuture<PlaneStates> other : futures) {
+                        other.cancel(false);
+                    }
+                }
+            });
+        }
+
+        // batches may be answered from different upstream refreshes, keep the latest time
+        int latest = 0;
+        Map<String, StateVector> vectors = new LinkedHashMap<>();
+        for (CompletableFuture<PlaneStates> future : futures) {
+            PlaneStates states = await(future, failure);
+            if (states == null) {
+                continue;
+            }
+            latest = Math.max(latest, states.getTime());
+            if (states.getStateVectors() != null) {
+                for (StateVector sv : states.getStateVectors()) {
+                    vectors.putIfAbsent(sv.getIcao24(), sv);
+                }
+            }
+        }
+        return states(latest, new ArrayList<>(vectors.values()));
+    }
+
+    /**
+     * Split addresses into batches whose {@code icao24=<address>} parameters, joined by {@code &}, are at most
+     * {@code maxQueryLength} characters long.
+     */
+    public static List<List<String>> batches(Collection<String> icao24, int maxQueryLength) {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        int length = 0;
+        for (String address : icao24) {
+            int parameter = PARAMETER.length() + 1 + address.length();
+            int added = batch.isEmpty() ? parameter : parameter + 1;
+            if (!batch.isEmpty() && length + added > maxQueryLength) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                added = parameter;
+                length = 0;
+            }
+            batch.add(address);
+            length += added;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * @return number of batches requested from upstream
+     */
+    public long getRequestedBatches() {
+        return requestedBatches.sum();
+    }
+
+    /**
+     * @return number of queries answered from a snapshot
+     */
+    public long getSnapshotAnswers() {
+        return snapshotAnswers.sum();
+    }
+
+    private IndexedSnapshot freshSnapshot() {
+        Supplier<IndexedSnapshot> source = snapshots;
+        IndexedSnapshot snapshot = source != null ? source.get() : null;
+        if (snapshot == null || snapshot.getStates().isPartial()
+                || clock.millis() - snapshot.getReceivedAt() > maxSnapshotAge.toMillis()) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private void checkCredits(int batches) throws RateLimitExceededException {
+        CreditBudgetPlanner budget = this.budget;
+        if (budget == null) {
+            return;
+        }
+        if (budget.isBackingOff()) {
+            throw new RateLimitExceededException(budget.getBackoffMillis() / 1000);
+        }
+        long needed = (long) batches * CreditBudgetPlanner.WORLD_CREDITS;
+        long remaining = budget.getRemainingCredits();
+        if (remaining < needed) {
+            long retryAfter = budget.getMillisUntilReset() / 1000;
+            throw new RateLimitExceededException("Watchlist of " + batches + " batches needs " + needed + " credits, "
+                    + remaining + " remaining, retry after " + retryAfter + "s", retryAfter);
+        }
+    }
+
+    private CompletableFuture<PlaneStates> load(int time, List<String> batch, AtomicReference<Throwable> failure) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                if (failure.get() != null) {
+                    throw new CancellationException();
+                }
+                requestedBatches.increment();
+                return loader.load(time, batch);
+            } catch (IOException | RuntimeException e) {
+                // recorded before the permit is released, so no waiting batch starts after it
+                failure.compareAndSet(null, e);
+                throw e instanceof IOException ? new CompletionException(e) : (RuntimeException) e;
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private static PlaneStates states(int time, Collection<StateVector> vectors) {
+        PlaneStates states = new PlaneStates();
+        states.setTime(time);
+        states.setStateVectors(vectors);
+        states.setPartial(true);
+        return states;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * @param failure the first batch which failed, reported instead of the cancellation of the others
+     */
+    private static PlaneStates await(CompletableFuture<PlaneStates> future, AtomicReference<Throwable> failure) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = failure.get() != null ? failure.get() : unwrap(e);
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
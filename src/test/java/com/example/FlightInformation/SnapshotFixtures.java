@@ -0,0 +1,63 @@
+package com.example.FlightInformation;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Snapshots and state vectors shared by the tests of the snapshot listeners.
+ */
+public final class SnapshotFixtures {
+
+    private SnapshotFixtures() {
+    }
+
+    /**
+     * @return state vector with only an address and a position
+     */
+    public static StateVector vector(String icao24, Double latitude, Double longitude) {
+        StateVector sv = new StateVector(icao24);
+        sv.setLatitude(latitude);
+        sv.setLongitude(longitude);
+        return sv;
+    }
+
+    public static PlaneStates states(int time, StateVector... vectors) {
+        PlaneStates states = new PlaneStates();
+        states.setTime(time);
+        states.setStateVectors(new ArrayList<>(List.of(vectors)));
+        return states;
+    }
+
+    /**
+     * @return states with a state vector of only the address for each of the aircraft
+     */
+    public static PlaneStates states(int time, Collection<String> icao24) {
+        List<StateVector> vectors = new ArrayList<>(icao24.size());
+        for (String address : icao24) {
+            vectors.add(new StateVector(address));
+        }
+        PlaneStates states = new PlaneStates();
+        states.setTime(time);
+        states.setStateVectors(vectors);
+        return states;
+    }
+
+    /**
+     * @return snapshot received at its time
+     */
+    public static IndexedSnapshot snapshot(int time, StateVector... vectors) {
+        return new IndexedSnapshot(states(time, vectors), time * 1000L);
+    }
+
+    /**
+     * @return snapshot received at its time, with a state vector of only the address for each of the aircraft
+     */
+    public static IndexedSnapshot snapshot(int time, Collection<String> icao24) {
+        return new IndexedSnapshot(states(time, icao24), time * 1000L);
+    }
+}
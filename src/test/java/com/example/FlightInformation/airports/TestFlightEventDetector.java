@@ -0,0 +1,123 @@
+package com.example.FlightInformation.airports;
+
+import com.example.FlightInformation.SnapshotFixtures;
+import com.flightsinfo.tar1090.airports.Airport;
+import com.flightsinfo.tar1090.airports.AirportIndex;
+import com.flightsinfo.tar1090.airports.FlightEvent;
+import com.flightsinfo.tar1090.airports.FlightEventDetector;
+import com.flightsinfo.tar1090.model.StateVector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.FlightInformation.SnapshotFixtures.snapshot;
+import static org.junit.Assert.*;
+
+public class TestFlightEventDetector {
+
+    private static final String AIRPORTS = """
+            "id","ident","type","name","latitude_deg","longitude_deg","elevation_ft","continent","iso_country","iso_region","municipality","scheduled_service","gps_code","iata_code"
+            2434,"LSZH","large_airport","Zurich Airport",47.458056,8.548056,1416,"EU","CH","CH-ZH","Zurich","yes","LSZH","ZRH"
+            2426,"LSZB","medium_airport","Bern Airport",46.912868,7.498512,1674,"EU","CH","CH-BE","Bern","yes","LSZB","BRN"
+            41260,"LSZD","small_airport","Ascona Airfield",46.1586,8.7786,,"EU","CH","CH-TI","Ascona","no","LSZD",
+            322373,"CH-0001","heliport","Heliport ""Test"", Zurich",47.46,8.55,1400,"EU","CH","CH-ZH","Zurich","no",,
+            3400,"EGLL","large_airport","London Heathrow Airport",51.4706,-0.461941,83,"EU","GB","GB-ENG","London","yes","EGLL","LHR"
+            """;
+
+    private static AirportIndex index(Set<String> types) throws IOException {
+        return AirportIndex.load(new StringReader(AIRPORTS), 5, types);
+    }
+
+    private static StateVector vector(String icao24, Double lat, Double lon, boolean onGround) {
+        StateVector sv = SnapshotFixtures.vector(icao24, lat, lon);
+        sv.setOnGround(onGround);
+        return sv;
+    }
+
+    private static List<String> names(List<FlightEvent> events) {
+        return events.stream().map(e -> e.type() + ":" + e.airport().ident() + ":" + e.state().getIcao24()).toList();
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        AirportIndex all = index(Set.of());
+        assertEquals(5, all.size());
+        assertEquals("Heliport \"Test\", Zurich", all.get("CH-0001").name());
+        assertNull(all.get("CH-0001").iata());
+
+        AirportIndex airports = index(Set.of("large_airport", "medium_airport", "small_airport"));
+        assertEquals(4, airports.size());
+        Airport zurich = airports.get("LSZH");
+        assertEquals("ZRH", zurich.iata());
+        assertEquals(431.6, zurich.elevation(), 0.1);
+        assertTrue(Double.isNaN(airports.get("LSZD").elevation()));
+
+        assertSame(zurich, airports.nearest(47.47, 8.56));
+        // about 4.5 km east of the runways
+        assertSame(zurich, airports.nearest(47.458, 8.608));
+        assertNull(airports.nearest(47.458, 8.62));
+        assertSame(airports.get("EGLL"), airports.nearest(51.47, -0.45));
+        assertNull(airports.nearest(0, 0));
+
+        try {
+            AirportIndex.load(new StringReader("ident,name\nLSZH,Zurich\n"), 5, Set.of());
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("type"));
+        }
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FlightEventDetector detector = new FlightEventDetector(index(Set.of()), Duration.ofMinutes(10), Duration.ofMinutes(30), registry);
+        List<FlightEvent> events = new ArrayList<>();
+        detector.addListener(events::add);
+
+        detector.onSnapshot(snapshot(100, vector("000001", 47.46, 8.55, true), vector("000002", 51.0, -0.46, false),
+                vector("000003", 47.0, 8.0, false), vector("000004", 46.91, 7.50, false)));
+        assertTrue(events.isEmpty());
+
+        // takeoff at Zurich, landing at Heathrow, flip en route, landing without position at Bern
+        detector.onSnapshot(snapshot(110, vector("000001", 47.47, 8.56, false), vector("000002", 51.47, -0.45, true),
+                vector("000003", 47.0, 8.0, true), vector("000004", null, null, true)));
+        assertEquals(List.of("DEPARTURE:CH-0001:000001", "ARRIVAL:EGLL:000002", "ARRIVAL:LSZB:000004"), names(events));
+
+        // flickering on-ground flag
+        events.clear();
+        detector.onSnapshot(snapshot(120, vector("000001", 47.47, 8.56, true)));
+        detector.onSnapshot(snapshot(130, vector("000001", 47.47, 8.56, false)));
+        assertEquals(List.of("ARRIVAL:CH-0001:000001"), names(events));
+
+        assertEquals(4, detector.size());
+        detector.onSnapshot(snapshot(2000, vector("000001", 47.47, 8.56, false)));
+        assertEquals(1, detector.size());
+        assertEquals(1, registry.get("opensky.flight.events").tag("type", "departure").counter().count(), 0);
+        assertEquals(3, registry.get("opensky.flight.events").tag("type", "arrival").counter().count(), 0);
+    }
+
+    @Test
+    public void testDepartureFromLastGroundPosition() throws IOException {
+        FlightEventDetector detector = new FlightEventDetector(index(Set.of("large_airport")), Duration.ofMinutes(10), Duration.ofMinutes(30), new SimpleMeterRegistry());
+        List<FlightEvent> events = new ArrayList<>();
+        detector.addListener(events::add);
+
+        // lined up at Zurich, first seen airborne about 30 km away by the next poll
+        detector.onSnapshot(snapshot(100, vector("000001", 47.458, 8.548, true)));
+        assertNull(index(Set.of("large_airport")).nearest(47.6, 8.85));
+        detector.onSnapshot(snapshot(200, vector("000001", 47.6, 8.85, false)));
+        assertEquals(List.of("DEPARTURE:LSZH:000001"), names(events));
+
+        // arrivals are matched where the aircraft is on the ground, not where it was last airborne
+        events.clear();
+        detector.onSnapshot(snapshot(300, vector("000001", 51.2, -0.2, false)));
+        detector.onSnapshot(snapshot(400, vector("000001", 51.47, -0.45, true)));
+        assertEquals(List.of("ARRIVAL:EGLL:000001"), names(events));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.FlightInformation.alerts;
+
+import com.flightsinfo.tar1090.alerts.Alert;
+import com.flightsinfo.tar1090.alerts.AlertEngine;
+import com.flightsinfo.tar1090.alerts.AlertRule;
+import com.flightsinfo.tar1090.model.StateVector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.FlightInformation.SnapshotFixtures.snapshot;
+import static org.junit.Assert.*;
+
+public class TestAlertEngine {
+
+    private static StateVector vector(String icao24, String squawk, double baroAltitude, double geoAltitude) {
+        StateVector sv = new StateVector(icao24);
+        sv.setSquawk(squawk);
+        sv.setBaroAltitude(baroAltitude);
+        sv.setGeoAltitude(geoAltitude);
+        sv.setVerticalRate(0.0);
+        return sv;
+    }
+
+    private static List<String> names(List<Alert> alerts) {
+        return alerts.stream().map(a -> a.rule() + ":" + a.icao24()).toList();
+    }
+
+    @Test
+    public void testRules() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Duration debounce = Duration.ofSeconds(60);
+        AlertEngine engine = new AlertEngine(1000, Duration.ZERO, debounce, registry);
+        engine.addRule(AlertRule.squawk("emergency", debounce, "7700"));
+        engine.addRule(AlertRule.spi(debounce));
+        engine.addRule(AlertRule.verticalRate(40, debounce));
+        engine.addRule(AlertRule.altitudeDivergence(300, debounce));
+        List<Alert> alerts = new ArrayList<>();
+        engine.addListener(alerts::add);
+
+        StateVector spi = vector("000002", "1000", 5000, 5050);
+        spi.setSpi(true);
+        engine.onSnapshot(snapshot(100, vector("000001", "7700", 5000, 5050), spi, vector("000003", "1000", 5000, 5050),
+                vector("000004", "1000", 5000, 5050)));
+        assertEquals(List.of("emergency:000001", "spi:000002"), names(alerts));
+
+        // still squawking, no repeat; divergence jumps by 400 m; descent of 50 m/s
+        alerts.clear();
+        StateVector descending = vector("000004", "1000", 5000, 5050);
+        descending.setVerticalRate(-50.0);
+        engine.onSnapshot(snapshot(110, vector("000001", "7700", 5000, 5050), vector("000003", "1000", 5000, 5450), descending));
+        assertEquals(List.of("altitude_divergence:000003", "vertical_rate:000004", "vanished:000002"), names(alerts));
+        assertEquals(3, engine.size());
+
+        // squawk flips within the debounce interval
+        alerts.clear();
+        engine.onSnapshot(snapshot(120, vector("000001", "1000", 5000, 5050)));
+        engine.onSnapshot(snapshot(130, vector("000001", "7700", 5000, 5050)));
+        assertEquals(List.of("vanished:000003", "vanished:000004"), names(alerts));
+
+        // and again after it
+        alerts.clear();
+        engine.onSnapshot(snapshot(140, vector("000001", "1000", 5000, 5050)));
+        engine.onSnapshot(snapshot(170, vector("000001", "7700", 5000, 5050)));
+        assertEquals(List.of("emergency:000001"), names(alerts));
+        assertEquals(2, registry.get("opensky.alerts").tag("rule", "emergency").counter().count(), 0);
+        assertEquals(3, registry.get("opensky.alerts").tag("rule", "vanished").counter().count(), 0);
+    }
+
+    @Test
+    public void testVanished() {
+        AlertEngine engine = new AlertEngine(1000, Duration.ofSeconds(30), Duration.ofSeconds(300), new SimpleMeterRegistry());
+        List<Alert> alerts = new ArrayList<>();
+        engine.addListener(alerts::add);
+        StateVector ground = vector("000001", null, 5000, 5000);
+        ground.setOnGround(true);
+        StateVector low = vector("000002", null, 500, 500);
+        StateVector unknown = new StateVector("000003");
+        StateVector airborne = vector("000004", null, 5000, 5000);
+        engine.onSnapshot(snapshot(100, ground, low, unknown, airborne));
+
+        // a gap within the grace period keeps the state
+        engine.onSnapshot(snapshot(110));
+        engine.onSnapshot(snapshot(120, airborne));
+        assertTrue(alerts.isEmpty());
+        assertEquals(4, engine.size());
+
+        engine.onSnapshot(snapshot(150));
+        assertTrue(alerts.isEmpty());
+        engine.onSnapshot(snapshot(151));
+        assertEquals(List.of("vanished:000004"), names(alerts));
+        assertEquals(0, engine.size());
+
+        // vanishing again within the debounce interval is not repeated, after it it is
+        engine.onSnapshot(snapshot(200, airborne));
+        engine.onSnapshot(snapshot(240));
+        assertEquals(1, alerts.size());
+        engine.onSnapshot(snapshot(500, airborne));
+        engine.onSnapshot(snapshot(540));
+        assertEquals(List.of("vanished:000004", "vanished:000004"), names(alerts));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.FlightInformation.auth;
+
+import com.flightsinfo.tar1090.auth.TokenManager;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestTokenManager {
+
+    private HttpServer server;
+    private URI uri;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> bodies = new ArrayList<>();
+    private volatile int status = 200;
+    private volatile long expiresIn = 1800;
+    private volatile long delayMillis;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/token", exchange -> {
+            int n = requests.incrementAndGet();
+            synchronized (bodies) {
+                bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"access_token\":\"token-" + n + "\",\"expires_in\":" + expiresIn + ",\"token_type\":\"Bearer\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/token");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testCachesToken() throws IOException {
+        try (TokenManager manager = new TokenManager(uri, "client", "s3cret")) {
+            assertEquals("token-1", manager.getToken());
+            for (int i = 0; i < 100; i++) {
+                assertEquals("token-1", manager.getToken());
+            }
+            assertEquals(1, requests.get());
+            assertEquals("grant_type=client_credentials&client_id=client&client_secret=s3cret", bodies.getFirst());
+            long lifetime = manager.getExpiresAt() - System.currentTimeMillis();
+            assertTrue(lifetime > 1790_000 && lifetime <= 1800_000);
+
+            // a rejected token is replaced, an outdated rejection does not drop the new one
+            manager.invalidate("token-1");
+            assertEquals("token-2", manager.getToken());
+            manager.invalidate("token-1");
+            assertEquals("token-2", manager.getToken());
+            assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        delayMillis = 200;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try (TokenManager manager = new TokenManager(uri, "client", "secret")) {
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                tokens.add(executor.submit((Callable<String>) manager::getToken));
+            }
+            for (Future<String> token : tokens) {
+                assertEquals("token-1", token.get());
+            }
+            assertEquals(1, requests.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRefreshesBeforeExpiry() throws Exception {
+        expiresIn = 2;
+        try (TokenManager manager = new TokenManager(uri, "client", "secret", Duration.ofMillis(1500), Clock.systemUTC())) {
+            manager.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.getExpiresAt() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("token-1", manager.getToken());
+
+            // refreshed after half of the lifetime, callers never wait for it
+            delayMillis = 300;
+            Thread.sleep(1500);
+            long t0 = System.nanoTime();
+            assertEquals("token-2", manager.getToken());
+            assertTrue(System.nanoTime() - t0 < 100_000_000L);
+            assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        status = 401;
+        try (TokenManager manager = new TokenManager(uri, "client", "wrong")) {
+            try {
+                manager.getToken();
+                fail("Expected exception");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("401"));
+            }
+            assertEquals(0, manager.getExpiresAt());
+
+            status = 200;
+            assertEquals("token-2", manager.getToken());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.FlightInformation.controller;
+
+import com.flightsinfo.tar1090.controller.AircraftQueryController;
+import com.flightsinfo.tar1090.model.AircraftPage;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestAircraftQueryController {
+
+    private SnapshotStore store;
+    private AircraftQueryController controller;
+
+    private static StateVector vector(String icao24, String callsign, double lat, double lon, Double altitude, boolean onGround) {
+        StateVector sv = new StateVector(icao24);
+        sv.setCallsign(callsign);
+        sv.setLatitude(lat);
+        sv.setLongitude(lon);
+        sv.setBaroAltitude(altitude);
+        sv.setOnGround(onGround);
+        return sv;
+    }
+
+    @Before
+    public void setUp() {
+        store = new SnapshotStore();
+        controller = new AircraftQueryController(store);
+        PlaneStates states = new PlaneStates();
+        states.setTime(1000);
+        states.setStateVectors(new ArrayList<>(List.of(
+                vector("c0ffee", "SWR123  ", 47.4, 8.5, 10000.0, false),
+                vector("4b1805", "SWR8    ", 47.5, 8.6, null, true),
+                vector("abc123", "DLH400  ", 50.0, 8.6, 11000.0, false),
+                vector("3c6444", "DLH9A   ", 47.0, 9.0, 3000.0, false))));
+        store.publish(states);
+    }
+
+    private AircraftPage query(Double lamin, Double lamax, Double lomin, Double lomax, List<String> icao24, String callsign,
+                               Double minAlt, Double maxAlt, Boolean onGround, List<String> fields, Integer limit, String cursor) {
+        return controller.query(lamin, lamax, lomin, lomax, icao24, callsign, minAlt, maxAlt, onGround, null, fields, limit, cursor);
+    }
+
+    private static List<Object> icao24s(AircraftPage page) {
+        List<Object> result = new ArrayList<>();
+        for (Map<String, Object> aircraft : page.aircraft()) {
+            result.add(aircraft.get("icao24"));
+        }
+        return result;
+    }
+
+    @Test
+    public void testFilters() {
+        AircraftPage all = query(null, null, null, null, null, null, null, null, null, null, null, null);
+        assertEquals(1000, all.time());
+        assertEquals(List.of("3c6444", "4b1805", "abc123", "c0ffee"), icao24s(all));
+        assertNull(all.nextCursor());
+
+        assertEquals(List.of("3c6444", "4b1805", "c0ffee"),
+                icao24s(query(45.8, 47.8, 5.9, 10.5, null, null, null, null, null, null, null, null)));
+        assertEquals(List.of("4b1805", "c0ffee"),
+                icao24s(query(null, null, null, null, null, "swr", null, null, null, null, null, null)));
+        assertEquals(List.of("abc123", "c0ffee"),
+                icao24s(query(null, null, null, null, null, null, 5000.0, null, null, null, null, null)));
+        assertEquals(List.of("4b1805"),
+                icao24s(query(null, null, null, null, null, null, null, null, true, null, null, null)));
+        assertEquals(List.of("abc123", "c0ffee"),
+                icao24s(query(null, null, null, null, List.of("C0FFEE", "abc123", "ffffff"), null, null, null, null, null, null, null)));
+    }
+
+    @Test
+    public void testFilterExpression() {
+        assertEquals(List.of("abc123"), icao24s(controller.query(null, null, null, null, null, null, null, null, null,
+                "baro_altitude > 5000 and not callsign = 'SWR123'", null, null, null)));
+        assertEquals(List.of("4b1805", "c0ffee"), icao24s(controller.query(45.8, 47.8, 5.9, 10.5, null, null, null, null, null,
+                "on_ground or callsign in ('SWR123', 'DLH400')", null, null, null)));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> controller.query(null, null, null, null, null, null, null, null, null,
+                "altitude > 5000", null, null, null));
+    }
+
+    @Test
+    public void testProjection() {
+        AircraftPage page = query(null, null, null, null, List.of("c0ffee"), null, null, null, null, List.of("icao24", "baro_altitude"), null, null);
+        assertEquals(Map.of("icao24", "c0ffee", "baro_altitude", 10000.0), page.aircraft().get(0));
+        assertEquals(2, controller.get("C0FFEE", List.of("callsign", "on_ground")).size());
+    }
+
+    @Test
+    public void testPagination() {
+        List<Object> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            AircraftPage page = query(null, null, null, null, null, null, null, null, null, null, 3, cursor);
+            seen.addAll(icao24s(page));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("3c6444", "4b1805", "abc123", "c0ffee"), seen);
+
+        AircraftPage first = query(null, null, null, null, List.of("c0ffee", "abc123", "3c6444"), null, null, null, null, null, 2, null);
+        assertEquals(List.of("3c6444", "abc123"), icao24s(first));
+        AircraftPage second = query(null, null, null, null, List.of("c0ffee", "abc123", "3c6444"), null, null, null, null, null, 2, first.nextCursor());
+        assertEquals(List.of("c0ffee"), icao24s(second));
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    public void testErrors() {
+        assertStatus(HttpStatus.BAD_REQUEST, () -> query(45.0, null, null, null, null, null, null, null, null, null, null, null));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> query(null, null, null, null, null, null, null, null, null, List.of("nope"), null, null));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> query(null, null, null, null, null, null, null, null, null, null, 0, null));
+        assertStatus(HttpStatus.NOT_FOUND, () -> controller.get("ffffff", null));
+        assertStatus(HttpStatus.SERVICE_UNAVAILABLE, () -> new AircraftQueryController(new SnapshotStore()).get("c0ffee", null));
+    }
+
+    private static void assertStatus(HttpStatus status, Runnable call) {
+        try {
+            call.run();
+            fail("Expected " + status);
+        } catch (ResponseStatusException e) {
+            assertEquals(status, e.getStatusCode());
+        }
+    }
+}
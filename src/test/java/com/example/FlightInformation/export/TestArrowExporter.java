@@ -0,0 +1,226 @@
+package com.example.FlightInformation.export;
+
+import com.flightsinfo.tar1090.export.ArrowExporter;
+import com.flightsinfo.tar1090.export.ArrowSnapshotWriter;
+import com.flightsinfo.tar1090.feed.FileBatchWriter;
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.example.FlightInformation.SnapshotFixtures.snapshot;
+import static org.junit.Assert.*;
+
+public class TestArrowExporter {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static StateVector full(String icao24, String callsign) {
+        StateVector sv = new StateVector(icao24);
+        sv.setCallsign(callsign);
+        sv.setOriginCountry("Switzerland");
+        sv.setLastPositionUpdate(99.0);
+        sv.setLastContact(100.0);
+        sv.setLatitude(47.5);
+        sv.setLongitude(8.5);
+        sv.setBaroAltitude(1000.0);
+        sv.setGeoAltitude(1050.0);
+        sv.setVelocity(120.0);
+        sv.setHeading(270.0);
+        sv.setVerticalRate(-5.0);
+        sv.setOnGround(true);
+        sv.setSpi(true);
+        sv.setSquawk("7700");
+        sv.setPositionSource(StateVector.PositionSource.MLAT);
+        sv.addSerial(3);
+        sv.addSerial(5);
+        return sv;
+    }
+
+    /**
+     * Read all batches of a file, decoding the dictionary columns
+     */
+    private static void read(Path file, Consumer<VectorSchemaRoot> batch, Consumer<List<ValueVector>> decoded) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator();
+             FileChannel channel = FileChannel.open(file);
+             ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            assertEquals(ArrowSnapshotWriter.SCHEMA, reader.getVectorSchemaRoot().getSchema());
+            while (reader.loadNextBatch()) {
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                batch.accept(root);
+                List<ValueVector> vectors = new ArrayList<>();
+                for (String name : List.of("callsign", "origin_country", "squawk", "position_source")) {
+                    FieldVector indices = root.getVector(name);
+                    vectors.add(DictionaryEncoder.decode(indices,
+                            reader.getDictionaryVectors().get(indices.getField().getDictionary().getId())));
+                }
+                try {
+                    decoded.accept(vectors);
+                } finally {
+                    vectors.forEach(ValueVector::close);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ArrowExporter exporter = new ArrowExporter(folder.getRoot().toPath(), 2, 4, 0, new SimpleMeterRegistry());
+        exporter.onSnapshot(snapshot(10, full("abc001", "SWR1"), new StateVector("abc002")));
+        exporter.onSnapshot(snapshot(20, full("abc001", "SWR2")));
+        exporter.onSnapshot(snapshot(30, new StateVector("abc003")));
+        exporter.flush();
+
+        Path first = exporter.filePath(10, 20);
+        assertTrue(Files.exists(first));
+        assertTrue(Files.exists(exporter.filePath(30, 30)));
+
+        List<Integer> rows = new ArrayList<>();
+        List<String> callsigns = new ArrayList<>();
+        read(first, root -> {
+            rows.add(root.getRowCount());
+            IntVector time = (IntVector) root.getVector("time");
+            VarCharVector icao24 = (VarCharVector) root.getVector("icao24");
+            Float8Vector latitude = (Float8Vector) root.getVector("latitude");
+            Float8Vector heading = (Float8Vector) root.getVector("true_track");
+            BitVector onGround = (BitVector) root.getVector("on_ground");
+            ListVector sensors = (ListVector) root.getVector("sensors");
+            assertEquals("abc001", icao24.getObject(0).toString());
+            assertEquals(47.5, latitude.get(0), 0);
+            assertEquals(270.0, heading.get(0), 0);
+            assertEquals(1, onGround.get(0));
+            assertEquals(List.of(3, 5), sensors.getObject(0));
+            if (root.getRowCount() == 2) {
+                assertEquals(10, time.get(1));
+                assertEquals("abc002", icao24.getObject(1).toString());
+                assertTrue(latitude.isNull(1));
+                assertTrue(sensors.isNull(1));
+                assertEquals(0, onGround.get(1));
+            } else {
+                assertEquals(20, time.get(0));
+            }
+        }, decoded -> {
+            callsigns.add(decoded.get(0).getObject(0).toString());
+            assertEquals("Switzerland", decoded.get(1).getObject(0).toString());
+            assertEquals("7700", decoded.get(2).getObject(0).toString());
+            assertEquals("MLAT", decoded.get(3).getObject(0).toString());
+            if (decoded.get(0).getValueCount() == 2) {
+                for (ValueVector vector : decoded) {
+                    assertTrue(vector.isNull(1));
+                }
+            }
+        });
+        assertEquals(List.of(2, 1), rows);
+        assertEquals(List.of("SWR1", "SWR2"), callsigns);
+        exporter.close();
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        try (ArrowExporter exporter = new ArrowExporter(folder.getRoot().toPath(), 1, 4, 2, new SimpleMeterRegistry())) {
+            for (int time = 10; time <= 40; time += 10) {
+                exporter.onSnapshot(snapshot(time, new StateVector("abc001")));
+            }
+            exporter.flush();
+            assertFalse(Files.exists(exporter.filePath(10, 10)));
+            assertFalse(Files.exists(exporter.filePath(20, 20)));
+            assertTrue(Files.exists(exporter.filePath(30, 30)));
+            assertTrue(Files.exists(exporter.filePath(40, 40)));
+        }
+    }
+
+    @Test
+    public void testRetentionWhileWriterBlocked() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FileBatchWriter writer = new FileBatchWriter("blocked-writer");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.write(folder.getRoot().toPath().resolve("blocker"), () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new byte[0];
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try (ArrowExporter exporter = new ArrowExporter(folder.getRoot().toPath(), 1, 2, 1, writer, registry)) {
+            // each file replaces the pending write of the previous one, which must not stay pending
+            for (int time = 10; time <= 100; time += 10) {
+                exporter.onSnapshot(snapshot(time, new StateVector("abc001")));
+            }
+            assertEquals(1, exporter.getPendingFiles());
+            // the same file submitted twice counts once
+            exporter.onSnapshot(snapshot(100, new StateVector("abc002")));
+            assertEquals(1, exporter.getPendingFiles());
+
+            release.countDown();
+            exporter.flush();
+            assertEquals(0, exporter.getPendingFiles());
+            assertEquals(0, registry.get("opensky.export.dropped").counter().count(), 0);
+            assertFalse(Files.exists(exporter.filePath(90, 90)));
+            assertTrue(Files.exists(exporter.filePath(100, 100)));
+
+            exporter.onSnapshot(snapshot(110, new StateVector("abc001")));
+            exporter.flush();
+            assertTrue(Files.exists(exporter.filePath(110, 110)));
+            assertFalse(Files.exists(exporter.filePath(100, 100)));
+        }
+    }
+
+    @Test
+    public void testFixture() throws Exception {
+        PlaneStates states = OpenSkyStatesParser.parse(Files.readAllBytes(Path.of("api_test", "states_all_090225_0419.json")));
+        IndexedSnapshot snapshot = new IndexedSnapshot(states, 0);
+        try (ArrowExporter exporter = new ArrowExporter(folder.getRoot().toPath(), 1, 4, 0, new SimpleMeterRegistry())) {
+            exporter.onSnapshot(snapshot);
+            exporter.flush();
+            List<Integer> rows = new ArrayList<>();
+            read(exporter.filePath(snapshot.getTime(), snapshot.getTime()), root -> {
+                rows.add(root.getRowCount());
+                VarCharVector icao24 = (VarCharVector) root.getVector("icao24");
+                Float8Vector altitude = (Float8Vector) root.getVector("baro_altitude");
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    StateVector sv = snapshot.get(i);
+                    assertEquals(sv.getIcao24(), icao24.getObject(i).toString());
+                    assertEquals(sv.getBaroAltitude(), altitude.getObject(i));
+                }
+            }, decoded -> {
+                for (int i = 0; i < snapshot.size(); i++) {
+                    Object callsign = decoded.get(0).getObject(i);
+                    assertEquals(snapshot.get(i).getCallsign(), callsign == null ? null : callsign.toString());
+                }
+            });
+            assertEquals(List.of(snapshot.size()), rows);
+        }
+    }
+}
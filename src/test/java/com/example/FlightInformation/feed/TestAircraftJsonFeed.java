@@ -0,0 +1,118 @@
+package com.example.FlightInformation.feed;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightsinfo.tar1090.controller.Tar1090Controller;
+import com.flightsinfo.tar1090.feed.AircraftJsonEncoder;
+import com.flightsinfo.tar1090.feed.AircraftJsonFeed;
+import com.flightsinfo.tar1090.feed.BinaryAircraftFeed;
+import com.flightsinfo.tar1090.feed.EncodedDocument;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.example.FlightInformation.SnapshotFixtures.states;
+import static org.junit.Assert.*;
+
+public class TestAircraftJsonFeed {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static StateVector airborne() {
+        StateVector sv = new StateVector("4b1805");
+        sv.setCallsign("SWR8    ");
+        sv.setLatitude(47.45);
+        sv.setLongitude(8.56);
+        sv.setBaroAltitude(10668.0);
+        sv.setGeoAltitude(10980.0);
+        sv.setVelocity(231.5);
+        sv.setHeading(270.04);
+        sv.setVerticalRate(-5.2);
+        sv.setSquawk("1000");
+        sv.setLastContact(995.0);
+        sv.setLastPositionUpdate(992.5);
+        sv.setPositionSource(StateVector.PositionSource.ADS_B);
+        return sv;
+    }
+
+    @Test
+    public void testEncode() throws IOException {
+        StateVector ground = new StateVector("c0ffee");
+        ground.setOnGround(true);
+        ground.setBaroAltitude(400.0);
+
+        byte[] json = new AircraftJsonEncoder().encode(new IndexedSnapshot(states(1000, airborne(), ground), 0));
+        JsonNode root = MAPPER.readTree(json);
+        assertEquals(1000, root.get("now").asDouble(), 0);
+        assertEquals(2, root.get("aircraft").size());
+
+        JsonNode a = root.get("aircraft").get(0);
+        assertEquals("4b1805", a.get("hex").asText());
+        assertEquals("SWR8    ", a.get("flight").asText());
+        assertEquals("adsb_icao", a.get("type").asText());
+        assertEquals(35000, a.get("alt_baro").asInt());
+        assertEquals(36024, a.get("alt_geom").asInt());
+        assertEquals(450.0, a.get("gs").asDouble(), 0);
+        assertEquals(270.0, a.get("track").asDouble(), 0);
+        assertEquals(-1024, a.get("baro_rate").asInt());
+        assertEquals("1000", a.get("squawk").asText());
+        assertEquals(47.45, a.get("lat").asDouble(), 0);
+        assertEquals(8.56, a.get("lon").asDouble(), 0);
+        assertEquals(5.0, a.get("seen").asDouble(), 0);
+        assertEquals(7.5, a.get("seen_pos").asDouble(), 0);
+
+        JsonNode g = root.get("aircraft").get(1);
+        assertEquals("ground", g.get("alt_baro").asText());
+        assertFalse(g.has("lat"));
+        assertFalse(g.has("seen"));
+    }
+
+    @Test
+    public void testServe() throws IOException {
+        SnapshotStore store = new SnapshotStore();
+        AircraftJsonFeed feed = new AircraftJsonFeed(store);
+        Tar1090Controller controller = new Tar1090Controller(feed, new BinaryAircraftFeed(store));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.aircraft(null, null).getStatusCode());
+
+        store.publish(states(1000, airborne()));
+        EncodedDocument document = feed.getCurrent();
+        assertSame("encoded once per snapshot", document, feed.getCurrent());
+
+        ResponseEntity<byte[]> plain = controller.aircraft(null, null);
+        assertEquals(HttpStatus.OK, plain.getStatusCode());
+        assertSame(document.plain(), plain.getBody());
+        String etag = plain.getHeaders().getETag();
+        assertEquals(document.etag(), etag);
+
+        ResponseEntity<byte[]> gzip = controller.aircraft(null, "gzip, deflate, br");
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertArrayEquals(document.plain(), in.readAllBytes());
+        }
+
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), plain.getHeaders().getVary());
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), gzip.getHeaders().getVary());
+
+        // each representation has its own entity tag
+        String gzipEtag = gzip.getHeaders().getETag();
+        assertEquals(document.gzipEtag(), gzipEtag);
+        assertNotEquals(etag, gzipEtag);
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.aircraft(etag, null).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.aircraft(gzipEtag, "gzip").getStatusCode());
+        assertEquals(HttpStatus.OK, controller.aircraft(etag, "gzip").getStatusCode());
+        assertEquals(HttpStatus.OK, controller.aircraft(gzipEtag, null).getStatusCode());
+
+        store.publish(states(1010, airborne()));
+        assertNotEquals(etag, feed.getCurrent().etag());
+        assertEquals(HttpStatus.OK, controller.aircraft(gzipEtag, "gzip").getStatusCode());
+    }
+}
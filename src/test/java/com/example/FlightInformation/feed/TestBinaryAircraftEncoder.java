@@ -0,0 +1,158 @@
+package com.example.FlightInformation.feed;
+
+import com.flightsinfo.tar1090.feed.AircraftJsonEncoder;
+import com.flightsinfo.tar1090.feed.BinaryAircraftEncoder;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.flightsinfo.tar1090.feed.BinaryAircraftEncoder.*;
+import static org.junit.Assert.*;
+
+public class TestBinaryAircraftEncoder {
+
+    /**
+     * Reference decoder, the same steps a client performs with a {@code DataView}
+     */
+    record Decoded(int time, List<Aircraft> aircraft) {
+    }
+
+    record Aircraft(String hex, int flags, double lat, double lon, int altBaro, int altGeom, double gs, double track,
+                    int baroRate, String squawk, double seen, double seenPos, int source, String callsign) {
+
+        boolean has(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+
+    static Decoded decode(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(MAGIC, buf.getInt());
+        assertEquals(VERSION, buf.getShort());
+        int recordSize = buf.getShort() & 0xFFFF;
+        int time = buf.getInt();
+        int count = buf.getInt();
+        List<Aircraft> aircraft = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = HEADER_SIZE + i * recordSize;
+            buf.position(start);
+            String hex = String.format("%06x", buf.getInt());
+            int lat = buf.getInt();
+            int lon = buf.getInt();
+            int altBaro = buf.getShort() * 25;
+            int altGeom = buf.getShort() * 25;
+            double gs = (buf.getShort() & 0xFFFF) / 10.0;
+            double track = (buf.getShort() & 0xFFFF) / 10.0;
+            int baroRate = buf.getShort() * 8;
+            String squawk = String.format("%04x", buf.getShort() & 0xFFFF);
+            double seen = (buf.getShort() & 0xFFFF) / 10.0;
+            double seenPos = (buf.getShort() & 0xFFFF) / 10.0;
+            int flags = buf.getShort() & 0xFFFF;
+            int source = buf.get() & 0xFF;
+            buf.get();
+            byte[] callsign = new byte[8];
+            buf.get(callsign);
+            aircraft.add(new Aircraft(hex, flags, lat / 1e6, lon / 1e6, altBaro, altGeom, gs, track, baroRate, squawk,
+                    seen, seenPos, source, new String(callsign, StandardCharsets.US_ASCII)));
+        }
+        return new Decoded(time, aircraft);
+    }
+
+    private static IndexedSnapshot snapshot(int time, List<StateVector> vectors) {
+        PlaneStates states = new PlaneStates();
+        states.setTime(time);
+        states.setStateVectors(vectors);
+        return new IndexedSnapshot(states, 0);
+    }
+
+    private static List<StateVector> randomVectors(int n, long seed) {
+        Random random = new Random(seed);
+        List<StateVector> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            StateVector sv = new StateVector(String.format("%06x", random.nextInt(1 << 24)));
+            sv.setCallsign(String.format("%-8s", "ABC" + random.nextInt(10000)));
+            sv.setLatitude(random.nextDouble() * 180 - 90);
+            sv.setLongitude(random.nextDouble() * 360 - 180);
+            sv.setBaroAltitude(random.nextDouble() * 12000);
+            sv.setGeoAltitude(random.nextDouble() * 12000);
+            sv.setVelocity(random.nextDouble() * 280);
+            sv.setHeading(random.nextDouble() * 360);
+            sv.setVerticalRate(random.nextDouble() * 30 - 15);
+            sv.setSquawk(String.format("%04o", random.nextInt(4096)));
+            sv.setLastContact(1000 - random.nextDouble() * 10);
+            sv.setLastPositionUpdate(1000 - random.nextDouble() * 20);
+            sv.setOnGround(random.nextInt(10) == 0);
+            sv.setPositionSource(StateVector.PositionSource.ADS_B);
+            result.add(sv);
+        }
+        return result;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        StateVector sv = new StateVector("4b1805");
+        sv.setCallsign("SWR8");
+        sv.setLatitude(47.458056);
+        sv.setLongitude(-8.548056);
+        sv.setBaroAltitude(10668.0);
+        sv.setVelocity(231.5);
+        sv.setHeading(270.04);
+        sv.setVerticalRate(-5.2);
+        sv.setSquawk("7700");
+        sv.setLastContact(995.0);
+        sv.setPositionSource(StateVector.PositionSource.MLAT);
+        StateVector empty = new StateVector("c0ffee");
+        empty.setOnGround(true);
+
+        Decoded decoded = decode(new BinaryAircraftEncoder().encode(snapshot(1000, new ArrayList<>(List.of(sv, empty)))));
+        assertEquals(1000, decoded.time());
+        assertEquals(2, decoded.aircraft().size());
+
+        Aircraft a = decoded.aircraft().get(0);
+        assertEquals("4b1805", a.hex());
+        assertTrue(a.has(FLAG_POSITION) && a.has(FLAG_ALT_BARO) && a.has(FLAG_GROUND_SPEED) && a.has(FLAG_TRACK));
+        assertTrue(a.has(FLAG_BARO_RATE) && a.has(FLAG_SQUAWK) && a.has(FLAG_SEEN) && a.has(FLAG_CALLSIGN));
+        assertFalse(a.has(FLAG_ALT_GEOM) || a.has(FLAG_SEEN_POS) || a.has(FLAG_ON_GROUND));
+        assertEquals(47.458056, a.lat(), 1e-9);
+        assertEquals(-8.548056, a.lon(), 1e-9);
+        assertEquals(35000, a.altBaro());
+        assertEquals(450.0, a.gs(), 0);
+        assertEquals(270.0, a.track(), 0);
+        assertEquals(-1024, a.baroRate());
+        assertEquals("7700", a.squawk());
+        assertEquals(5.0, a.seen(), 0);
+        assertEquals(StateVector.PositionSource.MLAT.ordinal(), a.source());
+        assertEquals("SWR8    ", a.callsign());
+
+        Aircraft b = decoded.aircraft().get(1);
+        assertEquals(FLAG_ON_GROUND, b.flags());
+        assertEquals(255, b.source());
+    }
+
+    @Test
+    public void testMatchesJson() {
+        IndexedSnapshot snapshot = snapshot(1000, randomVectors(1000, 42));
+        Decoded decoded = decode(new BinaryAircraftEncoder().encode(snapshot));
+        for (int i = 0; i < snapshot.size(); i++) {
+            StateVector sv = snapshot.get(i);
+            Aircraft a = decoded.aircraft().get(i);
+            assertEquals(sv.getIcao24(), a.hex());
+            assertEquals(sv.getLatitude(), a.lat(), 1e-6);
+            assertEquals(sv.getLongitude(), a.lon(), 1e-6);
+            assertEquals(sv.getBaroAltitude() * AircraftJsonEncoder.FEET_PER_METER, a.altBaro(), 12.5);
+            assertEquals(sv.getVelocity() * AircraftJsonEncoder.KNOTS_PER_METER_PER_SECOND, a.gs(), 0.05);
+            assertEquals(sv.getHeading(), a.track(), 0.05);
+            assertEquals(sv.getVerticalRate() * AircraftJsonEncoder.FEET_PER_MINUTE_PER_METER_PER_SECOND, a.baroRate(), 4);
+            assertEquals(sv.getSquawk(), a.squawk());
+            assertEquals(sv.isOnGround(), a.has(FLAG_ON_GROUND));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.FlightInformation.feed;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightsinfo.tar1090.feed.AircraftJsonFeed;
+import com.flightsinfo.tar1090.feed.FileBatchWriter;
+import com.flightsinfo.tar1090.feed.TraceHistory;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class TestTraceHistory {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private SnapshotStore store;
+    private FileBatchWriter writer;
+    private TraceHistory history;
+
+    @Before
+    public void setUp() {
+        dir = folder.getRoot().toPath();
+        store = new SnapshotStore();
+        writer = new FileBatchWriter("test-writer");
+        history = new TraceHistory(dir, new AircraftJsonFeed(store), writer,
+                new TraceHistory.Settings(Duration.ofMinutes(10), 2, Duration.ofSeconds(30), Duration.ofMinutes(1), 2));
+        store.addListener(history);
+    }
+
+    @After
+    public void tearDown() {
+        writer.close();
+    }
+
+    private static StateVector vector(String icao24, double lat, double lon, int timePosition) {
+        StateVector sv = new StateVector(icao24);
+        sv.setLatitude(lat);
+        sv.setLongitude(lon);
+        sv.setBaroAltitude(3000.0);
+        sv.setLastPositionUpdate((double) timePosition);
+        return sv;
+    }
+
+    private void publish(int time, StateVector... vectors) {
+        PlaneStates states = new PlaneStates();
+        states.setTime(time);
+        states.setStateVectors(new ArrayList<>(List.of(vectors)));
+        store.publish(states);
+    }
+
+    private static JsonNode readGzip(Path path) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            return MAPPER.readTree(in);
+        }
+    }
+
+    @Test
+    public void testTraces() throws Exception {
+        publish(1000, vector("4b1805", 47.0, 8.0, 1000));
+        publish(1010, vector("4b1805", 47.1, 8.0, 1010));
+        // position unchanged, no new point
+        publish(1020, vector("4b1805", 47.1, 8.0, 1010));
+        publish(1030, vector("4b1805", 47.2, 8.0, 1030));
+        writer.flush();
+
+        JsonNode recent = readGzip(history.recentTracePath("4b1805"));
+        assertEquals("4b1805", recent.get("icao").asText());
+        assertEquals(1000, recent.get("timestamp").asInt());
+        assertEquals(2, recent.get("trace").size());
+        assertEquals(10, recent.get("trace").get(0).get(0).asInt());
+        assertEquals(47.2, recent.get("trace").get(1).get(1).asDouble(), 0);
+        assertEquals(9843, recent.get("trace").get(1).get(3).asInt());
+        assertTrue(recent.get("trace").get(1).get(8).isNull());
+
+        // full trace is only written every 30s
+        JsonNode full = readGzip(history.fullTracePath("4b1805"));
+        assertEquals(3, full.get("trace").size());
+        publish(1040, vector("4b1805", 47.3, 8.0, 1040));
+        writer.flush();
+        assertEquals(3, readGzip(history.fullTracePath("4b1805")).get("trace").size());
+        publish(1060, vector("4b1805", 47.4, 8.0, 1060));
+        writer.flush();
+        assertEquals(5, readGzip(history.fullTracePath("4b1805")).get("trace").size());
+
+        // aircraft gone for longer than the retention
+        publish(1700, vector("c0ffee", 46.0, 7.0, 1700));
+        writer.flush();
+        assertEquals(1, history.size());
+        assertFalse(Files.exists(history.recentTracePath("4b1805")));
+        assertFalse(Files.exists(history.fullTracePath("4b1805")));
+    }
+
+    @Test
+    public void testChunks() throws Exception {
+        for (int time = 1200; time < 1440; time += 10) {
+            publish(time, vector("4b1805", 47.0 + time / 10000.0, 8.0, time));
+        }
+        writer.flush();
+
+        JsonNode index = MAPPER.readTree(dir.resolve("chunks").resolve("chunks.json").toFile());
+        assertEquals(2, index.get("chunks").size());
+        assertEquals("chunk_1260.gz", index.get("chunks").get(0).asText());
+        assertEquals("chunk_1320.gz", index.get("chunks").get(1).asText());
+        assertFalse(Files.exists(dir.resolve("chunks").resolve("chunk_1200.gz")));
+
+        // concatenated gzip members decode to a single document
+        JsonNode chunk = readGzip(dir.resolve("chunks").resolve("chunk_1320.gz"));
+        assertEquals(6, chunk.get("files").size());
+        assertEquals(1320, chunk.get("files").get(0).get("now").asInt());
+        assertEquals("4b1805", chunk.get("files").get(5).get("aircraft").get(0).get("hex").asText());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.FlightInformation.filter;
+
+import com.flightsinfo.tar1090.filter.FilterExpression;
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.model.StateVector;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class TestFilterExpression {
+
+    private static List<StateVector> fixture() throws IOException {
+        return new ArrayList<>(OpenSkyStatesParser.parse(Files.readAllBytes(Path.of("api_test", "states_all_090225_0419.json"))).getStateVectors());
+    }
+
+    private static StateVector vector() {
+        StateVector sv = new StateVector("c0ffee");
+        sv.setCallsign("SWR8    ");
+        sv.setOriginCountry("Switzerland");
+        sv.setBaroAltitude(11000.0);
+        sv.setVelocity(230.0);
+        sv.setSquawk("7700");
+        sv.setPositionSource(StateVector.PositionSource.MLAT);
+        sv.addSerial(1234);
+        return sv;
+    }
+
+    private static boolean matches(String expression, StateVector sv) {
+        FilterExpression filter = FilterExpression.parse(expression);
+        boolean interpreted = filter.evaluate(sv);
+        assertEquals(expression, interpreted, filter.compile().test(sv));
+        return interpreted;
+    }
+
+    @Test
+    public void testExpressions() {
+        StateVector sv = vector();
+        assertTrue(matches("baro_altitude > 10000 and origin_country = 'Switzerland' and not on_ground", sv));
+        assertTrue(matches("callsign = 'SWR8'", sv));
+        assertTrue(matches("CALLSIGN in ('DLH1', 'SWR8') AND squawk IN ('7500', '7600', '7700')", sv));
+        assertFalse(matches("callsign != 'SWR8'", sv));
+        assertTrue(matches("callsign >= 'SWR' and callsign < 'SWS'", sv));
+        assertTrue(matches("velocity >= 230 and velocity <= 230.0 and velocity = 2.3e2 and velocity <> 229", sv));
+        assertTrue(matches("velocity in (1, 230)", sv));
+        assertFalse(matches("true_track > 0 or true_track <= 0", sv));
+        assertTrue(matches("true_track is null and velocity is not null", sv));
+        assertTrue(matches("not (true_track > 0)", sv));
+        assertTrue(matches("position_source = 'mlat' and position_source != 0 and position_source in (2, 'FLARM')", sv));
+        assertTrue(matches("sensors contains 1234 and not sensors contains 1", sv));
+        assertTrue(matches("spi = false and on_ground != true and not spi", sv));
+        assertTrue(matches("false or (true and (spi or velocity > 200))", sv));
+        assertTrue(matches("origin_country = 'Côte d''Ivoire' or squawk = '7700'", sv));
+        assertFalse(matches("vertical_rate < 0 or vertical_rate >= 0", sv));
+    }
+
+    @Test
+    public void testErrors() {
+        for (String expression : List.of("", "  ", "altitude > 1", "velocity > 'fast'", "callsign > 5", "on_ground > true",
+                "velocity", "sensors = 1", "velocity contains 1", "(velocity > 1", "velocity > 1 and", "velocity > 1 velocity",
+                "callsign = 'SWR", "position_source = 'radar'", "position_source = 7", "velocity in ()", "squawk is 7700",
+                "(".repeat(100_000) + "spi" + ")".repeat(100_000), "not ".repeat(100_000) + "spi")) {
+            try {
+                FilterExpression.parse(expression);
+                fail("Expected exception for " + expression);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("position"));
+            }
+        }
+    }
+
+    @Test
+    public void testNesting() {
+        StateVector sv = vector();
+        assertTrue(matches("(".repeat(63) + "not on_ground" + ")".repeat(63), sv));
+        assertFalse(matches("not ".repeat(64) + "on_ground", sv));
+    }
+
+    @Test
+    public void testFixture() throws IOException {
+        List<StateVector> vectors = fixture();
+        for (String expression : List.of("baro_altitude > 10000 and origin_country = 'Canada' and not on_ground",
+                "callsign in ('UAL1', 'DLH400') or squawk = '7700' or spi",
+                "vertical_rate < -10 or velocity >= 250", "geo_altitude is null", "position_source = 'ADS_B'")) {
+            FilterExpression filter = FilterExpression.parse(expression);
+            Predicate<StateVector> compiled = filter.compile();
+            int count = 0;
+            for (StateVector sv : vectors) {
+                assertEquals(expression + " " + sv, filter.evaluate(sv), compiled.test(sv));
+                count += compiled.test(sv) ? 1 : 0;
+            }
+            assertTrue(expression, count > 0);
+        }
+    }
+
+    //@Test
+    public void testFilterSpeed() throws IOException {
+        List<StateVector> vectors = fixture();
+        String expression = "baro_altitude > 10000 and origin_country = 'Canada' and not on_ground or squawk in ('7500', '7600', '7700')";
+        FilterExpression filter = FilterExpression.parse(expression);
+        Predicate<StateVector> interpreted = filter::evaluate;
+        Predicate<StateVector> compiled = filter.compile();
+        Set<String> squawks = Set.of("7500", "7600", "7700");
+        Predicate<StateVector> handWritten = sv -> (sv.getBaroAltitude() != null && sv.getBaroAltitude() > 10000
+                && sv.getOriginCountry() != null && sv.getOriginCountry().stripTrailing().equals("Canada") && !sv.isOnGround())
+                || (sv.getSquawk() != null && squawks.contains(sv.getSquawk()));
+        for (int round = 0; round < 3; round++) {
+            System.out.println(vectors.size() + " states, interpreted: " + time(vectors, interpreted) + "µs, compiled: "
+                    + time(vectors, compiled) + "µs, hand written: " + time(vectors, handWritten) + "µs");
+        }
+    }
+
+    private static long time(List<StateVector> vectors, Predicate<StateVector> filter) {
+        int count = 500;
+        int matches = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            for (StateVector sv : vectors) {
+                matches += filter.test(sv) ? 1 : 0;
+            }
+        }
+        assertTrue(matches > 0);
+        return (System.nanoTime() - t0) / count / 1000;
+    }
+}
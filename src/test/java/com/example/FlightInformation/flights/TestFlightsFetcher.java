@@ -0,0 +1,106 @@
+package com.example.FlightInformation.flights;
+
+import com.flightsinfo.tar1090.flights.FlightEndpoint;
+import com.flightsinfo.tar1090.flights.FlightsFetcher;
+import com.flightsinfo.tar1090.flights.TimePartition;
+import com.flightsinfo.tar1090.model.FlightData;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestFlightsFetcher {
+
+    // 2018-01-29 00:00:00 UTC
+    static final long DAY = 1517184000L;
+    static final Clock LATER = Clock.fixed(Instant.parse("2018-03-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void testPartitions() {
+        List<TimePartition> partitions = FlightEndpoint.ALL.partitions(DAY + 3600, DAY + 5 * 3600);
+        assertEquals(3, partitions.size());
+        assertEquals(new TimePartition(DAY, DAY + 7199), partitions.get(0));
+        assertEquals(new TimePartition(DAY + 4 * 3600, DAY + 6 * 3600 - 1), partitions.get(2));
+
+        // a single second is a single partition
+        assertEquals(1, FlightEndpoint.ARRIVAL.partitions(DAY + 10, DAY + 10).size());
+
+        // flights by aircraft partitions overlap by one day
+        TimePartition week = FlightEndpoint.AIRCRAFT.partitions(DAY, DAY).get(0);
+        assertEquals(8 * 24 * 3600 - 1, week.end() - week.begin());
+    }
+
+    @Test
+    public void testFetchCachesPartitions() throws IOException {
+        List<TimePartition> loaded = Collections.synchronizedList(new ArrayList<>());
+        FlightsFetcher fetcher = new FlightsFetcher((endpoint, key, partition) -> {
+            loaded.add(partition);
+            // one flight departing in the middle of each partition
+            long mid = (partition.begin() + partition.end()) / 2;
+            return List.of(new FlightData("3c675a", mid, mid + 600));
+        }, 2, 100, LATER);
+
+        List<FlightData> flights = fetcher.fetch(FlightEndpoint.DEPARTURE, "EDDF", DAY, DAY + 3 * 24 * 3600 - 1);
+        assertEquals(3, loaded.size());
+        assertEquals(3, flights.size());
+        assertTrue(flights.get(0).getFirstSeen() < flights.get(1).getFirstSeen());
+
+        // overlapping query only loads the partition not seen before
+        flights = fetcher.fetch(FlightEndpoint.DEPARTURE, "EDDF", DAY + 2 * 24 * 3600, DAY + 4 * 24 * 3600 - 1);
+        assertEquals(4, loaded.size());
+        assertEquals(2, flights.size());
+
+        // results are cut to the requested interval
+        flights = fetcher.fetch(FlightEndpoint.DEPARTURE, "EDDF", DAY, DAY + 3600);
+        assertEquals(4, loaded.size());
+        assertEquals(0, flights.size());
+
+        // other airports are separate partitions
+        fetcher.fetch(FlightEndpoint.DEPARTURE, "LSZH", DAY, DAY + 3600);
+        assertEquals(5, loaded.size());
+        assertEquals(5, fetcher.getCachedPartitions());
+    }
+
+    @Test
+    public void testIncompletePartitionsAreNotCached() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        Clock sameDay = Clock.fixed(Instant.ofEpochSecond(DAY + 12 * 3600), ZoneOffset.UTC);
+        FlightsFetcher fetcher = new FlightsFetcher((endpoint, key, partition) -> {
+            loads.incrementAndGet();
+            return List.of();
+        }, 2, 100, sameDay);
+
+        fetcher.fetch(FlightEndpoint.ARRIVAL, "EDDF", DAY, DAY + 3600);
+        fetcher.fetch(FlightEndpoint.ARRIVAL, "EDDF", DAY, DAY + 3600);
+        assertEquals(2, loads.get());
+        assertEquals(0, fetcher.getCachedPartitions());
+    }
+
+    @Test
+    public void testDuplicatesAcrossOverlappingPartitions() throws IOException {
+        FlightData overnight = new FlightData("3c675a", DAY + 7 * 24 * 3600 - 1800, DAY + 7 * 24 * 3600 + 1800);
+        FlightsFetcher fetcher = new FlightsFetcher((endpoint, key, partition) ->
+                partition.begin() <= overnight.getFirstSeen() && partition.end() >= overnight.getLastSeen()
+                        ? List.of(overnight) : List.of(), 2, 100, LATER);
+
+        List<FlightData> flights = fetcher.fetch(FlightEndpoint.AIRCRAFT, "3c675a", DAY, DAY + 14 * 24 * 3600);
+        assertEquals(1, flights.size());
+        assertEquals(overnight, flights.get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorsArePropagated() throws IOException {
+        FlightsFetcher fetcher = new FlightsFetcher((endpoint, key, partition) -> {
+            throw new IOException("upstream failed");
+        }, 2, 100, LATER);
+        fetcher.fetch(FlightEndpoint.ALL, null, DAY, DAY + 3600);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.FlightInformation.geo;
+
+import com.example.FlightInformation.SnapshotFixtures;
+import com.flightsinfo.tar1090.geo.Geofence;
+import com.flightsinfo.tar1090.geo.GeofenceEngine;
+import com.flightsinfo.tar1090.geo.GeofenceEvent;
+import com.flightsinfo.tar1090.geo.GeofenceLoader;
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.example.FlightInformation.SnapshotFixtures.snapshot;
+import static org.junit.Assert.*;
+
+public class TestGeofenceEngine {
+
+    /**
+     * U shaped zone around Zurich, open to the north
+     */
+    private static Geofence zurich(Double floor, Double ceiling) {
+        return new Geofence("zurich", new double[]{47.0, 47.0, 48.0, 48.0, 47.5, 47.5, 48.0, 48.0},
+                new double[]{8.0, 9.0, 9.0, 8.8, 8.8, 8.2, 8.2, 8.0}, floor, ceiling);
+    }
+
+    private static StateVector vector(String icao24, double lat, double lon, Double altitude) {
+        StateVector sv = SnapshotFixtures.vector(icao24, lat, lon);
+        sv.setBaroAltitude(altitude);
+        return sv;
+    }
+
+    private static List<String> names(List<GeofenceEvent> events) {
+        return events.stream().map(e -> e.type() + ":" + e.fence().getId() + ":" + e.state().getIcao24()).toList();
+    }
+
+    @Test
+    public void testContains() {
+        Geofence fence = zurich(null, null);
+        assertTrue(fence.contains(47.2, 8.5));
+        assertTrue(fence.contains(47.8, 8.1));
+        assertTrue(fence.contains(47.8, 8.9));
+        // inside the opening of the U
+        assertFalse(fence.contains(47.8, 8.5));
+        assertFalse(fence.contains(46.9, 8.5));
+        assertFalse(fence.contains(47.5, 9.1));
+
+        Geofence limited = zurich(1000.0, 3000.0);
+        assertTrue(limited.contains(vector("a", 47.2, 8.5, 2000.0)));
+        assertFalse(limited.contains(vector("a", 47.2, 8.5, 500.0)));
+        assertFalse(limited.contains(vector("a", 47.2, 8.5, 3500.0)));
+        assertFalse(limited.contains(vector("a", 47.2, 8.5, null)));
+        assertFalse(zurich(null, 3000.0).contains(vector("a", 47.2, 8.5, null)));
+        StateVector ground = vector("a", 47.2, 8.5, null);
+        ground.setOnGround(true);
+        assertTrue(zurich(null, 3000.0).contains(ground));
+        assertTrue(zurich(null, null).contains(vector("a", 47.2, 8.5, null)));
+    }
+
+    @Test
+    public void testEvents() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GeofenceEngine engine = new GeofenceEngine(0.5, registry);
+        Geofence lower = zurich(null, 3000.0);
+        Geofence upper = new Geofence("upper", new double[]{46, 46, 49}, new double[]{7, 10, 8.5}, 2000.0, null);
+        engine.setGeofences(List.of(lower, upper));
+        List<GeofenceEvent> events = new ArrayList<>();
+        engine.addListener(events::add);
+
+        engine.onSnapshot(snapshot(100, vector("000001", 47.2, 8.5, 1000.0), vector("000002", 47.8, 8.5, 1000.0)));
+        assertEquals(List.of("ENTER:zurich:000001"), names(events));
+
+        events.clear();
+        engine.onSnapshot(snapshot(110, vector("000001", 47.2, 8.5, 2500.0), vector("000002", 47.8, 8.5, 1000.0)));
+        assertEquals(List.of("ENTER:upper:000001"), names(events));
+        assertEquals(List.of(lower, upper), engine.getZones("000001"));
+
+        events.clear();
+        engine.onSnapshot(snapshot(120, vector("000001", 47.2, 8.5, 3500.0), vector("000002", 47.2, 8.5, 1000.0)));
+        assertEquals(List.of("EXIT:zurich:000001", "ENTER:zurich:000002"), names(events));
+
+        events.clear();
+        engine.onSnapshot(snapshot(130, vector("000002", 47.2, 8.5, 1000.0)));
+        assertEquals(List.of("EXIT:upper:000001"), names(events));
+        assertEquals(Double.valueOf(3500), events.get(0).state().getBaroAltitude());
+        assertEquals(130, events.get(0).time());
+
+        // removed zones are left
+        events.clear();
+        engine.setGeofences(List.of(upper));
+        engine.onSnapshot(snapshot(140, vector("000002", 47.2, 8.5, 1000.0)));
+        assertEquals(List.of("EXIT:zurich:000002"), names(events));
+        assertEquals(List.of(), engine.getZones("000002"));
+        assertEquals(3, registry.get("opensky.geofence.events").tag("type", "enter").counter().count(), 0);
+        assertEquals(3, registry.get("opensky.geofence.events").tag("type", "exit").counter().count(), 0);
+    }
+
+    @Test
+    public void testZoneParts() throws IOException {
+        // halves of a zone split at the antimeridian, and two overlapping polygons of one zone
+        String json = """
+                {"type":"FeatureCollection","features":[
+                 {"type":"Feature","id":"pacific","geometry":{"type":"MultiPolygon","coordinates":[
+                  [[[179,-1],[180,-1],[180,1],[179,1],[179,-1]]],[[[-180,-1],[-179,-1],[-179,1],[-180,1],[-180,-1]]]]}},
+                 {"type":"Feature","id":"overlap","geometry":{"type":"MultiPolygon","coordinates":[
+                  [[[8,47],[9,47],[9,48],[8,48],[8,47]]],[[[8.5,47],[9.5,47],[9.5,48],[8.5,48],[8.5,47]]]]}}
+                ]}""";
+        GeofenceEngine engine = new GeofenceEngine(0.5, new SimpleMeterRegistry());
+        engine.setGeofences(GeofenceLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+        List<GeofenceEvent> events = new ArrayList<>();
+        engine.addListener(events::add);
+
+        engine.onSnapshot(snapshot(100, vector("000001", 0, 179.9, null), vector("000002", 47.5, 8.7, null)));
+        assertEquals(List.of("ENTER:pacific:000001", "ENTER:overlap:000002"), names(events));
+        assertEquals(1, engine.getZones("000002").size());
+
+        // crossing into the other part
+        events.clear();
+        engine.onSnapshot(snapshot(110, vector("000001", 0, -179.9, null), vector("000002", 47.5, 9.2, null)));
+        assertEquals(List.of(), names(events));
+
+        engine.onSnapshot(snapshot(120, vector("000001", 0, -178.5, null), vector("000002", 47.5, 9.7, null)));
+        assertEquals(List.of("EXIT:pacific:000001", "EXIT:overlap:000002"), names(events));
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        PlaneStates states = OpenSkyStatesParser.parse(Files.readAllBytes(Path.of("api_test", "states_all_090225_0419.json")));
+        List<Geofence> fences = randomFences(5000);
+        GeofenceEngine engine = new GeofenceEngine(1, new SimpleMeterRegistry());
+        engine.setGeofences(fences);
+        Set<String> entered = new HashSet<>();
+        engine.addListener(e -> entered.add(e.state().getIcao24() + ":" + e.fence().getId()));
+        engine.onSnapshot(new IndexedSnapshot(states, 0));
+
+        Set<String> expected = new HashSet<>();
+        for (StateVector sv : states.getStateVectors()) {
+            for (Geofence fence : fences) {
+                if (fence.contains(sv)) {
+                    expected.add(sv.getIcao24() + ":" + fence.getId());
+                }
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, entered);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        String json = """
+                {"type":"FeatureCollection","features":[
+                 {"type":"Feature","id":"lszh-tma","properties":{"floor":300,"ceiling":3000},
+                  "geometry":{"type":"Polygon","coordinates":[[[8.0,47.0],[9.0,47.0],[9.0,48.0],[8.0,48.0],[8.0,47.0]]]}},
+                 {"type":"Feature","properties":{"name":"islands"},
+                  "geometry":{"type":"MultiPolygon","coordinates":[[[[0,0],[1,0],[1,1]]],[[[5,5],[6,5],[6,6]]]]}}
+                ]}""";
+        List<Geofence> fences = GeofenceLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, fences.size());
+        assertEquals("lszh-tma", fences.get(0).getId());
+        assertEquals(Double.valueOf(300), fences.get(0).getFloor());
+        assertEquals(Double.valueOf(3000), fences.get(0).getCeiling());
+        assertTrue(fences.get(0).contains(47.5, 8.5));
+        assertEquals("islands", fences.get(2).getId());
+        assertNull(fences.get(2).getFloor());
+        assertTrue(fences.get(2).contains(5.2, 5.8));
+
+        try {
+            GeofenceLoader.load(new ByteArrayInputStream("{\"type\":\"Feature\"}".getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static List<Geofence> randomFences(int count) {
+        Random random = new Random(1);
+        List<Geofence> fences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double lat = -60 + random.nextDouble() * 130;
+            double lon = -180 + random.nextDouble() * 355;
+            double size = 0.2 + random.nextDouble() * 3;
+            int n = 3 + random.nextInt(8);
+            double[] lats = new double[n];
+            double[] lons = new double[n];
+            for (int k = 0; k < n; k++) {
+                double angle = 2 * Math.PI * k / n;
+                double radius = size * (0.5 + random.nextDouble() / 2);
+                lats[k] = lat + radius * Math.sin(angle);
+                lons[k] = lon + radius * Math.cos(angle);
+            }
+            fences.add(new Geofence("zone-" + i, lats, lons, random.nextBoolean() ? null : 3000.0, null));
+        }
+        return fences;
+    }
+}
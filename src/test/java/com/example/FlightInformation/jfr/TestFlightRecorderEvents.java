@@ -0,0 +1,65 @@
+package com.example.FlightInformation.jfr;
+
+import com.flightsinfo.tar1090.config.FlightRecorderConfig;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static com.example.FlightInformation.SnapshotFixtures.states;
+import static org.junit.Assert.*;
+
+public class TestFlightRecorderEvents {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPublishEvents() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("test.jfr");
+        SnapshotStore store = new SnapshotStore();
+        store.addListener(snapshot -> {
+        });
+        store.addListener(snapshot -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (Recording recording = new FlightRecorderConfig().openSkyRecording(Duration.ofMinutes(1), file)) {
+            store.publish(states(20, List.of("abc001", "abc002")));
+            store.publish(states(10, List.of("abc001")));
+            // writes the recording to its destination
+            recording.stop();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> publishes = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.flightsinfo.tar1090.Publish")).toList();
+        assertEquals(2, publishes.size());
+        assertEquals(2, publishes.get(0).getInt("vectors"));
+        assertEquals(2, publishes.get(0).getInt("listeners"));
+        assertTrue(publishes.get(0).getBoolean("published"));
+        assertEquals(20, publishes.get(0).getInstant("time").getEpochSecond());
+        assertFalse(publishes.get(1).getBoolean("published"));
+
+        // only the slow listener passes the 1 ms threshold of the profile
+        List<RecordedEvent> listeners = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.flightsinfo.tar1090.Listener")).toList();
+        assertEquals(1, listeners.size());
+        assertTrue(listeners.getFirst().getDuration().toMillis() >= 5);
+        assertFalse(listeners.getFirst().getBoolean("failed"));
+
+        // the JDK default events are part of the recording
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().startsWith("jdk.")));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.FlightInformation.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesDeserializer;
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.mappers.StateRow;
+import com.flightsinfo.tar1090.mappers.StatesSink;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestOpenSkyStatesParser {
+
+    static final Path FIXTURE = Path.of("api_test", "states_all_090225_0419.json");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        SimpleModule sm = new SimpleModule();
+        sm.addDeserializer(PlaneStates.class, new OpenSkyStatesDeserializer());
+        MAPPER.registerModule(sm);
+    }
+
+    private static PlaneStates parse(String json) throws IOException {
+        return OpenSkyStatesParser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertEquivalent(byte[] json) throws IOException {
+        PlaneStates expected = MAPPER.readValue(json, PlaneStates.class);
+        PlaneStates actual = OpenSkyStatesParser.parse(json);
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getStateVectors().size(), actual.getStateVectors().size());
+        Iterator<StateVector> it = actual.getStateVectors().iterator();
+        for (StateVector sv : expected.getStateVectors()) {
+            assertEquals(sv, it.next());
+        }
+    }
+
+    @Test
+    public void testFixture() throws IOException {
+        assertEquivalent(Files.readAllBytes(FIXTURE));
+    }
+
+    @Test
+    public void testValidJson() throws IOException {
+        assertEquivalent(TestOpenSkyStatesDeserializer.validJson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        for (String json : List.of(TestOpenSkyStatesDeserializer.invalidJson, "", "   ", "[]", "{\"time\":1,\"states\":[[\"abc\",]]}",
+                "{\"time\":1,\"states\":[[\"abc\"", "{\"time\":1,\"states\":[[\"abc\",\"unterminated]]}")) {
+            try {
+                parse(json);
+                fail("Expected exception for " + json);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+
+        PlaneStates states = parse("{}");
+        assertEquals(0, states.getTime());
+        assertNull(states.getStateVectors());
+        assertNull(parse("null"));
+        assertTrue(parse("{\"time\":5,\"states\":null}").getStateVectors().isEmpty());
+    }
+
+    @Test
+    public void testStringsAndNumbers() throws IOException {
+        assertEquivalent(("{\"other\":{\"a\":[1,\"]\"]},\"time\":1002,\"states\":[" +
+                "[\"cabeef\",\"A\\\"B\\\\C\\u00e9\",\"Côte d'Ivoire\",1001,1000,-0.0,-12.34567,1e3,false,4.5E-2,0.1,-0,null,123456789012345678901.5,\"7700\",false,0]," +
+                "[ \"c0ffee\" , null , \"USA\" , 1001 , 1000 , 0.30000000000000004 , 2 , 3 , true , 4 , 5 , 6 , [ 1 , 2 ] , 7 , null , true , 3 , [\"x\"] , {\"y\":null} ]" +
+                "]}").getBytes(StandardCharsets.UTF_8));
+
+        // fields after the states
+        PlaneStates states = parse("{\"states\":[[\"abc\",\"X\",\"Y\",1,2,3,4,5,false,6,7,8,null,9,null,false,1]],\"time\":7,\"more\":[{}]}");
+        assertEquals(7, states.getTime());
+        StateVector sv = states.getStateVectors().iterator().next();
+        assertEquals("abc", sv.getIcao24());
+        assertEquals(Double.valueOf(9), sv.getGeoAltitude());
+        assertEquals(StateVector.PositionSource.ASTERIX, sv.getPositionSource());
+
+        // exact against Double.parseDouble for the fast path
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder("{\"time\":1,\"states\":[");
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String number = String.format("%s%d.%0" + (1 + random.nextInt(8)) + "d", random.nextBoolean() ? "-" : "",
+                    random.nextInt(100000), random.nextInt(10000000));
+            values.add(Double.parseDouble(number));
+            sb.append(i == 0 ? "" : ",").append("[\"a\",null,null,null,null,").append(number).append(']');
+        }
+        sb.append("]}");
+        List<Double> parsed = new ArrayList<>();
+        OpenSkyStatesParser.parse(sb.toString().getBytes(StandardCharsets.UTF_8), 0, sb.length(), new StatesSink() {
+            @Override
+            public void time(int time) {
+            }
+
+            @Override
+            public void startStates() {
+            }
+
+            @Override
+            public void row(StateRow row) {
+                parsed.add(row.getNumber(StateRow.LONGITUDE));
+                assertTrue(row.isNull(StateRow.LATITUDE));
+            }
+        });
+        assertEquals(values, parsed);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.FlightInformation.mapper;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightsinfo.tar1090.model.FlightTrack;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TestOpenSkyTrackDeserializer {
+
+    static final String validJson = "{" +
+            "\"icao24\":\"3c4b26\"," +
+            "\"callsign\":\"DLH8TE  \"," +
+            "\"startTime\":1517227200," +
+            "\"endTime\":1517230800," +
+            "\"path\":[" +
+            "[1517227200,50.0379,8.5622,null,160.0,true]," +
+            "[1517227500,50.1,8.6,1234.5,null,false]," +
+            "[1517230800,null,null,10000,90.5,false,\"additional_unused\"]" +
+            "]}";
+
+    @Test
+    public void testDeser() throws IOException {
+        FlightTrack track = new ObjectMapper().readValue(validJson, FlightTrack.class);
+        assertEquals("3c4b26", track.getIcao24());
+        assertEquals("DLH8TE  ", track.getCallsign());
+        assertEquals(1517227200L, track.getStartTime());
+        assertEquals(1517230800L, track.getEndTime());
+        assertEquals(3, track.size());
+
+        assertEquals(1517227200, track.getTime(0));
+        assertEquals(50.0379, track.getLatitude(0), 1e-5);
+        assertEquals(8.5622, track.getLongitude(0), 1e-5);
+        assertTrue(Double.isNaN(track.getBaroAltitude(0)));
+        assertEquals(160.0, track.getHeading(0), 0.0);
+        assertTrue(track.isOnGround(0));
+
+        assertEquals(1234.5, track.getBaroAltitude(1), 0.0);
+        assertTrue(Double.isNaN(track.getHeading(1)));
+        assertFalse(track.isOnGround(1));
+
+        assertTrue(Double.isNaN(track.getLatitude(2)));
+        assertTrue(Double.isNaN(track.getLongitude(2)));
+        assertEquals(10000.0, track.getBaroAltitude(2), 0.0);
+        assertFalse(track.isOnGround(2));
+    }
+
+    @Test
+    public void testLongPath() throws IOException {
+        StringBuilder json = new StringBuilder("{\"icao24\":\"3c4b26\",\"startTime\":0,\"endTime\":999,\"path\":[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i > 0 ? "," : "").append('[').append(i).append(",1.0,2.0,3.0,4.0,").append(i % 3 == 0).append(']');
+        }
+        json.append("]}");
+
+        FlightTrack track = new ObjectMapper().readValue(json.toString(), FlightTrack.class);
+        assertNull(track.getCallsign());
+        assertEquals(1000, track.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, track.getTime(i));
+            assertEquals(i % 3 == 0, track.isOnGround(i));
+        }
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testInvalidDeser() throws IOException {
+        new ObjectMapper().readValue("{\"icao24\":null,\"path\":[]}", FlightTrack.class);
+    }
+}
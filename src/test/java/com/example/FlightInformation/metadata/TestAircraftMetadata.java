@@ -0,0 +1,193 @@
+package com.example.FlightInformation.metadata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flightsinfo.tar1090.feed.AircraftJsonFeed;
+import com.flightsinfo.tar1090.metadata.AircraftMetadata;
+import com.flightsinfo.tar1090.metadata.AircraftMetadataTable;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static com.example.FlightInformation.SnapshotFixtures.snapshot;
+import static org.junit.Assert.*;
+
+public class TestAircraftMetadata {
+
+    // layout of the OpenSky aircraft database, with a subset of its columns
+    static final String OPENSKY_CSV = """
+            'icao24','timestamp','manufacturerName','model','operator','operatorIcao','owner','registration','typecode'
+            '4b1805','2023-01-01 00:00:00','Airbus','A220-300','Swiss','SWR','','HB-JCA','BCS3'
+            '3c6444','','Airbus','A321','','','Lufthansa','D-AIDA','A321'
+            'zzzzzz','','','','','','','BROKEN',''
+            '4B1806','','Airbus','A220-300','Swiss','SWR','','HB-JCB','BCS3'
+            '4b1805','','','','Duplicate','','','HB-XXX',''
+            'a00001','','Cessna','172','','','Pilot''s Club, Inc.','N1','C172'
+            """;
+
+    // layout of the older aircraftDatabase.csv
+    static final String LEGACY_CSV = """
+            "icao24","registration","manufacturericao","typecode","operator","owner"
+            "4b1805","HB-JCA","AIRBUS","BCS3","","Swiss International Air Lines"
+            "c0ffee","C-FFEE","","B738","WestJet",""
+            """;
+
+    private Path dir;
+
+    @Before
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("metadata");
+    }
+
+    @After
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testBuildAndLookup() throws IOException {
+        AircraftMetadataTable table = AircraftMetadataTable.build(new StringReader(OPENSKY_CSV), dir.resolve("aircraft.table"));
+        assertEquals(4, table.size());
+
+        int row = table.indexOf("4b1805");
+        assertEquals(0x4b1805, table.icao24(row));
+        assertEquals("HB-JCA", table.registration(row));
+        assertEquals("BCS3", table.typeCode(row));
+        assertEquals("Swiss", table.operator(row));
+        assertEquals(row, table.indexOf(0x4b1805));
+
+        // operator falls back to the owner, quotes are escaped by doubling them
+        assertEquals("Lufthansa", table.operator(table.indexOf("3c6444")));
+        assertEquals("Pilot's Club, Inc.", table.operator(table.indexOf("a00001")));
+        assertEquals("HB-JCB", table.registration(table.indexOf("4b1806")));
+        assertNull(table.operator(-1));
+
+        assertEquals(-1, table.indexOf("ffffff"));
+        assertEquals(-1, table.indexOf("000000"));
+        assertEquals(-1, table.indexOf("xyz"));
+        assertEquals(-1, AircraftMetadataTable.pack(""));
+        assertEquals(-1, AircraftMetadataTable.pack("1234567"));
+        assertEquals(0xabcdef, AircraftMetadataTable.pack("ABCdef"));
+
+        // the written table is opened again without the CSV
+        AircraftMetadataTable reopened = AircraftMetadataTable.open(dir.resolve("aircraft.table"));
+        assertEquals(4, reopened.size());
+        assertEquals("BCS3", reopened.typeCode(reopened.indexOf("4b1806")));
+
+        Files.writeString(dir.resolve("garbage"), "not a table at all");
+        try {
+            AircraftMetadataTable.open(dir.resolve("garbage"));
+            fail("Expected exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEnrich() throws IOException {
+        AircraftMetadataTable table = AircraftMetadataTable.build(new StringReader(LEGACY_CSV), dir.resolve("aircraft.table"));
+        IndexedSnapshot snapshot = snapshot(1000, List.of("c0ffee", "4b1805", "123456"));
+        AircraftMetadataTable.Enrichment enrichment = table.enrich(snapshot);
+        assertEquals(2, enrichment.matched());
+        // the snapshot is ordered by address
+        assertEquals(-1, enrichment.row(0));
+        assertNull(enrichment.registration(0));
+        assertEquals("HB-JCA", enrichment.registration(1));
+        assertEquals("Swiss International Air Lines", enrichment.operator(1));
+        assertEquals("B738", enrichment.typeCode(2));
+        assertEquals("WestJet", enrichment.operator(2));
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        Path csv = dir.resolve("aircraftDatabase.csv");
+        Path tableFile = dir.resolve("aircraftDatabase.csv.table");
+        Files.writeString(csv, LEGACY_CSV, StandardCharsets.UTF_8);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        try (AircraftMetadata metadata = new AircraftMetadata(csv, tableFile, Duration.ofHours(1), registry)) {
+            SnapshotStore store = new SnapshotStore();
+            AircraftJsonFeed feed = new AircraftJsonFeed(store);
+            feed.setMetadata(metadata);
+            metadata.start();
+            assertEquals(2, registry.get("opensky.metadata.aircraft").gauge().value(), 0);
+            assertFalse(metadata.reload());
+
+            AircraftMetadataTable previous = metadata.getTable();
+            store.publish(snapshot(1000, List.of("4b1805", "c0ffee")).getStates());
+            JsonNode aircraft = new ObjectMapper().readTree(feed.getCurrent().plain()).get("aircraft");
+            assertEquals("HB-JCA", aircraft.get(0).get("r").asText());
+            assertEquals("BCS3", aircraft.get(0).get("t").asText());
+            assertEquals("WestJet", aircraft.get(1).get("ownOp").asText());
+
+            // a changed CSV is swapped in, the previous table stays usable
+            Files.writeString(csv, OPENSKY_CSV, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(csv, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            assertTrue(metadata.reload());
+            assertNotSame(previous, metadata.getTable());
+            assertEquals(4, metadata.getTable().size());
+            assertEquals("WestJet", previous.operator(previous.indexOf("c0ffee")));
+            assertEquals(2, registry.get("opensky.metadata.reloads").counter().count(), 0);
+
+            store.publish(snapshot(1010, List.of("4b1805", "c0ffee")).getStates());
+            aircraft = new ObjectMapper().readTree(feed.getCurrent().plain()).get("aircraft");
+            assertEquals("Swiss", aircraft.get(0).get("ownOp").asText());
+            assertNull(aircraft.get(1).get("r"));
+        }
+
+        // the next start opens the table, even without the CSV
+        Files.delete(csv);
+        try (AircraftMetadata metadata = new AircraftMetadata(csv, tableFile, Duration.ofHours(1), new SimpleMeterRegistry())) {
+            metadata.start();
+            assertEquals(4, metadata.getTable().size());
+        }
+    }
+
+    //@Test
+    public void testEnrichSpeed() throws IOException {
+        Random random = new Random(1);
+        StringBuilder csv = new StringBuilder("icao24,registration,typecode,operator\n");
+        for (int i = 0; i < 600_000; i++) {
+            csv.append(String.format("%06x,R-%05d,T%03d,Operator %d%n", random.nextInt(1 << 24), i, i % 500, i % 3000));
+        }
+        long t0 = System.nanoTime();
+        AircraftMetadataTable table = AircraftMetadataTable.build(new StringReader(csv.toString()), dir.resolve("speed.table"));
+        long t1 = System.nanoTime();
+
+        String[] addresses = new String[10_000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = String.format("%06x", random.nextInt(1 << 24));
+        }
+        IndexedSnapshot snapshot = snapshot(1000, List.of(addresses));
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            table.enrich(snapshot);
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            table.enrich(snapshot);
+        }
+        long t3 = System.nanoTime();
+        System.out.println("Build of " + table.size() + " aircraft: " + (t1 - t0) / 1_000_000 + "ms, enrich "
+                + snapshot.size() + " state vectors: " + (t3 - t2) / count / 1000 + "µs");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.FlightInformation.metrics;
+
+import com.flightsinfo.tar1090.enums.RequestType;
+import com.flightsinfo.tar1090.metrics.OpenSkyMetrics;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestOpenSkyMetrics {
+
+    @Test
+    public void testSnapshotMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OpenSkyMetrics metrics = new OpenSkyMetrics(registry);
+
+        int now = (int) (System.currentTimeMillis() / 1000);
+        List<StateVector> vectors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            StateVector sv = new StateVector("abc00" + i);
+            sv.setLastContact((double) (now - 10));
+            vectors.add(sv);
+        }
+        PlaneStates states = new PlaneStates();
+        states.setTime(now - 5);
+        states.setStateVectors(vectors);
+
+        metrics.recordSnapshot(RequestType.GET_STATES, states);
+
+        DistributionSummary count = registry.get("opensky.snapshot.vectors").tag("type", "GET_STATES").summary();
+        assertEquals(1, count.count());
+        assertEquals(3.0, count.totalAmount(), 0.0);
+        DistributionSummary contactAge = registry.get("opensky.vector.contact.age").summary();
+        assertEquals(3, contactAge.count());
+        assertTrue("Contact age of about ten seconds", contactAge.mean() >= 10 && contactAge.mean() < 15);
+        assertTrue(registry.get("opensky.snapshot.age").tag("type", "GET_STATES").gauge().value() >= 5);
+    }
+
+    @Test
+    public void testErrorsAndRejections() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OpenSkyMetrics metrics = new OpenSkyMetrics(registry);
+
+        metrics.recordError(RequestType.GET_STATES, 503);
+        metrics.recordError(RequestType.GET_STATES, 500);
+        metrics.recordError(RequestType.GET_MY_STATES, 0);
+        metrics.recordRateLimitRejection(RequestType.GET_STATES);
+
+        assertEquals(2.0, registry.get("opensky.client.errors").tags("type", "GET_STATES", "status", "5xx").counter().count(), 0.0);
+        assertEquals(1.0, registry.get("opensky.client.errors").tags("type", "GET_MY_STATES", "status", "IO_ERROR").counter().count(), 0.0);
+        assertEquals(1.0, registry.get("opensky.ratelimit.rejections").tag("type", "GET_STATES").counter().count(), 0.0);
+        assertEquals(0.0, registry.get("opensky.ratelimit.rejections").tag("type", "GET_MY_STATES").counter().count(), 0.0);
+    }
+
+    @Test
+    public void testClientsReportTheirOwnCredits() {
+        SimpleMeterRegistry anonymousRegistry = new SimpleMeterRegistry();
+        SimpleMeterRegistry authenticatedRegistry = new SimpleMeterRegistry();
+        new OpenSkyMetrics(anonymousRegistry).registerCreditBudget(new CreditBudgetPlanner(CreditBudgetPlanner.ANONYMOUS_DAILY_CREDITS));
+        new OpenSkyMetrics(authenticatedRegistry).registerCreditBudget(new CreditBudgetPlanner(CreditBudgetPlanner.AUTHENTICATED_DAILY_CREDITS));
+
+        assertEquals(CreditBudgetPlanner.ANONYMOUS_DAILY_CREDITS,
+                anonymousRegistry.get("opensky.credits.remaining").gauge().value(), 0.0);
+        assertEquals(CreditBudgetPlanner.AUTHENTICATED_DAILY_CREDITS,
+                authenticatedRegistry.get("opensky.credits.remaining").gauge().value(), 0.0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.FlightInformation.ratelimit;
+
+import com.flightsinfo.tar1090.model.BoundingBox;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import com.flightsinfo.tar1090.ratelimit.QueryPlan;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestCreditBudgetPlanner {
+
+    // 2025-09-02 12:00:00 UTC, i.e. 12h until the daily reset
+    static final Clock NOON = Clock.fixed(Instant.parse("2025-09-02T12:00:00Z"), ZoneOffset.UTC);
+
+    static final BoundingBox SWITZERLAND = new BoundingBox(45.8389, 47.8229, 5.9962, 10.5226);
+    static final BoundingBox ZURICH = new BoundingBox(47.3, 47.6, 8.4, 8.7);
+    static final BoundingBox GENEVA = new BoundingBox(46.1, 46.3, 6.0, 6.3);
+    static final BoundingBox SYDNEY = new BoundingBox(-34.2, -33.6, 150.8, 151.4);
+
+    @Test
+    public void testCreditCost() {
+        assertEquals(4, CreditBudgetPlanner.creditCost(null));
+        assertEquals(1, CreditBudgetPlanner.creditCost(new BoundingBox(49.7, 50.5, 3.2, 4.6)));
+        assertEquals(2, CreditBudgetPlanner.creditCost(new BoundingBox(46.5, 49.9, -1.4, 6.8)));
+        assertEquals(3, CreditBudgetPlanner.creditCost(new BoundingBox(42.2, 49.8, -4.7, 10.9)));
+        assertEquals(4, CreditBudgetPlanner.creditCost(new BoundingBox(-90, 90, -180, 180)));
+    }
+
+    @Test
+    public void testHeaders() {
+        CreditBudgetPlanner planner = new CreditBudgetPlanner(CreditBudgetPlanner.AUTHENTICATED_DAILY_CREDITS, NOON);
+        planner.onRequest(4);
+        assertEquals(3996, planner.getRemainingCredits());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CreditBudgetPlanner.REMAINING_HEADER, "3500");
+        assertEquals(0, planner.onResponse(200, headers));
+        assertEquals(3500, planner.getRemainingCredits());
+        assertFalse(planner.isBackingOff());
+
+        // feeders get more credits than their role tells
+        headers.set(CreditBudgetPlanner.REMAINING_HEADER, "7990");
+        planner.onResponse(200, headers);
+        assertEquals(7990, planner.getDailyCredits());
+
+        headers = new HttpHeaders();
+        headers.set(CreditBudgetPlanner.RETRY_AFTER_HEADER, "120");
+        assertEquals(120, planner.onResponse(429, headers));
+        assertTrue(planner.isBackingOff());
+        assertEquals(120000, planner.getBackoffMillis());
+        assertEquals(0, planner.getRemainingCredits());
+    }
+
+    @Test
+    public void testPlan() {
+        CreditBudgetPlanner planner = new CreditBudgetPlanner(CreditBudgetPlanner.ANONYMOUS_DAILY_CREDITS, NOON);
+
+        QueryPlan world = planner.plan(null, 10000);
+        assertEquals(QueryPlan.Shape.WORLD, world.shape());
+        assertEquals(4, world.creditsPerRefresh());
+        // 400 credits for 12 hours with 4 credits per refresh
+        assertEquals(12 * 3600 * 1000 / 100, world.refreshInterval().toMillis());
+
+        // two small regions close to each other fit into one box
+        QueryPlan swiss = planner.plan(List.of(ZURICH, GENEVA), 10000);
+        assertEquals(QueryPlan.Shape.ENCLOSING_BOX, swiss.shape());
+        assertEquals(1, swiss.creditsPerRefresh());
+
+        // small regions far apart are requested one by one
+        QueryPlan tiles = planner.plan(List.of(ZURICH, SYDNEY), 10000);
+        assertEquals(QueryPlan.Shape.TILES, tiles.shape());
+        assertEquals(2, tiles.creditsPerRefresh());
+        assertEquals(2, tiles.boxes().size());
+
+        // many regions are cheaper with a world query
+        QueryPlan many = planner.plan(List.of(SWITZERLAND, SYDNEY, ZURICH, GENEVA), 10000);
+        assertEquals(QueryPlan.Shape.WORLD, many.shape());
+
+        // plenty of credits left, the client side rate limit applies
+        planner.setDailyCredits(1000000);
+        assertEquals(10000, planner.plan(null, 10000).refreshInterval().toMillis());
+    }
+}
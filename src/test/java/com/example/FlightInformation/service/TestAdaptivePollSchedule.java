@@ -0,0 +1,110 @@
+package com.example.FlightInformation.service;
+
+import com.flightsinfo.tar1090.service.AdaptivePollSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class TestAdaptivePollSchedule {
+
+    /**
+     * Upstream refreshing every {@code period} ms at {@code phase}, serving new data {@code latency} ms later
+     */
+    private record Upstream(long period, long phase, long latency) {
+        int time(long now) {
+            long refresh = Math.floorDiv(now - latency - phase, period) * period + phase;
+            return (int) Math.floorDiv(refresh, 1000);
+        }
+    }
+
+    private static final long START = 1_700_000_000_000L;
+
+    /**
+     * Poll {@code polls} times, timed by the schedule, returning the mean data age in ms of the last half
+     */
+    private static double run(AdaptivePollSchedule schedule, Upstream upstream, long start, int polls, int[] staleOut) {
+        long now = start;
+        int lastTime = 0;
+        long age = 0;
+        int stale = 0;
+        for (int i = 0; i < polls; i++) {
+            int time = upstream.time(now);
+            long received = now + 80;
+            schedule.onResponse(now, received, time);
+            if (i >= polls / 2) {
+                age += received - time * 1000L;
+                stale += time == lastTime ? 1 : 0;
+            }
+            lastTime = time;
+            now = schedule.nextPollMillis(received, now);
+        }
+        staleOut[0] = stale;
+        return (double) age / (polls - polls / 2);
+    }
+
+    @Test
+    public void testLocksOntoRefresh() {
+        Upstream upstream = new Upstream(10_000, 3_000, 1_500);
+        AdaptivePollSchedule schedule = new AdaptivePollSchedule(Duration.ofMillis(9_900),
+                Duration.ofMillis(200), new SimpleMeterRegistry());
+        int[] stale = new int[1];
+        double adaptive = run(schedule, upstream, START + 2_000, 100, stale);
+        assertEquals(10_000, schedule.getPeriodMillis(), 50);
+        // occasional probes for a shorter latency
+        assertTrue("stale " + stale[0], stale[0] <= 2);
+        // a poll arrives about latency + margin after the refresh
+        assertTrue("age " + adaptive, adaptive < 1_500 + 400 + 80);
+
+        // a fixed 10 s timer keeps the age it starts with, here just before the next refresh
+        long now = START + 12_400;
+        long fixedAge = 0;
+        for (int i = 0; i < 50; i++) {
+            fixedAge += now - upstream.time(now) * 1000L;
+            now += 10_000;
+        }
+        assertTrue(fixedAge / 50 > 9_000);
+    }
+
+    @Test
+    public void testMinInterval() {
+        // upstream refreshes every 5 s, but requests may only be sent every 10 s
+        Upstream upstream = new Upstream(5_000, 0, 1_000);
+        AdaptivePollSchedule schedule = new AdaptivePollSchedule(Duration.ofMillis(9_900),
+                Duration.ofMillis(200), new SimpleMeterRegistry());
+        long now = START + 3_700;
+        long previous = Long.MIN_VALUE / 2;
+        long age = 0;
+        for (int i = 0; i < 50; i++) {
+            assertTrue(now - previous >= 9_900);
+            int time = upstream.time(now);
+            schedule.onResponse(now, now + 50, time);
+            if (i >= 25) {
+                age += now + 50 - time * 1000L;
+            }
+            previous = now;
+            now = schedule.nextPollMillis(now + 50, now);
+        }
+        // only multiples of the period are seen, which is just as good for timing the polls
+        assertEquals(0, schedule.getPeriodMillis() % 5_000, 0);
+        assertTrue("age " + age / 25, age / 25 < 1_000 + 200 + 50 + 400);
+    }
+
+    @Test
+    public void testFollowsDrift() {
+        AdaptivePollSchedule schedule = new AdaptivePollSchedule(Duration.ofMillis(4_900),
+                Duration.ofMillis(200), new SimpleMeterRegistry());
+        int[] stale = new int[1];
+        run(schedule, new Upstream(5_000, 1_000, 1_000), START, 60, stale);
+        assertEquals(5_000, schedule.getPeriodMillis(), 100);
+
+        // upstream slows down and serves later
+        long start = START + 60 * 5_000 + 500;
+        double age = run(schedule, new Upstream(6_000, 0, 2_000), start, 100, stale);
+        assertEquals(6_000, schedule.getPeriodMillis(), 100);
+        assertTrue("age " + age, age < 2_000 + 400 + 80 + 100);
+        assertTrue("stale " + stale[0], stale[0] <= 2);
+    }
+}
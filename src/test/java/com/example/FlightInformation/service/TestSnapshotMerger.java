@@ -0,0 +1,129 @@
+package com.example.FlightInformation.service;
+
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateFingerprint;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotMerger;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.FlightInformation.SnapshotFixtures.states;
+import static org.junit.Assert.*;
+
+public class TestSnapshotMerger {
+
+    private static final Path FIXTURE = Path.of("api_test", "states_all_090225_0419.json");
+
+    private static StateVector vector(String icao24, double lastContact, double lastPosition, double latitude) {
+        StateVector sv = new StateVector("abc" + icao24);
+        sv.setCallsign("TEST" + icao24);
+        sv.setLastContact(lastContact);
+        sv.setLastPositionUpdate(lastPosition);
+        sv.setLatitude(latitude);
+        sv.setLongitude(8.5);
+        sv.setBaroAltitude(1000.0);
+        sv.setPositionSource(StateVector.PositionSource.ADS_B);
+        return sv;
+    }
+
+    private static Map<String, StateVector> byIcao24(PlaneStates states) {
+        Map<String, StateVector> result = new HashMap<>();
+        for (StateVector sv : states.getStateVectors()) {
+            assertNull(result.put(sv.getIcao24(), sv));
+        }
+        return result;
+    }
+
+    @Test
+    public void testFingerprint() throws IOException {
+        PlaneStates states = OpenSkyStatesParser.parse(Files.readAllBytes(FIXTURE));
+        Set<Long> fingerprints = new HashSet<>();
+        for (StateVector sv : states.getStateVectors()) {
+            // computed by the parser, the same as from the vector
+            assertEquals(StateFingerprint.of(sv), sv.getFingerprint());
+            fingerprints.add(sv.getFingerprint());
+        }
+        assertEquals(states.getStateVectors().size(), fingerprints.size());
+
+        StateVector sv = vector("001", 100, 99, 47.0);
+        long fingerprint = sv.getFingerprint();
+        sv.addSerial(1);
+        assertEquals(fingerprint, sv.getFingerprint());
+        sv.setLatitude(47.000001);
+        assertNotEquals(fingerprint, sv.getFingerprint());
+        sv.setLatitude(47.0);
+        assertEquals(fingerprint, sv.getFingerprint());
+        sv.setSquawk("7700");
+        assertNotEquals(fingerprint, sv.getFingerprint());
+
+        // same String.hashCode(), different content
+        sv.setCallsign("Aa");
+        fingerprint = sv.getFingerprint();
+        sv.setCallsign("BB");
+        assertNotEquals(fingerprint, sv.getFingerprint());
+        assertNotEquals(StateFingerprint.mix(StateFingerprint.start(), ""), StateFingerprint.mix(StateFingerprint.start(), (String) null));
+        assertNotEquals(StateFingerprint.mix(StateFingerprint.start(), "SWR8"), StateFingerprint.mix(StateFingerprint.start(), "SWR8    "));
+    }
+
+    @Test
+    public void testMergeFixture() throws IOException {
+        byte[] json = Files.readAllBytes(FIXTURE);
+        PlaneStates world = OpenSkyStatesParser.parse(json);
+        int size = world.getStateVectors().size();
+        SnapshotMerger.Result result = SnapshotMerger.merge(List.of(world, OpenSkyStatesParser.parse(json), OpenSkyStatesParser.parse(json)));
+        assertEquals(size, result.states().getStateVectors().size());
+        assertEquals(2 * size, result.duplicates());
+        assertEquals(0, result.reconciled());
+        assertEquals(world.getTime(), result.states().getTime());
+    }
+
+    @Test
+    public void testMerge() {
+        StateVector world1 = vector("001", 100, 99, 47.0);
+        StateVector world2 = vector("002", 100, 99, 48.0);
+        StateVector world3 = vector("003", 100, 90, 49.0);
+        // the same as world2, but received by our sensor
+        StateVector own2 = vector("002", 100, 99, 48.0);
+        own2.addSerial(42);
+        // newer contact, but an older position than the world copy
+        StateVector box1 = vector("001", 105, 95, 46.0);
+        box1.setBaroAltitude(1200.0);
+        // newer position, older contact
+        StateVector box3 = vector("003", 95, 94, 49.5);
+        StateVector box4 = vector("004", 101, 101, 50.0);
+
+        SnapshotMerger.Result result = SnapshotMerger.merge(List.of(
+                states(110, world1, world2, world3), states(111, box1, box3, box4), states(109, own2)));
+        assertEquals(111, result.states().getTime());
+        assertEquals(1, result.duplicates());
+        assertEquals(2, result.reconciled());
+
+        Map<String, StateVector> merged = byIcao24(result.states());
+        assertEquals(4, merged.size());
+
+        StateVector sv1 = merged.get("abc001");
+        assertEquals(Double.valueOf(105), sv1.getLastContact());
+        assertEquals(Double.valueOf(1200), sv1.getBaroAltitude());
+        assertEquals(Double.valueOf(99), sv1.getLastPositionUpdate());
+        assertEquals(Double.valueOf(47.0), sv1.getLatitude());
+        // sources are not modified
+        assertEquals(Double.valueOf(46.0), box1.getLatitude());
+
+        assertEquals(Set.of(42), merged.get("abc002").getSerials());
+        StateVector sv3 = merged.get("abc003");
+        assertEquals(Double.valueOf(100), sv3.getLastContact());
+        assertEquals(Double.valueOf(94), sv3.getLastPositionUpdate());
+        assertEquals(Double.valueOf(49.5), sv3.getLatitude());
+        assertSame(box4, merged.get("abc004"));
+        assertEquals(StateFingerprint.of(sv1), sv1.getFingerprint());
+    }
+}
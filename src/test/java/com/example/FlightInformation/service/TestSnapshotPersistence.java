@@ -0,0 +1,108 @@
+package com.example.FlightInformation.service;
+
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotPersistence;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.shared.SnapshotCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class TestSnapshotPersistence {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static PlaneStates snapshot(int time) {
+        StateVector sv = new StateVector("4b1805");
+        sv.setCallsign("SWR8    ");
+        sv.setLatitude(47.45);
+        sv.setLongitude(8.56);
+        sv.addSerial(1234);
+        sv.setPositionSource(StateVector.PositionSource.ADS_B);
+        PlaneStates states = new PlaneStates();
+        states.setTime(time);
+        states.setStateVectors(new ArrayList<>(List.of(sv)));
+        return states;
+    }
+
+    @Test
+    public void testWarmStart() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("snapshot.bin.gz");
+        int now = (int) (System.currentTimeMillis() / 1000);
+
+        SnapshotStore live = new SnapshotStore();
+        SimpleMeterRegistry liveRegistry = new SimpleMeterRegistry();
+        SnapshotPersistence persistence = new SnapshotPersistence(live, file, Duration.ofSeconds(60), Duration.ofMinutes(15), liveRegistry);
+        live.publish(snapshot(now - 30));
+        // within the persist interval, not written again
+        live.publish(snapshot(now - 20));
+        persistence.close();
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            assertEquals(now - 30, SnapshotCodec.decode(in.readAllBytes()).getTime());
+        }
+        assertEquals("live", liveRegistry.get("opensky.startup.first-answer").timeGauge().getId().getTag("source"));
+
+        SnapshotStore restarted = new SnapshotStore();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SnapshotPersistence warm = new SnapshotPersistence(restarted, file, Duration.ofSeconds(60), Duration.ofMinutes(15), registry);
+        assertTrue(warm.load());
+        warm.close();
+        assertEquals(now - 30, restarted.getLatest().getTime());
+        StateVector sv = restarted.getLatest().get("4b1805");
+        assertEquals("SWR8    ", sv.getCallsign());
+        assertEquals(Set.of(1234), sv.getSerials());
+        assertEquals("disk", registry.get("opensky.startup.first-answer").timeGauge().getId().getTag("source"));
+        assertTrue(registry.get("opensky.startup.first-answer").timeGauge().value(TimeUnit.MILLISECONDS) > 0);
+
+        // a live snapshot wins unless the persisted one is strictly newer. Published before the persistence is
+        // attached, so the live snapshot is not written to the file while it is loaded.
+        for (int time : new int[]{now, now - 30}) {
+            SnapshotStore racing = new SnapshotStore();
+            racing.publish(snapshot(time));
+            SnapshotPersistence late = new SnapshotPersistence(racing, file, Duration.ofSeconds(60), Duration.ofMinutes(15), new SimpleMeterRegistry());
+            assertFalse(late.load());
+            late.close();
+            assertEquals(time, racing.getLatest().getTime());
+        }
+    }
+
+    @Test
+    public void testMaxAge() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("snapshot.bin.gz");
+        SnapshotStore store = new SnapshotStore();
+        SnapshotPersistence persistence = new SnapshotPersistence(store, file, Duration.ofSeconds(60), Duration.ofMinutes(15), new SimpleMeterRegistry());
+        store.publish(snapshot((int) (System.currentTimeMillis() / 1000) - 3600));
+        persistence.close();
+
+        SnapshotStore restarted = new SnapshotStore();
+        SnapshotPersistence stale = new SnapshotPersistence(restarted, file, Duration.ofSeconds(60), Duration.ofMinutes(15), new SimpleMeterRegistry());
+        assertFalse(stale.load());
+        stale.close();
+        assertNull(restarted.getLatest());
+
+        // unreadable files, e.g. of an older format, are not loaded
+        Files.write(file, new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5});
+        SnapshotPersistence unreadable = new SnapshotPersistence(new SnapshotStore(), file, Duration.ofSeconds(60), Duration.ofMinutes(15), new SimpleMeterRegistry());
+        assertFalse(unreadable.load());
+        unreadable.close();
+
+        SnapshotPersistence missing = new SnapshotPersistence(new SnapshotStore(), file.resolveSibling("missing"), Duration.ofSeconds(60), Duration.ofMinutes(15), new SimpleMeterRegistry());
+        assertFalse(missing.load());
+        missing.close();
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.example.FlightInformation.service;
+
+import com.flightsinfo.tar1090.controller.OpenSkyApiController;
+import com.flightsinfo.tar1090.model.BoundingBox;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import com.flightsinfo.tar1090.ratelimit.QueryPlan;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.service.StatesPoller;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestStatesPoller {
+
+    @Test
+    public void testParseRegions() {
+        assertTrue(StatesPoller.parseRegions("").isEmpty());
+        assertTrue(StatesPoller.parseRegions(null).isEmpty());
+
+        List<BoundingBox> regions = StatesPoller.parseRegions("45.8,47.8,5.9,10.5; -34.2, -33.6, 150.8, 151.4");
+        assertEquals(List.of(new BoundingBox(45.8, 47.8, 5.9, 10.5), new BoundingBox(-34.2, -33.6, 150.8, 151.4)), regions);
+
+        // small regions are polled as tiles, for less than a world query
+        QueryPlan plan = new CreditBudgetPlanner(CreditBudgetPlanner.ANONYMOUS_DAILY_CREDITS).plan(regions, 864_000);
+        assertEquals(QueryPlan.Shape.TILES, plan.shape());
+        assertEquals(2, plan.creditsPerRefresh());
+
+        for (String invalid : new String[]{"45.8,47.8,5.9", "north,47.8,5.9,10.5", "95,97,5.9,10.5"}) {
+            try {
+                StatesPoller.parseRegions(invalid);
+                fail("Expected exception for " + invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testDisabledPollerNeverStarts() {
+        // e.g. started by the shared coordinator when this instance becomes leader
+        StatesPoller poller = new StatesPoller(new OpenSkyApiController(), new SnapshotStore(), false, true, 864_000, "", true, 500, new SimpleMeterRegistry());
+        poller.start();
+        assertFalse(poller.isRunning());
+    }
+}
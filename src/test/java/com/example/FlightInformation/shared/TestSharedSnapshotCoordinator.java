@@ -0,0 +1,130 @@
+package com.example.FlightInformation.shared;
+
+import com.flightsinfo.tar1090.mappers.OpenSkyStatesParser;
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.shared.SharedSnapshotCoordinator;
+import com.flightsinfo.tar1090.shared.SharedSnapshotFile;
+import com.flightsinfo.tar1090.shared.SnapshotCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestSharedSnapshotCoordinator {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static PlaneStates fixture() throws Exception {
+        return OpenSkyStatesParser.parse(Files.readAllBytes(Path.of("api_test", "states_all_090225_0419.json")));
+    }
+
+    private static void assertSameStates(PlaneStates expected, PlaneStates actual) {
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getStateVectors().size(), actual.getStateVectors().size());
+        Iterator<StateVector> it = actual.getStateVectors().iterator();
+        for (StateVector sv : expected.getStateVectors()) {
+            StateVector other = it.next();
+            assertEquals(sv, other);
+            assertEquals(sv.getSerials(), other.getSerials());
+            assertEquals(sv.getFingerprint(), other.getFingerprint());
+        }
+    }
+
+    @Test
+    public void testCodec() throws Exception {
+        PlaneStates states = fixture();
+        StateVector sv = new StateVector("abc001");
+        sv.setCallsign("Zürich");
+        sv.setSpi(true);
+        sv.setPositionSource(StateVector.PositionSource.FLARM);
+        sv.addSerial(-1);
+        sv.addSerial(42);
+        List<StateVector> vectors = new ArrayList<>(states.getStateVectors());
+        vectors.add(sv);
+        states.setStateVectors(vectors);
+        assertSameStates(states, SnapshotCodec.decode(SnapshotCodec.encode(states)));
+        assertFalse(SnapshotCodec.decode(SnapshotCodec.encode(states)).isPartial());
+
+        states.setPartial(true);
+        assertTrue(SnapshotCodec.decode(SnapshotCodec.encode(states)).isPartial());
+    }
+
+    @Test
+    public void testSharedFile() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("snapshot.shm");
+        try (SharedSnapshotFile writer = new SharedSnapshotFile(path, 16);
+             SharedSnapshotFile reader = new SharedSnapshotFile(path, 0)) {
+            assertEquals(16, reader.getCapacity());
+            assertNull(reader.read(-1));
+            assertFalse(writer.write(new byte[17]));
+            assertTrue(writer.write(new byte[]{1, 2, 3}));
+            SharedSnapshotFile.Entry entry = reader.read(-1);
+            assertArrayEquals(new byte[]{1, 2, 3}, entry.data());
+            assertNull(reader.read(entry.sequence()));
+            assertTrue(writer.write(new byte[]{4}));
+            assertArrayEquals(new byte[]{4}, reader.read(entry.sequence()).data());
+        }
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        AtomicInteger polling = new AtomicInteger();
+        SnapshotStore firstStore = new SnapshotStore();
+        SnapshotStore secondStore = new SnapshotStore();
+        SharedSnapshotCoordinator first = new SharedSnapshotCoordinator(firstStore, dir, 1 << 24, Duration.ofSeconds(1),
+                polling::incrementAndGet, polling::decrementAndGet, new SimpleMeterRegistry());
+        SharedSnapshotCoordinator second = new SharedSnapshotCoordinator(secondStore, dir, 1 << 24, Duration.ofSeconds(1),
+                polling::incrementAndGet, polling::decrementAndGet, new SimpleMeterRegistry());
+        firstStore.addListener(first);
+        secondStore.addListener(second);
+        try {
+            first.check();
+            second.check();
+            assertTrue(first.isLeader());
+            assertFalse(second.isLeader());
+            assertEquals(1, polling.get());
+            assertNull(secondStore.getLatest());
+
+            PlaneStates states = fixture();
+            firstStore.publish(states);
+            second.check();
+            assertSameStates(states, secondStore.getLatest().getStates());
+            IndexedSnapshot received = secondStore.getLatest();
+            second.check();
+            assertSame(received, secondStore.getLatest());
+
+            first.close();
+            assertEquals(0, polling.get());
+            second.check();
+            assertTrue(second.isLeader());
+            assertEquals(1, polling.get());
+
+            // the new leader shares its own snapshots, but not the one it received
+            PlaneStates next = new PlaneStates();
+            next.setTime(states.getTime() + 10);
+            next.setStateVectors(List.of(new StateVector("abc001")));
+            secondStore.publish(next);
+            try (SharedSnapshotFile file = new SharedSnapshotFile(dir.resolve("snapshot.shm"), 0)) {
+                assertSameStates(next, SnapshotCodec.decode(file.read(-1).data()));
+            }
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.FlightInformation.stats;
+
+import com.flightsinfo.tar1090.enums.StatDimension;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.stats.TrafficStatistics;
+import com.flightsinfo.tar1090.stats.WindowStats;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.FlightInformation.SnapshotFixtures.states;
+import static org.junit.Assert.*;
+
+public class TestTrafficStatistics {
+
+    static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+    static final Duration FIVE_MINUTES = Duration.ofMinutes(5);
+
+    /**
+     * Clock which only advances when told to
+     */
+    private static final class ManualClock extends Clock {
+        long seconds;
+
+        ManualClock(long seconds) {
+            this.seconds = seconds;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochSecond(seconds);
+        }
+    }
+
+    private static StateVector vector(String icao24, String country, Double altitude, boolean onGround) {
+        StateVector sv = new StateVector(icao24);
+        sv.setOriginCountry(country);
+        sv.setBaroAltitude(altitude);
+        sv.setVelocity(onGround ? 0.0 : 200.0);
+        sv.setOnGround(onGround);
+        sv.setPositionSource(StateVector.PositionSource.ADS_B);
+        return sv;
+    }
+
+    @Test
+    public void testWindows() {
+        TrafficStatistics stats = new TrafficStatistics(List.of(ONE_MINUTE, FIVE_MINUTES), Clock.fixed(Instant.ofEpochSecond(1000), ZoneOffset.UTC));
+
+        stats.add(states(1000,
+                vector("a", "Switzerland", 10500.0, false),
+                vector("b", "Switzerland", null, true),
+                vector("c", "Canada", 3000.0, false)));
+        stats.add(states(1030,
+                vector("a", "Switzerland", 10700.0, false),
+                vector("c", "Canada", 3500.0, false)));
+
+        WindowStats swiss = stats.get(ONE_MINUTE, StatDimension.ORIGIN_COUNTRY, "Switzerland");
+        assertEquals(2, swiss.snapshots());
+        assertEquals(3, swiss.observations());
+        assertEquals(1.5, swiss.averageCount(), 1e-9);
+        assertEquals(10600.0, swiss.averageAltitude(), 1e-9);
+        assertEquals(400.0 / 3, swiss.averageVelocity(), 1e-9);
+
+        assertEquals(5, stats.get(ONE_MINUTE, StatDimension.ALL, TrafficStatistics.ALL).observations());
+        assertEquals(1, stats.get(ONE_MINUTE, StatDimension.ON_GROUND, "true").observations());
+        assertEquals(2, stats.get(ONE_MINUTE, StatDimension.ALTITUDE_BAND, "10000-11000").observations());
+        assertEquals(1, stats.get(ONE_MINUTE, StatDimension.ALTITUDE_BAND, TrafficStatistics.UNKNOWN).observations());
+        assertEquals(5, stats.get(ONE_MINUTE, StatDimension.POSITION_SOURCE, "ADS_B").observations());
+
+        // a snapshot delivered again is not counted twice
+        stats.add(states(1030, vector("a", "Switzerland", 10700.0, false)));
+        assertEquals(2, stats.get(ONE_MINUTE, StatDimension.ALL, TrafficStatistics.ALL).snapshots());
+
+        // first snapshot drops out of the one minute window, but not out of the five minute window
+        stats.add(states(1060, vector("c", "Canada", 4000.0, false)));
+        Map<String, WindowStats> countries = stats.get(ONE_MINUTE, StatDimension.ORIGIN_COUNTRY);
+        assertEquals(2, countries.size());
+        assertEquals(1, countries.get("Switzerland").observations());
+        assertEquals(10700.0, countries.get("Switzerland").averageAltitude(), 1e-9);
+        assertEquals(2, countries.get("Canada").observations());
+        assertEquals(3, stats.get(FIVE_MINUTES, StatDimension.ORIGIN_COUNTRY, "Canada").observations());
+
+        // keys without observations disappear
+        stats.add(states(1200));
+        assertTrue(stats.get(ONE_MINUTE, StatDimension.ORIGIN_COUNTRY).isEmpty());
+        assertEquals(0, stats.get(ONE_MINUTE, StatDimension.ORIGIN_COUNTRY, "Canada").observations());
+        assertEquals(4, stats.get(FIVE_MINUTES, StatDimension.ALL, TrafficStatistics.ALL).snapshots());
+    }
+
+    @Test
+    public void testWindowsSlideWithoutSnapshots() {
+        ManualClock clock = new ManualClock(1000);
+        TrafficStatistics stats = new TrafficStatistics(List.of(ONE_MINUTE, FIVE_MINUTES), clock);
+        stats.add(states(1000, vector("a", "Switzerland", 10500.0, false)));
+        stats.add(states(1030, vector("b", "Canada", 3000.0, false)));
+        assertEquals(2, stats.get(ONE_MINUTE, StatDimension.ALL, TrafficStatistics.ALL).observations());
+
+        // polling stopped, time goes on
+        clock.seconds = 1070;
+        assertEquals(1, stats.get(ONE_MINUTE, StatDimension.ALL, TrafficStatistics.ALL).observations());
+        assertEquals(2, stats.get(FIVE_MINUTES, StatDimension.ALL, TrafficStatistics.ALL).observations());
+
+        clock.seconds = 1100;
+        WindowStats empty = stats.get(ONE_MINUTE, StatDimension.ALL, TrafficStatistics.ALL);
+        assertEquals(0, empty.snapshots());
+        assertEquals(0, empty.observations());
+        assertTrue(stats.get(ONE_MINUTE, StatDimension.ORIGIN_COUNTRY).isEmpty());
+        assertEquals(2, stats.get(FIVE_MINUTES, StatDimension.ORIGIN_COUNTRY).size());
+
+        clock.seconds = 1400;
+        assertTrue(stats.get(FIVE_MINUTES, StatDimension.ORIGIN_COUNTRY).isEmpty());
+
+        // the windows fill again once snapshots arrive
+        stats.add(states(1400, vector("a", "Switzerland", 10500.0, false)));
+        assertEquals(1, stats.get(ONE_MINUTE, StatDimension.ALL, TrafficStatistics.ALL).snapshots());
+    }
+
+    @Test
+    public void testAltitudeBand() {
+        assertEquals("0-1000", TrafficStatistics.altitudeBand(-20.0));
+        assertEquals("0-1000", TrafficStatistics.altitudeBand(999.9));
+        assertEquals("1000-2000", TrafficStatistics.altitudeBand(1000.0));
+        assertEquals("13000+", TrafficStatistics.altitudeBand(15000.0));
+        assertEquals(TrafficStatistics.UNKNOWN, TrafficStatistics.altitudeBand(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownWindow() {
+        new TrafficStatistics().get(Duration.ofMinutes(2), StatDimension.ALL, TrafficStatistics.ALL);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.FlightInformation.stream;
+
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.service.SnapshotStore;
+import com.flightsinfo.tar1090.stream.BoundedPublisher;
+import com.flightsinfo.tar1090.stream.OverflowPolicy;
+import com.flightsinfo.tar1090.stream.SnapshotPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestSnapshotPublisher {
+
+    /**
+     * Collects items, requesting them one by one once {@link #request} was called
+     */
+    private static class Collector<T> implements Flow.Subscriber<T> {
+        final BlockingQueue<Object> items = new LinkedBlockingQueue<>();
+        final CountDownLatch subscribed = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscribed.countDown();
+        }
+
+        void request(long n) throws InterruptedException {
+            assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+            subscription.request(n);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            items.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            items.add("complete");
+        }
+
+        List<Object> take(int n) throws InterruptedException {
+            List<Object> result = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                Object item = items.poll(5, TimeUnit.SECONDS);
+                assertNotNull("Timed out after " + result, item);
+                result.add(item);
+            }
+            return result;
+        }
+    }
+
+    private static BoundedPublisher<String> publisher(SimpleMeterRegistry registry) {
+        return new BoundedPublisher<>("test", s -> s.charAt(0), Duration.ofMillis(200), registry);
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPublisher<String> publisher = publisher(registry);
+        Collector<String> slow = new Collector<>();
+        Collector<String> fast = new Collector<>();
+        publisher.subscribe(slow, "slow", OverflowPolicy.DROP_OLDEST, 2);
+        publisher.subscribe(fast, "fast", OverflowPolicy.DROP_OLDEST, 16);
+        fast.request(Long.MAX_VALUE);
+        slow.subscribed.await(5, TimeUnit.SECONDS);
+
+        publisher.submitAll(List.of("a1", "a2", "a3", "a4", "a5"));
+        assertEquals(List.of("a1", "a2", "a3", "a4", "a5"), fast.take(5));
+        assertEquals(2.0, registry.get("opensky.stream.queued").tag("subscriber", "slow").gauge().value(), 0);
+        assertEquals(3.0, registry.get("opensky.stream.dropped").tag("subscriber", "slow").counter().count(), 0);
+        assertTrue(registry.get("opensky.stream.lag").tag("subscriber", "slow").timeGauge().value(TimeUnit.NANOSECONDS) > 0);
+
+        slow.request(1);
+        assertEquals(List.of("a4"), slow.take(1));
+        publisher.close();
+        slow.request(5);
+        assertEquals(List.of("a5", "complete"), slow.take(2));
+        assertEquals(List.of("complete"), fast.take(1));
+    }
+
+    @Test
+    public void testConflate() throws Exception {
+        BoundedPublisher<String> publisher = publisher(new SimpleMeterRegistry());
+        Collector<String> collector = new Collector<>();
+        publisher.subscribe(collector, "conflating", OverflowPolicy.CONFLATE, 2);
+        collector.subscribed.await(5, TimeUnit.SECONDS);
+        publisher.submitAll(List.of("a1", "b1", "a2", "b2", "c1", "c2"));
+        collector.request(Long.MAX_VALUE);
+        // b is kept in place with its latest item, a was evicted for c
+        assertEquals(List.of("b2", "c2"), collector.take(2));
+        publisher.submit("a3");
+        assertEquals(List.of("a3"), collector.take(1));
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPublisher<String> publisher = publisher(registry);
+        Collector<String> collector = new Collector<>();
+        publisher.subscribe(collector, "blocking", OverflowPolicy.BLOCK, 1);
+        collector.subscribed.await(5, TimeUnit.SECONDS);
+
+        // nobody consumes, the second item waits for max-block and is dropped
+        long start = System.nanoTime();
+        publisher.submitAll(List.of("a1", "a2"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1.0, registry.get("opensky.stream.dropped").tag("subscriber", "blocking").counter().count(), 0);
+
+        // a consumer which keeps up loses nothing
+        collector.request(Long.MAX_VALUE);
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add("b" + i);
+        }
+        publisher.submitAll(items);
+        List<Object> expected = new ArrayList<>(List.of("a1"));
+        expected.addAll(items);
+        assertEquals(expected, collector.take(101));
+        assertEquals(1.0, registry.get("opensky.stream.dropped").tag("subscriber", "blocking").counter().count(), 0);
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        BoundedPublisher<String> publisher = publisher(new SimpleMeterRegistry());
+        Collector<String> collector = new Collector<>();
+        publisher.subscribe(collector);
+        collector.request(0);
+        assertTrue(collector.take(1).getFirst() instanceof IllegalArgumentException);
+        for (int i = 0; i < 100 && publisher.getSubscriberCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    public void testUpdates() throws Exception {
+        SnapshotStore store = new SnapshotStore();
+        SnapshotPublisher publisher = new SnapshotPublisher(4, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        store.addListener(publisher);
+        Collector<PlaneStates> states = new Collector<>();
+        Collector<StateVector> updates = new Collector<>();
+        publisher.states().subscribe(states);
+        publisher.updates().subscribe(updates, "updates", OverflowPolicy.CONFLATE, 1000);
+        states.request(Long.MAX_VALUE);
+        updates.request(Long.MAX_VALUE);
+
+        StateVector a = new StateVector("abc001");
+        a.setLatitude(47.0);
+        StateVector b = new StateVector("abc002");
+        PlaneStates first = new PlaneStates();
+        first.setTime(10);
+        first.setStateVectors(List.of(a, b));
+        store.publish(first);
+        assertSame(first, states.take(1).getFirst());
+        assertEquals(2, updates.take(2).size());
+
+        StateVector moved = new StateVector("abc001");
+        moved.setLatitude(47.1);
+        PlaneStates second = new PlaneStates();
+        second.setTime(20);
+        second.setStateVectors(List.of(moved, new StateVector("abc002")));
+        store.publish(second);
+        assertSame(second, states.take(1).getFirst());
+        assertEquals(List.of(moved), updates.take(1));
+
+        publisher.close();
+        assertEquals(List.of("complete"), updates.take(1));
+        assertTrue(updates.items.isEmpty());
+    }
+}
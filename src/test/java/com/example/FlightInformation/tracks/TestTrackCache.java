@@ -0,0 +1,73 @@
+package com.example.FlightInformation.tracks;
+
+import com.flightsinfo.tar1090.model.FlightTrack;
+import com.flightsinfo.tar1090.tracks.TrackCache;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestTrackCache {
+
+    private static FlightTrack track(String icao24, int start, int waypoints) {
+        int[] time = new int[waypoints];
+        for (int i = 0; i < waypoints; i++) {
+            time[i] = start + i * 60;
+        }
+        float[] empty = new float[waypoints];
+        return new FlightTrack(icao24, null, start, start + (waypoints - 1) * 60L, time, empty, empty, empty, empty,
+                new long[(waypoints + 63) / 64]);
+    }
+
+    @Test
+    public void testLookupWithinFlight() {
+        TrackCache cache = new TrackCache(1000);
+        FlightTrack morning = track("3c4b26", 1000, 10);
+        FlightTrack evening = track("3c4b26", 50000, 10);
+        cache.put(morning);
+        cache.put(evening);
+
+        assertSame(morning, cache.get("3c4b26", 1000));
+        assertSame(morning, cache.get("3c4b26", 1200));
+        assertSame(evening, cache.get("3c4b26", 50540));
+        assertNull(cache.get("3c4b26", 2000));
+        assertNull(cache.get("3c4b26", 999));
+        assertNull(cache.get("abcdef", 1000));
+        assertEquals(3, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testLiveFlightNotCached() {
+        TrackCache cache = new TrackCache(1000);
+        long now = 100_000;
+        // looked up with a time inside a flight which is still in the air
+        FlightTrack live = track("3c4b26", 90_000, 160);
+        assertTrue(live.covers(95_000));
+        assertFalse(cache.putIfCompleted(live, now));
+        assertNull(cache.get("3c4b26", 95_000));
+        assertEquals(0, cache.size());
+
+        // the same flight once it landed more than 30 minutes ago
+        FlightTrack landed = track("3c4b26", 90_000, 100);
+        assertTrue(cache.putIfCompleted(landed, now));
+        assertSame(landed, cache.get("3c4b26", 95_000));
+    }
+
+    @Test
+    public void testEvictionByWaypoints() {
+        TrackCache cache = new TrackCache(25);
+        FlightTrack a = track("aaaaaa", 0, 10);
+        FlightTrack b = track("bbbbbb", 0, 10);
+        cache.put(a);
+        cache.put(b);
+        // touch a, so b is the least recently used
+        assertSame(a, cache.get("aaaaaa", 0));
+
+        cache.put(track("cccccc", 0, 10));
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.getWaypoints());
+        assertNotNull(cache.get("aaaaaa", 0));
+        assertNull(cache.get("bbbbbb", 0));
+        assertNotNull(cache.get("cccccc", 0));
+    }
+}
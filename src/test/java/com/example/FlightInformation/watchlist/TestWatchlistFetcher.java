@@ -0,0 +1,187 @@
+package com.example.FlightInformation.watchlist;
+
+import com.flightsinfo.tar1090.model.IndexedSnapshot;
+import com.flightsinfo.tar1090.model.PlaneStates;
+import com.flightsinfo.tar1090.model.StateVector;
+import com.flightsinfo.tar1090.ratelimit.CreditBudgetPlanner;
+import com.flightsinfo.tar1090.ratelimit.RateLimitExceededException;
+import com.flightsinfo.tar1090.watchlist.WatchlistFetcher;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.FlightInformation.SnapshotFixtures.states;
+import static org.junit.Assert.*;
+
+public class TestWatchlistFetcher {
+
+    static final Clock NOW = Clock.fixed(Instant.ofEpochSecond(1_700_000_000), ZoneOffset.UTC);
+
+    static List<String> watchlist(int size) {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            addresses.add(String.format("%06x", 0x3c0000 + i));
+        }
+        return addresses;
+    }
+
+    @Test
+    public void testBatches() {
+        List<String> addresses = watchlist(1000);
+        List<List<String>> batches = WatchlistFetcher.batches(addresses, 500);
+        // "icao24=3c0000" is 13 characters, 35 parameters and 34 separators fit
+        assertEquals(35, batches.get(0).size());
+        assertEquals(29, batches.size());
+        List<String> joined = new ArrayList<>();
+        for (List<String> batch : batches) {
+            assertTrue(batch.size() * 14 - 1 <= 500);
+            joined.addAll(batch);
+        }
+        assertEquals(addresses, joined);
+
+        assertTrue(WatchlistFetcher.batches(List.of(), 500).isEmpty());
+        assertEquals(1, WatchlistFetcher.batches(List.of("abcdef"), 13).size());
+    }
+
+    @Test
+    public void testFetchMergesBatches() throws IOException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        WatchlistFetcher fetcher = new WatchlistFetcher((time, icao24) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            running.decrementAndGet();
+            sizes.add(icao24.size());
+            // only every other aircraft is airborne, the first batch is from an older refresh
+            List<String> found = new ArrayList<>();
+            for (int i = 0; i < icao24.size(); i += 2) {
+                found.add(icao24.get(i));
+            }
+            return states(icao24.getFirst().equals("3c0000") ? 990 : 1000, found);
+        }, 1000, 3, NOW);
+
+        List<String> addresses = new ArrayList<>(watchlist(5000));
+        // duplicates and mixed case are requested once
+        addresses.add("3C0000");
+        addresses.add(" 3c0001 ");
+        PlaneStates states = fetcher.fetch(0, addresses);
+
+        assertEquals(71, fetcher.getRequestedBatches());
+        assertEquals(5000, sizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(1000, states.getTime());
+        Set<String> found = new HashSet<>();
+        for (StateVector sv : states.getStateVectors()) {
+            assertTrue(found.add(sv.getIcao24()));
+        }
+        assertTrue(found.contains("3c0000"));
+        // every other aircraft of each batch of 71
+        assertEquals(70 * 36 + 15, found.size());
+    }
+
+    @Test
+    public void testFromSnapshot() throws IOException {
+        List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+        WatchlistFetcher fetcher = new WatchlistFetcher((time, icao24) -> {
+            loaded.addAll(icao24);
+            return states(time, icao24);
+        }, 1000, 2, NOW);
+        PlaneStates world = states(1234, watchlist(100));
+        IndexedSnapshot[] latest = {new IndexedSnapshot(world, NOW.millis() - 5000)};
+        fetcher.setSnapshotSource(() -> latest[0], Duration.ofSeconds(30));
+
+        PlaneStates states = fetcher.fetch(0, List.of("3c0001", "3c0063", "ffffff"));
+        assertTrue(loaded.isEmpty());
+        assertEquals(1, fetcher.getSnapshotAnswers());
+        assertEquals(1234, states.getTime());
+        assertEquals(2, states.getStateVectors().size());
+
+        // historical states come from upstream
+        fetcher.fetch(1000, List.of("3c0001"));
+        assertEquals(List.of("3c0001"), loaded);
+
+        // so do the most recent states if the snapshot is outdated
+        latest[0] = new IndexedSnapshot(world, NOW.millis() - 60000);
+        fetcher.fetch(0, List.of("3c0002"));
+        assertEquals(List.of("3c0001", "3c0002"), loaded);
+        assertEquals(1, fetcher.getSnapshotAnswers());
+
+        // a fresh snapshot of polled regions misses the aircraft outside of them
+        PlaneStates regional = states(1240, List.of("3c0001"));
+        regional.setPartial(true);
+        latest[0] = new IndexedSnapshot(regional, NOW.millis() - 5000);
+        states = fetcher.fetch(0, List.of("3c0001", "3c0003"));
+        assertEquals(List.of("3c0001", "3c0002", "3c0001", "3c0003"), loaded);
+        assertEquals(2, states.getStateVectors().size());
+        assertEquals(1, fetcher.getSnapshotAnswers());
+    }
+
+    @Test
+    public void testFailure() {
+        WatchlistFetcher fetcher = new WatchlistFetcher((time, icao24) -> {
+            if (icao24.contains("3c00a0")) {
+                throw new IOException("boom");
+            }
+            return null;
+        }, 1000, 2, NOW);
+        try {
+            fetcher.fetch(0, watchlist(200));
+            fail("Expected exception");
+        } catch (IOException e) {
+            assertEquals("boom", e.getMessage());
+        }
+
+        // batches waiting for a permit are cancelled once one failed
+        WatchlistFetcher sequential = new WatchlistFetcher((time, icao24) -> {
+            throw new IOException("first");
+        }, 1000, 1, NOW);
+        try {
+            sequential.fetch(0, watchlist(5000));
+            fail("Expected exception");
+        } catch (IOException e) {
+            assertEquals("first", e.getMessage());
+        }
+        assertEquals(1, sequential.getRequestedBatches());
+    }
+
+    @Test
+    public void testCredits() throws IOException {
+        List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+        WatchlistFetcher fetcher = new WatchlistFetcher((time, icao24) -> {
+            loaded.addAll(icao24);
+            return states(time, icao24);
+        }, 1000, 2, NOW);
+        CreditBudgetPlanner budget = new CreditBudgetPlanner(100, NOW);
+        fetcher.setCreditBudget(budget);
+
+        // 71 batches at 4 credits each
+        try {
+            fetcher.fetch(1000, watchlist(5000));
+            fail("Expected exception");
+        } catch (RateLimitExceededException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("284 credits"));
+            assertEquals(budget.getMillisUntilReset() / 1000, e.getRetryAfterSeconds());
+        }
+        assertTrue(loaded.isEmpty());
+        assertEquals(0, fetcher.getRequestedBatches());
+
+        // 25 batches fit
+        fetcher.fetch(1000, watchlist(25 * 71));
+        assertEquals(25, fetcher.getRequestedBatches());
+    }
+}